@@ -9,13 +9,37 @@ import edu.njit.jerse.daikonplusplus.filter.TestInvariantFilter;
 import edu.njit.jerse.daikonplusplus.inject.DpRuntimeWriter;
 import edu.njit.jerse.daikonplusplus.inject.FileWriteCoordinator;
 import edu.njit.jerse.daikonplusplus.inject.JavaParserInjector;
+import edu.njit.jerse.daikonplusplus.llm.CachingLlmClient;
+import edu.njit.jerse.daikonplusplus.llm.CoalescingLlmClient;
+import edu.njit.jerse.daikonplusplus.llm.HedgingLlmClient;
+import edu.njit.jerse.daikonplusplus.llm.InvariantsJson;
+import edu.njit.jerse.daikonplusplus.llm.LlmDeadline;
 import edu.njit.jerse.daikonplusplus.llm.LlmInvariantGenerator;
+import edu.njit.jerse.daikonplusplus.llm.LlmMetrics;
+import edu.njit.jerse.daikonplusplus.llm.LlmUsage;
+import edu.njit.jerse.daikonplusplus.llm.ModelCascade;
+import edu.njit.jerse.daikonplusplus.llm.PointPriority;
+import edu.njit.jerse.daikonplusplus.llm.RateLimitedLlmClient;
+import edu.njit.jerse.daikonplusplus.llm.SampleEnsemble;
+import edu.njit.jerse.daikonplusplus.llm.prompt.ContextPacker;
+import edu.njit.jerse.daikonplusplus.llm.prompt.PromptBatch;
+import edu.njit.jerse.daikonplusplus.llm.prompt.PromptContext;
+import edu.njit.jerse.daikonplusplus.llm.prompt.PromptLayout;
 import edu.njit.jerse.daikonplusplus.model.*;
+import edu.njit.jerse.daikonplusplus.parse.IndexedTypeSolver;
 import edu.njit.jerse.daikonplusplus.parse.JavaProjectScanner;
+import edu.njit.jerse.daikonplusplus.parse.ProjectTypeIndex;
+import edu.njit.jerse.daikonplusplus.parse.SymbolIndex;
+import edu.njit.jerse.daikonplusplus.parse.context.CallSiteIndex;
+import edu.njit.jerse.daikonplusplus.parse.context.ContextEngine;
 import edu.njit.jerse.daikonplusplus.parse.context.ContextKind;
-import edu.njit.jerse.daikonplusplus.parse.context.ContextUtils;
+import edu.njit.jerse.daikonplusplus.parse.context.ExtractedContext;
+import edu.njit.jerse.daikonplusplus.parse.context.ResolverPool;
+import edu.njit.jerse.daikonplusplus.parse.context.TrivialMethodClassifier;
 import edu.njit.jerse.daikonplusplus.results.InvariantRegistry;
 import edu.njit.jerse.daikonplusplus.results.LogParser;
+import edu.njit.jerse.daikonplusplus.util.AsyncLimiter;
+import edu.njit.jerse.daikonplusplus.util.ExpressionCanonicalizer;
 import java.io.IOException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -96,7 +120,10 @@ public final class App {
       java.util.concurrent.ConcurrentHashMap.newKeySet();
 
   public static final class FilterStats {
+    public final AtomicLong llmFailures = new AtomicLong();
     public final AtomicLong rawFromLlm = new AtomicLong();
+    public final AtomicLong dropUnknownPoint = new AtomicLong();
+    public final AtomicLong dropNoAgreement = new AtomicLong();
     public final AtomicLong dropEmpty = new AtomicLong();
     public final AtomicLong dropParse = new AtomicLong();
     public final AtomicLong dropQuality = new AtomicLong();
@@ -104,18 +131,39 @@ public final class App {
     public final AtomicLong dropMaxK = new AtomicLong();
     public final AtomicLong dropRunDedup = new AtomicLong();
     public final AtomicLong dropRegistryDedup = new AtomicLong();
+    public final AtomicLong dropAfterDeadline = new AtomicLong();
   }
 
   private static String keyFor(ProgramPoint pt, String expr) {
-    String norm = expr.trim().replaceAll("\\s+", " "); // normalize whitespace
+    String norm = ExpressionCanonicalizer.canonical(expr);
     return pt.kind().name() + "|" + pt.elementId().toString() + "|" + norm;
   }
 
+  /**
+   * Resets the process-wide counters reported in the run summary, so that a run in a JVM that
+   * already ran the pipeline reports its own totals.
+   */
+  private static void resetRunCounters() {
+    CachingLlmClient.resetCounters();
+    CoalescingLlmClient.resetCounters();
+    RateLimitedLlmClient.resetCounters();
+    HedgingLlmClient.resetCounters();
+    InvariantsJson.resetCounters();
+    LlmUsage.resetCounters();
+    SampleEnsemble.resetCounters();
+    ModelCascade.resetCounters();
+    TrivialMethodClassifier.resetCounters();
+    ContextPacker.resetCounters();
+    ResolverPool.shared().resetCounters();
+  }
+
   public static void main(String[] args) throws Exception {
     // Read config fresh each invocation so in-process test runs pick up updated system properties.
     final DpConfig BASE_CFG = DpConfig.fromEnv();
     // reset per pipeline invocation
     RUN_DEDUP.clear();
+    ResolverPool.shared().clearCache();
+    resetRunCounters();
     BASE_CFG.printSummary();
 
     final Path externalMainCompileScript =
@@ -376,6 +424,11 @@ public final class App {
     if (!cfg.scanIncludes().isEmpty()) {
       System.out.println(">>> Scan include filter: " + cfg.scanIncludes());
     }
+    // read before the registry is reset: the previous run's outcomes rank the points
+    final Map<String, Long> previousExecutions =
+        BASE_CFG.llmPriority().contains("frequency")
+            ? InvariantRegistry.executedCountsByElement(cfg.registryPath(), cfg.outcomesPath())
+            : Map.of();
     if (BASE_CFG.registryReset()) {
       try {
         java.nio.file.Files.deleteIfExists(BASE_CFG.registryPath());
@@ -402,7 +455,19 @@ public final class App {
     CombinedTypeSolver solver = new CombinedTypeSolver();
 
     solver.add(new ReflectionTypeSolver());
-    solver.add(new JavaParserTypeSolver(mainSrcRoot.toFile()));
+    if (cfg.symbolIndexDir() != null) {
+      SymbolIndex symbolIndex =
+          SymbolIndex.loadOrBuild(mainSrcRoot, Path.of(cfg.symbolIndexDir()));
+      System.out.println(
+          ">>> Symbol index: "
+              + symbolIndex.size()
+              + " names "
+              + (symbolIndex.builtThisRun() ? "built into " : "loaded from ")
+              + symbolIndex.file());
+      solver.add(new IndexedTypeSolver(symbolIndex));
+    } else {
+      solver.add(new JavaParserTypeSolver(mainSrcRoot.toFile()));
+    }
 
     JavaSymbolSolver symbolSolver = new JavaSymbolSolver(solver);
 
@@ -417,6 +482,8 @@ public final class App {
     // Scan only MAIN sources for program points
     System.out.println(">>> Scanning MAIN sources under (WORKING COPY): " + mainSrcRoot);
     final List<ProgramPoint> allPoints = scanner.scanMethodEntryExit(mainSrcRoot);
+    System.out.println(
+        ">>> Type index: " + ProjectTypeIndex.forSourceRoot(mainSrcRoot).size() + " type names");
 
     final Set<String> scanIncludes = cfg.scanIncludes();
 
@@ -439,91 +506,304 @@ public final class App {
     System.out.println(
         ">>> Points — ENTRY: " + nEntry + "  EXIT: " + nExit + "  TOTAL: " + points.size());
 
+    // propose the most valuable points first, so that the LLM deadline only cuts low-value work
+    final List<ProgramPoint> prioritized =
+        PointPriority.sort(
+            points,
+            PointPriority.scorers(
+                BASE_CFG.llmPriority(),
+                BASE_CFG.llmPriorityIncludes(),
+                scanner.methodFacts(),
+                previousExecutions));
+    // with the prefix layout, a class's points go out together while its context is cached
+    final List<ProgramPoint> proposalOrder =
+        PromptLayout.parse(BASE_CFG.llmPromptLayout()) == PromptLayout.PREFIX
+            ? groupByClass(prioritized)
+            : prioritized;
+    if (!BASE_CFG.llmPriority().isEmpty() && !proposalOrder.isEmpty()) {
+      System.out.println(
+          ">>> Proposal priority "
+              + BASE_CFG.llmPriority()
+              + " — first: "
+              + proposalOrder.get(0).elementId()
+              + "  previous-run methods with executed invariants: "
+              + previousExecutions.size());
+    }
+
     // --- Phase 1: parallel LLM proposals ---
+    // Contexts are extracted on a CPU-sized pool; LLM requests are asynchronous and bounded by
+    // their own in-flight limit, so concurrency is not capped by the number of cores.
     final ExecutorService pool = Executors.newFixedThreadPool(cfg.threads());
-    final CompletionService<List<InvariantRecord>> ecs = new ExecutorCompletionService<>(pool);
+    final AsyncLimiter llmInFlight = new AsyncLimiter(BASE_CFG.llmMaxInFlight());
+    final BlockingQueue<Future<List<InvariantRecord>>> completed = new LinkedBlockingQueue<>();
     final List<Future<List<InvariantRecord>>> allFutures = new ArrayList<>();
 
     final FilterStats filterStats = new FilterStats();
-    for (ProgramPoint pt : points) {
-      allFutures.add(
-          ecs.submit(() -> processPoint(pt, mainSrcRoot, llm, registry, BASE_CFG, filterStats)));
+    String callSitesIndexPath = BASE_CFG.callSitesIndexPath();
+    if (callSitesIndexPath == null
+        && BASE_CFG.callGraphDir() != null
+        && BASE_CFG.enabledContexts().contains(ContextKind.CALL_SITE)) {
+      long t0 = System.nanoTime();
+      CallSiteIndex callSites =
+          CallSiteIndex.loadOrBuild(
+              mainSrcRoot, Path.of(BASE_CFG.callGraphDir()), config, cfg.threads());
+      System.out.println(
+          ">>> Call-site index: "
+              + callSites.size()
+              + " callees "
+              + (callSites.builtThisRun()
+                  ? "built (resolved: "
+                      + callSites.resolvedCalls()
+                      + " matched by name/arity: "
+                      + callSites.matchedCalls()
+                      + ") in "
+                      + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0)
+                      + " ms into "
+                  : "loaded from ")
+              + callSites.file());
+      callSitesIndexPath = callSites.file().toString();
     }
 
-    final Map<Path, List<InvariantRecord>> byFile = new ConcurrentHashMap<>();
-    int submitted = allFutures.size();
-    int received = 0;
-    int totalSpecs = 0;
+    final ContextEngine contexts =
+        new ContextEngine(
+            BASE_CFG.enabledContexts(),
+            callSitesIndexPath,
+            BASE_CFG.ioExamplesIndexPath(),
+            BASE_CFG.trivialMethodTemplates());
+    // a parsed file is released once the methods of its points have bundles
+    contexts.expect(proposalOrder, mainSrcRoot);
 
+    // requests are cut off at the phase deadline rather than outliving it
     final long totalTimeoutSec = BASE_CFG.llmTotalTimeoutSec();
-    final long pollStepMs = BASE_CFG.llmPollStepMs();
     final long deadlineNs = System.nanoTime() + TimeUnit.SECONDS.toNanos(totalTimeoutSec);
-    while (received < submitted) {
-      long remainingNs = deadlineNs - System.nanoTime();
-      if (remainingNs <= 0) {
-        System.err.println(
-            "LLM phase timed out; proceeding with completed tasks: " + received + "/" + submitted);
-        break;
+    final Map<Path, List<InvariantRecord>> byFile = new ConcurrentHashMap<>();
+    int totalSpecs = 0;
+    LlmDeadline.set(deadlineNs);
+    try {
+      if (BASE_CFG.llmMetricsFile() != null) {
+        try {
+          LlmMetrics.start(
+              Path.of(BASE_CFG.llmMetricsFile()),
+              BASE_CFG.llmPricePromptPerMTok(),
+              BASE_CFG.llmPriceCachedPerMTok(),
+              BASE_CFG.llmPriceCompletionPerMTok());
+        } catch (IOException ioe) {
+          System.err.println("Warning: couldn't open LLM metrics file: " + ioe.getMessage());
+        }
       }
-      Future<List<InvariantRecord>> f =
-          ecs.poll(
-              Math.min(remainingNs, TimeUnit.MILLISECONDS.toNanos(pollStepMs)),
-              TimeUnit.NANOSECONDS);
-
-      if (f == null) {
+      final String batchMode = BASE_CFG.llmBatchMode();
+      if (batchMode.equals("off")) {
+        for (ProgramPoint pt : proposalOrder) {
+          CompletableFuture<List<InvariantRecord>> f =
+              processPoint(
+                  pt,
+                  mainSrcRoot,
+                  llm,
+                  contexts,
+                  registry,
+                  pool,
+                  llmInFlight,
+                  BASE_CFG.trivialMethodSkipEmpty(),
+                  filterStats);
+          f.whenComplete((recs, err) -> completed.add(f));
+          allFutures.add(f);
+        }
+      } else {
+        Map<String, List<ProgramPoint>> groups = new LinkedHashMap<>();
+        for (ProgramPoint pt : proposalOrder) {
+          groups.computeIfAbsent(batchKey(pt, batchMode), __ -> new ArrayList<>()).add(pt);
+        }
+        for (List<ProgramPoint> group : groups.values()) {
+          for (CompletableFuture<List<InvariantRecord>> f :
+              processBatch(
+                  group,
+                  mainSrcRoot,
+                  llm,
+                  contexts,
+                  registry,
+                  pool,
+                  llmInFlight,
+                  BASE_CFG.trivialMethodSkipEmpty(),
+                  BASE_CFG.llmBatchTokenBudget(),
+                  filterStats)) {
+            f.whenComplete((recs, err) -> completed.add(f));
+            allFutures.add(f);
+          }
+        }
         System.out.println(
-            "... waiting on LLM tasks: "
-                + received
-                + "/"
-                + submitted
-                + " done ("
-                + TimeUnit.NANOSECONDS.toSeconds(remainingNs)
-                + "s left)");
-        continue;
+            ">>> LLM batching ("
+                + batchMode
+                + "): "
+                + points.size()
+                + " points in "
+                + groups.size()
+                + " groups");
       }
 
-      try {
-        List<InvariantRecord> recs = f.get();
-        received++;
-        if (recs == null || recs.isEmpty()) continue;
-        totalSpecs += recs.size();
-        Path file = mainSrcRoot.resolve(recs.get(0).sourceFile()).normalize();
-        byFile
-            .computeIfAbsent(file, __ -> Collections.synchronizedList(new ArrayList<>()))
-            .addAll(recs);
-      } catch (ExecutionException ee) {
-        received++;
-        Throwable cause = ee.getCause();
-        String msg =
-            (cause == null)
-                ? ee.toString()
-                : (cause.getMessage() == null ? cause.toString() : cause.getMessage());
-        System.err.println("LLM task failed: " + msg);
+      int submitted = allFutures.size();
+      int received = 0;
+
+      final long pollStepMs = BASE_CFG.llmPollStepMs();
+      while (received < submitted) {
+        long remainingNs = deadlineNs - System.nanoTime();
+        if (remainingNs <= 0) {
+          System.err.println(
+              "LLM phase timed out; proceeding with completed tasks: "
+                  + received
+                  + "/"
+                  + submitted);
+          break;
+        }
+        Future<List<InvariantRecord>> f =
+            completed.poll(
+                Math.min(remainingNs, TimeUnit.MILLISECONDS.toNanos(pollStepMs)),
+                TimeUnit.NANOSECONDS);
+
+        if (f == null) {
+          System.out.println(
+              "... waiting on LLM tasks: "
+                  + received
+                  + "/"
+                  + submitted
+                  + " done ("
+                  + TimeUnit.NANOSECONDS.toSeconds(remainingNs)
+                  + "s left)");
+          continue;
+        }
+
+        try {
+          List<InvariantRecord> recs = f.get();
+          received++;
+          if (recs == null || recs.isEmpty()) continue;
+          totalSpecs += recs.size();
+          Path file = mainSrcRoot.resolve(recs.get(0).sourceFile()).normalize();
+          byFile
+              .computeIfAbsent(file, __ -> Collections.synchronizedList(new ArrayList<>()))
+              .addAll(recs);
+        } catch (ExecutionException ee) {
+          received++;
+          Throwable cause = ee.getCause();
+          String msg =
+              (cause == null)
+                  ? ee.toString()
+                  : (cause.getMessage() == null ? cause.toString() : cause.getMessage());
+          System.err.println("LLM task failed: " + msg);
+        }
       }
-    }
 
-    for (Future<List<InvariantRecord>> f : allFutures) {
-      if (!f.isDone()) f.cancel(true);
+      for (Future<List<InvariantRecord>> f : allFutures) {
+        if (!f.isDone()) f.cancel(true);
+      }
+      pool.shutdownNow();
+    } finally {
+      // clients used after this run must not inherit its deadline
+      LlmDeadline.clear();
+    }
+    // points cut off by the deadline will not be extracted; drop the ASTs kept for them
+    contexts.releaseFiles();
+    ResolverPool.shared().clearCache();
+    System.out.println(
+        ">>> LLM requests — peak in flight: "
+            + llmInFlight.maxObserved()
+            + " (limit "
+            + llmInFlight.limit()
+            + ")");
+    if (HedgingLlmClient.hedged() > 0) {
+      System.out.println(
+          ">>> LLM hedging — duplicates sent: "
+              + HedgingLlmClient.hedged()
+              + "  answered first: "
+              + HedgingLlmClient.hedgeWins());
+    }
+    if (SampleEnsemble.samples() > 0) {
+      System.out.println(
+          ">>> LLM ensemble — samples requested: "
+              + SampleEnsemble.samples()
+              + "  cancelled after consensus: "
+              + SampleEnsemble.cancelled());
+    }
+    if (ModelCascade.points() > 0) {
+      System.out.println(
+          ">>> LLM cascade — points sent to the first model: "
+              + ModelCascade.points()
+              + "  escalated: "
+              + ModelCascade.escalated()
+              + " ("
+              + Math.round(100.0 * ModelCascade.escalated() / ModelCascade.points())
+              + "%)");
+    }
+    if (LlmUsage.responses() > 0) {
+      long prompt = LlmUsage.promptTokens();
+      long cached = LlmUsage.cachedPromptTokens();
+      System.out.println(
+          ">>> LLM tokens — prompt: "
+              + prompt
+              + " (cached: "
+              + cached
+              + ", "
+              + (prompt == 0 ? 0 : Math.round(100.0 * cached / prompt))
+              + "%)  completion: "
+              + LlmUsage.completionTokens());
+    }
+    if (InvariantsJson.salvaged() > 0) {
+      System.out.println(
+          ">>> LLM — malformed responses salvaged: " + InvariantsJson.salvaged());
     }
-    pool.shutdownNow();
+    if (CoalescingLlmClient.coalesced() > 0) {
+      System.out.println(
+          ">>> LLM coalescing — shared an identical pending call: "
+              + CoalescingLlmClient.coalesced()
+              + " of "
+              + CoalescingLlmClient.requests()
+              + " requests");
+    }
+    if (RateLimitedLlmClient.requests() > 0) {
+      System.out.println(
+          ">>> LLM rate control — sent: "
+              + RateLimitedLlmClient.requests()
+              + "  throttled: "
+              + RateLimitedLlmClient.throttled()
+              + "  retries: "
+              + RateLimitedLlmClient.retries()
+              + "  gave up: "
+              + RateLimitedLlmClient.gaveUp()
+              + "  concurrency: "
+              + RateLimitedLlmClient.concurrencyLimit()
+              + " (peak "
+              + RateLimitedLlmClient.peakConcurrencyLimit()
+              + ")");
+    }
+    LlmMetrics.finishRun();
 
     long passedLlm =
         filterStats.rawFromLlm.get()
+            - filterStats.dropUnknownPoint.get()
+            - filterStats.dropNoAgreement.get()
             - filterStats.dropEmpty.get()
             - filterStats.dropParse.get()
             - filterStats.dropQuality.get()
             - filterStats.dropPerPointDedup.get()
             - filterStats.dropMaxK.get();
     long totalDropped =
-        filterStats.dropEmpty.get()
+        filterStats.dropUnknownPoint.get()
+            + filterStats.dropNoAgreement.get()
+            + filterStats.dropEmpty.get()
             + filterStats.dropParse.get()
             + filterStats.dropQuality.get()
             + filterStats.dropPerPointDedup.get()
             + filterStats.dropMaxK.get()
             + filterStats.dropRunDedup.get()
-            + filterStats.dropRegistryDedup.get();
+            + filterStats.dropRegistryDedup.get()
+            + filterStats.dropAfterDeadline.get();
     System.out.println(">>> LLM filter breakdown:");
+    System.out.println("    failed LLM requests:       " + filterStats.llmFailures.get());
     System.out.println("    raw from LLM:              " + filterStats.rawFromLlm.get());
+    if (filterStats.dropUnknownPoint.get() > 0) {
+      System.out.println("    dropped (unknown point):   " + filterStats.dropUnknownPoint.get());
+    }
+    if (filterStats.dropNoAgreement.get() > 0) {
+      System.out.println("    dropped (no agreement):    " + filterStats.dropNoAgreement.get());
+    }
     System.out.println("    dropped (empty expr):      " + filterStats.dropEmpty.get());
     System.out.println("    dropped (parse fail):      " + filterStats.dropParse.get());
     System.out.println("    dropped (quality filter):  " + filterStats.dropQuality.get());
@@ -532,8 +812,70 @@ public final class App {
     System.out.println("    → passed LLM filters:      " + passedLlm);
     System.out.println("    dropped (run dedup):       " + filterStats.dropRunDedup.get());
     System.out.println("    dropped (registry dedup):  " + filterStats.dropRegistryDedup.get());
+    if (filterStats.dropAfterDeadline.get() > 0) {
+      System.out.println("    dropped (after deadline):  " + filterStats.dropAfterDeadline.get());
+    }
     System.out.println("    → total dropped:           " + totalDropped);
     System.out.println("    → proposed (into injection): " + totalSpecs);
+    if (TrivialMethodClassifier.answered() > 0) {
+      StringBuilder shapes = new StringBuilder();
+      for (TrivialMethodClassifier.Shape shape : TrivialMethodClassifier.Shape.values()) {
+        if (TrivialMethodClassifier.answered(shape) == 0) continue;
+        if (shapes.length() > 0) shapes.append(", ");
+        shapes.append(shape.name().toLowerCase(Locale.ROOT));
+        shapes.append(' ').append(TrivialMethodClassifier.answered(shape));
+      }
+      System.out.println(
+          ">>> Trivial methods — points answered without the LLM: "
+              + TrivialMethodClassifier.answered()
+              + " ("
+              + shapes
+              + ")  template invariants: "
+              + TrivialMethodClassifier.templates());
+    }
+    System.out.println(
+        ">>> Context bundles — built: "
+            + contexts.bundlesBuilt()
+            + "  reused: "
+            + contexts.bundlesReused()
+            + "  files parsed: "
+            + contexts.filesParsed());
+    if (BASE_CFG.contextTokenBudget() > 0) {
+      System.out.println(
+          ">>> Context packing — budget: "
+              + BASE_CFG.contextTokenBudget()
+              + " tokens  prompts trimmed: "
+              + ContextPacker.promptsTrimmed()
+              + "/"
+              + ContextPacker.promptsPacked()
+              + "  est. tokens saved: "
+              + ContextPacker.tokensSaved());
+    }
+    if (BASE_CFG.llmCacheDir() != null) {
+      System.out.println(
+          ">>> LLM response cache — memory hits: "
+              + CachingLlmClient.memoryHits()
+              + "  disk hits: "
+              + CachingLlmClient.diskHits()
+              + "  misses: "
+              + CachingLlmClient.misses()
+              + "  expired: "
+              + CachingLlmClient.expired()
+              + "  evicted: "
+              + CachingLlmClient.evicted());
+    }
+    ResolverPool resolver = ResolverPool.shared();
+    System.out.println(
+        ">>> Symbol resolution — cache hits: "
+            + resolver.hits()
+            + "  misses: "
+            + resolver.misses()
+            + "  timeouts: "
+            + resolver.timeouts()
+            + "  failures: "
+            + resolver.failures()
+            + "  rejected: "
+            + resolver.rejected());
     System.out.println(">>> Files to inject (MAIN only): " + byFile.size());
 
     long injectEntry =
@@ -1213,8 +1555,9 @@ public final class App {
    *
    * <ol>
    *   <li>Extracts in-scope variables and optional contextual information (e.g., method body,
-   *       Javadoc, type documentation) based on configuration.
-   *   <li>Invokes the LLM to propose candidate invariants.
+   *       Javadoc, type documentation) based on configuration, on the context pool.
+   *   <li>Invokes the LLM asynchronously to propose candidate invariants, once the in-flight limit
+   *       admits the request.
    *   <li>Performs <b>run-level deduplication</b> to avoid duplicate expressions within the same
    *       run.
    *   <li>Assigns a fresh UUID to each invariant and appends it to the registry if not already
@@ -1226,102 +1569,315 @@ public final class App {
    * @param point the program point (e.g., method ENTRY or EXIT)
    * @param srcRoot root of the source tree used for context extraction
    * @param llm the invariant generator backed by an LLM
+   * @param contexts memoizing context extractor shared by all points
    * @param registry the global registry for storing invariant records
-   * @return a list of newly generated invariant records (may be empty)
+   * @param contextPool executor for context extraction
+   * @param llmInFlight limiter bounding concurrent LLM requests
+   * @param skipTemplateless whether points of trivial methods without templates skip the LLM
+   * @return future list of newly generated invariant records (may be empty)
    */
-  private static List<InvariantRecord> processPoint(
+  private static CompletableFuture<List<InvariantRecord>> processPoint(
       ProgramPoint point,
       Path srcRoot,
       LlmInvariantGenerator llm,
+      ContextEngine contexts,
       InvariantRegistry registry,
-      DpConfig BASE_CFG,
+      Executor contextPool,
+      AsyncLimiter llmInFlight,
+      boolean skipTemplateless,
       FilterStats stats) {
 
-    try {
-      Map<String, String> inScope = ContextUtils.extractScope(point, srcRoot);
-
-      Set<ContextKind> enabled = BASE_CFG.enabledContexts();
-
-      String methodBody =
-          enabled.contains(ContextKind.METHOD_BODY)
-              ? ContextUtils.extractMethodBodyRaw(point, srcRoot).orElse("")
-              : "";
-
-      String methodJavadoc =
-          enabled.contains(ContextKind.METHOD_JAVADOC)
-              ? ContextUtils.extractMethodJavadoc(point, srcRoot).orElse("")
-              : "";
-
-      String classDoc =
-          enabled.contains(ContextKind.CLASS_DOC)
-              ? ContextUtils.extractClassDocumentation(point, srcRoot).orElse("")
-              : "";
-
-      String typeDoc =
-          enabled.contains(ContextKind.TYPE_DOC)
-              ? ContextUtils.extractTypeDocumentation(point, srcRoot).orElse("")
-              : "";
-
-      String callSite =
-          enabled.contains(ContextKind.CALL_SITE)
-              ? ContextUtils.extractCallSiteContext(point, srcRoot, BASE_CFG.callSitesIndexPath())
-                  .orElse("")
-              : "";
-
-      String ioExamples =
-          enabled.contains(ContextKind.IO_EXAMPLES)
-              ? ContextUtils.extractIOExamples(point, srcRoot, BASE_CFG.ioExamplesIndexPath())
-                  .orElse("")
-              : "";
-
-      String calleeDoc =
-          enabled.contains(ContextKind.CALLEE_DOC)
-              ? ContextUtils.extractCalleeDocumentation(point, srcRoot).orElse("")
-              : "";
-
-      List<InvariantSpec> specs =
-          llm.proposeInvariants(
-              point,
-              inScope,
-              methodBody,
-              methodJavadoc,
-              classDoc,
-              typeDoc,
-              callSite,
-              ioExamples,
-              calleeDoc,
-              stats);
-
-      if (specs.isEmpty()) return List.of();
-
-      List<InvariantRecord> out = new ArrayList<>(specs.size());
-      java.time.Instant now = java.time.Instant.now();
-      String fileRel = point.elementId().filePath();
-
-      for (InvariantSpec spec : specs) {
-        // run-level dedup
-        String key = keyFor(point, spec.expression());
-        if (!RUN_DEDUP.add(key)) {
-          stats.dropRunDedup.incrementAndGet();
-          continue;
-        }
+    // the request slot, so that cancelling the point at the deadline withdraws or cancels it
+    AtomicReference<CompletableFuture<?>> request = new AtomicReference<>();
+    CompletableFuture<List<InvariantRecord>> out =
+        CompletableFuture.supplyAsync(
+                () -> {
+                  try {
+                    // ENTRY and EXIT share one memoized bundle; only the scope differs.
+                    return contexts.extract(point, srcRoot);
+                  } catch (IOException e) {
+                    throw new CompletionException(e);
+                  }
+                },
+                contextPool)
+            .thenCompose(
+                ctx -> {
+                  if (ctx.trivial != null && ctx.trivial.answers(point.kind(), skipTemplateless)) {
+                    return CompletableFuture.completedFuture(templates(point, ctx.trivial));
+                  }
+                  CompletableFuture<List<InvariantSpec>> f =
+                      llmInFlight.submit(
+                          () ->
+                              LlmDeadline.passed()
+                                  ? CompletableFuture.completedFuture(List.of())
+                                  : llm.proposeInvariantsAsync(
+                                      point,
+                                      ctx.inScope,
+                                      ctx.methodBody,
+                                      ctx.methodJavadoc,
+                                      ctx.classDoc,
+                                      ctx.typeDoc,
+                                      ctx.callSiteContext,
+                                      ctx.ioExamples,
+                                      ctx.calleeDoc,
+                                      stats));
+                  request.set(f);
+                  return f;
+                })
+            .thenApply(specs -> register(point, specs, registry, stats))
+            .exceptionally(
+                e -> {
+                  Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                  System.err.println(
+                      "processPoint error for " + point.elementId() + ": " + cause.getMessage());
+                  return List.of();
+                });
+    cancelWith(out, request);
+    return out;
+  }
 
-        InvariantRecord rec =
-            new InvariantRecord(java.util.UUID.randomUUID(), spec, point, fileRel, now);
+  /**
+   * Propagates the cancellation of a point's future to its request, which {@link
+   * CompletableFuture#cancel} on a dependent stage does not do.
+   *
+   * @param out future of the point
+   * @param request the point's request, once it is submitted
+   */
+  private static void cancelWith(
+      CompletableFuture<?> out, AtomicReference<? extends CompletableFuture<?>> request) {
+    out.whenComplete(
+        (v, e) -> {
+          CompletableFuture<?> f = request.get();
+          if (out.isCancelled() && f != null) f.cancel(true);
+        });
+  }
 
-        // registry-level dedup
-        if (!registry.appendIfNew(rec)) {
-          stats.dropRegistryDedup.incrementAndGet();
-        }
-        out.add(rec);
-      }
+  /**
+   * Returns the key grouping a program point with the points it is batched with.
+   *
+   * @param point program point
+   * @param mode {@code "method"} to batch the ENTRY and EXIT points of a method, {@code "class"} to
+   *     batch all points of a class
+   * @return batch key
+   */
+  private static String batchKey(ProgramPoint point, String mode) {
+    ProgramElementId id = point.elementId();
+    String cls = id.filePath() + "|" + id.topLevelClass() + "$" + id.nestedClassPath();
+    return mode.equals("class") ? cls : cls + "#" + id.jvmDescriptor();
+  }
 
-      return out;
+  /**
+   * Reorders points so that the points of each class are adjacent. Classes are ordered by their
+   * first point, and points keep their order within a class.
+   *
+   * @param points points in proposal order
+   * @return points grouped by class
+   */
+  private static List<ProgramPoint> groupByClass(List<ProgramPoint> points) {
+    Map<String, List<ProgramPoint>> byClass = new LinkedHashMap<>();
+    for (ProgramPoint pt : points) {
+      byClass.computeIfAbsent(batchKey(pt, "class"), __ -> new ArrayList<>()).add(pt);
+    }
+    return byClass.values().stream().flatMap(List::stream).toList();
+  }
 
-    } catch (Exception e) {
-      System.err.println("processPoint error for " + point.elementId() + ": " + e.getMessage());
+  /**
+   * Processes a group of program points with as few LLM requests as possible: contexts are
+   * extracted per point on the context pool, the points are split into batches that fit the token
+   * budget, and each batch is sent as a single request whose invariants are fanned back out to the
+   * points and registered as in {@link #processPoint}.
+   *
+   * @param group program points batched together, in proposal order
+   * @param srcRoot root of the source tree used for context extraction
+   * @param llm the invariant generator backed by an LLM
+   * @param contexts memoizing context extractor shared by all points
+   * @param registry the global registry for storing invariant records
+   * @param contextPool executor for context extraction
+   * @param llmInFlight limiter bounding concurrent LLM requests
+   * @param skipTemplateless whether points of trivial methods without templates skip the LLM
+   * @param tokenBudget estimated input tokens allowed per request
+   * @return one future per point of the group, in group order
+   */
+  private static List<CompletableFuture<List<InvariantRecord>>> processBatch(
+      List<ProgramPoint> group,
+      Path srcRoot,
+      LlmInvariantGenerator llm,
+      ContextEngine contexts,
+      InvariantRegistry registry,
+      Executor contextPool,
+      AsyncLimiter llmInFlight,
+      boolean skipTemplateless,
+      int tokenBudget,
+      FilterStats stats) {
+
+    // points answered from trivial-method templates are left out of the requests
+    Map<PromptContext, List<InvariantSpec>> templated =
+        Collections.synchronizedMap(new IdentityHashMap<>());
+    List<CompletableFuture<PromptContext>> extracted = new ArrayList<>(group.size());
+    for (ProgramPoint point : group) {
+      extracted.add(
+          CompletableFuture.supplyAsync(
+              () -> {
+                try {
+                  ExtractedContext ctx = contexts.extract(point, srcRoot);
+                  PromptContext prompt =
+                      llm.promptContext(
+                          point,
+                          ctx.inScope,
+                          ctx.methodBody,
+                          ctx.methodJavadoc,
+                          ctx.classDoc,
+                          ctx.typeDoc,
+                          ctx.callSiteContext,
+                          ctx.ioExamples,
+                          ctx.calleeDoc);
+                  if (ctx.trivial != null && ctx.trivial.answers(point.kind(), skipTemplateless)) {
+                    templated.put(prompt, templates(point, ctx.trivial));
+                  }
+                  return prompt;
+                } catch (IOException e) {
+                  throw new CompletionException(e);
+                }
+              },
+              contextPool));
+    }
+
+    // the requests of the group, cancelled once a point of the group is cancelled at the deadline
+    List<CompletableFuture<?>> submitted = Collections.synchronizedList(new ArrayList<>());
+
+    // points whose context could not be extracted are left out of the requests; each other point
+    // maps to its share of its own request, so that a failed request only loses its own points
+    CompletableFuture<Map<PromptContext, CompletableFuture<List<InvariantSpec>>>> proposed =
+        CompletableFuture.allOf(extracted.toArray(CompletableFuture[]::new))
+            .handle(
+                (v, e) ->
+                    extracted.stream()
+                        .filter(f -> !f.isCompletedExceptionally())
+                        .map(CompletableFuture::join)
+                        .filter(ctx -> !templated.containsKey(ctx))
+                        .toList())
+            .thenApply(
+                ready -> {
+                  Map<PromptContext, CompletableFuture<List<InvariantSpec>>> byPoint =
+                      new IdentityHashMap<>();
+                  for (List<PromptContext> batch : PromptBatch.partition(ready, tokenBudget)) {
+                    CompletableFuture<List<List<InvariantSpec>>> request =
+                        llmInFlight.submit(
+                            () ->
+                                LlmDeadline.passed()
+                                    ? CompletableFuture.completedFuture(
+                                        Collections.nCopies(batch.size(), List.of()))
+                                    : llm.proposeInvariantsBatchAsync(batch, stats));
+                    submitted.add(request);
+                    for (int i = 0; i < batch.size(); i++) {
+                      int index = i;
+                      byPoint.put(batch.get(i), request.thenApply(specs -> specs.get(index)));
+                    }
+                  }
+                  return byPoint;
+                });
+
+    List<CompletableFuture<List<InvariantRecord>>> out = new ArrayList<>(group.size());
+    for (int i = 0; i < group.size(); i++) {
+      ProgramPoint point = group.get(i);
+      out.add(
+          extracted
+              .get(i)
+              .thenCombine(
+                  proposed,
+                  (ctx, byPoint) ->
+                      byPoint.getOrDefault(
+                          ctx,
+                          CompletableFuture.completedFuture(
+                              templated.getOrDefault(ctx, List.of()))))
+              .thenCompose(specs -> specs)
+              .thenApply(specs -> register(point, specs, registry, stats))
+              .exceptionally(
+                  e -> {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    System.err.println(
+                        "processBatch error for "
+                            + point.elementId()
+                            + ": "
+                            + cause.getMessage());
+                    return List.of();
+                  }));
+    }
+    for (CompletableFuture<List<InvariantRecord>> f : out) {
+      f.whenComplete(
+          (v, e) -> {
+            if (!f.isCancelled()) return;
+            synchronized (submitted) {
+              for (CompletableFuture<?> request : submitted) request.cancel(true);
+            }
+          });
+    }
+    return out;
+  }
+
+  /**
+   * Returns the template invariants of a point of a trivial method, counting the point as answered
+   * without an LLM request.
+   *
+   * @param point program point of the method
+   * @param trivial shape and templates of the method
+   * @return template specifications of the point
+   */
+  private static List<InvariantSpec> templates(
+      ProgramPoint point, TrivialMethodClassifier.TrivialMethod trivial) {
+    List<String> exprs = trivial.at(point.kind());
+    TrivialMethodClassifier.recordAnswered(trivial.shape(), exprs.size());
+    String rationale = "template for a " + trivial.shape().name().toLowerCase(Locale.ROOT);
+    return exprs.stream()
+        .map(e -> new InvariantSpec(e, rationale, Map.of("source", "template")))
+        .toList();
+  }
+
+  /**
+   * Turns the specifications proposed for a point into invariant records, applying run-level and
+   * registry-level deduplication.
+   *
+   * @param point the program point the specifications were proposed for
+   * @param specs proposed specifications
+   * @param registry the global registry for storing invariant records
+   * @param stats filter statistics to update
+   * @return newly generated invariant records (may be empty)
+   */
+  private static List<InvariantRecord> register(
+      ProgramPoint point,
+      List<InvariantSpec> specs,
+      InvariantRegistry registry,
+      FilterStats stats) {
+    if (specs.isEmpty()) return List.of();
+    // results arriving after the deadline are no longer waited for, so they are not registered
+    if (LlmDeadline.passed()) {
+      stats.dropAfterDeadline.addAndGet(specs.size());
       return List.of();
     }
+
+    List<InvariantRecord> out = new ArrayList<>(specs.size());
+    java.time.Instant now = java.time.Instant.now();
+    String fileRel = point.elementId().filePath();
+
+    for (InvariantSpec spec : specs) {
+      // run-level dedup
+      String key = keyFor(point, spec.expression());
+      if (!RUN_DEDUP.add(key)) {
+        stats.dropRunDedup.incrementAndGet();
+        continue;
+      }
+
+      InvariantRecord rec =
+          new InvariantRecord(java.util.UUID.randomUUID(), spec, point, fileRel, now);
+
+      // registry-level dedup
+      if (!registry.appendIfNew(rec)) {
+        stats.dropRegistryDedup.incrementAndGet();
+      }
+      out.add(rec);
+    }
+
+    return out;
   }
 
   /**
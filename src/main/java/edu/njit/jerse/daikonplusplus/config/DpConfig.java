@@ -2,7 +2,9 @@ package edu.njit.jerse.daikonplusplus.config;
 
 import edu.njit.jerse.daikonplusplus.parse.context.ContextKind;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -62,7 +64,7 @@ public final class DpConfig {
   // ---- scan filtering whitelist ----
   private final Set<String> scanIncludes;
 
-  private final String llmProvider; // openai | local
+  private final String llmProvider; // openai | local | compat
   private final String llmLocalBackend; // ollama | hf | vllm
   private final String llmLocalUrl;
   private final String llmLocalModel;
@@ -74,6 +76,78 @@ public final class DpConfig {
   private final int staleCheckMinutes;
   private final int maxTimeoutMinutes;
 
+  private final @Nullable String symbolIndexDir;
+
+  private final @Nullable String callGraphDir;
+
+  private final int contextTokenBudget;
+
+  private final @Nullable String llmCacheDir;
+
+  private final int llmCacheTtlHours;
+
+  private final int llmCacheMaxEntries;
+
+  private final @Nullable String cassetteHitLog;
+
+  private final int llmMaxInFlight;
+
+  private final int llmRequestsPerMinute;
+
+  private final int llmTokensPerMinute;
+
+  private final int llmMaxRetries;
+
+  private final String llmBatchMode;
+
+  private final int llmBatchTokenBudget;
+
+  private final boolean llmStream;
+
+  private final int llmHedgePercentile;
+
+  private final List<String> llmPriority;
+
+  private final Set<String> llmPriorityIncludes;
+
+  private final String llmPromptLayout;
+
+  private final String llmLocalKeepAlive;
+
+  private final int llmLocalParallel;
+
+  private final String llmCompatUrl;
+
+  private final String llmCompatModel;
+
+  private final String llmCompatApiKey;
+
+  private final int llmCompatMaxInFlight;
+
+  private final int llmCompatN;
+
+  private final int llmEnsembleSamples;
+
+  private final int llmEnsembleAgreement;
+
+  private final @Nullable String llmMetricsFile;
+
+  private final double llmPricePromptPerMTok;
+
+  private final double llmPriceCachedPerMTok;
+
+  private final double llmPriceCompletionPerMTok;
+
+  private final @Nullable String llmCascadeModel;
+
+  private final String llmCascadeProvider;
+
+  private final int llmCascadeMinKept;
+
+  private final boolean trivialMethodTemplates;
+
+  private final boolean trivialMethodSkipEmpty;
+
   private DpConfig(
       int threads,
       Path registryPath,
@@ -106,7 +180,43 @@ public final class DpConfig {
       boolean enableTestFilter,
       int testFilterMethodBatchSize,
       int staleCheckMinutes,
-      int maxTimeoutMinutes) {
+      int maxTimeoutMinutes,
+      @Nullable String symbolIndexDir,
+      @Nullable String callGraphDir,
+      int contextTokenBudget,
+      @Nullable String llmCacheDir,
+      int llmCacheTtlHours,
+      int llmCacheMaxEntries,
+      @Nullable String cassetteHitLog,
+      int llmMaxInFlight,
+      int llmRequestsPerMinute,
+      int llmTokensPerMinute,
+      int llmMaxRetries,
+      String llmBatchMode,
+      int llmBatchTokenBudget,
+      boolean llmStream,
+      int llmHedgePercentile,
+      List<String> llmPriority,
+      Set<String> llmPriorityIncludes,
+      String llmPromptLayout,
+      String llmLocalKeepAlive,
+      int llmLocalParallel,
+      String llmCompatUrl,
+      String llmCompatModel,
+      String llmCompatApiKey,
+      int llmCompatMaxInFlight,
+      int llmCompatN,
+      int llmEnsembleSamples,
+      int llmEnsembleAgreement,
+      @Nullable String llmMetricsFile,
+      double llmPricePromptPerMTok,
+      double llmPriceCachedPerMTok,
+      double llmPriceCompletionPerMTok,
+      @Nullable String llmCascadeModel,
+      String llmCascadeProvider,
+      int llmCascadeMinKept,
+      boolean trivialMethodTemplates,
+      boolean trivialMethodSkipEmpty) {
 
     this.threads = threads;
     this.registryPath = registryPath;
@@ -140,6 +250,42 @@ public final class DpConfig {
     this.testFilterMethodBatchSize = testFilterMethodBatchSize;
     this.staleCheckMinutes = staleCheckMinutes;
     this.maxTimeoutMinutes = maxTimeoutMinutes;
+    this.symbolIndexDir = symbolIndexDir;
+    this.callGraphDir = callGraphDir;
+    this.contextTokenBudget = contextTokenBudget;
+    this.llmCacheDir = llmCacheDir;
+    this.llmCacheTtlHours = llmCacheTtlHours;
+    this.llmCacheMaxEntries = llmCacheMaxEntries;
+    this.cassetteHitLog = cassetteHitLog;
+    this.llmMaxInFlight = llmMaxInFlight;
+    this.llmRequestsPerMinute = llmRequestsPerMinute;
+    this.llmTokensPerMinute = llmTokensPerMinute;
+    this.llmMaxRetries = llmMaxRetries;
+    this.llmBatchMode = llmBatchMode;
+    this.llmBatchTokenBudget = llmBatchTokenBudget;
+    this.llmStream = llmStream;
+    this.llmHedgePercentile = llmHedgePercentile;
+    this.llmPriority = List.copyOf(llmPriority);
+    this.llmPriorityIncludes = llmPriorityIncludes;
+    this.llmPromptLayout = llmPromptLayout;
+    this.llmLocalKeepAlive = llmLocalKeepAlive;
+    this.llmLocalParallel = llmLocalParallel;
+    this.llmCompatUrl = llmCompatUrl;
+    this.llmCompatModel = llmCompatModel;
+    this.llmCompatApiKey = llmCompatApiKey;
+    this.llmCompatMaxInFlight = llmCompatMaxInFlight;
+    this.llmCompatN = llmCompatN;
+    this.llmEnsembleSamples = llmEnsembleSamples;
+    this.llmEnsembleAgreement = llmEnsembleAgreement;
+    this.llmMetricsFile = llmMetricsFile;
+    this.llmPricePromptPerMTok = llmPricePromptPerMTok;
+    this.llmPriceCachedPerMTok = llmPriceCachedPerMTok;
+    this.llmPriceCompletionPerMTok = llmPriceCompletionPerMTok;
+    this.llmCascadeModel = llmCascadeModel;
+    this.llmCascadeProvider = llmCascadeProvider;
+    this.llmCascadeMinKept = llmCascadeMinKept;
+    this.trivialMethodTemplates = trivialMethodTemplates;
+    this.trivialMethodSkipEmpty = trivialMethodSkipEmpty;
   }
 
   public Set<String> scanIncludes() {
@@ -275,6 +421,172 @@ public final class DpConfig {
     return maxTimeoutMinutes;
   }
 
+  public @Nullable String symbolIndexDir() {
+    return symbolIndexDir;
+  }
+
+  public @Nullable String callGraphDir() {
+    return callGraphDir;
+  }
+
+  public int contextTokenBudget() {
+    return contextTokenBudget;
+  }
+
+  public @Nullable String llmCacheDir() {
+    return llmCacheDir;
+  }
+
+  public int llmCacheTtlHours() {
+    return llmCacheTtlHours;
+  }
+
+  public int llmCacheMaxEntries() {
+    return llmCacheMaxEntries;
+  }
+
+  public @Nullable String cassetteHitLog() {
+    return cassetteHitLog;
+  }
+
+  public int llmMaxInFlight() {
+    return llmMaxInFlight;
+  }
+
+  public int llmRequestsPerMinute() {
+    return llmRequestsPerMinute;
+  }
+
+  public int llmTokensPerMinute() {
+    return llmTokensPerMinute;
+  }
+
+  public int llmMaxRetries() {
+    return llmMaxRetries;
+  }
+
+  /** Batching of program points into LLM requests: {@code off}, {@code method} or {@code class}. */
+  public String llmBatchMode() {
+    return llmBatchMode;
+  }
+
+  public int llmBatchTokenBudget() {
+    return llmBatchTokenBudget;
+  }
+
+  public boolean llmStream() {
+    return llmStream;
+  }
+
+  public int llmHedgePercentile() {
+    return llmHedgePercentile;
+  }
+
+  /** Scorers ordering program points for proposal, most significant first; empty for scan order. */
+  public List<String> llmPriority() {
+    return llmPriority;
+  }
+
+  /** Paths, packages or methods the {@code include} scorer proposes first. */
+  public Set<String> llmPriorityIncludes() {
+    return llmPriorityIncludes;
+  }
+
+  /** Prompt layout: {@code standard}, or {@code prefix} for provider-side prompt caching. */
+  public String llmPromptLayout() {
+    return llmPromptLayout;
+  }
+
+  /** How long Ollama keeps the model loaded after a request (e.g. {@code 30m}). */
+  public String llmLocalKeepAlive() {
+    return llmLocalKeepAlive;
+  }
+
+  /** Requests sent to the local server at once; match {@code OLLAMA_NUM_PARALLEL}. */
+  public int llmLocalParallel() {
+    return llmLocalParallel;
+  }
+
+  /** Base URL of an OpenAI-compatible server (vLLM, llama.cpp), including {@code /v1}. */
+  public String llmCompatUrl() {
+    return llmCompatUrl;
+  }
+
+  /** Model name served by the OpenAI-compatible server. */
+  public String llmCompatModel() {
+    return llmCompatModel;
+  }
+
+  /** Bearer token for the OpenAI-compatible server, or empty if it needs none. */
+  public String llmCompatApiKey() {
+    return llmCompatApiKey;
+  }
+
+  /** Requests sent to the OpenAI-compatible server at once; it batches them continuously. */
+  public int llmCompatMaxInFlight() {
+    return llmCompatMaxInFlight;
+  }
+
+  /** Completions sampled per request ({@code n}); their invariants are merged. */
+  public int llmCompatN() {
+    return llmCompatN;
+  }
+
+  /** Independent samples requested per point; above one, only invariants they agree on are kept. */
+  public int llmEnsembleSamples() {
+    return llmEnsembleSamples;
+  }
+
+  /** Samples that must propose an invariant for it to be kept (capped at the sample count). */
+  public int llmEnsembleAgreement() {
+    return llmEnsembleAgreement;
+  }
+
+  /** JSONL file receiving one line per LLM request, or {@code null} to disable LLM metrics. */
+  public @Nullable String llmMetricsFile() {
+    return llmMetricsFile;
+  }
+
+  /** Price of a million uncached prompt tokens, used for LLM metrics. */
+  public double llmPricePromptPerMTok() {
+    return llmPricePromptPerMTok;
+  }
+
+  /** Price of a million cached prompt tokens, used for LLM metrics. */
+  public double llmPriceCachedPerMTok() {
+    return llmPriceCachedPerMTok;
+  }
+
+  /** Price of a million completion tokens, used for LLM metrics. */
+  public double llmPriceCompletionPerMTok() {
+    return llmPriceCompletionPerMTok;
+  }
+
+  /** Cheaper model every point is sent to first, or {@code null} to use one model only. */
+  public @Nullable String llmCascadeModel() {
+    return llmCascadeModel;
+  }
+
+  /** Provider of the cascade's first model: openai, local or compat (defaults to the provider). */
+  public String llmCascadeProvider() {
+    return llmCascadeProvider;
+  }
+
+  /** Invariants the cascade's first model must yield for a point not to be escalated. */
+  public int llmCascadeMinKept() {
+    return llmCascadeMinKept;
+  }
+
+  /** Whether points of trivial methods are answered from their template invariants, if any. */
+  public boolean trivialMethodTemplates() {
+    return trivialMethodTemplates;
+  }
+
+  /** Whether points of trivial methods without templates for them skip the LLM too. */
+  public boolean trivialMethodSkipEmpty() {
+    return trivialMethodSkipEmpty;
+  }
+
   /**
    * Creates a configuration instance from file, system properties, environment variables, and
    * defaults.
@@ -444,7 +756,9 @@ public final class DpConfig {
     llmProvider = llmProvider.toLowerCase(Locale.ROOT);
     llmLocalBackend = llmLocalBackend.toLowerCase(Locale.ROOT);
 
-    if (!llmProvider.equalsIgnoreCase("openai") && !llmProvider.equals("local")) {
+    if (!llmProvider.equalsIgnoreCase("openai")
+        && !llmProvider.equals("local")
+        && !llmProvider.equals("compat")) {
       throw new IllegalArgumentException("Invalid DP_LLM_PROVIDER: " + llmProvider);
     }
 
@@ -466,6 +780,220 @@ public final class DpConfig {
     int maxTimeoutMinutes =
         Math.max(1, getInt("dp.maxTimeoutMinutes", "DP_MAX_TIMEOUT_MINUTES", 480, env, file));
 
+    // ---- symbol index ----
+    String symbolIndexDir =
+        firstNonBlankNullable(
+            file.get("dp.symbolIndexDir"),
+            System.getProperty("dp.symbolIndexDir"),
+            env.get("DP_SYMBOL_INDEX_DIR"));
+
+    // ---- built-in call graph ----
+    String callGraphDir =
+        firstNonBlankNullable(
+            file.get("dp.callGraphDir"),
+            System.getProperty("dp.callGraphDir"),
+            env.get("DP_CALL_GRAPH_DIR"));
+
+    // ---- context packing ----
+    int contextTokenBudget =
+        Math.max(0, getInt("dp.contextTokenBudget", "DP_CONTEXT_TOKEN_BUDGET", 0, env, file));
+
+    // ---- LLM response cache ----
+    String llmCacheDir =
+        firstNonBlankNullable(
+            file.get("dp.llmCacheDir"),
+            System.getProperty("dp.llmCacheDir"),
+            env.get("DP_LLM_CACHE_DIR"));
+
+    int llmCacheTtlHours =
+        Math.max(0, getInt("dp.llmCacheTtlHours", "DP_LLM_CACHE_TTL_HOURS", 0, env, file));
+
+    int llmCacheMaxEntries =
+        Math.max(1, getInt("dp.llmCacheMaxEntries", "DP_LLM_CACHE_MAX_ENTRIES", 10_000, env, file));
+
+    // ---- cassette packing ----
+    String cassetteHitLog =
+        firstNonBlankNullable(
+            file.get("dp.cassetteHitLog"),
+            System.getProperty("dp.cassetteHitLog"),
+            env.get("DP_CASSETTE_HIT_LOG"));
+
+    // ---- async LLM requests ----
+    int llmMaxInFlight =
+        Math.max(1, getInt("dp.llmMaxInFlight", "DP_LLM_MAX_IN_FLIGHT", 256, env, file));
+
+    // ---- LLM rate limits ----
+    int llmRequestsPerMinute =
+        Math.max(0, getInt("dp.llmRequestsPerMinute", "DP_LLM_REQUESTS_PER_MINUTE", 0, env, file));
+
+    int llmTokensPerMinute =
+        Math.max(0, getInt("dp.llmTokensPerMinute", "DP_LLM_TOKENS_PER_MINUTE", 0, env, file));
+
+    int llmMaxRetries = Math.max(0, getInt("dp.llmMaxRetries", "DP_LLM_MAX_RETRIES", 4, env, file));
+
+    // ---- LLM request batching ----
+    String llmBatchMode =
+        firstNonBlank(
+                file.get("dp.llmBatchMode"),
+                firstNonBlank(
+                    System.getProperty("dp.llmBatchMode"), env.get("DP_LLM_BATCH_MODE"), "off"),
+                "off")
+            .trim()
+            .toLowerCase(Locale.ROOT);
+    if (!Set.of("off", "method", "class").contains(llmBatchMode)) {
+      System.err.println("[DP] Unknown llmBatchMode \"" + llmBatchMode + "\", batching disabled");
+      llmBatchMode = "off";
+    }
+
+    int llmBatchTokenBudget =
+        Math.max(1, getInt("dp.llmBatchTokenBudget", "DP_LLM_BATCH_TOKEN_BUDGET", 8000, env, file));
+
+    boolean llmStream = getBool("dp.llmStream", "DP_LLM_STREAM", false, env, file);
+
+    int llmHedgePercentile =
+        Math.max(
+            0,
+            Math.min(99, getInt("dp.llmHedgePercentile", "DP_LLM_HEDGE_PERCENTILE", 0, env, file)));
+
+    List<String> llmPriority = new ArrayList<>();
+    for (String name :
+        firstNonBlank(
+                file.get("dp.llmPriority"),
+                firstNonBlank(System.getProperty("dp.llmPriority"), env.get("DP_LLM_PRIORITY"), ""),
+                "")
+            .toLowerCase(Locale.ROOT)
+            .split(",")) {
+      name = name.trim();
+      if (name.isEmpty() || llmPriority.contains(name)) continue;
+      if (Set.of("include", "public", "frequency", "size").contains(name)) {
+        llmPriority.add(name);
+      } else {
+        System.err.println("[DP] Unknown llmPriority scorer \"" + name + "\", ignored");
+      }
+    }
+
+    Set<String> llmPriorityIncludes =
+        parseCsvSet(
+            firstNonBlankNullable(
+                file.get("dp.llmPriorityIncludes"),
+                System.getProperty("dp.llmPriorityIncludes"),
+                env.get("DP_LLM_PRIORITY_INCLUDES")));
+
+    String llmPromptLayout =
+        firstNonBlank(
+            file.get("dp.llmPromptLayout"),
+            firstNonBlank(
+                System.getProperty("dp.llmPromptLayout"),
+                env.get("DP_LLM_PROMPT_LAYOUT"),
+                "standard"),
+            "standard");
+
+    String llmLocalKeepAlive =
+        firstNonBlank(
+            file.get("dp.llmLocalKeepAlive"),
+            firstNonBlank(
+                System.getProperty("dp.llmLocalKeepAlive"),
+                env.get("DP_LLM_LOCAL_KEEP_ALIVE"),
+                "30m"),
+            "30m");
+
+    int llmLocalParallel =
+        Math.max(1, getInt("dp.llmLocalParallel", "DP_LLM_LOCAL_PARALLEL", 4, env, file));
+
+    String llmCompatUrl =
+        firstNonBlank(
+            file.get("dp.llmCompatUrl"),
+            firstNonBlank(
+                System.getProperty("dp.llmCompatUrl"),
+                env.get("DP_LLM_COMPAT_URL"),
+                "http://localhost:8000/v1"),
+            "http://localhost:8000/v1");
+
+    String llmCompatModel =
+        firstNonBlank(
+            file.get("dp.llmCompatModel"),
+            firstNonBlank(
+                System.getProperty("dp.llmCompatModel"), env.get("DP_LLM_COMPAT_MODEL"), ""),
+            "");
+
+    if (llmProvider.equals("compat") && llmCompatModel.isBlank()) {
+      throw new IllegalArgumentException(
+          "DP_LLM_COMPAT_MODEL must be set when DP_LLM_PROVIDER=compat");
+    }
+
+    String llmCompatApiKey =
+        firstNonBlank(
+            file.get("dp.llmCompatApiKey"),
+            firstNonBlank(
+                System.getProperty("dp.llmCompatApiKey"), env.get("DP_LLM_COMPAT_API_KEY"), ""),
+            "");
+
+    int llmCompatMaxInFlight =
+        Math.max(
+            1, getInt("dp.llmCompatMaxInFlight", "DP_LLM_COMPAT_MAX_IN_FLIGHT", 64, env, file));
+
+    int llmCompatN = Math.max(1, getInt("dp.llmCompatN", "DP_LLM_COMPAT_N", 1, env, file));
+
+    int llmEnsembleSamples =
+        Math.max(1, getInt("dp.llmEnsembleSamples", "DP_LLM_ENSEMBLE_SAMPLES", 1, env, file));
+
+    int llmEnsembleAgreement =
+        Math.max(
+            1, getInt("dp.llmEnsembleAgreement", "DP_LLM_ENSEMBLE_AGREEMENT", 2, env, file));
+
+    // ---- LLM metrics ----
+    String llmMetricsFile =
+        firstNonBlankNullable(
+            file.get("dp.llmMetricsFile"),
+            System.getProperty("dp.llmMetricsFile"),
+            env.get("DP_LLM_METRICS_FILE"));
+
+    double llmPricePromptPerMTok =
+        Math.max(
+            0, getDouble("dp.llmPricePromptPerMTok", "DP_LLM_PRICE_PROMPT_PER_MTOK", 0, env, file));
+
+    double llmPriceCachedPerMTok =
+        Math.max(
+            0, getDouble("dp.llmPriceCachedPerMTok", "DP_LLM_PRICE_CACHED_PER_MTOK", 0, env, file));
+
+    double llmPriceCompletionPerMTok =
+        Math.max(
+            0,
+            getDouble(
+                "dp.llmPriceCompletionPerMTok", "DP_LLM_PRICE_COMPLETION_PER_MTOK", 0, env, file));
+
+    // ---- model cascade ----
+    String llmCascadeModel =
+        firstNonBlankNullable(
+            file.get("dp.llmCascadeModel"),
+            System.getProperty("dp.llmCascadeModel"),
+            env.get("DP_LLM_CASCADE_MODEL"));
+
+    String llmCascadeProvider =
+        firstNonBlank(
+                file.get("dp.llmCascadeProvider"),
+                firstNonBlank(
+                    System.getProperty("dp.llmCascadeProvider"),
+                    env.get("DP_LLM_CASCADE_PROVIDER"),
+                    llmProvider),
+                llmProvider)
+            .toLowerCase(Locale.ROOT);
+    if (!llmCascadeProvider.equals("openai")
+        && !llmCascadeProvider.equals("local")
+        && !llmCascadeProvider.equals("compat")) {
+      throw new IllegalArgumentException("Invalid DP_LLM_CASCADE_PROVIDER: " + llmCascadeProvider);
+    }
+
+    int llmCascadeMinKept =
+        Math.max(1, getInt("dp.llmCascadeMinKept", "DP_LLM_CASCADE_MIN_KEPT", 2, env, file));
+
+    // ---- trivial methods ----
+    boolean trivialMethodTemplates =
+        getBool("dp.trivialMethodTemplates", "DP_TRIVIAL_METHOD_TEMPLATES", false, env, file);
+
+    boolean trivialMethodSkipEmpty =
+        getBool("dp.trivialMethodSkipEmpty", "DP_TRIVIAL_METHOD_SKIP_EMPTY", false, env, file);
+
     return new DpConfig(
         threads,
         Path.of(regPath).toAbsolutePath().normalize(),
@@ -498,7 +1026,43 @@ public final class DpConfig {
         enableTestFilter,
         testFilterMethodBatchSize,
         staleCheckMinutes,
-        maxTimeoutMinutes);
+        maxTimeoutMinutes,
+        symbolIndexDir,
+        callGraphDir,
+        contextTokenBudget,
+        llmCacheDir,
+        llmCacheTtlHours,
+        llmCacheMaxEntries,
+        cassetteHitLog,
+        llmMaxInFlight,
+        llmRequestsPerMinute,
+        llmTokensPerMinute,
+        llmMaxRetries,
+        llmBatchMode,
+        llmBatchTokenBudget,
+        llmStream,
+        llmHedgePercentile,
+        llmPriority,
+        llmPriorityIncludes,
+        llmPromptLayout,
+        llmLocalKeepAlive,
+        llmLocalParallel,
+        llmCompatUrl,
+        llmCompatModel,
+        llmCompatApiKey,
+        llmCompatMaxInFlight,
+        llmCompatN,
+        llmEnsembleSamples,
+        llmEnsembleAgreement,
+        llmMetricsFile,
+        llmPricePromptPerMTok,
+        llmPriceCachedPerMTok,
+        llmPriceCompletionPerMTok,
+        llmCascadeModel,
+        llmCascadeProvider,
+        llmCascadeMinKept,
+        trivialMethodTemplates,
+        trivialMethodSkipEmpty);
   }
 
   /**
@@ -564,6 +1128,31 @@ public final class DpConfig {
     }
   }
 
+  /**
+   * Reads a floating-point configuration value.
+   *
+   * @param sysKey system property key
+   * @param envKey environment variable key
+   * @param def default value
+   * @param env environment variables
+   * @param file configuration file entries
+   * @return resolved value
+   */
+  private static double getDouble(
+      String sysKey, String envKey, double def, Map<String, String> env, Map<String, String> file) {
+
+    String v = file.get(sysKey);
+    if (v == null) v = System.getProperty(sysKey);
+    if (v == null) v = env.get(envKey);
+    if (v == null || v.isBlank()) return def;
+
+    try {
+      return Double.parseDouble(v.trim());
+    } catch (NumberFormatException e) {
+      return def;
+    }
+  }
+
   /**
    * Returns the first non-blank value among the inputs.
    *
@@ -688,6 +1277,77 @@ public final class DpConfig {
     System.out.println("staleCheckMinutes = " + staleCheckMinutes);
     System.out.println("maxTimeoutMinutes = " + maxTimeoutMinutes);
 
+    System.out.println("symbolIndexDir = " + symbolIndexDir);
+
+    System.out.println("callGraphDir = " + callGraphDir);
+
+    System.out.println("contextTokenBudget = " + contextTokenBudget);
+
+    System.out.println("llmCacheDir = " + llmCacheDir);
+
+    System.out.println("llmCacheTtlHours = " + llmCacheTtlHours);
+
+    System.out.println("llmCacheMaxEntries = " + llmCacheMaxEntries);
+
+    System.out.println("cassetteHitLog = " + cassetteHitLog);
+
+    System.out.println("llmMaxInFlight = " + llmMaxInFlight);
+
+    System.out.println("llmRequestsPerMinute = " + llmRequestsPerMinute);
+
+    System.out.println("llmTokensPerMinute = " + llmTokensPerMinute);
+
+    System.out.println("llmMaxRetries = " + llmMaxRetries);
+
+    System.out.println("llmBatchMode = " + llmBatchMode);
+
+    System.out.println("llmBatchTokenBudget = " + llmBatchTokenBudget);
+
+    System.out.println("llmStream = " + llmStream);
+
+    System.out.println("llmHedgePercentile = " + llmHedgePercentile);
+
+    System.out.println("llmPriority = " + llmPriority);
+
+    System.out.println("llmPriorityIncludes = " + llmPriorityIncludes);
+
+    System.out.println("llmPromptLayout = " + llmPromptLayout);
+
+    System.out.println("llmLocalKeepAlive = " + llmLocalKeepAlive);
+
+    System.out.println("llmLocalParallel = " + llmLocalParallel);
+
+    System.out.println("llmCompatUrl = " + llmCompatUrl);
+
+    System.out.println("llmCompatModel = " + llmCompatModel);
+
+
+    System.out.println("llmCompatMaxInFlight = " + llmCompatMaxInFlight);
+
+    System.out.println("llmCompatN = " + llmCompatN);
+
+    System.out.println("llmEnsembleSamples = " + llmEnsembleSamples);
+
+    System.out.println("llmEnsembleAgreement = " + llmEnsembleAgreement);
+
+    System.out.println("llmMetricsFile = " + llmMetricsFile);
+
+    System.out.println("llmPricePromptPerMTok = " + llmPricePromptPerMTok);
+
+    System.out.println("llmPriceCachedPerMTok = " + llmPriceCachedPerMTok);
+
+    System.out.println("llmPriceCompletionPerMTok = " + llmPriceCompletionPerMTok);
+
+    System.out.println("llmCascadeModel = " + llmCascadeModel);
+
+    System.out.println("llmCascadeProvider = " + llmCascadeProvider);
+
+    System.out.println("llmCascadeMinKept = " + llmCascadeMinKept);
+
+    System.out.println("trivialMethodTemplates = " + trivialMethodTemplates);
+
+    System.out.println("trivialMethodSkipEmpty = " + trivialMethodSkipEmpty);
+
     System.out.println("=========================");
   }
 
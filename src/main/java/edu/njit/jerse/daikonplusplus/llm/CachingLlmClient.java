@@ -0,0 +1,387 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * LLM client decorator that caches responses of a live client by prompt content.
+ *
+ * <p>Responses are keyed like cassettes ({@link Cassette#key(String, String, Map)}), with the model
+ * and prompt strategy folded into the key, so a re-run only sends prompts whose content changed. A
+ * bounded in-memory LRU sits in front of an on-disk store with one JSON file per key. Entries older
+ * than the configured time-to-live are ignored and refetched; when the store grows past its maximum
+ * size, the least recently used files are evicted.
+ *
+ * <p>Unlike {@link RecordingCompositeLlmClient}, which builds a replay corpus for tests, this cache
+ * is meant for production runs and never fails a request because of its own state: unreadable or
+ * unwritable entries are treated as misses. Hit and miss counts are accumulated process-wide and
+ * reported at the end of a run.
+ *
+ * @see Cassette
+ */
+public final class CachingLlmClient implements LlmClient {
+
+  /** Upper bound on the number of responses held in memory. */
+  private static final int MAX_MEMORY_ENTRIES = 1024;
+
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private static final AtomicLong memoryHits = new AtomicLong();
+  private static final AtomicLong diskHits = new AtomicLong();
+  private static final AtomicLong misses = new AtomicLong();
+  private static final AtomicLong expired = new AtomicLong();
+  private static final AtomicLong evicted = new AtomicLong();
+
+  private final LlmClient delegate;
+  private final Path dir;
+  private final Map<String, String> params;
+  private final @Nullable Duration ttl;
+  private final int maxEntries;
+  private final Map<String, Entry> memory;
+  private final AtomicInteger diskEntries;
+
+  /** On-disk form of a cached response. */
+  static final class Entry {
+    /** Time the response was obtained, in epoch milliseconds. */
+    public long createdAt;
+
+    /** The cached response; read as batch items, which keep the point label if present. */
+    @JsonDeserialize(contentAs = LlmInvariantGenerator.BatchInvariantsOut.Item.class)
+    public List<LlmInvariantGenerator.InvariantsOut.Item> invariants = Collections.emptyList();
+
+    public Entry() {}
+
+    Entry(long createdAt, List<LlmInvariantGenerator.InvariantsOut.Item> invariants) {
+      this.createdAt = createdAt;
+      this.invariants = invariants;
+    }
+  }
+
+  /**
+   * Creates a caching client.
+   *
+   * @param delegate live client queried on a miss
+   * @param dir directory of the on-disk store
+   * @param model model the delegate sends prompts to
+   * @param strategy prompt strategy that produced the prompts
+   * @param ttl maximum age of a reusable response, or {@code null} for no expiry
+   * @param maxEntries maximum number of responses kept on disk
+   * @throws IOException if the store directory cannot be created
+   */
+  public CachingLlmClient(
+      LlmClient delegate,
+      Path dir,
+      String model,
+      String strategy,
+      @Nullable Duration ttl,
+      int maxEntries)
+      throws IOException {
+    this.delegate = delegate;
+    this.dir = dir;
+    this.params = Map.of("model", model, "strategy", strategy);
+    this.ttl = ttl;
+    this.maxEntries = Math.max(1, maxEntries);
+    int memoryCapacity = Math.min(MAX_MEMORY_ENTRIES, this.maxEntries);
+    this.memory =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > memoryCapacity;
+              }
+            });
+
+    Files.createDirectories(dir);
+    this.diskEntries = new AtomicInteger(cacheFiles().size());
+  }
+
+  /**
+   * Returns the cached response for a prompt pair, querying the delegate on a miss.
+   *
+   * @param system the system prompt
+   * @param user the user prompt
+   * @return list of invariant items, possibly from the cache
+   * @throws IOException if the delegate fails on a miss
+   */
+  @Override
+  public List<LlmInvariantGenerator.InvariantsOut.Item> complete(String system, String user)
+      throws IOException {
+    String key = Cassette.key(system, user, params);
+    Entry hit = lookup(key);
+    if (hit != null) return hit.invariants;
+    return store(key, delegate.complete(system, user));
+  }
+
+  /**
+   * Returns the cached response for a prompt pair, querying the delegate asynchronously on a miss.
+   *
+   * @param system the system prompt
+   * @param user the user prompt
+   * @return future completed with the invariant items, possibly from the cache
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeAsync(
+      String system, String user) {
+    return completeSample(system, user, 0);
+  }
+
+  /**
+   * Returns the cached response of one sample of a prompt pair, querying the delegate
+   * asynchronously on a miss. Each sample is cached under its own key.
+   *
+   * @param system the system prompt
+   * @param user the user prompt
+   * @param sample zero-based sample index
+   * @return future completed with the invariant items, possibly from the cache
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeSample(
+      String system, String user, int sample) {
+    return cached(
+        Cassette.sampleKey(system, user, params, sample),
+        () -> delegate.completeSample(system, user, sample));
+  }
+
+  /**
+   * Returns the cached response for a batch prompt, querying the delegate asynchronously on a
+   * miss.
+   *
+   * @param system the system prompt
+   * @param user the user prompt
+   * @return future completed with the invariant items, possibly from the cache
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeBatch(
+      String system, String user) {
+    return cached(Cassette.key(system, user, params), () -> delegate.completeBatch(system, user));
+  }
+
+  private CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> cached(
+      String key,
+      Supplier<CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>>> call) {
+    Entry hit = lookup(key);
+    if (hit != null) return CompletableFuture.completedFuture(hit.invariants);
+    return call.get().thenApply(items -> store(key, items));
+  }
+
+  /**
+   * Replays a cached response to {@code onItem}, or streams it from the delegate on a miss. A
+   * response cut short by {@code onItem} is not cached, since it is incomplete.
+   *
+   * @param system the system prompt
+   * @param user the user prompt
+   * @param onItem receives items in order; returns {@code false} to stop
+   * @return future completed with the items passed to {@code onItem}
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeStreaming(
+      String system, String user, Predicate<LlmInvariantGenerator.InvariantsOut.Item> onItem) {
+    String key = Cassette.key(system, user, params);
+    Entry hit = lookup(key);
+    if (hit != null) return CompletableFuture.completedFuture(LlmIo.replay(hit.invariants, onItem));
+
+    AtomicBoolean stopped = new AtomicBoolean();
+    return delegate
+        .completeStreaming(
+            system,
+            user,
+            item -> {
+              boolean more = onItem.test(item);
+              if (!more) stopped.set(true);
+              return more;
+            })
+        .thenApply(items -> stopped.get() ? items : store(key, items));
+  }
+
+  /**
+   * Looks a key up in memory, then on disk, counting the outcome.
+   *
+   * @param key cache key
+   * @return fresh entry, or {@code null} on a miss
+   */
+  private @Nullable Entry lookup(String key) {
+    Entry hit = memory.get(key);
+    if (hit != null && fresh(hit)) {
+      memoryHits.incrementAndGet();
+      return hit;
+    }
+
+    hit = readDisk(key);
+    if (hit != null) {
+      diskHits.incrementAndGet();
+      memory.put(key, hit);
+      return hit;
+    }
+
+    misses.incrementAndGet();
+    return null;
+  }
+
+  private List<LlmInvariantGenerator.InvariantsOut.Item> store(
+      String key, List<LlmInvariantGenerator.InvariantsOut.Item> items) {
+    Entry entry =
+        new Entry(
+            System.currentTimeMillis(), Collections.unmodifiableList(new ArrayList<>(items)));
+    memory.put(key, entry);
+    writeDisk(key, entry);
+    return entry.invariants;
+  }
+
+  private boolean fresh(Entry e) {
+    return ttl == null || System.currentTimeMillis() - e.createdAt <= ttl.toMillis();
+  }
+
+  /**
+   * Reads a cached entry from disk and marks it as recently used.
+   *
+   * @param key cache key
+   * @return fresh entry, or {@code null} if missing, expired or unreadable
+   */
+  private @Nullable Entry readDisk(String key) {
+    Path f = dir.resolve(key + ".json");
+    if (!Files.isRegularFile(f)) return null;
+    try {
+      Entry e = MAPPER.readValue(f.toFile(), Entry.class);
+      if (e.invariants == null) return null;
+      if (!fresh(e)) {
+        expired.incrementAndGet();
+        return null;
+      }
+      e.invariants = Collections.unmodifiableList(e.invariants);
+      // file modification time tracks recency for eviction
+      Files.setLastModifiedTime(f, FileTime.fromMillis(System.currentTimeMillis()));
+      return e;
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Writes an entry to disk atomically, evicting least recently used entries if the store is full.
+   *
+   * @param key cache key
+   * @param entry entry to persist
+   */
+  private void writeDisk(String key, Entry entry) {
+    Path f = dir.resolve(key + ".json");
+    try {
+      boolean existed = Files.exists(f);
+      Path tmp = Files.createTempFile(dir, key, ".tmp");
+      MAPPER.writeValue(tmp.toFile(), entry);
+      Files.move(tmp, f, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      if (!existed && diskEntries.incrementAndGet() > maxEntries) evict();
+    } catch (IOException ignore) {
+      // a failed write only costs a future miss
+    }
+  }
+
+  /** Deletes the least recently used files until the store is back to nine tenths of its size. */
+  private synchronized void evict() throws IOException {
+    List<Path> files = cacheFiles();
+    if (files.size() <= maxEntries) {
+      diskEntries.set(files.size());
+      return;
+    }
+
+    int target = Math.max(1, maxEntries - maxEntries / 10);
+    Map<Path, Long> lastUsed = new LinkedHashMap<>();
+    for (Path f : files) {
+      try {
+        lastUsed.put(f, Files.getLastModifiedTime(f).toMillis());
+      } catch (IOException e) {
+        lastUsed.put(f, 0L);
+      }
+    }
+    files.sort(Comparator.comparingLong(lastUsed::get));
+
+    int remaining = files.size();
+    for (Path f : files) {
+      if (remaining <= target) break;
+      if (Files.deleteIfExists(f)) evicted.incrementAndGet();
+      remaining--;
+    }
+    diskEntries.set(remaining);
+  }
+
+  private List<Path> cacheFiles() throws IOException {
+    try (Stream<Path> s = Files.list(dir)) {
+      return new ArrayList<>(s.filter(p -> p.toString().endsWith(".json")).toList());
+    }
+  }
+
+  /** Resets the counters, at the start of a run. */
+  public static void resetCounters() {
+    memoryHits.set(0);
+    diskHits.set(0);
+    misses.set(0);
+    expired.set(0);
+    evicted.set(0);
+  }
+
+  /**
+   * Returns the number of requests answered from memory.
+   *
+   * @return memory hit count
+   */
+  public static long memoryHits() {
+    return memoryHits.get();
+  }
+
+  /**
+   * Returns the number of requests answered from the on-disk store.
+   *
+   * @return disk hit count
+   */
+  public static long diskHits() {
+    return diskHits.get();
+  }
+
+  /**
+   * Returns the number of requests forwarded to the live client.
+   *
+   * @return miss count
+   */
+  public static long misses() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the number of stored responses ignored because they outlived the time-to-live.
+   *
+   * @return expired entry count
+   */
+  public static long expired() {
+    return expired.get();
+  }
+
+  /**
+   * Returns the number of stored responses evicted to respect the maximum size.
+   *
+   * @return evicted entry count
+   */
+  public static long evicted() {
+    return evicted.get();
+  }
+}
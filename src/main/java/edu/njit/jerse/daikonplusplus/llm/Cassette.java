@@ -2,6 +2,7 @@ package edu.njit.jerse.daikonplusplus.llm;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.security.MessageDigest;
@@ -18,11 +19,12 @@ import java.util.*;
  * derived from a SHA-256 hash of the canonicalized request.
  *
  * <p>This class is package-private and used internally by {@link ReplayingLlmClient}, {@link
- * RecordingCompositeLlmClient}, and {@link RealOpenAILlmClient}.
+ * RecordingCompositeLlmClient}, {@link CachingLlmClient}, and {@link RealOpenAILlmClient}.
  */
 final class Cassette {
   private static final ObjectMapper MAPPER =
       new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+  private static final HexFormat HEX = HexFormat.of();
 
   /**
    * Computes a stable short key for a given (system, user) prompt pair.
@@ -35,8 +37,22 @@ final class Cassette {
    * @return deterministic 20-character hex key
    */
   static String key(String system, String user) {
+    return key(system, user, Map.of());
+  }
+
+  /**
+   * Computes a stable short key for a prompt pair sent under additional request parameters, such
+   * as the model and prompt strategy. With no parameters the key equals {@link #key(String,
+   * String)}.
+   *
+   * @param system the system prompt
+   * @param user the user prompt
+   * @param params additional request parameters that select a different response
+   * @return deterministic 20-character hex key
+   */
+  static String key(String system, String user, Map<String, String> params) {
     // Stable hash of canonical JSON request (easy and robust)
-    Map<String, Object> req = new TreeMap<>();
+    Map<String, Object> req = new TreeMap<>(params);
     req.put("system", system);
     req.put("user", user);
     String canonical;
@@ -50,6 +66,24 @@ final class Cassette {
     return key;
   }
 
+  /**
+   * Computes the key of one of several independent samples of the response to a prompt pair.
+   * Sample 0 has the plain key; the others add their index to the parameters, so that each sample
+   * is a distinct request for caches, coalescing and cassettes while the prompt stays the same.
+   *
+   * @param system the system prompt
+   * @param user the user prompt
+   * @param params additional request parameters that select a different response
+   * @param sample zero-based sample index
+   * @return deterministic 20-character hex key
+   */
+  static String sampleKey(String system, String user, Map<String, String> params, int sample) {
+    if (sample == 0) return key(system, user, params);
+    Map<String, String> withSample = new TreeMap<>(params);
+    withSample.put("sample", Integer.toString(sample));
+    return key(system, user, withSample);
+  }
+
   /**
    * Writes a cassette file containing the serialized object value.
    *
@@ -83,6 +117,30 @@ final class Cassette {
     return MAPPER.readValue(json, type);
   }
 
+  /**
+   * Deserializes a cassette payload held in memory, such as an entry of a {@link CassettePack}.
+   *
+   * @param json JSON bytes
+   * @param type class type to deserialize into
+   * @param <T> generic result type
+   * @return deserialized object
+   * @throws IOException if parsing fails
+   */
+  static <T> T decode(byte[] json, Class<T> type) throws IOException {
+    return MAPPER.readValue(json, type);
+  }
+
+  /**
+   * Re-serializes a cassette file's contents without pretty-printing.
+   *
+   * @param json JSON bytes of a cassette file
+   * @return compact JSON bytes
+   * @throws IOException if the contents are not valid JSON
+   */
+  static byte[] compact(byte[] json) throws IOException {
+    return MAPPER.writeValueAsBytes(MAPPER.readTree(json));
+  }
+
   /**
    * Computes the SHA-256 hash of a string and returns its lowercase hexadecimal encoding.
    *
@@ -93,9 +151,7 @@ final class Cassette {
     try {
       MessageDigest md = MessageDigest.getInstance("SHA-256");
       byte[] d = md.digest(s.getBytes(StandardCharsets.UTF_8));
-      StringBuilder sb = new StringBuilder();
-      for (byte b : d) sb.append(String.format("%02x", b));
-      return sb.toString();
+      return HEX.formatHex(d);
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
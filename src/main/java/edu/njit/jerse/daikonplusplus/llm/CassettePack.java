@@ -0,0 +1,211 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import edu.njit.jerse.daikonplusplus.util.SortedKeyFile;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Packed archive of cassettes stored in a single memory-mapped file.
+ *
+ * <p>A cassette directory may hold thousands of pretty-printed JSON files, one per prompt. A pack
+ * stores the same responses as compact JSON payloads in a {@link SortedKeyFile} named {@value
+ * #FILE_NAME} inside the cassette directory, so a replay lookup is a binary search over a mapped
+ * file instead of a file open and read. {@link ReplayingLlmClient} consults the pack first and
+ * falls back to loose JSON files, so newly recorded cassettes remain usable until the directory is
+ * packed again.
+ *
+ * <p>{@link #main} converts and compacts a cassette directory:
+ *
+ * <pre>
+ * CassettePack &lt;cassetteDir&gt; [--keep &lt;hitLog&gt;]... [--delete-json]
+ * </pre>
+ *
+ * With {@code --keep}, only cassettes listed in the given hit logs (written by replay runs with
+ * {@code DP_CASSETTE_HIT_LOG}) are retained; {@code --delete-json} removes the loose JSON files
+ * once they are in the pack.
+ */
+public final class CassettePack implements Closeable {
+
+  /** Name of the pack file inside a cassette directory. */
+  public static final String FILE_NAME = "cassettes.dpack";
+
+  /** Format tag stored in the file header, bumped whenever the payload layout changes. */
+  private static final String FORMAT = "cassettes/1";
+
+  private final SortedKeyFile data;
+
+  private CassettePack(SortedKeyFile data) {
+    this.data = data;
+  }
+
+  /**
+   * Opens a cassette pack.
+   *
+   * @param file pack file
+   * @return opened pack
+   * @throws IOException if the file cannot be read or is not a cassette pack
+   */
+  public static CassettePack open(Path file) throws IOException {
+    SortedKeyFile data = SortedKeyFile.open(file);
+    if (!data.meta().startsWith(FORMAT)) {
+      data.close();
+      throw new IOException("Not a cassette pack: " + file);
+    }
+    return new CassettePack(data);
+  }
+
+  /**
+   * Opens the pack of a cassette directory, if it has one.
+   *
+   * @param cassetteDir cassette directory
+   * @return opened pack, or {@code null} if the directory has no readable pack
+   */
+  static @Nullable CassettePack openIn(Path cassetteDir) {
+    Path file = cassetteDir.resolve(FILE_NAME);
+    if (!Files.isRegularFile(file)) return null;
+    try {
+      return open(file);
+    } catch (IOException e) {
+      System.err.println("[DP-LLM] Ignoring unreadable cassette pack " + file + ": " + e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the compact JSON payload of a cassette.
+   *
+   * @param key cassette key, as computed by {@link Cassette#key(String, String)}
+   * @return JSON bytes, or {@code null} if the pack has no such cassette
+   */
+  byte @Nullable [] get(String key) {
+    return data.getBytes(key);
+  }
+
+  /**
+   * Returns the number of cassettes in the pack.
+   *
+   * @return cassette count
+   */
+  public int size() {
+    return data.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    data.close();
+  }
+
+  /**
+   * Packs the cassettes of a directory into its {@value #FILE_NAME}, merging any existing pack.
+   * Loose JSON files take precedence over packed entries with the same key.
+   *
+   * @param cassetteDir cassette directory
+   * @param keep keys to retain, or {@code null} to retain every cassette
+   * @return keys written to the pack
+   * @throws IOException if a cassette cannot be read or the pack cannot be written
+   */
+  public static Set<String> pack(Path cassetteDir, @Nullable Set<String> keep) throws IOException {
+    Map<String, byte[]> entries = new TreeMap<>();
+
+    CassettePack existing = openIn(cassetteDir);
+    if (existing != null) {
+      try (existing) {
+        for (int i = 0; i < existing.data.size(); i++) {
+          String key = existing.data.keyAt(i);
+          if (keep != null && !keep.contains(key)) continue;
+          var buf = existing.data.valueAt(i);
+          byte[] bytes = new byte[buf.remaining()];
+          buf.get(bytes);
+          entries.put(key, bytes);
+        }
+      }
+    }
+
+    for (Path f : jsonFiles(cassetteDir)) {
+      String name = f.getFileName().toString();
+      String key = name.substring(0, name.length() - ".json".length());
+      if (keep != null && !keep.contains(key)) continue;
+      entries.put(key, Cassette.compact(Files.readAllBytes(f)));
+    }
+
+    try (SortedKeyFile.Writer out =
+        SortedKeyFile.writer(cassetteDir.resolve(FILE_NAME), FORMAT)) {
+      for (Map.Entry<String, byte[]> e : entries.entrySet()) {
+        out.put(e.getKey(), e.getValue());
+      }
+      out.commit();
+    }
+    return entries.keySet();
+  }
+
+  private static List<Path> jsonFiles(Path cassetteDir) throws IOException {
+    try (Stream<Path> s = Files.list(cassetteDir)) {
+      return s.filter(p -> p.getFileName().toString().endsWith(".json")).sorted().toList();
+    }
+  }
+
+  /**
+   * Converts and compacts a cassette directory; see the class documentation for usage.
+   *
+   * @param args command-line arguments
+   * @throws IOException if the directory cannot be packed
+   */
+  public static void main(String[] args) throws IOException {
+    Path dir = null;
+    List<Path> hitLogs = new ArrayList<>();
+    boolean deleteJson = false;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--keep" -> hitLogs.add(Path.of(args[++i]));
+        case "--delete-json" -> deleteJson = true;
+        default -> dir = Path.of(args[i]);
+      }
+    }
+    if (dir == null || !Files.isDirectory(dir)) {
+      System.err.println(
+          "usage: CassettePack <cassetteDir> [--keep <hitLog>]... [--delete-json]");
+      System.exit(2);
+      return;
+    }
+
+    Set<String> keep = null;
+    if (!hitLogs.isEmpty()) {
+      keep = new HashSet<>();
+      for (Path log : hitLogs) {
+        for (String line : Files.readAllLines(log)) {
+          if (!line.isBlank()) keep.add(line.strip());
+        }
+      }
+    }
+
+    int loose = jsonFiles(dir).size();
+    Set<String> packed = pack(dir, keep);
+    System.out.println(
+        ">>> Packed "
+            + packed.size()
+            + " cassettes into "
+            + dir.resolve(FILE_NAME)
+            + " ("
+            + loose
+            + " loose JSON files)");
+
+    if (deleteJson) {
+      int deleted = 0;
+      for (Path f : jsonFiles(dir)) {
+        Files.delete(f);
+        deleted++;
+      }
+      System.out.println(">>> Deleted " + deleted + " loose JSON files");
+    }
+  }
+}
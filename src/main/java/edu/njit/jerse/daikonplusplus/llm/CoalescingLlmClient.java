@@ -0,0 +1,306 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * LLM client decorator that merges concurrent identical requests into a single call.
+ *
+ * <p>Overloads, generated code and copy-pasted classes yield byte-identical prompts that are often
+ * in flight at the same time. Requests are keyed like cassettes ({@link Cassette#key(String,
+ * String)}); while a request for a key is pending, further requests for the same key wait for it
+ * and receive its result or failure instead of reaching the delegate. Once the call completes the
+ * key is released, so later requests go through again (and may be answered by a cache further
+ * down). A caller that cancels only withdraws from the call; once every caller has withdrawn, the
+ * delegate's call is cancelled too, so that it stops and frees its rate-limiter slot.
+ *
+ * <p>Placed in front of {@link RecordingCompositeLlmClient}, this also keeps the same cassette from
+ * being recorded twice in parallel. Coalescing counts are accumulated process-wide and reported at
+ * the end of a run.
+ */
+public final class CoalescingLlmClient implements LlmClient {
+
+  private static final AtomicLong requests = new AtomicLong();
+  private static final AtomicLong coalesced = new AtomicLong();
+
+  private final LlmClient delegate;
+  private final Map<String, Shared> inFlight = new ConcurrentHashMap<>();
+
+  /** A call shared by the callers of one key. */
+  private static final class Shared {
+    final CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> result =
+        new CompletableFuture<>();
+
+    /** The delegate's call, once started; {@code null} while it runs on a caller's thread. */
+    volatile @Nullable CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> started;
+
+    /** Callers not yet withdrawn; only changed while the key is locked in {@code inFlight}. */
+    int waiters;
+  }
+
+  /** One caller's view of a shared call. */
+  private static final class Waiter
+      extends CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> {
+    /** Whether cancelling this caller cancelled the delegate's call. */
+    volatile boolean stopped;
+  }
+
+  /**
+   * Creates a coalescing client.
+   *
+   * @param delegate client that performs the merged calls
+   */
+  public CoalescingLlmClient(LlmClient delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Returns the response for a prompt pair, sharing the pending call of an identical request if
+   * there is one. The delegate is called on the calling thread otherwise.
+   *
+   * @param system the system prompt
+   * @param user the user prompt
+   * @return list of invariant items
+   * @throws IOException if the shared call fails
+   */
+  @Override
+  public List<LlmInvariantGenerator.InvariantsOut.Item> complete(String system, String user)
+      throws IOException {
+    requests.incrementAndGet();
+    String key = Cassette.key(system, user);
+    Shared fresh = new Shared();
+    Shared shared = enter(key, fresh);
+    if (shared != fresh) {
+      coalesced.incrementAndGet();
+      return LlmIo.await(join(key, shared));
+    }
+
+    // the caller waits on this thread and never cancels, so the call is not stopped under it
+    try {
+      List<LlmInvariantGenerator.InvariantsOut.Item> items =
+          Collections.unmodifiableList(delegate.complete(system, user));
+      shared.result.complete(items);
+      return items;
+    } catch (IOException | RuntimeException e) {
+      shared.result.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, shared);
+    }
+  }
+
+  /**
+   * Returns the response for a prompt pair asynchronously, sharing the pending call of an identical
+   * request if there is one.
+   *
+   * @param system the system prompt
+   * @param user the user prompt
+   * @return future completed with the invariant items
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeAsync(
+      String system, String user) {
+    return share(Cassette.key(system, user), () -> delegate.completeAsync(system, user));
+  }
+
+  /**
+   * Returns the response for a batch prompt asynchronously, sharing the pending call of an
+   * identical request if there is one.
+   *
+   * @param system the system prompt
+   * @param user the user prompt
+   * @return future completed with the invariant items
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeBatch(
+      String system, String user) {
+    return share(Cassette.key(system, user), () -> delegate.completeBatch(system, user));
+  }
+
+  /**
+   * Returns the response of one sample of a prompt pair asynchronously, sharing the pending call
+   * of the same sample only.
+   *
+   * @param system the system prompt
+   * @param user the user prompt
+   * @param sample zero-based sample index
+   * @return future completed with the invariant items
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeSample(
+      String system, String user, int sample) {
+    return share(
+        Cassette.sampleKey(system, user, Map.of(), sample),
+        () -> delegate.completeSample(system, user, sample));
+  }
+
+  /**
+   * Streams the response for a prompt pair. A request that finds an identical request pending
+   * waits for it and then replays its items; if the pending request was stopped early, only the
+   * items it received are replayed.
+   *
+   * @param system the system prompt
+   * @param user the user prompt
+   * @param onItem receives items in order; returns {@code false} to stop
+   * @return future completed with the items passed to {@code onItem}
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeStreaming(
+      String system, String user, Predicate<LlmInvariantGenerator.InvariantsOut.Item> onItem) {
+    AtomicBoolean leader = new AtomicBoolean();
+    CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> shared =
+        share(
+            Cassette.key(system, user),
+            () -> {
+              leader.set(true);
+              return delegate.completeStreaming(system, user, onItem);
+            });
+    CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> out =
+        shared.thenApply(items -> leader.get() ? items : LlmIo.replay(items, onItem));
+    out.whenComplete(
+        (items, error) -> {
+          if (out.isCancelled()) shared.cancel(true);
+        });
+    return out;
+  }
+
+  /**
+   * Starts a call for a key, or joins the pending call for the same key.
+   *
+   * @param key request key
+   * @param call starts the call; invoked only if no call for the key is pending
+   * @return future completed with the outcome of the shared call; cancelling it withdraws the
+   *     caller, and cancels the call once every caller has withdrawn
+   */
+  private CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> share(
+      String key,
+      Supplier<CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>>> call) {
+    requests.incrementAndGet();
+    Shared fresh = new Shared();
+    Shared shared = enter(key, fresh);
+    if (shared != fresh) {
+      coalesced.incrementAndGet();
+      return join(key, shared);
+    }
+
+    CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> started;
+    try {
+      started = call.get();
+    } catch (RuntimeException e) {
+      started = CompletableFuture.failedFuture(e);
+    }
+    shared.started = started;
+    started.whenComplete(
+        (items, error) -> {
+          inFlight.remove(key, shared);
+          if (error != null) shared.result.completeExceptionally(LlmIo.unwrap(error));
+          else shared.result.complete(Collections.unmodifiableList(items));
+        });
+    return join(key, shared);
+  }
+
+  /**
+   * Registers a caller of a key, with the pending call for it if there is one.
+   *
+   * @param key request key
+   * @param fresh call to register if none is pending
+   * @return the pending call, or {@code fresh} if the caller is to start it
+   */
+  private Shared enter(String key, Shared fresh) {
+    return inFlight.compute(
+        key,
+        (k, pending) -> {
+          Shared shared = pending == null ? fresh : pending;
+          shared.waiters++;
+          return shared;
+        });
+  }
+
+  /**
+   * Returns one caller's view of a shared call, so that one caller cancelling does not cancel the
+   * call for the others.
+   *
+   * @param key request key
+   * @param shared call the caller registered with
+   * @return future completed with the outcome of the call
+   */
+  private Waiter join(String key, Shared shared) {
+    Waiter mine = new Waiter();
+    shared.result.whenComplete(
+        (items, error) -> {
+          if (error != null) mine.completeExceptionally(error);
+          else mine.complete(items);
+        });
+    mine.whenComplete(
+        (items, error) -> {
+          if (mine.isCancelled()) mine.stopped = leave(key, shared);
+        });
+    return mine;
+  }
+
+  /**
+   * Withdraws a caller that cancelled, and cancels the call if it was the last one waiting.
+   *
+   * @param key request key
+   * @param shared call the caller registered with
+   * @return {@code true} if the delegate's call was cancelled
+   */
+  private boolean leave(String key, Shared shared) {
+    AtomicBoolean last = new AtomicBoolean();
+    inFlight.computeIfPresent(
+        key,
+        (k, pending) -> {
+          if (pending != shared || --pending.waiters > 0) return pending;
+          last.set(true);
+          return null;
+        });
+    CompletableFuture<?> started = shared.started;
+    return last.get() && started != null && started.cancel(true);
+  }
+
+  /**
+   * Cancels a caller's pending call. The delegate's call is stopped only if no other caller is
+   * waiting for it.
+   *
+   * @param call future returned by this client
+   * @return {@code true} if the delegate's call was cancelled
+   */
+  @Override
+  public boolean cancel(CompletableFuture<?> call) {
+    boolean cancelled = call.cancel(true);
+    return call instanceof Waiter w ? cancelled && w.stopped : cancelled;
+  }
+
+  /** Resets the counters, at the start of a run. */
+  public static void resetCounters() {
+    requests.set(0);
+    coalesced.set(0);
+  }
+
+  /**
+   * Returns the number of requests received.
+   *
+   * @return request count
+   */
+  public static long requests() {
+    return requests.get();
+  }
+
+  /**
+   * Returns the number of requests answered by sharing an identical pending call.
+   *
+   * @return coalesced request count
+   */
+  public static long coalesced() {
+    return coalesced.get();
+  }
+}
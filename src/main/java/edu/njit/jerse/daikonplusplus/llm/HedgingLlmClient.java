@@ -0,0 +1,279 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * LLM client decorator that sends a duplicate of a slow request and uses whichever copy answers
+ * first.
+ *
+ * <p>The latencies of recent successful calls are kept in a ring buffer. Once enough have been
+ * observed, a call still pending after the configured latency percentile is hedged: the same
+ * request is sent again, the first successful response wins, and the other copy is cancelled. A
+ * failed copy does not fail the request while the other is still pending. Hedges are limited to a
+ * small fraction of all requests, so a uniformly slow endpoint does not receive twice the load.
+ *
+ * <p>The client is meant to wrap a {@link RateLimitedLlmClient}, so that every hedge pays for its
+ * rate budget and concurrency slot like any other request. Latencies and the hedge timer are
+ * counted from the moment a copy is sent (see {@link LlmClient#completeAsync(String, String,
+ * Runnable)}), so time spent waiting for the budgets does not count as endpoint latency.
+ *
+ * <p>Streaming requests are passed through unhedged. Counters are accumulated process-wide and
+ * reported at the end of a run.
+ */
+public final class HedgingLlmClient implements LlmClient {
+
+  /** Number of recent latencies the threshold is computed from. */
+  private static final int WINDOW = 512;
+
+  /** Latencies needed before the first hedge. */
+  private static final int MIN_SAMPLES = 20;
+
+  /** Maximum share of requests that may be hedged. */
+  private static final double MAX_HEDGE_RATIO = 0.1;
+
+  private static final ScheduledExecutorService TIMER =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread t = new Thread(r, "dp-llm-hedge");
+            t.setDaemon(true);
+            return t;
+          });
+
+  private static final AtomicLong hedged = new AtomicLong();
+  private static final AtomicLong hedgeWins = new AtomicLong();
+
+  private final LlmClient delegate;
+  private final double percentile;
+  private final long[] latenciesNs = new long[WINDOW];
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong hedges = new AtomicLong();
+
+  // guarded by latenciesNs
+  private int samples;
+  private int next;
+  private long thresholdNs = -1;
+
+  /**
+   * Creates a hedging client.
+   *
+   * @param delegate client that performs the calls
+   * @param percentile latency percentile, between 1 and 99, after which a call is hedged
+   */
+  public HedgingLlmClient(LlmClient delegate, int percentile) {
+    this.delegate = delegate;
+    this.percentile = Math.max(1, Math.min(99, percentile)) / 100.0;
+  }
+
+  @Override
+  public List<LlmInvariantGenerator.InvariantsOut.Item> complete(String system, String user)
+      throws IOException {
+    return LlmIo.await(completeAsync(system, user));
+  }
+
+  /**
+   * Sends a prompt pair, hedging it if it is still pending after the latency threshold.
+   *
+   * @param system system prompt
+   * @param user user prompt
+   * @return future completed with the first successful response, or exceptionally once every copy
+   *     has failed
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeAsync(
+      String system, String user) {
+    return hedged(system, user, false);
+  }
+
+  /**
+   * Sends a batch prompt, hedging it like {@link #completeAsync(String, String)}.
+   *
+   * @param system system prompt of the batch
+   * @param user user prompt of the batch
+   * @return future completed with the first successful response, or exceptionally once every copy
+   *     has failed
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeBatch(
+      String system, String user) {
+    return hedged(system, user, true);
+  }
+
+  private CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> hedged(
+      String system, String user, boolean batch) {
+    requests.incrementAndGet();
+    CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> result =
+        new CompletableFuture<>();
+    AtomicInteger pending = new AtomicInteger(1);
+
+    // the hedge timer starts once the primary copy has been sent (not merely queued for the
+    // budgets) and its outcome is tracked, so that a copy answered at once is never hedged
+    AtomicLong sentNs = new AtomicLong();
+    AtomicInteger gate = new AtomicInteger(2);
+    Runnable startTimer =
+        () -> {
+          if (gate.decrementAndGet() == 0) {
+            scheduleHedge(system, user, batch, result, pending, sentNs.get());
+          }
+        };
+    CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> primary =
+        send(
+            system,
+            user,
+            batch,
+            result,
+            pending,
+            false,
+            () -> {
+              sentNs.set(System.nanoTime());
+              startTimer.run();
+            });
+    startTimer.run();
+    result.whenComplete((items, error) -> primary.cancel(true));
+    return result;
+  }
+
+  /** Sends a hedge of a request if it is still pending once the threshold has passed. */
+  private void scheduleHedge(
+      String system,
+      String user,
+      boolean batch,
+      CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> result,
+      AtomicInteger pending,
+      long sentNs) {
+    long threshold = threshold();
+    if (threshold <= 0 || result.isDone()) return;
+    ScheduledFuture<?> timer =
+        TIMER.schedule(
+            () -> {
+              if (result.isDone() || !hedgeAllowed()) return;
+              pending.incrementAndGet();
+              hedges.incrementAndGet();
+              hedged.incrementAndGet();
+              CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> hedge =
+                  send(system, user, batch, result, pending, true, () -> {});
+              result.whenComplete((items, error) -> hedge.cancel(true));
+            },
+            sentNs + threshold - System.nanoTime(),
+            TimeUnit.NANOSECONDS);
+    result.whenComplete((items, error) -> timer.cancel(false));
+  }
+
+  /**
+   * Passes a sample other than the first through without hedging: the ensemble that requests it
+   * already cancels the samples still pending once it has its answer.
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeSample(
+      String system, String user, int sample) {
+    if (sample == 0) return completeAsync(system, user);
+    return delegate.completeSample(system, user, sample);
+  }
+
+  /**
+   * Passes a streaming request through without hedging, since items already delivered cannot be
+   * taken back.
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeStreaming(
+      String system, String user, Predicate<LlmInvariantGenerator.InvariantsOut.Item> onItem) {
+    return delegate.completeStreaming(system, user, onItem);
+  }
+
+  /**
+   * Sends one copy of a request; the first successful copy completes {@code result}. Its latency
+   * is counted from the last time the delegate sent it.
+   */
+  private CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> send(
+      String system,
+      String user,
+      boolean batch,
+      CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> result,
+      AtomicInteger pending,
+      boolean isHedge,
+      Runnable onSend) {
+    AtomicLong sentNs = new AtomicLong(System.nanoTime());
+    CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> call;
+    Runnable sent =
+        () -> {
+          sentNs.set(System.nanoTime());
+          onSend.run();
+        };
+    try {
+      call =
+          batch
+              ? delegate.completeBatch(system, user, sent)
+              : delegate.completeAsync(system, user, sent);
+    } catch (RuntimeException e) {
+      call = CompletableFuture.failedFuture(e);
+    }
+    call.whenComplete(
+        (items, error) -> {
+          if (error == null) {
+            record(System.nanoTime() - sentNs.get());
+            if (result.complete(items) && isHedge) hedgeWins.incrementAndGet();
+          } else if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(LlmIo.unwrap(error));
+          }
+        });
+    return call;
+  }
+
+  private boolean hedgeAllowed() {
+    return hedges.get() < Math.max(1, (long) (requests.get() * MAX_HEDGE_RATIO));
+  }
+
+  private void record(long latencyNs) {
+    synchronized (latenciesNs) {
+      latenciesNs[next] = latencyNs;
+      next = (next + 1) % WINDOW;
+      samples = Math.min(WINDOW, samples + 1);
+      // recomputing on every sample is wasteful; a sixteenth of the window is fresh enough
+      if (samples >= MIN_SAMPLES && (thresholdNs < 0 || next % 16 == 0)) {
+        long[] sorted = Arrays.copyOf(latenciesNs, samples);
+        Arrays.sort(sorted);
+        thresholdNs = sorted[(int) Math.min(samples - 1, Math.floor(samples * percentile))];
+      }
+    }
+  }
+
+  /** Returns the current hedging threshold, or {@code -1} while too few calls were observed. */
+  private long threshold() {
+    synchronized (latenciesNs) {
+      return thresholdNs;
+    }
+  }
+
+  /** Resets the counters, at the start of a run. */
+  public static void resetCounters() {
+    hedged.set(0);
+    hedgeWins.set(0);
+  }
+
+  /**
+   * Returns the number of hedged duplicate requests sent.
+   *
+   * @return hedge count
+   */
+  public static long hedged() {
+    return hedged.get();
+  }
+
+  /**
+   * Returns the number of requests answered by their hedged duplicate.
+   *
+   * @return count of hedges that finished first
+   */
+  public static long hedgeWins() {
+    return hedgeWins.get();
+  }
+}
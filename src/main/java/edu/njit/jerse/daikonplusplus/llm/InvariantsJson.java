@@ -0,0 +1,98 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JSON output format of the HTTP clients that talk to self-hosted servers.
+ *
+ * <p>Provides the JSON schemas of {@link LlmInvariantGenerator.InvariantsOut} and {@link
+ * LlmInvariantGenerator.BatchInvariantsOut}, which the servers use to constrain generation, and
+ * parses model output into invariant items. Output that is not a clean document (surrounding
+ * prose, code fences, a truncated tail) is salvaged: every complete invariant object is kept and
+ * the rest is dropped. Salvaged responses are counted process-wide and reported at the end of a
+ * run.
+ */
+public final class InvariantsJson {
+  private InvariantsJson() {}
+
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  /** JSON schema of {@link LlmInvariantGenerator.InvariantsOut}. */
+  static final ObjectNode SCHEMA = build(false);
+
+  /** JSON schema of {@link LlmInvariantGenerator.BatchInvariantsOut}. */
+  static final ObjectNode BATCH_SCHEMA = build(true);
+
+  private static final AtomicLong salvaged = new AtomicLong();
+
+  /**
+   * Returns the schema of a response; only batch responses carry point labels.
+   *
+   * @param batch whether the request is a batch (see {@link LlmClient#completeBatch})
+   * @return {@link #BATCH_SCHEMA} for a batch, otherwise {@link #SCHEMA}
+   */
+  static ObjectNode schema(boolean batch) {
+    return batch ? BATCH_SCHEMA : SCHEMA;
+  }
+
+  /**
+   * Parses model output, salvaging complete invariants if it is not a clean {@link
+   * LlmInvariantGenerator.InvariantsOut} document.
+   *
+   * @param content model output
+   * @return parsed invariant items
+   */
+  static List<LlmInvariantGenerator.InvariantsOut.Item> parse(String content) {
+    if (content.isBlank()) return List.of();
+    try {
+      // batch items are a superset of single-point items, and keep the point label if present
+      LlmInvariantGenerator.BatchInvariantsOut out =
+          MAPPER.readValue(content, LlmInvariantGenerator.BatchInvariantsOut.class);
+      return out.invariants == null ? List.of() : Collections.unmodifiableList(out.invariants);
+    } catch (JsonProcessingException e) {
+      salvaged.incrementAndGet();
+      return new StreamingItemParser().feed(content);
+    }
+  }
+
+  private static ObjectNode build(boolean batch) {
+    ObjectNode item = MAPPER.createObjectNode().put("type", "object");
+    ObjectNode props = item.putObject("properties");
+    if (batch) props.putObject("point").put("type", "string");
+    props.putObject("expression").put("type", "string");
+    props.putObject("rationale").put("type", "string");
+    ObjectNode kv = MAPPER.createObjectNode().put("type", "object");
+    ObjectNode kvProps = kv.putObject("properties");
+    kvProps.putObject("key").put("type", "string");
+    kvProps.putObject("value").put("type", "string");
+    props.putObject("meta").put("type", "array").set("items", kv);
+    item.putArray("required").add("expression");
+
+    ObjectNode root = MAPPER.createObjectNode().put("type", "object");
+    ObjectNode invariants = root.putObject("properties").putObject("invariants");
+    invariants.put("type", "array").set("items", item);
+    root.putArray("required").add("invariants");
+    return root;
+  }
+
+  /** Resets the counters, at the start of a run. */
+  public static void resetCounters() {
+    salvaged.set(0);
+  }
+
+  /**
+   * Returns the number of responses whose invariants were salvaged from malformed output.
+   *
+   * @return salvaged response count
+   */
+  public static long salvaged() {
+    return salvaged.get();
+  }
+}
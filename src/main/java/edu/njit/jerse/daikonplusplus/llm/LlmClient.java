@@ -2,6 +2,9 @@ package edu.njit.jerse.daikonplusplus.llm;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
 
 /**
  * Interface for clients that interact with a Large Language Model (LLM) to generate invariants.
@@ -22,4 +25,133 @@ public interface LlmClient {
    */
   List<LlmInvariantGenerator.InvariantsOut.Item> complete(String system, String user)
       throws IOException;
+
+  /**
+   * Sends prompts to the LLM without blocking the caller.
+   *
+   * <p>The default implementation runs {@link #complete} on a shared pool of I/O threads. Clients
+   * backed by an asynchronous transport override it so that a pending request holds no thread.
+   *
+   * @param system system prompt
+   * @param user user prompt
+   * @return future completed with the generated invariant items, or exceptionally with the {@link
+   *     IOException} that {@link #complete} would throw
+   */
+  default CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeAsync(
+      String system, String user) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            return complete(system, user);
+          } catch (IOException e) {
+            throw new CompletionException(e);
+          }
+        },
+        LlmIo.BLOCKING);
+  }
+
+  /**
+   * Sends prompts like {@link #completeAsync(String, String)}, and calls {@code onSend} each time
+   * the request is actually sent. Clients that hold requests back, such as {@link
+   * RateLimitedLlmClient}, call it once a request leaves their queue, so that callers can time the
+   * endpoint without the queueing delay.
+   *
+   * <p>The default implementation sends right away.
+   *
+   * @param system system prompt
+   * @param user user prompt
+   * @param onSend called whenever the request, or a retry of it, is sent
+   * @return future completed with the generated invariant items
+   */
+  default CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeAsync(
+      String system, String user, Runnable onSend) {
+    onSend.run();
+    return completeAsync(system, user);
+  }
+
+  /**
+   * Requests one of several independent samples of the response to a prompt. The prompt is sent
+   * unchanged; clients that key responses by prompt (caches, coalescing, cassettes) tell the
+   * samples apart by their index (see {@link Cassette#sampleKey}), and sample 0 is the plain
+   * request.
+   *
+   * <p>The default implementation ignores the index, since a live endpoint samples every request
+   * independently.
+   *
+   * @param system system prompt
+   * @param user user prompt
+   * @param sample zero-based sample index
+   * @return future completed with the generated invariant items
+   */
+  default CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeSample(
+      String system, String user, int sample) {
+    return completeAsync(system, user);
+  }
+
+  /**
+   * Sends a batch prompt, whose response tags every invariant with the label of its program point
+   * (see {@link LlmInvariantGenerator.BatchInvariantsOut}). Clients that constrain the response to
+   * a schema ask for the batch schema here, and for the single-point one otherwise; the prompt
+   * text does not decide it.
+   *
+   * <p>The default implementation sends the prompt like {@link #completeAsync(String, String)}.
+   *
+   * @param system system prompt of the batch
+   * @param user user prompt of the batch
+   * @return future completed with the generated invariant items
+   */
+  default CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeBatch(
+      String system, String user) {
+    return completeAsync(system, user);
+  }
+
+  /**
+   * Sends a batch prompt like {@link #completeBatch(String, String)}, and calls {@code onSend} like
+   * {@link #completeAsync(String, String, Runnable)}.
+   *
+   * <p>The default implementation sends right away.
+   *
+   * @param system system prompt of the batch
+   * @param user user prompt of the batch
+   * @param onSend called whenever the request, or a retry of it, is sent
+   * @return future completed with the generated invariant items
+   */
+  default CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeBatch(
+      String system, String user, Runnable onSend) {
+    onSend.run();
+    return completeBatch(system, user);
+  }
+
+  /**
+   * Cancels a pending call returned by this client.
+   *
+   * <p>The default implementation cancels the future, which clients pass on to the request.
+   * Clients that share one request among several callers, such as {@link CoalescingLlmClient},
+   * stop it only once every caller has cancelled.
+   *
+   * @param call future returned by this client
+   * @return {@code true} if the request itself was stopped
+   */
+  default boolean cancel(CompletableFuture<?> call) {
+    return call.cancel(true);
+  }
+
+  /**
+   * Sends prompts to the LLM and passes each generated item to a callback as soon as it is
+   * available. The callback returns {@code false} once it needs no further items, which lets
+   * streaming clients stop generation early.
+   *
+   * <p>The default implementation waits for {@link #completeAsync} and then passes the items in
+   * order. Clients backed by a streaming transport override it.
+   *
+   * @param system system prompt
+   * @param user user prompt
+   * @param onItem receives items in order; returns {@code false} to stop
+   * @return future completed with the items passed to {@code onItem}, or exceptionally with an
+   *     {@link IOException}
+   */
+  default CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeStreaming(
+      String system, String user, Predicate<LlmInvariantGenerator.InvariantsOut.Item> onItem) {
+    return completeAsync(system, user).thenApply(items -> LlmIo.replay(items, onItem));
+  }
 }
@@ -0,0 +1,69 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Process-wide deadline of the LLM proposal phase, propagated to individual requests.
+ *
+ * <p>{@code App} waits for proposals only until {@code llmTotalTimeoutSec} has elapsed. Clients cap
+ * the timeout of each HTTP call at the time remaining until then, so a request that can no longer
+ * be used fails instead of holding a connection, and no request is started after the deadline.
+ */
+public final class LlmDeadline {
+
+  private static volatile long deadlineNs;
+  private static volatile boolean set;
+
+  private LlmDeadline() {}
+
+  /**
+   * Sets the deadline of the current run.
+   *
+   * @param deadlineNanoTime deadline as a {@link System#nanoTime()} value
+   */
+  public static void set(long deadlineNanoTime) {
+    deadlineNs = deadlineNanoTime;
+    set = true;
+  }
+
+  /** Removes the deadline, so that requests only use their own timeouts. */
+  public static void clear() {
+    set = false;
+  }
+
+  /**
+   * Returns whether the deadline of the current run has passed.
+   *
+   * @return {@code true} if a deadline is set and has passed
+   */
+  public static boolean passed() {
+    return set && deadlineNs - System.nanoTime() <= 0;
+  }
+
+  /**
+   * Returns whether the deadline of the current run passes within a delay.
+   *
+   * @param delayNs delay from now, in nanoseconds
+   * @return {@code true} if a deadline is set and passes before the delay has elapsed
+   */
+  static boolean passesWithin(long delayNs) {
+    return set && deadlineNs - System.nanoTime() - delayNs <= 0;
+  }
+
+  /**
+   * Returns the timeout for a request started now.
+   *
+   * @param cap the request's own timeout, or {@code null} for none
+   * @return the smaller of {@code cap} and the time left, or {@code null} if neither applies
+   * @throws HttpTimeoutException if the deadline has passed
+   */
+  static @Nullable Duration timeout(@Nullable Duration cap) throws HttpTimeoutException {
+    if (!set) return cap;
+    long remainingNs = deadlineNs - System.nanoTime();
+    if (remainingNs <= 0) throw new HttpTimeoutException("LLM phase deadline reached");
+    Duration remaining = Duration.ofNanos(remainingNs);
+    return cap == null || remaining.compareTo(cap) < 0 ? remaining : cap;
+  }
+}
@@ -0,0 +1,94 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+
+/**
+ * Signals that an LLM endpoint answered with an HTTP error status.
+ *
+ * <p>Carries the status code and any server-requested retry delay so that {@link
+ * RateLimitedLlmClient} can tell throttling and transient server errors from permanent failures.
+ */
+public final class LlmHttpException extends IOException {
+
+  private final int statusCode;
+  private final long retryAfterMs;
+
+  /**
+   * Creates an exception for an HTTP error response.
+   *
+   * @param message detail message
+   * @param statusCode HTTP status code
+   * @param retryAfterMs delay requested by the server before retrying, or {@code -1} if none
+   * @param cause underlying exception, or {@code null}
+   */
+  public LlmHttpException(String message, int statusCode, long retryAfterMs, Throwable cause) {
+    super(message, cause);
+    this.statusCode = statusCode;
+    this.retryAfterMs = retryAfterMs;
+  }
+
+  /**
+   * Creates an exception for an error response of an HTTP client call.
+   *
+   * @param endpoint name of the endpoint for the message, e.g. {@code "Local LLM"}
+   * @param response error response
+   * @return exception carrying the status and the {@code Retry-After} delay
+   */
+  static LlmHttpException of(String endpoint, HttpResponse<?> response) {
+    int status = response.statusCode();
+    long retryAfterMs =
+        response
+            .headers()
+            .firstValue("Retry-After")
+            .map(LlmHttpException::retryAfterMs)
+            .orElse(-1L);
+    return new LlmHttpException(endpoint + " HTTP error: " + status, status, retryAfterMs, null);
+  }
+
+  /** Parses a {@code Retry-After} header given in seconds; HTTP dates are not supported. */
+  private static long retryAfterMs(String header) {
+    try {
+      return Math.max(0, Long.parseLong(header.trim())) * 1000;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Returns the HTTP status code.
+   *
+   * @return status code
+   */
+  public int statusCode() {
+    return statusCode;
+  }
+
+  /**
+   * Returns the delay the server requested before retrying.
+   *
+   * @return delay in milliseconds, or {@code -1} if the server did not specify one
+   */
+  public long retryAfterMs() {
+    return retryAfterMs;
+  }
+
+  /**
+   * Returns whether the status indicates throttling ({@code 429}) or server overload ({@code 503}).
+   *
+   * @return {@code true} for throttling responses
+   */
+  public boolean isThrottled() {
+    return statusCode == 429 || statusCode == 503;
+  }
+
+  /**
+   * Returns whether the request may succeed if retried: throttling, request timeouts and server
+   * errors.
+   *
+   * @return {@code true} for retriable statuses
+   */
+  public boolean isRetriable() {
+    return statusCode == 408 || statusCode == 429 || statusCode >= 500;
+  }
+}
@@ -7,14 +7,22 @@ import com.openai.models.ChatModel;
 import edu.njit.jerse.daikonplusplus.App.FilterStats;
 import edu.njit.jerse.daikonplusplus.config.DpConfig;
 import edu.njit.jerse.daikonplusplus.llm.prompt.Prompt;
+import edu.njit.jerse.daikonplusplus.llm.prompt.PromptBatch;
 import edu.njit.jerse.daikonplusplus.llm.prompt.PromptContext;
+import edu.njit.jerse.daikonplusplus.llm.prompt.PromptLayout;
 import edu.njit.jerse.daikonplusplus.llm.prompt.PromptStrategy;
 import edu.njit.jerse.daikonplusplus.llm.prompt.PromptStrategyFactory;
 import edu.njit.jerse.daikonplusplus.model.InvariantSpec;
 import edu.njit.jerse.daikonplusplus.model.ProgramPoint;
 import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
+import edu.njit.jerse.daikonplusplus.parse.context.ContextKind;
+import edu.njit.jerse.daikonplusplus.util.ExpressionCanonicalizer;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
@@ -37,12 +45,23 @@ public final class LlmInvariantGenerator {
   /** Pluggable LLM backend (real, replay, or record). */
   private final LlmClient llm;
 
+  /** Small model every point is sent to first, or {@code null} without a cascade. */
+  private final @Nullable LlmClient firstTier;
+
   /** Maximum number of invariants requested per program point. */
   private final int maxInvariants;
 
   private final DpConfig config;
   private final PromptStrategy promptStrategy;
 
+  /** Concurrency a live client starts with before adapting to the provider's limits. */
+  private static final int INITIAL_CONCURRENCY = 16;
+
+  /** Suffixes of the strategy name under which the two models of a cascade are accounted. */
+  private static final String FIRST_TIER = " (cascade first)";
+
+  private static final String ESCALATED = " (cascade escalated)";
+
   private static boolean printedModelOnce = false;
   private static boolean printedStrategyOnce = false;
 
@@ -56,7 +75,11 @@ public final class LlmInvariantGenerator {
     this.config = Objects.requireNonNull(config);
     this.maxInvariants = Math.max(1, maxInvariants);
     this.llm = buildLlmFromEnv(config);
-    this.promptStrategy = PromptStrategyFactory.create(config.promptStrategy());
+    this.firstTier = buildCascadeLlm(config);
+    printCascade(config, firstTier);
+    this.promptStrategy =
+        PromptStrategyFactory.create(
+            config.promptStrategy(), PromptLayout.parse(config.llmPromptLayout()));
   }
 
   /**
@@ -70,7 +93,11 @@ public final class LlmInvariantGenerator {
     this.config = Objects.requireNonNull(config);
     this.maxInvariants = Math.max(1, maxInvariants);
     this.llm = buildLlmFromEnv(config, model);
-    this.promptStrategy = PromptStrategyFactory.create(config.promptStrategy());
+    this.firstTier = buildCascadeLlm(config);
+    printCascade(config, firstTier);
+    this.promptStrategy =
+        PromptStrategyFactory.create(
+            config.promptStrategy(), PromptLayout.parse(config.llmPromptLayout()));
   }
 
   /**
@@ -81,10 +108,38 @@ public final class LlmInvariantGenerator {
    * @param maxInvariants maximum number of invariants to request
    */
   public LlmInvariantGenerator(DpConfig config, LlmClient llm, int maxInvariants) {
+    this(config, null, llm, maxInvariants);
+  }
+
+  /**
+   * Dependency-injection constructor for a cascade: every point is sent to {@code firstTier} first
+   * and escalated to {@code llm} if too few of its invariants are kept.
+   *
+   * @param firstTier small model's backend, or {@code null} to use {@code llm} only
+   * @param llm large model's backend
+   * @param maxInvariants maximum number of invariants to request
+   */
+  public LlmInvariantGenerator(
+      DpConfig config, @Nullable LlmClient firstTier, LlmClient llm, int maxInvariants) {
     this.config = Objects.requireNonNull(config);
     this.llm = Objects.requireNonNull(llm);
+    this.firstTier = firstTier;
     this.maxInvariants = Math.max(1, maxInvariants);
-    this.promptStrategy = PromptStrategyFactory.create(config.promptStrategy());
+    this.promptStrategy =
+        PromptStrategyFactory.create(
+            config.promptStrategy(), PromptLayout.parse(config.llmPromptLayout()));
+  }
+
+  private static void printCascade(DpConfig config, @Nullable LlmClient firstTier) {
+    if (firstTier == null) return;
+    System.out.println(
+        "[DP-LLM] Cascade: "
+            + config.llmCascadeModel()
+            + " ("
+            + config.llmCascadeProvider()
+            + ") first, escalating points with fewer than "
+            + config.llmCascadeMinKept()
+            + " invariants kept");
   }
 
   /**
@@ -113,13 +168,85 @@ public final class LlmInvariantGenerator {
       String calleeDoc,
       FilterStats stats) {
 
-    final boolean isExit = point.kind() == ProgramPointKind.METHOD_EXIT;
+    try {
+      PromptContext ctx =
+          promptContext(
+              point,
+              inScope,
+              methodBody,
+              methodJavadoc,
+              enclosingClassDoc,
+              typeDoc,
+              callSiteContext,
+              inputOutputExamples,
+              calleeDoc);
+      Prompt prompt = buildPrompt(ctx);
+
+      if (firstTier == null) return proposeBlocking(llm, promptStrategy.name(), ctx, prompt, stats);
+      List<InvariantSpec> first =
+          proposeBlocking(firstTier, promptStrategy.name() + FIRST_TIER, ctx, prompt, stats);
+      if (!ModelCascade.escalate(first, cascadeMinKept())) return first;
+      List<InvariantSpec> second =
+          proposeBlocking(llm, promptStrategy.name() + ESCALATED, ctx, prompt, stats);
+      return ModelCascade.merge(first, second, maxInvariants, stats);
 
+    } catch (Exception e) {
+      return onFailure(point, e);
+    }
+  }
+
+  /** Sends a prompt to one model and waits for its filtered response. */
+  private List<InvariantSpec> proposeBlocking(
+      LlmClient client, String strategy, PromptContext ctx, Prompt prompt, FilterStats stats) {
+
+    // ----- Structured request via pluggable LlmClient -----
+    LlmMetrics.Request metrics =
+        beginMetrics(prompt, List.of(prompt.userMessage()), ctx, strategy);
+    List<InvariantsOut.Item> items;
     try {
+      items = client.complete(prompt.systemMessage(), prompt.userMessage());
+    } catch (Exception ex) {
+      stats.llmFailures.incrementAndGet();
+      metrics.finish(0, 0, true);
+      return List.of();
+    }
+
+    List<InvariantSpec> specs = toSpecs(ctx.point(), ctx.inScope(), items, stats);
+    metrics.finish(items.size(), specs.size(), false);
+    return specs;
+  }
+
+  /**
+   * Asynchronous form of {@link #proposeInvariants}: builds the prompt on the calling thread and
+   * completes once the LLM has answered, without holding a thread while the request is pending.
+   * Failures complete the future with an empty list, as in the blocking form.
+   *
+   * @param point program point
+   * @param inScope variables available at the point
+   * @param methodBody method body (optional context)
+   * @param methodJavadoc method documentation (optional)
+   * @param enclosingClassDoc class-level documentation (optional)
+   * @param typeDoc documentation for related types (optional)
+   * @param callSiteContext call-site context (optional)
+   * @param inputOutputExamples example inputs/outputs (optional)
+   * @param calleeDoc documentation of called methods (optional)
+   * @return future list of filtered invariant specifications
+   */
+  public CompletableFuture<List<InvariantSpec>> proposeInvariantsAsync(
+      ProgramPoint point,
+      Map<String, String> inScope,
+      String methodBody,
+      String methodJavadoc,
+      String enclosingClassDoc,
+      String typeDoc,
+      String callSiteContext,
+      String inputOutputExamples,
+      String calleeDoc,
+      FilterStats stats) {
 
-      // ----- Build prompt via strategy -----
+    try {
       PromptContext ctx =
-          new PromptContext(
+          promptContext(
               point,
               inScope,
               methodBody,
@@ -128,94 +255,511 @@ public final class LlmInvariantGenerator {
               typeDoc,
               callSiteContext,
               inputOutputExamples,
-              calleeDoc,
-              maxInvariants);
+              calleeDoc);
+      Prompt prompt = buildPrompt(ctx);
+      if (firstTier == null) return propose(llm, promptStrategy.name(), ctx, prompt, stats);
+      CompletableFuture<List<InvariantSpec>> first =
+          propose(firstTier, promptStrategy.name() + FIRST_TIER, ctx, prompt, stats);
+      return cancelling(
+          first.thenCompose(kept -> escalate(ctx, prompt, kept, stats)), List.of(first));
+    } catch (Exception e) {
+      return CompletableFuture.completedFuture(onFailure(point, e));
+    }
+  }
 
-      Prompt prompt = promptStrategy.buildPrompt(ctx);
+  /**
+   * Sends a prompt to one model as configured: as an ensemble of samples, streamed, or as a single
+   * response. Failures complete the future with the invariants kept so far.
+   */
+  private CompletableFuture<List<InvariantSpec>> propose(
+      LlmClient client, String strategy, PromptContext ctx, Prompt prompt, FilterStats stats) {
+    try {
+      if (config.llmEnsembleSamples() > 1) {
+        return proposeEnsemble(client, strategy, ctx, prompt, stats);
+      }
+      if (config.llmStream()) {
+        return proposeStreaming(client, strategy, ctx, prompt, stats);
+      }
+      return proposeSingle(client, strategy, ctx, prompt, stats);
+    } catch (Exception e) {
+      return CompletableFuture.completedFuture(onFailure(ctx.point(), e));
+    }
+  }
 
-      final String system = prompt.systemMessage();
-      final String user = prompt.userMessage();
+  /**
+   * Escalates a point to the large model if the small model's response kept too few invariants,
+   * merging the invariants of both.
+   *
+   * @param ctx prompt context of the point
+   * @param prompt prompt of the point
+   * @param first invariants kept from the small model
+   * @param stats filter statistics to update
+   * @return future invariants of the point
+   */
+  private CompletableFuture<List<InvariantSpec>> escalate(
+      PromptContext ctx, Prompt prompt, List<InvariantSpec> first, FilterStats stats) {
+    if (!ModelCascade.escalate(first, cascadeMinKept())) {
+      return CompletableFuture.completedFuture(first);
+    }
+    if (config.debug()) {
+      System.out.println(
+          "[DP-LLM] escalate: " + ctx.point().elementId() + " (" + first.size() + " kept)");
+    }
+    return propose(llm, promptStrategy.name() + ESCALATED, ctx, prompt, stats)
+        .thenApply(second -> ModelCascade.merge(first, second, maxInvariants, stats));
+  }
 
-      if (!printedStrategyOnce && config.debug()) {
-        printedStrategyOnce = true;
-        System.out.println("[DP-LLM] Strategy: " + promptStrategy.name());
-      }
+  /** Returns the number of invariants below which a point is escalated, at most the cap. */
+  private int cascadeMinKept() {
+    return Math.min(config.llmCascadeMinKept(), maxInvariants);
+  }
+
+  /** Sends a prompt to one model and filters its response once complete. */
+  private CompletableFuture<List<InvariantSpec>> proposeSingle(
+      LlmClient client, String strategy, PromptContext ctx, Prompt prompt, FilterStats stats) {
+    ProgramPoint point = ctx.point();
+    Map<String, String> inScope = ctx.inScope();
+    LlmMetrics.Request metrics =
+        beginMetrics(prompt, List.of(prompt.userMessage()), ctx, strategy);
+    CompletableFuture<List<InvariantsOut.Item>> pending =
+        client.completeAsync(prompt.systemMessage(), prompt.userMessage());
+
+    return cancelling(
+        pending.handle(
+            (items, ex) -> {
+              if (ex != null) {
+                stats.llmFailures.incrementAndGet();
+                metrics.finish(0, 0, true);
+                return List.<InvariantSpec>of();
+              }
+              try {
+                List<InvariantSpec> specs = toSpecs(point, inScope, items, stats);
+                metrics.finish(items.size(), specs.size(), false);
+                return specs;
+              } catch (Exception e) {
+                metrics.finish(items.size(), 0, true);
+                return onFailure(point, e);
+              }
+            }),
+        List.of(pending));
+  }
+
+  /**
+   * Makes cancelling a future derived from pending requests cancel the requests too, which {@link
+   * CompletableFuture#cancel} on a dependent stage does not do. {@code App} cancels the points
+   * still pending at the phase deadline.
+   *
+   * @param derived future derived from the requests
+   * @param pending the requests
+   * @return {@code derived}
+   */
+  private static <T> CompletableFuture<T> cancelling(
+      CompletableFuture<T> derived, List<? extends CompletableFuture<?>> pending) {
+    derived.whenComplete(
+        (v, e) -> {
+          if (!derived.isCancelled()) return;
+          synchronized (pending) {
+            for (CompletableFuture<?> f : pending) f.cancel(true);
+          }
+        });
+    return derived;
+  }
+
+  /**
+   * Streams the response to a prompt through a {@link SpecCollector}, so that invariants are
+   * filtered while the model generates and the stream is stopped once enough are kept. Invariants
+   * kept before a failure are returned.
+   */
+  private CompletableFuture<List<InvariantSpec>> proposeStreaming(
+      LlmClient client, String strategy, PromptContext ctx, Prompt prompt, FilterStats stats) {
+    ProgramPoint point = ctx.point();
+    SpecCollector collector = new SpecCollector(point, ctx.inScope(), stats);
+    LlmMetrics.Request metrics =
+        beginMetrics(prompt, List.of(prompt.userMessage()), ctx, strategy);
+    AtomicInteger proposed = new AtomicInteger();
+    CompletableFuture<List<InvariantsOut.Item>> pending =
+        client.completeStreaming(
+            prompt.systemMessage(),
+            prompt.userMessage(),
+            item -> {
+              stats.rawFromLlm.incrementAndGet();
+              proposed.incrementAndGet();
+              return collector.accept(item);
+            });
+    return cancelling(
+        pending.handle(
+            (items, ex) -> {
+              if (ex != null) stats.llmFailures.incrementAndGet();
+              try {
+                List<InvariantSpec> specs = collector.finish();
+                metrics.finish(proposed.get(), specs.size(), ex != null);
+                return specs;
+              } catch (Exception e) {
+                metrics.finish(proposed.get(), 0, true);
+                return onFailure(point, e);
+              }
+            }),
+        List.of(pending));
+  }
+
+  /**
+   * Requests {@code llmEnsembleSamples} independent samples of the response to a prompt at once and
+   * keeps the invariants that at least {@code llmEnsembleAgreement} of them propose, as decided by
+   * a {@link SampleEnsemble}. Once enough invariants are agreed, the samples still pending are
+   * cancelled. Fails only if every sample fails.
+   */
+  private CompletableFuture<List<InvariantSpec>> proposeEnsemble(
+      LlmClient client, String strategy, PromptContext ctx, Prompt prompt, FilterStats stats) {
+    ProgramPoint point = ctx.point();
+    Map<String, String> inScope = ctx.inScope();
+    int size = config.llmEnsembleSamples();
+    boolean isExit = point.kind() == ProgramPointKind.METHOD_EXIT;
+    SampleEnsemble ensemble =
+        new SampleEnsemble(
+            size,
+            config.llmEnsembleAgreement(),
+            maxInvariants,
+            expr -> parseableExpression(expr).map(ExpressionCanonicalizer::canonical).orElse(null),
+            // judged like the kept item will be, after salvaging its text
+            expr ->
+                config.noQualityFilter()
+                    || parseableExpression(expr)
+                        .map(e -> InvariantQualityFilter.keep(e, inScope, isExit))
+                        .orElse(false));
+
+    // every sample sends the same prompt, so their usage is charged to this request
+    LlmMetrics.Request metrics =
+        beginMetrics(prompt, List.of(prompt.userMessage()), ctx, strategy);
+
+    CompletableFuture<Void> decided = new CompletableFuture<>();
+    List<CompletableFuture<List<InvariantsOut.Item>>> samples =
+        Collections.synchronizedList(new ArrayList<>());
+    for (int i = 0; i < size && !decided.isDone(); i++) {
+      CompletableFuture<List<InvariantsOut.Item>> sample =
+          client.completeSample(prompt.systemMessage(), prompt.userMessage(), i);
+      samples.add(sample);
+      sample.whenComplete(
+          (items, ex) -> {
+            if (ensemble.add(ex == null ? items : null)) decided.complete(null);
+          });
+    }
 
+    return cancelling(
+        decided.handle(
+            (v, ex) -> {
+              for (CompletableFuture<List<InvariantsOut.Item>> sample : samples) {
+                // a sample shared with another caller keeps running, and saves nothing
+                if (client.cancel(sample)) SampleEnsemble.recordCancelled();
+              }
+              if (ensemble.allFailed()) {
+                stats.llmFailures.incrementAndGet();
+                metrics.finish(0, 0, true);
+                return List.<InvariantSpec>of();
+              }
+              List<InvariantsOut.Item> agreed = ensemble.agreed();
+              // every proposal counts as raw; those not agreed on (or merged votes) are dropped
+              int unagreed = ensemble.items() - agreed.size();
+              stats.rawFromLlm.addAndGet(unagreed);
+              stats.dropNoAgreement.addAndGet(unagreed);
+              try {
+                List<InvariantSpec> specs = toSpecs(point, inScope, agreed, stats);
+                metrics.finish(ensemble.items(), specs.size(), false);
+                return specs;
+              } catch (Exception e) {
+                metrics.finish(ensemble.items(), 0, true);
+                return onFailure(point, e);
+              }
+            }),
+        samples);
+  }
+
+  /**
+   * Generates candidate invariants for several program points with a single LLM request. The
+   * model tags each invariant with the label of its point, and the items are then filtered per
+   * point exactly as in {@link #proposeInvariants}. Items tagged with an unknown label are dropped.
+   * With a cascade, the batch goes to the small model and each point with too few invariants kept
+   * is escalated to the large model on its own.
+   *
+   * @param points prompt contexts of the points, as built by {@link #promptContext}
+   * @param stats filter statistics to update
+   * @return future list of filtered invariant specifications for each point, in input order
+   */
+  public CompletableFuture<List<List<InvariantSpec>>> proposeInvariantsBatchAsync(
+      List<PromptContext> points, FilterStats stats) {
+    if (firstTier == null) return proposeBatch(llm, promptStrategy.name(), points, stats);
+
+    CompletableFuture<List<List<InvariantSpec>>> first =
+        proposeBatch(firstTier, promptStrategy.name() + FIRST_TIER, points, stats);
+    return cancelling(
+        first.thenCompose(
+            lists -> {
+              List<CompletableFuture<List<InvariantSpec>>> out = new ArrayList<>();
+              for (int i = 0; i < points.size(); i++) {
+                PromptContext ctx = points.get(i);
+                try {
+                  out.add(escalate(ctx, buildPrompt(ctx), lists.get(i), stats));
+                } catch (Exception e) {
+                  out.add(CompletableFuture.completedFuture(lists.get(i)));
+                }
+              }
+              return CompletableFuture.allOf(out.toArray(CompletableFuture[]::new))
+                  .thenApply(v -> out.stream().map(CompletableFuture::join).toList());
+            }),
+        List.of(first));
+  }
+
+  /** Sends a batch prompt to one model and splits its filtered response by point. */
+  private CompletableFuture<List<List<InvariantSpec>>> proposeBatch(
+      LlmClient client, String strategy, List<PromptContext> points, FilterStats stats) {
+
+    CompletableFuture<List<InvariantsOut.Item>> pending;
+    LlmMetrics.Request metrics;
+    try {
+      Prompt prompt = promptStrategy.buildBatchPrompt(points);
       if (config.debug()) {
-        System.out.println("[DP] LLM REQUEST → " + point.kind() + " :: " + point.elementId());
-        if (!inScope.isEmpty()) {
-          System.out.println("[DP] Scope: " + inScope);
-        }
+        System.out.println("[DP] LLM BATCH REQUEST → " + points.size() + " points");
       }
+      Set<ContextKind> contexts = EnumSet.noneOf(ContextKind.class);
+      points.forEach(ctx -> contexts.addAll(ctx.contextKinds()));
+      metrics =
+          LlmMetrics.begin(
+              prompt.systemMessage(),
+              List.of(prompt.userMessage()),
+              strategy,
+              contexts,
+              points.stream().map(ctx -> label(ctx.point())).toList());
+      pending = client.completeBatch(prompt.systemMessage(), prompt.userMessage());
+    } catch (Exception e) {
+      onFailure(points.get(0).point(), e);
+      return CompletableFuture.completedFuture(Collections.nCopies(points.size(), List.of()));
+    }
+
+    return cancelling(
+        pending.handle(
+            (items, ex) -> {
+              if (ex != null) {
+                stats.llmFailures.incrementAndGet();
+                metrics.finish(0, 0, true);
+                return Collections.nCopies(points.size(), List.<InvariantSpec>of());
+              }
+
+              List<List<InvariantsOut.Item>> byPoint = new ArrayList<>();
+              for (int i = 0; i < points.size(); i++) byPoint.add(new ArrayList<>());
+              for (InvariantsOut.Item it : items) {
+                int index = points.size() == 1 ? 0 : pointIndex(pointLabel(it), points.size());
+                if (index < 0) {
+                  stats.rawFromLlm.incrementAndGet();
+                  stats.dropUnknownPoint.incrementAndGet();
+                  if (config.debug()) {
+                    System.out.println("[DP-LLM] drop(point): " + pointLabel(it));
+                  }
+                  continue;
+                }
+                byPoint.get(index).add(it);
+              }
+
+              List<List<InvariantSpec>> out = new ArrayList<>(points.size());
+              for (int i = 0; i < points.size(); i++) {
+                PromptContext ctx = points.get(i);
+                try {
+                  out.add(toSpecs(ctx.point(), ctx.inScope(), byPoint.get(i), stats));
+                } catch (Exception e) {
+                  out.add(onFailure(ctx.point(), e));
+                }
+              }
+              metrics.finish(items.size(), out.stream().mapToInt(List::size).sum(), false);
+              return out;
+            }),
+        List.of(pending));
+  }
 
-      // ----- Structured request via pluggable LlmClient -----
-      List<InvariantsOut.Item> items;
-      try {
-        items = llm.complete(system, user);
-      } catch (Exception ex) {
-        return List.of();
+  /**
+   * Resolves the point label of a batched item.
+   *
+   * @param label label returned by the model
+   * @param size number of points in the batch
+   * @return zero-based index of the point, or {@code -1} if the label is unknown
+   */
+  private static int pointIndex(@Nullable String label, int size) {
+    if (label == null) return -1;
+    for (int i = 0; i < size; i++) {
+      if (PromptBatch.label(i).equalsIgnoreCase(label.strip())) return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Collects the prompt inputs of a program point, applying the configured invariant cap and
+   * context token budget.
+   *
+   * @param point program point
+   * @param inScope variables available at the point
+   * @param methodBody method body (optional context)
+   * @param methodJavadoc method documentation (optional)
+   * @param enclosingClassDoc class-level documentation (optional)
+   * @param typeDoc documentation for related types (optional)
+   * @param callSiteContext call-site context (optional)
+   * @param inputOutputExamples example inputs/outputs (optional)
+   * @param calleeDoc documentation of called methods (optional)
+   * @return prompt context of the point
+   */
+  public PromptContext promptContext(
+      ProgramPoint point,
+      Map<String, String> inScope,
+      String methodBody,
+      String methodJavadoc,
+      String enclosingClassDoc,
+      String typeDoc,
+      String callSiteContext,
+      String inputOutputExamples,
+      String calleeDoc) {
+    return new PromptContext(
+        point,
+        inScope,
+        methodBody,
+        methodJavadoc,
+        enclosingClassDoc,
+        typeDoc,
+        callSiteContext,
+        inputOutputExamples,
+        calleeDoc,
+        maxInvariants,
+        config.contextTokenBudget());
+  }
+
+  private Prompt buildPrompt(PromptContext ctx) {
+    ProgramPoint point = ctx.point();
+    Map<String, String> inScope = ctx.inScope();
+
+    // ----- Build prompt via strategy -----
+    Prompt prompt = promptStrategy.buildPrompt(ctx);
+
+    if (!printedStrategyOnce && config.debug()) {
+      printedStrategyOnce = true;
+      System.out.println("[DP-LLM] Strategy: " + promptStrategy.name());
+    }
+
+    if (config.debug()) {
+      System.out.println("[DP] LLM REQUEST → " + point.kind() + " :: " + point.elementId());
+      if (!inScope.isEmpty()) {
+        System.out.println("[DP] Scope: " + inScope);
       }
+    }
 
-      // ----- Parse + filter + dedup + limit -----
-      List<InvariantSpec> kept = new ArrayList<>(Math.min(items.size(), maxInvariants));
-      Set<String> seenExprs = new LinkedHashSet<>();
-      stats.rawFromLlm.addAndGet(items.size());
-
-      for (int __i = 0; __i < items.size(); __i++) {
-        InvariantsOut.Item it = items.get(__i);
-        String expr = (it.expression == null) ? "" : it.expression.trim();
-        if (expr.isEmpty()) {
-          stats.dropEmpty.incrementAndGet();
-          continue;
-        }
+    return prompt;
+  }
 
-        // Skip unparseable expressions
-        Optional<String> parsed = parseableExpression(expr);
+  /** Opens the metrics record of a request for one program point. */
+  private static LlmMetrics.Request beginMetrics(
+      Prompt prompt, List<String> users, PromptContext ctx, String strategy) {
+    return LlmMetrics.begin(
+        prompt.systemMessage(), users, strategy, ctx.contextKinds(), List.of(label(ctx.point())));
+  }
 
-        if (parsed.isEmpty()) {
-          if (config.debug()) System.out.println("[DP-LLM] drop(parse): " + expr);
-          stats.dropParse.incrementAndGet();
-          continue;
-        }
+  /** Returns the label of a program point in LLM metrics. */
+  private static String label(ProgramPoint point) {
+    return point.kind() + " " + point.elementId();
+  }
 
-        if (!expr.equals(parsed.get()) && config.debug()) {
-          System.out.println("[DP-LLM] salvage(parse): " + parsed.get());
-        }
+  /** Parses, filters, deduplicates and caps the items returned by the LLM. */
+  private List<InvariantSpec> toSpecs(
+      ProgramPoint point,
+      Map<String, String> inScope,
+      List<InvariantsOut.Item> items,
+      FilterStats stats) {
 
-        expr = parsed.get();
+    SpecCollector collector = new SpecCollector(point, inScope, stats);
+    stats.rawFromLlm.addAndGet(items.size());
 
-        // Skip low-quality ones unless filter disabled
-        if (!config.noQualityFilter() && !InvariantQualityFilter.keep(expr, inScope, isExit)) {
-          if (config.debug()) System.out.println("[DP-LLM] drop(filter): " + expr);
-          stats.dropQuality.incrementAndGet();
-          continue;
-        }
+    for (int __i = 0; __i < items.size(); __i++) {
+      if (!collector.accept(items.get(__i))) {
+        // remaining items after cap are not processed
+        stats.dropMaxK.addAndGet(items.size() - __i - 1);
+        break;
+      }
+    }
 
-        // Deduplicate
-        if (!seenExprs.add(expr)) {
-          stats.dropPerPointDedup.incrementAndGet();
-          continue;
-        }
+    return collector.finish();
+  }
 
-        // Normalize metadata
-        final Map<String, String> meta =
-            (it.meta == null || it.meta.isEmpty())
-                ? Collections.emptyMap()
-                : it.meta.stream()
-                    .filter(kv -> kv != null && kv.key != null && kv.value != null)
-                    .collect(
-                        java.util.stream.Collectors.toMap(
-                            kv -> kv.key, kv -> kv.value, (a, b) -> a, LinkedHashMap::new));
-
-        kept.add(new InvariantSpec(expr, (it.rationale == null ? "" : it.rationale), meta));
-
-        if (kept.size() >= maxInvariants) {
-          // remaining items after cap are not processed
-          stats.dropMaxK.addAndGet(items.size() - __i - 1);
-          break;
-        }
+  /**
+   * Parses, filters and deduplicates the items proposed for one program point in arrival order,
+   * so that a streamed response can be processed while it is generated.
+   */
+  private final class SpecCollector {
+    private final ProgramPoint point;
+    private final Map<String, String> inScope;
+    private final FilterStats stats;
+    private final boolean isExit;
+    private final List<InvariantSpec> kept = new ArrayList<>();
+    private final Set<String> seenExprs = new LinkedHashSet<>();
+
+    SpecCollector(ProgramPoint point, Map<String, String> inScope, FilterStats stats) {
+      this.point = point;
+      this.inScope = inScope;
+      this.stats = stats;
+      this.isExit = point.kind() == ProgramPointKind.METHOD_EXIT;
+    }
+
+    /**
+     * Filters one item and keeps it if it passes.
+     *
+     * @param it item proposed by the LLM
+     * @return {@code false} once the maximum number of invariants has been kept
+     */
+    boolean accept(InvariantsOut.Item it) {
+      if (kept.size() >= maxInvariants) return false;
+
+      String expr = (it.expression == null) ? "" : it.expression.trim();
+      if (expr.isEmpty()) {
+        stats.dropEmpty.incrementAndGet();
+        return true;
+      }
+
+      // Skip unparseable expressions
+      Optional<String> parsed = parseableExpression(expr);
+
+      if (parsed.isEmpty()) {
+        if (config.debug()) System.out.println("[DP-LLM] drop(parse): " + expr);
+        stats.dropParse.incrementAndGet();
+        return true;
+      }
+
+      if (!expr.equals(parsed.get()) && config.debug()) {
+        System.out.println("[DP-LLM] salvage(parse): " + parsed.get());
       }
 
+      expr = parsed.get();
+
+      // Skip low-quality ones unless filter disabled
+      if (!config.noQualityFilter() && !InvariantQualityFilter.keep(expr, inScope, isExit)) {
+        if (config.debug()) System.out.println("[DP-LLM] drop(filter): " + expr);
+        stats.dropQuality.incrementAndGet();
+        return true;
+      }
+
+      // Deduplicate
+      if (!seenExprs.add(ExpressionCanonicalizer.canonical(expr))) {
+        stats.dropPerPointDedup.incrementAndGet();
+        return true;
+      }
+
+      // Normalize metadata
+      final Map<String, String> meta =
+          (it.meta == null || it.meta.isEmpty())
+              ? Collections.emptyMap()
+              : it.meta.stream()
+                  .filter(kv -> kv != null && kv.key != null && kv.value != null)
+                  .collect(
+                      java.util.stream.Collectors.toMap(
+                          kv -> kv.key, kv -> kv.value, (a, b) -> a, LinkedHashMap::new));
+
+      kept.add(new InvariantSpec(expr, (it.rationale == null ? "" : it.rationale), meta));
+      return kept.size() < maxInvariants;
+    }
+
+    /** Returns the kept specifications. */
+    List<InvariantSpec> finish() {
       if (config.debug()) {
         System.out.println(
             "[DP] LLM RESPONSE "
@@ -225,25 +769,26 @@ public final class LlmInvariantGenerator {
                 + " → "
                 + kept.size()
                 + " specs");
-        for (String ex : seenExprs) System.out.println("[DP]   • " + ex);
+        for (InvariantSpec spec : kept) System.out.println("[DP]   • " + spec.expression());
       }
 
       return kept;
+    }
+  }
 
-    } catch (Exception e) {
-      if (e instanceof InterruptedException || e.getCause() instanceof InterruptedException) {
+  private List<InvariantSpec> onFailure(ProgramPoint point, Exception e) {
+    if (e instanceof InterruptedException || e.getCause() instanceof InterruptedException) {
 
-        Thread.currentThread().interrupt();
-        if (config.debug()) {
-          System.err.println("[DP-LLM] skipped (interrupted): " + point.elementId());
-        }
-        return List.of();
+      Thread.currentThread().interrupt();
+      if (config.debug()) {
+        System.err.println("[DP-LLM] skipped (interrupted): " + point.elementId());
       }
-
-      System.err.println("[DP-LLM] FAILURE for " + point.elementId() + " → " + e);
-      e.printStackTrace(System.err);
       return List.of();
     }
+
+    System.err.println("[DP-LLM] FAILURE for " + point.elementId() + " → " + e);
+    e.printStackTrace(System.err);
+    return List.of();
   }
 
   // =====================================================================
@@ -280,7 +825,7 @@ public final class LlmInvariantGenerator {
     return e;
   }
 
-  /** Resolves model name string to a {@link ChatModel}. */
+  /** Resolves model name string to a {@link ChatModel}, or empty if the name is not known. */
   private static Optional<ChatModel> resolveModel(@Nullable String maybe) {
     if (maybe == null || maybe.isBlank()) return Optional.empty();
     String m = maybe.trim().toLowerCase(Locale.ROOT);
@@ -296,40 +841,81 @@ public final class LlmInvariantGenerator {
       case "gpt-5":
         return Optional.of(ChatModel.GPT_5);
       default:
-        return Optional.of(ChatModel.GPT_4_1_MINI);
+        return Optional.empty();
     }
   }
 
   private static LlmClient buildLlmFromEnv(DpConfig config) {
+    return buildLlm(config, config.llmProvider(), null, config.llmCassettesDir());
+  }
+
+  /**
+   * Builds the client of the cascade's first model, or returns {@code null} if no cascade is
+   * configured. Its cassettes are kept in a {@code cascade} subdirectory, since it is sent the same
+   * prompts as the second model.
+   *
+   * @throws IllegalArgumentException if the model is sent to OpenAI but its name is not known
+   */
+  private static @Nullable LlmClient buildCascadeLlm(DpConfig config) {
+    String model = config.llmCascadeModel();
+    if (model == null) return null;
+    // unlike the main model, a misspelt cascade model must not quietly become a different one
+    if (config.llmCascadeProvider().equals("openai") && resolveModel(model).isEmpty()) {
+      throw new IllegalArgumentException(
+          "Unknown DP_LLM_CASCADE_MODEL for the openai provider: '"
+              + model
+              + "' (known: gpt-4.1, gpt-4.1-mini, gpt-4o, gpt-4o-mini, gpt-5)");
+    }
+    String cassetteDir = config.llmCassettesDir();
+    if (cassetteDir != null && !cassetteDir.isBlank()) {
+      cassetteDir = Path.of(cassetteDir, "cascade").toString();
+    }
+    return buildLlm(config, config.llmCascadeProvider(), model, cassetteDir);
+  }
+
+  /**
+   * Builds a client for one model.
+   *
+   * @param config configuration
+   * @param provider provider of the model
+   * @param model model to request, or {@code null} for the provider's configured model
+   * @param cassetteDir cassette directory, or {@code null} to call the model directly
+   * @return client
+   */
+  private static LlmClient buildLlm(
+      DpConfig config, String provider, @Nullable String model, @Nullable String cassetteDir) {
 
     // ------------------------------
     // 1. Cassette / replay logic
     // ------------------------------
-    String cassetteDir = config.llmCassettesDir();
     boolean disableReal = config.disableRealLlm();
 
     if (cassetteDir != null && !cassetteDir.isBlank()) {
       Path dir = Path.of(cassetteDir);
-      LlmClient replay = new ReplayingLlmClient(dir);
+      String hitLog = config.cassetteHitLog();
+      LlmClient replay = new ReplayingLlmClient(dir, hitLog == null ? null : Path.of(hitLog));
 
       if (disableReal) {
         // Replay-only mode — do not create the real client (no API key needed).
-        return replay;
+        return new CoalescingLlmClient(replay);
       }
 
       // Recording mode: fall through to build the real client, then wrap it.
-      LlmClient realClient = buildRealClient(config);
-      return new RecordingCompositeLlmClient(replay, realClient, dir);
+      // Coalescing in front keeps concurrent identical prompts from being recorded twice.
+      LlmClient realClient = buildRealClient(config, provider, model);
+      return new CoalescingLlmClient(new RecordingCompositeLlmClient(replay, realClient, dir));
     }
 
     // ------------------------------
     // 2. No cassette dir → real client
     // ------------------------------
-    return buildRealClient(config);
+    return new CoalescingLlmClient(buildRealClient(config, provider, model));
   }
 
-  private static LlmClient buildRealClient(DpConfig config) {
-    if (config.llmProvider().equals("local")) {
+  private static LlmClient buildRealClient(
+      DpConfig config, String provider, @Nullable String model) {
+    if (provider.equals("local")) {
+      String localModel = model == null ? config.llmLocalModel() : model;
       if (config.debug()) {
         System.out.println(
             "[DP-LLM] Using LOCAL backend: "
@@ -339,13 +925,33 @@ public final class LlmInvariantGenerator {
       }
       if (!printedModelOnce) {
         printedModelOnce = true;
-        System.out.println("[DP-LLM] Using LOCAL model: " + config.llmLocalModel());
+        System.out.println("[DP-LLM] Using LOCAL model: " + localModel);
       }
-      return new LocalLlmClient(config);
+      return withCache(
+          config,
+          withHedging(config, withRateLimits(config, new LocalLlmClient(config, localModel))),
+          localModel);
     }
 
-    ChatModel model =
-        resolveModel(config.openaiModel())
+    if (provider.equals("compat")) {
+      String compatModel = model == null ? config.llmCompatModel() : model;
+      if (!printedModelOnce) {
+        printedModelOnce = true;
+        System.out.println(
+            "[DP-LLM] Using OpenAI-compatible model: "
+                + compatModel
+                + " @ "
+                + config.llmCompatUrl());
+      }
+      return withCache(
+          config,
+          withHedging(
+              config, withRateLimits(config, new OpenAiCompatibleLlmClient(config, compatModel))),
+          compatModel);
+    }
+
+    ChatModel chatModel =
+        resolveModel(model == null ? config.openaiModel() : model)
             .orElseGet(
                 () -> {
                   if (config.debug()) {
@@ -356,10 +962,59 @@ public final class LlmInvariantGenerator {
 
     if (!printedModelOnce) {
       printedModelOnce = true;
-      System.out.println("[DP-LLM] Using model: " + model);
+      System.out.println("[DP-LLM] Using model: " + chatModel);
     }
 
-    return new RealOpenAILlmClient(model);
+    return withCache(
+        config,
+        withHedging(config, withRateLimits(config, new RealOpenAILlmClient(chatModel))),
+        chatModel.toString());
+  }
+
+  /**
+   * Wraps a rate-limited client in a {@link HedgingLlmClient} when a hedging percentile is
+   * configured. Hedging sits above the rate limiter, so hedges pay for their budget; it times
+   * requests from when the limiter sends them, so queueing time does not count as latency.
+   */
+  private static LlmClient withHedging(DpConfig config, LlmClient limited) {
+    int percentile = config.llmHedgePercentile();
+    return percentile > 0 ? new HedgingLlmClient(limited, percentile) : limited;
+  }
+
+  /** Wraps a live client in a {@link RateLimitedLlmClient} configured from {@link DpConfig}. */
+  private static LlmClient withRateLimits(DpConfig config, LlmClient live) {
+    return new RateLimitedLlmClient(
+        live,
+        config.llmRequestsPerMinute(),
+        config.llmTokensPerMinute(),
+        Math.min(INITIAL_CONCURRENCY, config.llmMaxInFlight()),
+        config.llmMaxInFlight(),
+        config.llmMaxRetries(),
+        Duration.ofSeconds(config.llmTotalTimeoutSec()));
+  }
+
+  /** Wraps a live client in a {@link CachingLlmClient} when a cache directory is configured. */
+  private static LlmClient withCache(DpConfig config, LlmClient live, String model) {
+    String cacheDir = config.llmCacheDir();
+    if (cacheDir == null || cacheDir.isBlank()) return live;
+
+    Duration ttl =
+        config.llmCacheTtlHours() > 0 ? Duration.ofHours(config.llmCacheTtlHours()) : null;
+    try {
+      LlmClient cached =
+          new CachingLlmClient(
+              live,
+              Path.of(cacheDir),
+              model,
+              config.promptStrategy(),
+              ttl,
+              config.llmCacheMaxEntries());
+      System.out.println("[DP-LLM] Caching responses in: " + cacheDir);
+      return cached;
+    } catch (IOException e) {
+      System.err.println("[DP-LLM] Response cache disabled (" + cacheDir + "): " + e);
+      return live;
+    }
   }
 
   private static LlmClient buildLlmFromEnv(DpConfig config, ChatModel model) {
@@ -378,7 +1033,7 @@ public final class LlmInvariantGenerator {
 
     /** One invariant entry (expression + optional rationale/metadata). */
     @JsonClassDescription("One invariant entry.")
-    public static final class Item {
+    public static class Item {
       @JsonPropertyDescription("A pure Java boolean expression valid at the point.")
       public String expression;
 
@@ -411,4 +1066,36 @@ public final class LlmInvariantGenerator {
       this.invariants = Collections.emptyList();
     }
   }
+
+  /** DTO of the structured output for a prompt that covers several program points. */
+  @JsonClassDescription("A list of invariant proposals for several program points.")
+  public static final class BatchInvariantsOut {
+    @JsonPropertyDescription("The invariants proposed by the model.")
+    public List<Item> invariants = Collections.emptyList();
+
+    /** One invariant entry, tagged with the label of its program point. */
+    @JsonClassDescription("One invariant entry for a labeled program point.")
+    public static final class Item extends InvariantsOut.Item {
+      @JsonPropertyDescription("Label of the program point (e.g., P1) the invariant belongs to.")
+      public String point;
+
+      public Item() {
+        this.point = "";
+      }
+    }
+
+    public BatchInvariantsOut() {
+      this.invariants = Collections.emptyList();
+    }
+  }
+
+  /**
+   * Returns the program point label of an item of a batch response.
+   *
+   * @param item parsed invariant item
+   * @return the label, or {@code null} if the item was not parsed as a batch item
+   */
+  static @Nullable String pointLabel(InvariantsOut.Item item) {
+    return item instanceof BatchInvariantsOut.Item b ? b.point : null;
+  }
 }
@@ -0,0 +1,107 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/** Shared plumbing for running {@link LlmClient} calls asynchronously. */
+final class LlmIo {
+
+  private LlmIo() {}
+
+  private static final AtomicInteger threadIds = new AtomicInteger();
+
+  /**
+   * Unbounded pool of daemon threads for clients that only offer blocking calls. The number of
+   * concurrent calls is bounded by the caller, not by this pool.
+   */
+  static final ExecutorService BLOCKING =
+      Executors.newCachedThreadPool(
+          r -> {
+            Thread t = new Thread(r, "dp-llm-io-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+          });
+
+  /**
+   * Runs a blocking call on the caller's thread and captures its outcome in a future, for clients
+   * whose calls are cheap enough not to need a separate thread.
+   *
+   * @param call blocking call
+   * @param <T> result type
+   * @return completed future
+   */
+  static <T> CompletableFuture<T> now(IoCall<T> call) {
+    try {
+      return CompletableFuture.completedFuture(call.get());
+    } catch (IOException | RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Unwraps the exception a future completed with, undoing {@link CompletionException} and {@link
+   * ExecutionException} wrapping.
+   *
+   * @param t exception passed to a completion stage
+   * @return underlying cause
+   */
+  static Throwable unwrap(Throwable t) {
+    while ((t instanceof CompletionException || t instanceof ExecutionException)
+        && t.getCause() != null) {
+      t = t.getCause();
+    }
+    return t;
+  }
+
+  /**
+   * Waits for an asynchronous call and rethrows its failure as an {@link IOException}, for
+   * implementing {@link LlmClient#complete} on top of {@link LlmClient#completeAsync}.
+   *
+   * @param future pending call
+   * @param <T> result type
+   * @return call result
+   * @throws IOException if the call failed or the wait was interrupted
+   */
+  static <T> T await(CompletableFuture<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for the LLM", e);
+    } catch (ExecutionException e) {
+      Throwable cause = unwrap(e);
+      if (cause instanceof IOException io) throw io;
+      throw new IOException(cause.getMessage(), cause);
+    }
+  }
+
+  /**
+   * Passes complete items to a streaming callback, for clients that receive a response at once.
+   *
+   * @param items response items
+   * @param onItem receives items in order; returns {@code false} to stop
+   * @return the items passed to {@code onItem}
+   */
+  static List<LlmInvariantGenerator.InvariantsOut.Item> replay(
+      List<LlmInvariantGenerator.InvariantsOut.Item> items,
+      Predicate<LlmInvariantGenerator.InvariantsOut.Item> onItem) {
+    for (int i = 0; i < items.size(); i++) {
+      if (!onItem.test(items.get(i))) return items.subList(0, i + 1);
+    }
+    return items;
+  }
+
+  /** A call that may fail with an {@link IOException}. */
+  @FunctionalInterface
+  interface IoCall<T> {
+    T get() throws IOException;
+  }
+}
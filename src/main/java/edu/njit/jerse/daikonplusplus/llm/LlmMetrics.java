@@ -0,0 +1,360 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.njit.jerse.daikonplusplus.parse.context.ContextKind;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Per-request accounting of LLM calls: tokens, latency, retries and estimated cost, together with
+ * the number of invariants each request yielded.
+ *
+ * <p>The generator opens a {@link Request} for every call it makes, labelled with the prompt
+ * strategy, the context kinds present in the prompt and the program points it covers. Clients
+ * report usage and the rate limiter reports retries by prompt pair, and both are charged to the
+ * open request with the same {@linkplain Cassette#key(String, String) key}, so hedged duplicates
+ * and retries count towards the request that caused them. Responses served from a cache report no
+ * usage and cost nothing.
+ *
+ * <p>Each finished request is appended to a JSONL file as one object; {@link #finishRun()} prints
+ * totals per strategy, per context set and for the most expensive points. Accounting is off unless
+ * {@link #start} was called; requests are then no-ops.
+ */
+public final class LlmMetrics {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /** Requests recorded when accounting is off. */
+  private static final Request NOOP = new Request(null, "", "", List.of());
+
+  private static volatile @Nullable LlmMetrics active;
+
+  private final BufferedWriter out;
+  private final Path file;
+  private final double promptPerMTok;
+  private final double cachedPerMTok;
+  private final double completionPerMTok;
+
+  /**
+   * Open requests by prompt key, oldest first. Queues are only changed inside {@code compute}, so
+   * that a key is removed as soon as its queue empties.
+   */
+  private final Map<String, Deque<Request>> open = new ConcurrentHashMap<>();
+
+  private final Map<String, Totals> byStrategy = new TreeMap<>();
+  private final Map<String, Totals> byContexts = new TreeMap<>();
+  private final Map<String, Totals> byPoint = new HashMap<>();
+  private final AtomicLong unattributedTokens = new AtomicLong();
+
+  private LlmMetrics(
+      Path file, double promptPerMTok, double cachedPerMTok, double completionPerMTok)
+      throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) Files.createDirectories(parent);
+    this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+    this.file = file;
+    this.promptPerMTok = promptPerMTok;
+    this.cachedPerMTok = cachedPerMTok;
+    this.completionPerMTok = completionPerMTok;
+  }
+
+  /**
+   * Starts accounting for a run, replacing the contents of {@code file}.
+   *
+   * @param file JSONL file to write one line per request to
+   * @param promptPerMTok price of a million uncached prompt tokens
+   * @param cachedPerMTok price of a million cached prompt tokens
+   * @param completionPerMTok price of a million completion tokens
+   * @throws IOException if the file cannot be created
+   */
+  public static void start(
+      Path file, double promptPerMTok, double cachedPerMTok, double completionPerMTok)
+      throws IOException {
+    active = new LlmMetrics(file, promptPerMTok, cachedPerMTok, completionPerMTok);
+  }
+
+  /**
+   * Opens a request before it is sent.
+   *
+   * @param system system prompt
+   * @param users distinct user prompts of the calls made for the request
+   * @param strategy name of the prompt strategy
+   * @param contexts context kinds present in the prompt
+   * @param points labels of the program points the request covers
+   * @return open request, or a no-op if accounting is off
+   */
+  static Request begin(
+      String system,
+      List<String> users,
+      String strategy,
+      Set<ContextKind> contexts,
+      List<String> points) {
+    LlmMetrics metrics = active;
+    if (metrics == null) return NOOP;
+    String contextLabel =
+        contexts.isEmpty()
+            ? "none"
+            : contexts.stream().map(Enum::name).sorted().collect(Collectors.joining("+"));
+    Request request = new Request(metrics, strategy, contextLabel, points);
+    for (String user : users) {
+      String key = Cassette.key(system, user);
+      request.keys.add(key);
+      metrics.open.compute(
+          key,
+          (k, queue) -> {
+            Deque<Request> requests = queue == null ? new ConcurrentLinkedDeque<>() : queue;
+            requests.addLast(request);
+            return requests;
+          });
+    }
+    return request;
+  }
+
+  /** Charges the usage of one response to the open request for its prompt pair. */
+  static void recordUsage(String system, String user, long prompt, long cached, long completion) {
+    LlmMetrics metrics = active;
+    if (metrics == null) return;
+    Request request = metrics.oldestOpen(Cassette.key(system, user));
+    if (request == null) {
+      metrics.unattributedTokens.addAndGet(prompt + completion);
+      return;
+    }
+    synchronized (request) {
+      request.promptTokens += prompt;
+      request.cachedTokens += cached;
+      request.completionTokens += completion;
+    }
+  }
+
+  /** Charges a retry to the open request for a prompt pair. */
+  static void recordRetry(String system, String user) {
+    LlmMetrics metrics = active;
+    if (metrics == null) return;
+    Request request = metrics.oldestOpen(Cassette.key(system, user));
+    if (request == null) return;
+    synchronized (request) {
+      request.retries++;
+    }
+  }
+
+  /**
+   * Returns the number of prompt pairs with an open request.
+   *
+   * @return open prompt count, or {@code 0} if accounting is off
+   */
+  static int openPrompts() {
+    LlmMetrics metrics = active;
+    return metrics == null ? 0 : metrics.open.size();
+  }
+
+  private @Nullable Request oldestOpen(String key) {
+    Deque<Request> queue = open.get(key);
+    return queue == null ? null : queue.peekFirst();
+  }
+
+  /** One LLM request as accounted by {@link LlmMetrics}. */
+  static final class Request {
+    private final @Nullable LlmMetrics metrics;
+    private final String strategy;
+    private final String contexts;
+    private final List<String> points;
+    private final List<String> keys = new ArrayList<>();
+    private final long startNs = System.nanoTime();
+    private long promptTokens;
+    private long cachedTokens;
+    private long completionTokens;
+    private int retries;
+
+    private Request(
+        @Nullable LlmMetrics metrics, String strategy, String contexts, List<String> points) {
+      this.metrics = metrics;
+      this.strategy = strategy;
+      this.contexts = contexts;
+      this.points = points;
+    }
+
+    /**
+     * Closes the request and records it.
+     *
+     * @param proposed invariants proposed by the model
+     * @param kept invariants kept after filtering
+     * @param failed whether the request failed
+     */
+    void finish(int proposed, int kept, boolean failed) {
+      if (metrics != null) metrics.finish(this, proposed, kept, failed);
+    }
+  }
+
+  private void finish(Request request, int proposed, int kept, boolean failed) {
+    for (String key : request.keys) {
+      open.computeIfPresent(
+          key,
+          (k, queue) -> {
+            queue.remove(request);
+            return queue.isEmpty() ? null : queue;
+          });
+    }
+    double latencyMs = (System.nanoTime() - request.startNs) / 1e6;
+    long prompt;
+    long cached;
+    long completion;
+    int retries;
+    synchronized (request) {
+      prompt = request.promptTokens;
+      cached = request.cachedTokens;
+      completion = request.completionTokens;
+      retries = request.retries;
+    }
+    double cost =
+        ((prompt - cached) * promptPerMTok
+                + cached * cachedPerMTok
+                + completion * completionPerMTok)
+            / 1e6;
+
+    ObjectNode line = MAPPER.createObjectNode();
+    line.put("ts", Instant.now().toString());
+    line.put("strategy", request.strategy);
+    line.put("contexts", request.contexts);
+    request.points.forEach(line.putArray("points")::add);
+    line.put("samples", request.keys.size());
+    line.put("latencyMs", Math.round(latencyMs));
+    line.put("promptTokens", prompt);
+    line.put("cachedTokens", cached);
+    line.put("completionTokens", completion);
+    line.put("retries", retries);
+    line.put("cost", cost);
+    line.put("proposed", proposed);
+    line.put("kept", kept);
+    line.put("failed", failed);
+
+    synchronized (this) {
+      try {
+        out.write(MAPPER.writeValueAsString(line));
+        out.newLine();
+      } catch (IOException e) {
+        System.err.println("[DP-LLM] Could not write LLM metrics to " + file + ": " + e);
+      }
+      Totals sample = new Totals();
+      sample.add(latencyMs, prompt, cached, completion, retries, cost, kept, failed);
+      byStrategy.computeIfAbsent(request.strategy, k -> new Totals()).add(sample);
+      byContexts.computeIfAbsent(request.contexts, k -> new Totals()).add(sample);
+      for (String point : request.points) {
+        byPoint.computeIfAbsent(point, k -> new Totals()).add(sample);
+      }
+    }
+  }
+
+  /** Sums over a group of requests. */
+  private static final class Totals {
+    long requests;
+    long failed;
+    long promptTokens;
+    long cachedTokens;
+    long completionTokens;
+    long retries;
+    long kept;
+    double latencyMs;
+    double cost;
+
+    void add(
+        double latencyMs,
+        long prompt,
+        long cached,
+        long completion,
+        int retries,
+        double cost,
+        int kept,
+        boolean failed) {
+      this.requests++;
+      if (failed) this.failed++;
+      this.latencyMs += latencyMs;
+      this.promptTokens += prompt;
+      this.cachedTokens += cached;
+      this.completionTokens += completion;
+      this.retries += retries;
+      this.cost += cost;
+      this.kept += kept;
+    }
+
+    void add(Totals other) {
+      requests += other.requests;
+      failed += other.failed;
+      latencyMs += other.latencyMs;
+      promptTokens += other.promptTokens;
+      cachedTokens += other.cachedTokens;
+      completionTokens += other.completionTokens;
+      retries += other.retries;
+      cost += other.cost;
+      kept += other.kept;
+    }
+
+    String describe() {
+      StringBuilder sb = new StringBuilder();
+      sb.append("requests: ").append(requests);
+      if (failed > 0) sb.append(" (failed ").append(failed).append(")");
+      sb.append("  tokens: ").append(promptTokens);
+      sb.append(" in (cached ").append(cachedTokens).append(") / ");
+      sb.append(completionTokens).append(" out");
+      sb.append("  mean latency: ").append(Math.round(latencyMs / Math.max(1, requests)));
+      sb.append(" ms  retries: ").append(retries);
+      sb.append("  kept: ").append(kept);
+      if (latencyMs > 0) {
+        sb.append(String.format("  kept/s: %.2f", kept / (latencyMs / 1000)));
+      }
+      if (cost > 0) {
+        sb.append(String.format("  cost: $%.4f  kept/$: %.1f", cost, kept / cost));
+      }
+      return sb.toString();
+    }
+  }
+
+  /**
+   * Closes the metrics file and prints the totals of the run. Does nothing if accounting is off.
+   */
+  public static void finishRun() {
+    LlmMetrics metrics = active;
+    if (metrics == null) return;
+    active = null;
+    metrics.summarize();
+  }
+
+  private synchronized void summarize() {
+    try {
+      out.close();
+    } catch (IOException e) {
+      System.err.println("[DP-LLM] Could not write LLM metrics to " + file + ": " + e);
+    }
+    System.out.println(">>> LLM metrics — per request in " + file);
+    byStrategy.forEach((k, t) -> System.out.println("    strategy " + k + " — " + t.describe()));
+    byContexts.forEach((k, t) -> System.out.println("    contexts " + k + " — " + t.describe()));
+    byPoint.entrySet().stream()
+        .sorted(
+            Comparator.comparingLong(
+                (Map.Entry<String, Totals> e) ->
+                    -(e.getValue().promptTokens + e.getValue().completionTokens)))
+        .limit(5)
+        .forEach(
+            e -> System.out.println("    point " + e.getKey() + " — " + e.getValue().describe()));
+    if (unattributedTokens.get() > 0) {
+      System.out.println("    tokens of abandoned requests: " + unattributedTokens.get());
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token usage reported by LLM responses, accumulated process-wide and reported at the end of a
+ * run.
+ *
+ * <p>Cached prompt tokens are the part of the input a provider served from its prompt cache; their
+ * share shows how well the prompt layout keeps a common prefix. Backends that do not report usage
+ * (or cached tokens) contribute nothing to the respective counters.
+ */
+public final class LlmUsage {
+  private LlmUsage() {}
+
+  private static final AtomicLong responses = new AtomicLong();
+  private static final AtomicLong promptTokens = new AtomicLong();
+  private static final AtomicLong cachedPromptTokens = new AtomicLong();
+  private static final AtomicLong completionTokens = new AtomicLong();
+
+  /**
+   * Records the usage of one response and charges it to the open {@link LlmMetrics} request for
+   * its prompt pair.
+   *
+   * @param system system prompt of the request
+   * @param user user prompt of the request
+   * @param prompt input tokens
+   * @param cached input tokens served from the provider's prompt cache
+   * @param completion output tokens
+   */
+  static void record(String system, String user, long prompt, long cached, long completion) {
+    LlmMetrics.recordUsage(system, user, prompt, cached, completion);
+    responses.incrementAndGet();
+    promptTokens.addAndGet(prompt);
+    cachedPromptTokens.addAndGet(cached);
+    completionTokens.addAndGet(completion);
+  }
+
+  /** Resets the counters, at the start of a run. */
+  public static void resetCounters() {
+    responses.set(0);
+    promptTokens.set(0);
+    cachedPromptTokens.set(0);
+    completionTokens.set(0);
+  }
+
+  /**
+   * Returns the number of responses that reported usage.
+   *
+   * @return response count
+   */
+  public static long responses() {
+    return responses.get();
+  }
+
+  /**
+   * Returns the input tokens of all responses.
+   *
+   * @return prompt token count
+   */
+  public static long promptTokens() {
+    return promptTokens.get();
+  }
+
+  /**
+   * Returns the input tokens served from provider-side prompt caches.
+   *
+   * @return cached prompt token count
+   */
+  public static long cachedPromptTokens() {
+    return cachedPromptTokens.get();
+  }
+
+  /**
+   * Returns the output tokens of all responses.
+   *
+   * @return completion token count
+   */
+  public static long completionTokens() {
+    return completionTokens.get();
+  }
+}
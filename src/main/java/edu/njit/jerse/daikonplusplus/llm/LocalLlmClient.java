@@ -2,30 +2,60 @@ package edu.njit.jerse.daikonplusplus.llm;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import edu.njit.jerse.daikonplusplus.config.DpConfig;
+import edu.njit.jerse.daikonplusplus.util.AsyncLimiter;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.*;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * {@link LlmClient} implementation that calls a local LLM backend over HTTP.
  *
- * <p>Currently targets an Ollama-compatible API at {@code /api/generate}.
+ * <p>Targets the Ollama chat API at {@code /api/chat}, either waiting for the full response or
+ * streaming it. System and user prompts are sent as separate messages, and the output is
+ * constrained to the {@link LlmInvariantGenerator.InvariantsOut} JSON schema through {@code
+ * format}. {@code keep_alive} keeps the model loaded between bursts of requests.
  *
- * <p>Uses the same response format as the OpenAI client by parsing the returned JSON into {@link
- * LlmInvariantGenerator.InvariantsOut}.
+ * <p>At most {@code llmLocalParallel} requests are sent at once, matching the server's parallel
+ * slots ({@code OLLAMA_NUM_PARALLEL}): further requests wait here without holding a thread instead
+ * of queueing on the server, where they would count against the request timeout.
+ *
+ * <p>A response that is not clean JSON is salvaged as described in {@link InvariantsJson}.
  */
 public final class LocalLlmClient implements LlmClient {
 
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
   private final DpConfig config;
+  private final String model;
   private final HttpClient http;
-  private final ObjectMapper mapper = new ObjectMapper();
+  private final AsyncLimiter slots;
 
   public LocalLlmClient(DpConfig config) {
+    this(config, config.llmLocalModel());
+  }
+
+  /**
+   * Creates a client for a model other than the configured one, e.g. the first tier of a cascade.
+   *
+   * @param config configuration
+   * @param model model to request
+   */
+  public LocalLlmClient(DpConfig config, String model) {
+    this.model = model;
     this.config = config;
     this.http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    this.slots = new AsyncLimiter(config.llmLocalParallel());
   }
 
   /**
@@ -39,54 +69,188 @@ public final class LocalLlmClient implements LlmClient {
   @Override
   public List<LlmInvariantGenerator.InvariantsOut.Item> complete(String system, String user)
       throws IOException {
+    return LlmIo.await(completeAsync(system, user));
+  }
 
-    try {
-      String prompt = system + "\n\n" + user;
+  /**
+   * Sends a prompt to the local LLM over the HTTP client's asynchronous API, so that a pending
+   * request holds no thread, once one of the server's parallel slots is free.
+   *
+   * @param system system prompt
+   * @param user user prompt
+   * @return future completed with the parsed invariant items, or exceptionally with an {@link
+   *     IOException}
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeAsync(
+      String system, String user) {
+    return slots.submit(() -> send(system, user, false));
+  }
 
-      String requestBody =
-          mapper.writeValueAsString(new OllamaRequest(config.llmLocalModel(), prompt));
+  /**
+   * Sends a batch prompt like {@link #completeAsync}, constraining the output to the batch schema.
+   *
+   * @param system system prompt of the batch
+   * @param user user prompt of the batch
+   * @return future completed with the parsed invariant items
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeBatch(
+      String system, String user) {
+    return slots.submit(() -> send(system, user, true));
+  }
 
-      HttpRequest request =
-          HttpRequest.newBuilder()
-              .uri(URI.create(config.llmLocalUrl() + "/api/generate"))
-              .timeout(Duration.ofSeconds(config.llmPerReqTimeoutSec()))
-              .header("Content-Type", "application/json")
-              .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-              .build();
+  private CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> send(
+      String system, String user, boolean batch) {
+    HttpRequest request;
+    try {
+      request = request(system, user, false, batch);
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(new IOException("Local LLM call failed", e));
+    }
+    CompletableFuture<HttpResponse<String>> sent =
+        http.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> result =
+        sent.handle(
+            (response, error) -> {
+              try {
+                if (error != null) throw LlmIo.unwrap(error);
+                return parse(system, user, response);
+              } catch (Throwable e) {
+                throw new CompletionException(new IOException("Local LLM call failed", e));
+              }
+            });
+    // cancelling the result (e.g. a hedge that lost) aborts the exchange
+    result.whenComplete((items, error) -> sent.cancel(true));
+    return result;
+  }
 
-      HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+  /**
+   * Streams the response of the local LLM and passes each invariant to {@code onItem} as soon as
+   * its JSON object is complete. Returning {@code false} from {@code onItem} closes the connection,
+   * which stops generation on the server.
+   *
+   * @param system system prompt
+   * @param user user prompt
+   * @param onItem receives items in order; returns {@code false} to stop
+   * @return future completed with the items passed to {@code onItem}, or exceptionally with an
+   *     {@link IOException}
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeStreaming(
+      String system, String user, Predicate<LlmInvariantGenerator.InvariantsOut.Item> onItem) {
+    return slots.submit(() -> stream(system, user, onItem));
+  }
 
-      if (response.statusCode() != 200) {
-        throw new IOException("Local LLM HTTP error: " + response.statusCode());
-      }
+  private CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> stream(
+      String system, String user, Predicate<LlmInvariantGenerator.InvariantsOut.Item> onItem) {
+    HttpRequest request;
+    try {
+      request = request(system, user, true, false);
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(new IOException("Local LLM call failed", e));
+    }
+    // reading the body blocks while tokens arrive, so it runs on the I/O pool
+    CompletableFuture<HttpResponse<Stream<String>>> sent =
+        http.sendAsync(request, HttpResponse.BodyHandlers.ofLines());
+    CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> result =
+        sent.handleAsync(
+            (response, error) -> {
+              try {
+                if (error != null) throw LlmIo.unwrap(error);
+                return consume(system, user, response, onItem);
+              } catch (LlmHttpException e) {
+                throw new CompletionException(e);
+              } catch (Throwable e) {
+                throw new CompletionException(new IOException("Local LLM call failed", e));
+              }
+            },
+            LlmIo.BLOCKING);
+    // cancelling the result (e.g. at the deadline) aborts the exchange, or closes the line stream
+    // of a response already being read, which the reading task would not notice otherwise
+    result.whenComplete(
+        (items, error) -> {
+          if (!result.isCancelled()) return;
+          sent.cancel(true);
+          sent.thenAccept(response -> response.body().close());
+        });
+    return result;
+  }
 
-      // STEP 1: extract raw model output
-      JsonNode root = mapper.readTree(response.body());
-      String raw = root.path("response").asText();
+  /** Reads a streamed Ollama chat response of one JSON object per line. */
+  private List<LlmInvariantGenerator.InvariantsOut.Item> consume(
+      String system,
+      String user,
+      HttpResponse<Stream<String>> response,
+      Predicate<LlmInvariantGenerator.InvariantsOut.Item> onItem)
+      throws IOException {
+    // closing the line stream cancels the request
+    try (Stream<String> lines = response.body()) {
+      if (response.statusCode() != 200) throw LlmHttpException.of("Local LLM", response);
 
-      if (raw == null || raw.isBlank()) {
-        return List.of();
+      StreamingItemParser parser = new StreamingItemParser();
+      List<LlmInvariantGenerator.InvariantsOut.Item> items = new ArrayList<>();
+      for (Iterator<String> it = lines.iterator(); it.hasNext(); ) {
+        String line = it.next();
+        if (line.isBlank()) continue;
+        JsonNode chunk = MAPPER.readTree(line);
+        if (chunk.hasNonNull("error")) {
+          throw new IOException("Local LLM error: " + chunk.get("error").asText());
+        }
+        for (LlmInvariantGenerator.InvariantsOut.Item item :
+            parser.feed(chunk.path("message").path("content").asText())) {
+          items.add(item);
+          if (!onItem.test(item)) return items;
+        }
+        if (chunk.path("done").asBoolean()) {
+          recordUsage(system, user, chunk);
+          break;
+        }
       }
+      return items;
+    }
+  }
 
-      // STEP 2: EXACT SAME parsing path as OpenAI
-      LlmInvariantGenerator.InvariantsOut out =
-          mapper.readValue(raw, LlmInvariantGenerator.InvariantsOut.class);
-
-      return out.invariants == null ? List.of() : out.invariants;
+  private HttpRequest request(String system, String user, boolean stream, boolean batch)
+      throws IOException {
+    ObjectNode body = MAPPER.createObjectNode();
+    body.put("model", model);
+    ArrayNode messages = body.putArray("messages");
+    messages.addObject().put("role", "system").put("content", system);
+    messages.addObject().put("role", "user").put("content", user);
+    body.set("format", InvariantsJson.schema(batch));
+    body.put("stream", stream);
+    body.put("keep_alive", config.llmLocalKeepAlive());
 
-    } catch (Exception e) {
-      throw new IOException("Local LLM call failed", e);
-    }
+    return HttpRequest.newBuilder()
+        .uri(URI.create(config.llmLocalUrl() + "/api/chat"))
+        .timeout(LlmDeadline.timeout(Duration.ofSeconds(config.llmPerReqTimeoutSec())))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)))
+        .build();
   }
 
-  private static final class OllamaRequest {
-    public String model;
-    public String prompt;
-    public boolean stream = false;
+  private List<LlmInvariantGenerator.InvariantsOut.Item> parse(
+      String system, String user, HttpResponse<String> response) throws IOException {
+    if (response.statusCode() != 200) throw LlmHttpException.of("Local LLM", response);
+
+    JsonNode root = MAPPER.readTree(response.body());
+    recordUsage(system, user, root);
+    return InvariantsJson.parse(root.path("message").path("content").asText());
+  }
 
-    public OllamaRequest(String model, String prompt) {
-      this.model = model;
-      this.prompt = prompt;
+  /**
+   * Records the token counts of a final response object. Ollama reuses the evaluated prompt of the
+   * previous request on a shared prefix but does not report how much, so nothing counts as cached.
+   */
+  private static void recordUsage(String system, String user, JsonNode done) {
+    if (done.has("prompt_eval_count") || done.has("eval_count")) {
+      LlmUsage.record(
+          system,
+          user,
+          done.path("prompt_eval_count").asLong(),
+          0,
+          done.path("eval_count").asLong());
     }
   }
 }
@@ -0,0 +1,95 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import edu.njit.jerse.daikonplusplus.App.FilterStats;
+import edu.njit.jerse.daikonplusplus.model.InvariantSpec;
+import edu.njit.jerse.daikonplusplus.util.ExpressionCanonicalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Escalation rule of a two-model cascade. Every program point is first sent to a small, fast model;
+ * a point for which fewer than {@code llmCascadeMinKept} invariants survive parsing and filtering
+ * is sent again to the large model, and the invariants of both are merged. Point counts are
+ * accumulated process-wide and reported at the end of a run.
+ */
+public final class ModelCascade {
+
+  private static final AtomicLong points = new AtomicLong();
+  private static final AtomicLong escalated = new AtomicLong();
+
+  private ModelCascade() {}
+
+  /**
+   * Decides whether a point is escalated to the large model.
+   *
+   * @param kept invariants kept from the small model's response
+   * @param minKept invariants the small model must yield for the point not to be escalated
+   * @return {@code true} if the point is to be escalated
+   */
+  static boolean escalate(List<InvariantSpec> kept, int minKept) {
+    points.incrementAndGet();
+    if (kept.size() >= minKept) return false;
+    escalated.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Merges the invariants of both models for an escalated point, the small model's first. An
+   * invariant the small model already proposed, up to {@link ExpressionCanonicalizer canonical}
+   * form, is dropped as a duplicate, and invariants beyond {@code maxInvariants} as over the cap.
+   *
+   * @param first invariants kept from the small model
+   * @param second invariants kept from the large model
+   * @param maxInvariants maximum number of invariants per point
+   * @param stats filter statistics to update
+   * @return merged invariants
+   */
+  static List<InvariantSpec> merge(
+      List<InvariantSpec> first,
+      List<InvariantSpec> second,
+      int maxInvariants,
+      FilterStats stats) {
+    List<InvariantSpec> merged = new ArrayList<>(first);
+    Set<String> seen = new LinkedHashSet<>();
+    for (InvariantSpec spec : first) {
+      seen.add(ExpressionCanonicalizer.canonical(spec.expression()));
+    }
+    for (InvariantSpec spec : second) {
+      if (!seen.add(ExpressionCanonicalizer.canonical(spec.expression()))) {
+        stats.dropPerPointDedup.incrementAndGet();
+      } else if (merged.size() >= maxInvariants) {
+        stats.dropMaxK.incrementAndGet();
+      } else {
+        merged.add(spec);
+      }
+    }
+    return merged;
+  }
+
+  /** Resets the counters, at the start of a run. */
+  public static void resetCounters() {
+    points.set(0);
+    escalated.set(0);
+  }
+
+  /**
+   * Returns the number of points sent to the small model.
+   *
+   * @return point count
+   */
+  public static long points() {
+    return points.get();
+  }
+
+  /**
+   * Returns the number of points escalated to the large model.
+   *
+   * @return escalated point count
+   */
+  public static long escalated() {
+    return escalated.get();
+  }
+}
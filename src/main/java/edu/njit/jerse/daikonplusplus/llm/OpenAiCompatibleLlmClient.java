@@ -0,0 +1,328 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.njit.jerse.daikonplusplus.config.DpConfig;
+import edu.njit.jerse.daikonplusplus.util.AsyncLimiter;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * {@link LlmClient} implementation for self-hosted servers that speak the OpenAI chat completions
+ * protocol, such as vLLM and the llama.cpp server.
+ *
+ * <p>Requests go to {@code {llmCompatUrl}/chat/completions} for the configured model, with the
+ * output constrained to the {@link LlmInvariantGenerator.InvariantsOut} JSON schema through {@code
+ * response_format}. These servers batch concurrent requests continuously, so throughput comes from
+ * keeping many requests in flight: up to {@code llmCompatMaxInFlight} are sent at once over one
+ * pooled connection (HTTP/2 where the server offers it, keep-alive HTTP/1.1 otherwise). With
+ * {@code llmCompatN} above one, each request samples several completions that share the prompt's
+ * prefill, and their invariants are merged. Ensemble samples ({@link #completeSample}) ask for one
+ * completion each, so that every sample stays a single vote.
+ *
+ * <p>A completion that is not clean JSON is salvaged as described in {@link InvariantsJson}.
+ */
+public final class OpenAiCompatibleLlmClient implements LlmClient {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final String ENDPOINT = "OpenAI-compatible LLM";
+
+  private final DpConfig config;
+  private final String model;
+  private final HttpClient http;
+  private final AsyncLimiter slots;
+
+  public OpenAiCompatibleLlmClient(DpConfig config) {
+    this(config, config.llmCompatModel());
+  }
+
+  /**
+   * Creates a client for a model other than the configured one, e.g. the first tier of a cascade.
+   *
+   * @param config configuration
+   * @param model model to request
+   */
+  public OpenAiCompatibleLlmClient(DpConfig config, String model) {
+    this.model = model;
+    this.config = config;
+    this.http =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    this.slots = new AsyncLimiter(config.llmCompatMaxInFlight());
+  }
+
+  /**
+   * Sends a prompt to the server and returns the parsed invariant items.
+   *
+   * @param system system prompt
+   * @param user user prompt
+   * @return list of invariant items parsed from the model response
+   * @throws IOException if the request fails or the response cannot be parsed
+   */
+  @Override
+  public List<LlmInvariantGenerator.InvariantsOut.Item> complete(String system, String user)
+      throws IOException {
+    return LlmIo.await(completeAsync(system, user));
+  }
+
+  /**
+   * Sends a prompt to the server over the HTTP client's asynchronous API, so that a pending request
+   * holds no thread, once fewer than {@code llmCompatMaxInFlight} requests are outstanding.
+   *
+   * @param system system prompt
+   * @param user user prompt
+   * @return future completed with the parsed invariant items, or exceptionally with an {@link
+   *     IOException}
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeAsync(
+      String system, String user) {
+    return slots.submit(() -> send(system, user, config.llmCompatN(), false));
+  }
+
+  /**
+   * Sends a batch prompt like {@link #completeAsync}, constraining the output to the batch schema.
+   *
+   * @param system system prompt of the batch
+   * @param user user prompt of the batch
+   * @return future completed with the parsed invariant items
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeBatch(
+      String system, String user) {
+    return slots.submit(() -> send(system, user, config.llmCompatN(), true));
+  }
+
+  /**
+   * Sends one ensemble sample of a prompt, as a request for a single completion whatever {@code
+   * llmCompatN} is: the ensemble votes per sample, and a union of merged completions would vote as
+   * one.
+   *
+   * @param system system prompt
+   * @param user user prompt
+   * @param sample zero-based sample index
+   * @return future completed with the parsed invariant items
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeSample(
+      String system, String user, int sample) {
+    return slots.submit(() -> send(system, user, 1, false));
+  }
+
+  private CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> send(
+      String system, String user, int n, boolean batch) {
+    HttpRequest request;
+    try {
+      request = request(system, user, false, n, batch);
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(new IOException(ENDPOINT + " call failed", e));
+    }
+    CompletableFuture<HttpResponse<String>> sent =
+        http.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> result =
+        sent.handle(
+            (response, error) -> {
+              try {
+                if (error != null) throw LlmIo.unwrap(error);
+                if (response.statusCode() != 200) throw LlmHttpException.of(ENDPOINT, response);
+                return parse(system, user, response.body());
+              } catch (Throwable e) {
+                throw new CompletionException(new IOException(ENDPOINT + " call failed", e));
+              }
+            });
+    // cancelling the result (e.g. a hedge that lost) aborts the exchange
+    result.whenComplete((items, error) -> sent.cancel(true));
+    return result;
+  }
+
+  /**
+   * Streams the response of the server and passes each invariant to {@code onItem} as soon as its
+   * JSON object is complete. Returning {@code false} from {@code onItem} closes the stream, which
+   * aborts generation on the server.
+   *
+   * @param system system prompt
+   * @param user user prompt
+   * @param onItem receives items in order; returns {@code false} to stop
+   * @return future completed with the items passed to {@code onItem}, or exceptionally with an
+   *     {@link IOException}
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeStreaming(
+      String system, String user, Predicate<LlmInvariantGenerator.InvariantsOut.Item> onItem) {
+    return slots.submit(() -> stream(system, user, onItem));
+  }
+
+  private CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> stream(
+      String system, String user, Predicate<LlmInvariantGenerator.InvariantsOut.Item> onItem) {
+    HttpRequest request;
+    try {
+      request = request(system, user, true, config.llmCompatN(), false);
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(new IOException(ENDPOINT + " call failed", e));
+    }
+    // reading the body blocks while tokens arrive, so it runs on the I/O pool
+    CompletableFuture<HttpResponse<Stream<String>>> sent =
+        http.sendAsync(request, HttpResponse.BodyHandlers.ofLines());
+    CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> result =
+        sent.handleAsync(
+            (response, error) -> {
+              // closing the line stream cancels the request
+              try (Stream<String> lines = error == null ? response.body() : Stream.empty()) {
+                if (error != null) throw LlmIo.unwrap(error);
+                if (response.statusCode() != 200) throw LlmHttpException.of(ENDPOINT, response);
+                return consume(system, user, lines.iterator(), onItem);
+              } catch (LlmHttpException e) {
+                throw new CompletionException(e);
+              } catch (Throwable e) {
+                throw new CompletionException(new IOException(ENDPOINT + " call failed", e));
+              }
+            },
+            LlmIo.BLOCKING);
+    // cancelling the result (e.g. at the deadline) aborts the exchange, or closes the line stream
+    // of a response already being read, which the reading task would not notice otherwise
+    result.whenComplete(
+        (items, error) -> {
+          if (!result.isCancelled()) return;
+          sent.cancel(true);
+          sent.thenAccept(response -> response.body().close());
+        });
+    return result;
+  }
+
+  private HttpRequest request(
+      String system, String user, boolean stream, int n, boolean batch) throws IOException {
+    ObjectNode body = MAPPER.createObjectNode();
+    body.put("model", model);
+    ArrayNode messages = body.putArray("messages");
+    messages.addObject().put("role", "system").put("content", system);
+    messages.addObject().put("role", "user").put("content", user);
+    ObjectNode format = body.putObject("response_format").put("type", "json_schema");
+    format
+        .putObject("json_schema")
+        .put("name", "InvariantsOut")
+        .set("schema", InvariantsJson.schema(batch));
+    if (n > 1) body.put("n", n);
+    body.put("stream", stream);
+    if (stream) body.putObject("stream_options").put("include_usage", true);
+
+    HttpRequest.Builder builder =
+        HttpRequest.newBuilder()
+            .uri(URI.create(config.llmCompatUrl() + "/chat/completions"))
+            .timeout(LlmDeadline.timeout(Duration.ofSeconds(config.llmPerReqTimeoutSec())))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)));
+    if (!config.llmCompatApiKey().isBlank()) {
+      builder.header("Authorization", "Bearer " + config.llmCompatApiKey());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Parses a complete chat completion, merging the invariants of all its choices.
+   *
+   * @param system system prompt of the request
+   * @param user user prompt of the request
+   * @param body response body
+   * @return invariant items of all choices, each expression once per point
+   * @throws IOException if the body is not a chat completion
+   */
+  static List<LlmInvariantGenerator.InvariantsOut.Item> parse(
+      String system, String user, String body) throws IOException {
+    JsonNode root = MAPPER.readTree(body);
+    if (root.hasNonNull("error")) throw new IOException(ENDPOINT + " error: " + error(root));
+    if (!root.has("choices")) throw new IOException(ENDPOINT + " response has no choices");
+    recordUsage(system, user, root.path("usage"));
+
+    Set<String> seen = new HashSet<>();
+    List<LlmInvariantGenerator.InvariantsOut.Item> items = new ArrayList<>();
+    for (JsonNode choice : root.path("choices")) {
+      for (LlmInvariantGenerator.InvariantsOut.Item item :
+          InvariantsJson.parse(choice.path("message").path("content").asText())) {
+        if (seen.add(key(item))) items.add(item);
+      }
+    }
+    return items;
+  }
+
+  /**
+   * Reads a streamed chat completion of server-sent events, one {@code data:} line per chunk. The
+   * deltas of each choice feed their own parser, and items are passed on in arrival order.
+   *
+   * @param system system prompt of the request
+   * @param user user prompt of the request
+   * @param lines lines of the event stream
+   * @param onItem receives items in order; returns {@code false} to stop
+   * @return items passed to {@code onItem}
+   * @throws IOException if a chunk cannot be parsed or reports an error
+   */
+  static List<LlmInvariantGenerator.InvariantsOut.Item> consume(
+      String system,
+      String user,
+      Iterator<String> lines,
+      Predicate<LlmInvariantGenerator.InvariantsOut.Item> onItem)
+      throws IOException {
+    Map<Integer, StreamingItemParser> parsers = new HashMap<>();
+    Set<String> seen = new HashSet<>();
+    List<LlmInvariantGenerator.InvariantsOut.Item> items = new ArrayList<>();
+    while (lines.hasNext()) {
+      String line = lines.next();
+      if (!line.startsWith("data:")) continue;
+      String data = line.substring("data:".length()).trim();
+      if (data.equals("[DONE]")) break;
+
+      JsonNode chunk = MAPPER.readTree(data);
+      if (chunk.hasNonNull("error")) throw new IOException(ENDPOINT + " error: " + error(chunk));
+      // with include_usage the last chunk carries the usage and no choices
+      if (chunk.hasNonNull("usage")) recordUsage(system, user, chunk.get("usage"));
+      for (JsonNode choice : chunk.path("choices")) {
+        StreamingItemParser parser =
+            parsers.computeIfAbsent(choice.path("index").asInt(), i -> new StreamingItemParser());
+        for (LlmInvariantGenerator.InvariantsOut.Item item :
+            parser.feed(choice.path("delta").path("content").asText())) {
+          if (!seen.add(key(item))) continue;
+          items.add(item);
+          if (!onItem.test(item)) return items;
+        }
+      }
+    }
+    return items;
+  }
+
+  private static String key(LlmInvariantGenerator.InvariantsOut.Item item) {
+    return LlmInvariantGenerator.pointLabel(item) + "\u0000" + item.expression;
+  }
+
+  private static String error(JsonNode root) {
+    JsonNode error = root.get("error");
+    return error.isTextual() ? error.asText() : error.path("message").asText(error.toString());
+  }
+
+  private static void recordUsage(String system, String user, JsonNode usage) {
+    if (usage.isObject()) {
+      LlmUsage.record(
+          system,
+          user,
+          usage.path("prompt_tokens").asLong(),
+          usage.path("prompt_tokens_details").path("cached_tokens").asLong(),
+          usage.path("completion_tokens").asLong());
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import edu.njit.jerse.daikonplusplus.model.ProgramElementId;
+import edu.njit.jerse.daikonplusplus.model.ProgramPoint;
+import edu.njit.jerse.daikonplusplus.parse.JavaProjectScanner.MethodFacts;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Orders program points so that the most valuable ones are proposed first.
+ *
+ * <p>Points are submitted for proposal in order and the proposal phase stops waiting at the LLM
+ * deadline, so in scan order whichever files come last lose all their invariants. A priority is a
+ * list of {@link Scorer}s compared in turn: the first decides, later ones break its ties, and
+ * points with equal scores keep scan order, so the entry and exit of a method stay adjacent.
+ *
+ * <p>Available scorers, by name:
+ *
+ * <ul>
+ *   <li>{@code include}: points matching the user-provided include list first;
+ *   <li>{@code public}: public API methods first;
+ *   <li>{@code frequency}: methods whose invariants executed most in the previous run first;
+ *   <li>{@code size}: larger methods first.
+ * </ul>
+ */
+public final class PointPriority {
+  private PointPriority() {}
+
+  /** Scores a program point; points with higher scores are proposed first. */
+  @FunctionalInterface
+  public interface Scorer {
+    /**
+     * Returns the score of a point.
+     *
+     * @param point program point
+     * @return score, higher for more valuable points
+     */
+    double score(ProgramPoint point);
+  }
+
+  /**
+   * Creates the scorers named in a priority list.
+   *
+   * @param names scorer names, most significant first; unknown names are skipped
+   * @param includes include list of the {@code include} scorer
+   * @param facts method facts collected by the scanner
+   * @param executions executed-invariant counts of the previous run, by element label
+   * @return scorers in the given order
+   */
+  public static List<Scorer> scorers(
+      List<String> names,
+      Set<String> includes,
+      Map<ProgramElementId, MethodFacts> facts,
+      Map<String, Long> executions) {
+    List<Scorer> out = new ArrayList<>();
+    for (String name : names) {
+      switch (name) {
+        case "include" -> out.add(includes(includes));
+        case "public" -> out.add(publicApi(facts));
+        case "frequency" -> out.add(frequency(executions));
+        case "size" -> out.add(size(facts));
+        default -> {}
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Scores points of methods matching an include list with 1, others with 0. An entry matches if
+   * the method's file path or its element label contains it, with package dots read as slashes
+   * (so {@code com/x/Foo#bar} selects the methods {@code bar} of {@code com.x.Foo}).
+   *
+   * @param includes path-style include entries
+   * @return include scorer
+   */
+  public static Scorer includes(Set<String> includes) {
+    return pt -> {
+      String file = pt.elementId().filePath().replace('\\', '/');
+      String label = pt.elementId().toString().replace('.', '/');
+      for (String include : includes) {
+        if (file.contains(include) || label.contains(include)) return 1;
+      }
+      return 0;
+    };
+  }
+
+  /**
+   * Scores points of public API methods with 1, others with 0.
+   *
+   * @param facts method facts collected by the scanner
+   * @return public API scorer
+   */
+  public static Scorer publicApi(Map<ProgramElementId, MethodFacts> facts) {
+    return pt -> {
+      MethodFacts f = facts.get(pt.elementId());
+      return f != null && f.publicApi() ? 1 : 0;
+    };
+  }
+
+  /**
+   * Scores points by the number of their method's invariants that executed in the previous run.
+   * Methods the tests never reached score 0, as do methods that are new since then.
+   *
+   * @param executions executed-invariant counts of the previous run, by element label
+   * @return execution frequency scorer
+   */
+  public static Scorer frequency(Map<String, Long> executions) {
+    return pt -> executions.getOrDefault(pt.elementId().toString(), 0L);
+  }
+
+  /**
+   * Scores points by the number of source lines of their method.
+   *
+   * @param facts method facts collected by the scanner
+   * @return method size scorer
+   */
+  public static Scorer size(Map<ProgramElementId, MethodFacts> facts) {
+    return pt -> {
+      MethodFacts f = facts.get(pt.elementId());
+      return f == null ? 0 : f.lines();
+    };
+  }
+
+  /**
+   * Sorts points by descending score. Each point is scored once per scorer.
+   *
+   * @param points points in scan order
+   * @param scorers scorers, most significant first
+   * @return points in proposal order; ties keep scan order
+   */
+  public static List<ProgramPoint> sort(List<ProgramPoint> points, List<Scorer> scorers) {
+    if (scorers.isEmpty()) return points;
+    record Scored(ProgramPoint point, double[] scores) {}
+    List<Scored> scored = new ArrayList<>(points.size());
+    for (ProgramPoint pt : points) {
+      double[] scores = new double[scorers.size()];
+      for (int i = 0; i < scores.length; i++) scores[i] = scorers.get(i).score(pt);
+      scored.add(new Scored(pt, scores));
+    }
+    Comparator<Scored> order =
+        (a, b) -> {
+          for (int i = 0; i < a.scores.length; i++) {
+            int c = Double.compare(b.scores[i], a.scores[i]);
+            if (c != 0) return c;
+          }
+          return 0;
+        };
+    // List.sort is stable
+    scored.sort(order);
+    return scored.stream().map(Scored::point).toList();
+  }
+}
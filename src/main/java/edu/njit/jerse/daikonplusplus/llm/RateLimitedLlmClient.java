@@ -0,0 +1,567 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import edu.njit.jerse.daikonplusplus.util.AsyncLimiter;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * LLM client decorator that paces requests to a live endpoint and retries throttled ones.
+ *
+ * <p>Three mechanisms cooperate:
+ *
+ * <ul>
+ *   <li><b>Rate budgets.</b> Token buckets enforce requests-per-minute and tokens-per-minute
+ *       limits; a request waits until both buckets can pay for it. Prompt tokens are estimated
+ *       from the prompt length.
+ *   <li><b>Adaptive concurrency.</b> The number of requests in flight follows an AIMD rule: it
+ *       grows by one after a full window of fast successes and is halved on a {@code 429}/{@code
+ *       503} or a server error, at most once per observed round trip. Successes much slower than
+ *       the fastest observed round trip shrink it gently, since latency rises before the provider
+ *       starts rejecting requests.
+ *   <li><b>Retries.</b> Throttled, timed-out and server-failed requests are retried with
+ *       full-jitter exponential backoff, honouring {@code Retry-After}, until the attempt limit,
+ *       the retry budget (counted from the first request) or the {@link LlmDeadline} is reached.
+ *       The wrapped client must not retry on its own.
+ * </ul>
+ *
+ * <p>Throughput thus settles just under the provider's actual limit instead of alternating between
+ * bursts of rejections and idle periods. Counters are accumulated process-wide and reported at the
+ * end of a run.
+ */
+public final class RateLimitedLlmClient implements LlmClient {
+
+  /** Average number of characters per prompt token assumed by the estimate. */
+  private static final int CHARS_PER_TOKEN = 4;
+
+  /** Upper bound on a single backoff delay. */
+  private static final long MAX_BACKOFF_MS = 30_000;
+
+  /** Successes slower than this multiple of the fastest round trip count as congestion. */
+  private static final double CONGESTED_LATENCY_FACTOR = 3.0;
+
+  private static final ScheduledExecutorService TIMER =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread t = new Thread(r, "dp-llm-rate");
+            t.setDaemon(true);
+            return t;
+          });
+
+  private static final AtomicLong requests = new AtomicLong();
+  private static final AtomicLong throttled = new AtomicLong();
+  private static final AtomicLong retries = new AtomicLong();
+  private static final AtomicLong gaveUp = new AtomicLong();
+  private static volatile int lastLimit;
+  private static volatile int peakLimit;
+
+  private final LlmClient delegate;
+  private final @Nullable TokenBucket requestBudget;
+  private final @Nullable TokenBucket tokenBudget;
+  private final AsyncLimiter concurrency;
+  private final int maxConcurrency;
+  private final int maxRetries;
+  private final long backoffBaseMs;
+  private final long totalBudgetNs;
+
+  // retry deadline, set at the first request; guarded by this
+  private long deadlineNs;
+  private boolean started;
+
+  // AIMD state, guarded by this
+  private int successesInWindow;
+  private long baselineLatencyNs = Long.MAX_VALUE;
+  private long lastDecreaseNs = Long.MIN_VALUE;
+
+  /**
+   * Creates a rate-limited client.
+   *
+   * @param delegate live client
+   * @param requestsPerMinute request budget, or {@code 0} for none
+   * @param tokensPerMinute prompt-token budget, or {@code 0} for none
+   * @param initialConcurrency requests allowed in flight at first
+   * @param maxConcurrency upper bound for the adaptive concurrency limit
+   * @param maxRetries maximum number of retries per request
+   * @param totalBudget time from the first request after which failed requests are no longer
+   *     retried
+   */
+  public RateLimitedLlmClient(
+      LlmClient delegate,
+      int requestsPerMinute,
+      int tokensPerMinute,
+      int initialConcurrency,
+      int maxConcurrency,
+      int maxRetries,
+      Duration totalBudget) {
+    this(
+        delegate,
+        requestsPerMinute,
+        tokensPerMinute,
+        initialConcurrency,
+        maxConcurrency,
+        maxRetries,
+        totalBudget,
+        500);
+  }
+
+  /** Creates a rate-limited client with an explicit backoff base, for tests. */
+  RateLimitedLlmClient(
+      LlmClient delegate,
+      int requestsPerMinute,
+      int tokensPerMinute,
+      int initialConcurrency,
+      int maxConcurrency,
+      int maxRetries,
+      Duration totalBudget,
+      long backoffBaseMs) {
+    this.delegate = delegate;
+    this.requestBudget = requestsPerMinute > 0 ? new TokenBucket(requestsPerMinute) : null;
+    this.tokenBudget = tokensPerMinute > 0 ? new TokenBucket(tokensPerMinute) : null;
+    this.maxConcurrency = Math.max(1, maxConcurrency);
+    this.concurrency =
+        new AsyncLimiter(Math.max(1, Math.min(initialConcurrency, this.maxConcurrency)));
+    this.maxRetries = Math.max(0, maxRetries);
+    this.backoffBaseMs = Math.max(1, backoffBaseMs);
+    this.totalBudgetNs = totalBudget.toNanos();
+    publishLimit(concurrency.limit());
+  }
+
+  @Override
+  public List<LlmInvariantGenerator.InvariantsOut.Item> complete(String system, String user)
+      throws IOException {
+    return LlmIo.await(completeAsync(system, user));
+  }
+
+  /**
+   * Sends a prompt pair once the rate budgets and the concurrency limit admit it, retrying
+   * throttled and transient failures.
+   *
+   * @param system system prompt
+   * @param user user prompt
+   * @return future completed with the generated items, or exceptionally with the last failure
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeAsync(
+      String system, String user) {
+    return completeAsync(system, user, () -> {});
+  }
+
+  /**
+   * Sends a prompt pair like {@link #completeAsync(String, String)}, and calls {@code onSend} each
+   * time an attempt leaves the queue for the budgets and the concurrency limit.
+   *
+   * @param system system prompt
+   * @param user user prompt
+   * @param onSend called whenever the request, or a retry of it, is sent
+   * @return future completed with the generated items, or exceptionally with the last failure
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeAsync(
+      String system, String user, Runnable onSend) {
+    return limit(system, user, () -> delegate.completeAsync(system, user), onSend);
+  }
+
+  /**
+   * Sends one sample of a prompt pair once the rate budgets and the concurrency limit admit it.
+   *
+   * @param system system prompt
+   * @param user user prompt
+   * @param sample zero-based sample index
+   * @return future completed with the generated items, or exceptionally with the last failure
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeSample(
+      String system, String user, int sample) {
+    return limit(system, user, () -> delegate.completeSample(system, user, sample), () -> {});
+  }
+
+  /**
+   * Sends a batch prompt once the rate budgets and the concurrency limit admit it, retrying
+   * throttled and transient failures.
+   *
+   * @param system system prompt of the batch
+   * @param user user prompt of the batch
+   * @return future completed with the generated items, or exceptionally with the last failure
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeBatch(
+      String system, String user) {
+    return completeBatch(system, user, () -> {});
+  }
+
+  /**
+   * Sends a batch prompt like {@link #completeBatch(String, String)}, and calls {@code onSend}
+   * each time an attempt leaves the queue.
+   *
+   * @param system system prompt of the batch
+   * @param user user prompt of the batch
+   * @param onSend called whenever the request, or a retry of it, is sent
+   * @return future completed with the generated items, or exceptionally with the last failure
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeBatch(
+      String system, String user, Runnable onSend) {
+    return limit(system, user, () -> delegate.completeBatch(system, user), onSend);
+  }
+
+  private CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> limit(
+      String system,
+      String user,
+      Supplier<CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>>> call,
+      Runnable onSend) {
+    CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> result =
+        new CompletableFuture<>();
+    retryDeadlineNs();
+    attempt(
+        call,
+        tokens(system, user),
+        0,
+        () -> true,
+        onSend,
+        () -> LlmMetrics.recordRetry(system, user),
+        result);
+    return result;
+  }
+
+  /**
+   * Streams a prompt pair once the rate budgets and the concurrency limit admit it. A failed
+   * request is retried only if it failed before passing any item to {@code onItem}.
+   *
+   * @param system system prompt
+   * @param user user prompt
+   * @param onItem receives items in order; returns {@code false} to stop
+   * @return future completed with the items passed to {@code onItem}, or exceptionally with the
+   *     last failure
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeStreaming(
+      String system, String user, Predicate<LlmInvariantGenerator.InvariantsOut.Item> onItem) {
+    AtomicBoolean emitted = new AtomicBoolean();
+    Predicate<LlmInvariantGenerator.InvariantsOut.Item> tracked =
+        item -> {
+          emitted.set(true);
+          return onItem.test(item);
+        };
+    CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> result =
+        new CompletableFuture<>();
+    retryDeadlineNs();
+    attempt(
+        () -> delegate.completeStreaming(system, user, tracked),
+        tokens(system, user),
+        0,
+        () -> !emitted.get(),
+        () -> {},
+        () -> LlmMetrics.recordRetry(system, user),
+        result);
+    return result;
+  }
+
+  /** Returns the retry deadline, starting the retry budget at the first request. */
+  private synchronized long retryDeadlineNs() {
+    if (!started) {
+      started = true;
+      deadlineNs = System.nanoTime() + totalBudgetNs;
+    }
+    return deadlineNs;
+  }
+
+  private static int tokens(String system, String user) {
+    return Math.max(1, (system.length() + user.length()) / CHARS_PER_TOKEN);
+  }
+
+  /**
+   * Makes one attempt of a request, scheduling a retry on a retriable failure.
+   *
+   * @param call sends the request to the delegate
+   * @param tokens estimated prompt tokens
+   * @param retry number of retries already made
+   * @param repeatable whether the request may still be repeated
+   * @param onSend called when the attempt is sent
+   * @param onRetry called when a retry is scheduled
+   * @param result future completed with the final outcome; cancelling it cancels the attempt
+   */
+  private void attempt(
+      Supplier<CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>>> call,
+      int tokens,
+      int retry,
+      BooleanSupplier repeatable,
+      Runnable onSend,
+      Runnable onRetry,
+      CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> result) {
+    concurrency
+        .submit(
+            () -> {
+              long waitNs = reserve(tokens);
+              CompletableFuture<Void> admitted =
+                  waitNs > 0 ? delay(waitNs) : CompletableFuture.completedFuture(null);
+              return admitted.thenCompose(
+                  ignored -> {
+                    // a request cancelled while queued, e.g. a hedge that lost, is not sent
+                    if (result.isDone()) {
+                      return CompletableFuture.failedFuture(new CancellationException());
+                    }
+                    requests.incrementAndGet();
+                    onSend.run();
+                    long startNs = System.nanoTime();
+                    CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> sent =
+                        call.get();
+                    result.whenComplete(
+                        (items, error) -> {
+                          if (result.isCancelled()) sent.cancel(true);
+                        });
+                    return sent.whenComplete(
+                        (items, error) -> onOutcome(System.nanoTime() - startNs, error));
+                  });
+            })
+        .whenComplete(
+            (items, error) -> {
+              if (result.isDone()) return;
+              if (error == null) {
+                result.complete(items);
+                return;
+              }
+              Throwable cause = LlmIo.unwrap(error);
+              long backoffMs =
+                  retry < maxRetries && repeatable.getAsBoolean() ? backoffMs(cause, retry) : -1;
+              long backoffNs = TimeUnit.MILLISECONDS.toNanos(backoffMs);
+              if (backoffMs < 0
+                  || System.nanoTime() + backoffNs - retryDeadlineNs() > 0
+                  || LlmDeadline.passesWithin(backoffNs)) {
+                if (isRetriable(cause)) gaveUp.incrementAndGet();
+                result.completeExceptionally(cause);
+                return;
+              }
+              retries.incrementAndGet();
+              onRetry.run();
+              TIMER.schedule(
+                  () -> attempt(call, tokens, retry + 1, repeatable, onSend, onRetry, result),
+                  backoffMs,
+                  TimeUnit.MILLISECONDS);
+            });
+  }
+
+  /**
+   * Reserves one request and an estimated number of tokens from the budgets.
+   *
+   * @return nanoseconds to wait before the request may be sent
+   */
+  private long reserve(int tokens) {
+    long waitNs = 0;
+    if (requestBudget != null) waitNs = Math.max(waitNs, requestBudget.reserve(1));
+    if (tokenBudget != null) waitNs = Math.max(waitNs, tokenBudget.reserve(tokens));
+    return waitNs;
+  }
+
+  private static CompletableFuture<Void> delay(long nanos) {
+    CompletableFuture<Void> f = new CompletableFuture<>();
+    TIMER.schedule(() -> f.complete(null), nanos, TimeUnit.NANOSECONDS);
+    return f;
+  }
+
+  /**
+   * Applies the AIMD rule to the outcome of one request.
+   *
+   * @param latencyNs round-trip time of the request
+   * @param error failure, or {@code null} on success
+   */
+  private void onOutcome(long latencyNs, @Nullable Throwable error) {
+    Throwable cause = error == null ? null : LlmIo.unwrap(error);
+    int newLimit;
+    synchronized (this) {
+      int limit = concurrency.limit();
+      newLimit = limit;
+      long now = System.nanoTime();
+
+      if (cause == null) {
+        if (latencyNs < baselineLatencyNs) {
+          baselineLatencyNs = latencyNs;
+        } else {
+          // drift upwards slowly so that a slower model or prompt mix resets the baseline
+          baselineLatencyNs += (latencyNs - baselineLatencyNs) / 100;
+        }
+
+        if (latencyNs > CONGESTED_LATENCY_FACTOR * baselineLatencyNs) {
+          if (canDecrease(now)) {
+            newLimit = Math.max(1, limit - Math.max(1, limit / 10));
+            lastDecreaseNs = now;
+          }
+          successesInWindow = 0;
+        } else if (++successesInWindow >= limit) {
+          newLimit = Math.min(maxConcurrency, limit + 1);
+          successesInWindow = 0;
+        }
+      } else if (isOverload(cause)) {
+        if (isThrottle(cause)) throttled.incrementAndGet();
+        if (canDecrease(now)) {
+          newLimit = Math.max(1, limit / 2);
+          lastDecreaseNs = now;
+        }
+        successesInWindow = 0;
+      }
+    }
+    concurrency.setLimit(newLimit);
+    publishLimit(newLimit);
+  }
+
+  /** Limits decreases to one per round trip, so one burst of rejections halves the limit once. */
+  private boolean canDecrease(long now) {
+    long window = baselineLatencyNs == Long.MAX_VALUE ? 0 : baselineLatencyNs;
+    return lastDecreaseNs == Long.MIN_VALUE || now - lastDecreaseNs >= window;
+  }
+
+  /**
+   * Computes the delay before retrying a failed request.
+   *
+   * @param cause failure
+   * @param retry number of retries already made
+   * @return delay in milliseconds, or {@code -1} if the failure is not retriable
+   */
+  private long backoffMs(Throwable cause, int retry) {
+    if (!isRetriable(cause)) return -1;
+    long cap = Math.min(MAX_BACKOFF_MS, backoffBaseMs << Math.min(retry, 20));
+    long jittered = ThreadLocalRandom.current().nextLong(cap + 1);
+    LlmHttpException http = httpCause(cause);
+    return http != null && http.retryAfterMs() >= 0
+        ? Math.max(http.retryAfterMs(), jittered)
+        : jittered;
+  }
+
+  private static boolean isRetriable(Throwable cause) {
+    LlmHttpException http = httpCause(cause);
+    if (http != null) return http.isRetriable();
+    for (Throwable t = cause; t != null; t = t.getCause()) {
+      if (t instanceof HttpTimeoutException || t instanceof ConnectException) return true;
+    }
+    return false;
+  }
+
+  private static boolean isOverload(Throwable cause) {
+    LlmHttpException http = httpCause(cause);
+    return http != null && (http.isThrottled() || http.statusCode() >= 500);
+  }
+
+  private static boolean isThrottle(Throwable cause) {
+    LlmHttpException http = httpCause(cause);
+    return http != null && http.isThrottled();
+  }
+
+  private static @Nullable LlmHttpException httpCause(Throwable cause) {
+    for (Throwable t = cause; t != null; t = t.getCause()) {
+      if (t instanceof LlmHttpException http) return http;
+    }
+    return null;
+  }
+
+  private static void publishLimit(int limit) {
+    lastLimit = limit;
+    if (limit > peakLimit) peakLimit = limit;
+  }
+
+  /** Resets the counters, at the start of a run. */
+  public static void resetCounters() {
+    requests.set(0);
+    throttled.set(0);
+    retries.set(0);
+    gaveUp.set(0);
+    lastLimit = 0;
+    peakLimit = 0;
+  }
+
+  /**
+   * Returns the number of requests sent to the endpoint, including retries.
+   *
+   * @return request count
+   */
+  public static long requests() {
+    return requests.get();
+  }
+
+  /**
+   * Returns the number of requests rejected with a throttling status.
+   *
+   * @return throttled request count
+   */
+  public static long throttled() {
+    return throttled.get();
+  }
+
+  /**
+   * Returns the number of retries scheduled.
+   *
+   * @return retry count
+   */
+  public static long retries() {
+    return retries.get();
+  }
+
+  /**
+   * Returns the number of retriable requests that still failed after the last retry or the
+   * deadline.
+   *
+   * @return exhausted request count
+   */
+  public static long gaveUp() {
+    return gaveUp.get();
+  }
+
+  /**
+   * Returns the most recent adaptive concurrency limit.
+   *
+   * @return concurrency limit
+   */
+  public static int concurrencyLimit() {
+    return lastLimit;
+  }
+
+  /**
+   * Returns the highest adaptive concurrency limit reached.
+   *
+   * @return peak concurrency limit
+   */
+  public static int peakConcurrencyLimit() {
+    return peakLimit;
+  }
+
+  /** Per-minute budget that refills continuously and may be borrowed against. */
+  private static final class TokenBucket {
+    private final double capacity;
+    private final double perNano;
+    private double available;
+    private long lastRefillNs;
+
+    TokenBucket(int perMinute) {
+      this.capacity = perMinute;
+      this.perNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+      this.available = perMinute;
+      this.lastRefillNs = System.nanoTime();
+    }
+
+    /**
+     * Takes tokens from the bucket, going into debt if needed.
+     *
+     * @param cost tokens to take; capped at the capacity
+     * @return nanoseconds until the debt is repaid, or {@code 0} if none
+     */
+    synchronized long reserve(double cost) {
+      long now = System.nanoTime();
+      available = Math.min(capacity, available + (now - lastRefillNs) * perNano);
+      lastRefillNs = now;
+      available -= Math.min(cost, capacity);
+      return available >= 0 ? 0 : (long) Math.ceil(-available / perNano);
+    }
+  }
+}
@@ -3,13 +3,28 @@ package edu.njit.jerse.daikonplusplus.llm;
 import com.openai.client.OpenAIClient;
 import com.openai.client.okhttp.OpenAIOkHttpClient;
 import com.openai.core.JsonSchemaLocalValidation;
+import com.openai.core.RequestOptions;
+import com.openai.core.http.StreamResponse;
+import com.openai.errors.OpenAIServiceException;
 import com.openai.models.ChatModel;
+import com.openai.models.chat.completions.ChatCompletionChunk;
 import com.openai.models.chat.completions.ChatCompletionCreateParams;
+import com.openai.models.chat.completions.ChatCompletionStreamOptions;
 import com.openai.models.chat.completions.StructuredChatCompletion;
 import com.openai.models.chat.completions.StructuredChatCompletionCreateParams;
+import com.openai.models.completions.CompletionUsage;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -31,12 +46,23 @@ public final class RealOpenAILlmClient implements LlmClient {
   private final ChatModel model;
 
   /**
-   * Creates a new OpenAI-based LLM client using environment credentials.
+   * Creates a new OpenAI-based LLM client using environment credentials. The SDK's own retries are
+   * disabled, since {@link RateLimitedLlmClient} owns retries and backoff.
    *
    * @param model the chat model (e.g., {@code ChatModel.GPT_4O}) to use for completions
    */
   public RealOpenAILlmClient(ChatModel model) {
-    this.client = OpenAIOkHttpClient.fromEnv();
+    this(OpenAIOkHttpClient.builder().fromEnv().maxRetries(0).build(), model);
+  }
+
+  /**
+   * Creates a client over an already configured SDK client, e.g. one pointed at a local server.
+   *
+   * @param client SDK client; its retries should be disabled
+   * @param model the chat model to use for completions
+   */
+  RealOpenAILlmClient(OpenAIClient client, ChatModel model) {
+    this.client = Objects.requireNonNull(client);
     this.model = Objects.requireNonNull(model);
   }
 
@@ -52,23 +78,194 @@ public final class RealOpenAILlmClient implements LlmClient {
   @Override
   public List<LlmInvariantGenerator.InvariantsOut.Item> complete(String system, String user)
       throws IOException {
-    StructuredChatCompletionCreateParams<LlmInvariantGenerator.InvariantsOut> params =
-        ChatCompletionCreateParams.builder()
-            .model(model)
-            .responseFormat(
-                LlmInvariantGenerator.InvariantsOut.class, JsonSchemaLocalValidation.YES)
-            .addSystemMessage(system)
-            .addUserMessage(user)
-            .build();
-
-    StructuredChatCompletion<LlmInvariantGenerator.InvariantsOut> completion =
-        client.chat().completions().create(params);
+    try {
+      return call(system, user, LlmInvariantGenerator.InvariantsOut.class, out -> out.invariants);
+    } catch (OpenAIServiceException e) {
+      throw httpError(e);
+    }
+  }
+
+  private <T> List<LlmInvariantGenerator.InvariantsOut.Item> call(
+      String system,
+      String user,
+      Class<T> type,
+      Function<T, List<? extends LlmInvariantGenerator.InvariantsOut.Item>> invariants)
+      throws IOException {
+    return items(
+        system,
+        user,
+        client.chat().completions().create(params(system, user, type), options()),
+        invariants);
+  }
+
+  /**
+   * Sends a prompt pair through the SDK's asynchronous client, so that a pending request holds no
+   * thread.
+   *
+   * @param system the system prompt defining model behavior or constraints
+   * @param user the user prompt containing the input or code under analysis
+   * @return future completed with the invariant items generated by the model
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeAsync(
+      String system, String user) {
+    return send(system, user, LlmInvariantGenerator.InvariantsOut.class, out -> out.invariants);
+  }
 
+  /**
+   * Sends a batch prompt like {@link #completeAsync}, asking for the point label of each invariant
+   * in the response schema.
+   *
+   * @param system the system prompt of the batch
+   * @param user the user prompt of the batch
+   * @return future completed with the invariant items generated by the model
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeBatch(
+      String system, String user) {
+    return send(
+        system, user, LlmInvariantGenerator.BatchInvariantsOut.class, out -> out.invariants);
+  }
+
+  private <T> CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> send(
+      String system,
+      String user,
+      Class<T> type,
+      Function<T, List<? extends LlmInvariantGenerator.InvariantsOut.Item>> invariants) {
+    RequestOptions options;
+    try {
+      options = options();
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    CompletableFuture<StructuredChatCompletion<T>> sent =
+        client.async().chat().completions().create(params(system, user, type), options);
+    CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> result =
+        sent.handle(
+            (completion, error) -> {
+              if (error == null) return items(system, user, completion, invariants);
+              Throwable cause = LlmIo.unwrap(error);
+              throw new CompletionException(
+                  cause instanceof OpenAIServiceException s ? httpError(s) : cause);
+            });
+    // cancelling the result (e.g. a hedge that lost) cancels the HTTP call
+    result.whenComplete((items, error) -> sent.cancel(true));
+    return result;
+  }
+
+  /**
+   * Streams the completion and passes each invariant to {@code onItem} as soon as its JSON object
+   * is complete. Returning {@code false} from {@code onItem} closes the stream, which stops
+   * generation and the billing of further output tokens.
+   *
+   * @param system the system prompt defining model behavior or constraints
+   * @param user the user prompt containing the input or code under analysis
+   * @param onItem receives items in order; returns {@code false} to stop
+   * @return future completed with the items passed to {@code onItem}
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeStreaming(
+      String system, String user, Predicate<LlmInvariantGenerator.InvariantsOut.Item> onItem) {
+    // the open stream, so that cancelling the result closes it; the reading task is not
+    // interrupted by the cancellation and would otherwise read the response to its end
+    AtomicReference<StreamResponse<ChatCompletionChunk>> open = new AtomicReference<>();
+    AtomicBoolean cancelled = new AtomicBoolean();
+    // the SDK delivers chunks through a blocking iterator, so the stream is read on the I/O pool
+    CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> result =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try (StreamResponse<ChatCompletionChunk> stream =
+                  client
+                      .chat()
+                      .completions()
+                      .createStreaming(streamParams(system, user), options())) {
+                open.set(stream);
+                if (cancelled.get()) return List.of();
+                StreamingItemParser parser = new StreamingItemParser();
+                List<LlmInvariantGenerator.InvariantsOut.Item> items = new ArrayList<>();
+                for (Iterator<ChatCompletionChunk> it = stream.stream().iterator();
+                    it.hasNext(); ) {
+                  ChatCompletionChunk chunk = it.next();
+                  // only sent, on the last chunk, when the request asks for usage
+                  chunk.usage().ifPresent(usage -> recordUsage(system, user, usage));
+                  for (ChatCompletionChunk.Choice choice : chunk.choices()) {
+                    for (LlmInvariantGenerator.InvariantsOut.Item item :
+                        parser.feed(choice.delta().content().orElse(""))) {
+                      items.add(item);
+                      if (!onItem.test(item)) return items;
+                    }
+                  }
+                }
+                return items;
+              } catch (OpenAIServiceException e) {
+                throw new CompletionException(httpError(e));
+              } catch (IOException e) {
+                throw new CompletionException(e);
+              }
+            },
+            LlmIo.BLOCKING);
+    result.whenComplete(
+        (items, error) -> {
+          if (!result.isCancelled()) return;
+          cancelled.set(true);
+          StreamResponse<ChatCompletionChunk> stream = open.get();
+          if (stream != null) stream.close();
+        });
+    return result;
+  }
+
+  /** Caps the SDK's request timeout at the time left until the run's deadline. */
+  private static RequestOptions options() throws IOException {
+    Duration timeout = LlmDeadline.timeout(null);
+    if (timeout == null) return RequestOptions.none();
+    return RequestOptions.builder().timeout(timeout).build();
+  }
+
+  /** Exposes the status of an API error to {@link RateLimitedLlmClient}. */
+  private static LlmHttpException httpError(OpenAIServiceException e) {
+    return new LlmHttpException(
+        "OpenAI HTTP error: " + e.statusCode(), e.statusCode(), -1, e);
+  }
+
+  /** Returns the parameters of a streamed request, which asks for usage on the last chunk. */
+  private ChatCompletionCreateParams streamParams(String system, String user) {
+    return params(system, user, LlmInvariantGenerator.InvariantsOut.class)
+        .rawParams()
+        .toBuilder()
+        .streamOptions(ChatCompletionStreamOptions.builder().includeUsage(true).build())
+        .build();
+  }
+
+  private <T> StructuredChatCompletionCreateParams<T> params(
+      String system, String user, Class<T> type) {
+    return ChatCompletionCreateParams.builder()
+        .model(model)
+        .responseFormat(type, JsonSchemaLocalValidation.YES)
+        .addSystemMessage(system)
+        .addUserMessage(user)
+        .build();
+  }
+
+  private static <T> List<LlmInvariantGenerator.InvariantsOut.Item> items(
+      String system,
+      String user,
+      StructuredChatCompletion<T> completion,
+      Function<T, List<? extends LlmInvariantGenerator.InvariantsOut.Item>> invariants) {
+    completion.usage().ifPresent(usage -> recordUsage(system, user, usage));
     return completion.choices().stream()
         .flatMap(c -> c.message().content().stream())
         .filter(java.util.Objects::nonNull)
-        .flatMap(out -> out.invariants.stream())
+        .<LlmInvariantGenerator.InvariantsOut.Item>flatMap(out -> invariants.apply(out).stream())
         .filter(java.util.Objects::nonNull)
         .collect(Collectors.toList());
   }
+
+  private static void recordUsage(String system, String user, CompletionUsage usage) {
+    LlmUsage.record(
+        system,
+        user,
+        usage.promptTokens(),
+        usage.promptTokensDetails().flatMap(d -> d.cachedTokens()).orElse(0L),
+        usage.completionTokens());
+  }
 }
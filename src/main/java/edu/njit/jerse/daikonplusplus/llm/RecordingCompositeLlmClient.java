@@ -1,8 +1,19 @@
 package edu.njit.jerse.daikonplusplus.llm;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
  * LLM client that combines replay and live modes, recording new responses when missing.
@@ -15,15 +26,47 @@ import java.util.List;
  * <p>This design allows the system to transparently build or extend its cassette corpus while
  * running in a mixed record-and-replay mode.
  *
+ * <p>All instances share one writer thread and one shutdown hook, which flushes every client that
+ * has not been {@linkplain #close() closed}.
+ *
  * @see ReplayingLlmClient
  * @see RealOpenAILlmClient
  * @see Cassette
  */
-public final class RecordingCompositeLlmClient implements LlmClient {
+public final class RecordingCompositeLlmClient implements LlmClient, Closeable {
+
+  /** Delay before a scheduled flush, so that responses recorded close together share one pass. */
+  private static final long FLUSH_DELAY_MS = 200;
+
+  /** Writes the cassettes of every instance. */
+  private static final ScheduledExecutorService WRITER =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread t = new Thread(r, "dp-cassette-writer");
+            t.setDaemon(true);
+            return t;
+          });
+
+  /** Instances whose pending cassettes the shutdown hook still has to write. */
+  private static final Set<RecordingCompositeLlmClient> OPEN = ConcurrentHashMap.newKeySet();
+
+  static {
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(
+                () -> OPEN.forEach(RecordingCompositeLlmClient::flush), "dp-cassette-flush"));
+  }
+
   private final LlmClient primary;
   private final LlmClient fallback;
   private final Path cassetteDir;
 
+  /** Recorded responses not yet written to disk, by cassette key. */
+  private final Map<String, LlmInvariantGenerator.InvariantsOut> pending =
+      new ConcurrentHashMap<>();
+
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
   /**
    * Constructs a composite client that first replays from a primary client and falls back to a live
    * LLM when a cassette is missing.
@@ -36,12 +79,16 @@ public final class RecordingCompositeLlmClient implements LlmClient {
     this.primary = primary;
     this.fallback = fallback;
     this.cassetteDir = cassetteDir;
+    OPEN.add(this);
   }
 
   /**
    * Attempts to retrieve a cached response for the given prompt; if missing, queries the fallback
    * LLM and records the result as a new cassette.
    *
+   * <p>Recorded cassettes are written behind the request by a background thread in batches, and
+   * are served from memory until they reach the disk.
+   *
    * @param system the system prompt providing model context
    * @param user the user prompt containing the code or query
    * @return list of invariant items produced by the LLM
@@ -51,18 +98,127 @@ public final class RecordingCompositeLlmClient implements LlmClient {
   public List<LlmInvariantGenerator.InvariantsOut.Item> complete(String system, String user)
       throws IOException {
     String key = Cassette.key(system, user);
+    LlmInvariantGenerator.InvariantsOut recorded = pending.get(key);
+    if (recorded != null) return recorded.invariants;
+
     try {
       return primary.complete(system, user);
     } catch (IOException miss) {
-      List<LlmInvariantGenerator.InvariantsOut.Item> items = fallback.complete(system, user);
-      // persist as full InvariantsOut
-      LlmInvariantGenerator.InvariantsOut out = new LlmInvariantGenerator.InvariantsOut();
-      out.invariants = items;
+      return record(key, fallback.complete(system, user));
+    }
+  }
+
+  /**
+   * Asynchronous form of {@link #complete}: replays from the primary client and, on a miss, records
+   * the fallback's response without blocking the caller.
+   *
+   * @param system the system prompt providing model context
+   * @param user the user prompt containing the code or query
+   * @return future completed with the invariant items produced by the LLM
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeAsync(
+      String system, String user) {
+    return completeSample(system, user, 0);
+  }
+
+  /**
+   * Replays one sample of a prompt pair from the primary client and, on a miss, records the
+   * fallback's response as the cassette of that sample.
+   *
+   * @param system the system prompt providing model context
+   * @param user the user prompt containing the code or query
+   * @param sample zero-based sample index
+   * @return future completed with the invariant items produced by the LLM
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeSample(
+      String system, String user, int sample) {
+    return replayOrRecord(
+        Cassette.sampleKey(system, user, Map.of(), sample),
+        () -> primary.completeSample(system, user, sample),
+        () -> fallback.completeSample(system, user, sample));
+  }
+
+  /**
+   * Replays a batch prompt from the primary client and, on a miss, records the fallback's response
+   * to it.
+   *
+   * @param system the system prompt of the batch
+   * @param user the user prompt of the batch
+   * @return future completed with the invariant items produced by the LLM
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeBatch(
+      String system, String user) {
+    return replayOrRecord(
+        Cassette.key(system, user),
+        () -> primary.completeBatch(system, user),
+        () -> fallback.completeBatch(system, user));
+  }
+
+  private CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> replayOrRecord(
+      String key,
+      Supplier<CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>>> replay,
+      Supplier<CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>>> live) {
+    LlmInvariantGenerator.InvariantsOut recorded = pending.get(key);
+    if (recorded != null) return CompletableFuture.completedFuture(recorded.invariants);
+
+    return replay
+        .get()
+        .exceptionallyCompose(
+            miss ->
+                LlmIo.unwrap(miss) instanceof IOException
+                    ? live.get().thenApply(items -> record(key, items))
+                    : CompletableFuture.failedFuture(miss));
+  }
+
+  /** Queues a live response for writing and returns it. */
+  private List<LlmInvariantGenerator.InvariantsOut.Item> record(
+      String key, List<LlmInvariantGenerator.InvariantsOut.Item> items) {
+    // persist as full InvariantsOut
+    LlmInvariantGenerator.InvariantsOut out = new LlmInvariantGenerator.InvariantsOut();
+    out.invariants = items;
+    pending.put(key, out);
+    if (flushScheduled.compareAndSet(false, true)) {
+      WRITER.schedule(this::writePending, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+    return items;
+  }
+
+  /** Writes all recorded cassettes that have not reached the disk yet, blocking until done. */
+  public void flush() {
+    try {
+      WRITER.submit(this::writePending).get();
+    } catch (ExecutionException e) {
+      writePending();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Writes the pending cassettes and takes this client off the shutdown hook's list. Responses
+   * recorded afterwards are still written, in the background.
+   */
+  @Override
+  public void close() {
+    OPEN.remove(this);
+    flush();
+  }
+
+  /** Runs on the writer thread: drains {@link #pending} in one pass. */
+  private void writePending() {
+    flushScheduled.set(false);
+    for (Map.Entry<String, LlmInvariantGenerator.InvariantsOut> e : pending.entrySet()) {
       try {
-        Cassette.write(cassetteDir, key, out);
-      } catch (Exception ignore) {
+        Cassette.write(cassetteDir, e.getKey(), e.getValue());
+      } catch (Exception ex) {
+        // the caller has its response, but the next replay will miss it
+        System.err.println(
+            "[DP-LLM] Could not write cassette " + e.getKey() + " to " + cassetteDir + ": " + ex);
       }
-      return items;
+      pending.remove(e.getKey(), e.getValue());
     }
   }
 }
@@ -1,8 +1,16 @@
 package edu.njit.jerse.daikonplusplus.llm;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * LLM client implementation that replays cached responses (cassettes) instead of calling a real
@@ -12,14 +20,17 @@ import java.util.List;
  * from pre-recorded JSON "cassette" files under a specified directory. Each request is identified
  * by a hash key derived from the system and user prompts.
  *
- * <p>If a matching cassette file is not found, an {@link IOException} is thrown, indicating a
- * missing replay record.
+ * <p>If the directory contains a {@link CassettePack}, it is searched first. If a matching cassette
+ * is not found, an {@link IOException} is thrown, indicating a missing replay record.
  *
  * @see Cassette
  * @see LlmInvariantGenerator.InvariantsOut
  */
 public final class ReplayingLlmClient implements LlmClient {
   private final Path cassetteDir;
+  private final @Nullable CassettePack pack;
+  private final @Nullable Path hitLog;
+  private final Set<String> hits = ConcurrentHashMap.newKeySet();
 
   /**
    * Constructs a replay-only LLM client that loads responses from the given cassette directory.
@@ -27,30 +38,93 @@ public final class ReplayingLlmClient implements LlmClient {
    * @param cassetteDir path to the directory containing pre-recorded LLM response files
    */
   public ReplayingLlmClient(Path cassetteDir) {
+    this(cassetteDir, null);
+  }
+
+  /**
+   * Constructs a replay-only LLM client that also appends the key of every cassette it serves to a
+   * hit log, for use with {@link CassettePack} compaction.
+   *
+   * @param cassetteDir path to the directory containing pre-recorded LLM response files
+   * @param hitLog file to append served cassette keys to, or {@code null} to not record hits
+   */
+  public ReplayingLlmClient(Path cassetteDir, @Nullable Path hitLog) {
     this.cassetteDir = cassetteDir;
+    this.pack = CassettePack.openIn(cassetteDir);
+    this.hitLog = hitLog;
   }
 
   /**
    * Returns the cached LLM response corresponding to the given prompt pair.
    *
    * <p>The key is computed from the system and user prompts using {@link Cassette#key(String,
-   * String)}. If the cassette file is missing or unreadable, an {@link IOException} is thrown.
+   * String)}. The directory's {@link CassettePack} is consulted first, then the loose cassette
+   * file. If neither holds the key, an {@link IOException} is thrown.
    *
    * @param system the system prompt text
    * @param user the user prompt text
-   * @return a list of invariant items reconstructed from the cassette file
+   * @return a list of invariant items reconstructed from the cassette
    * @throws IOException if the cassette cannot be found or read
    */
   @Override
   public List<LlmInvariantGenerator.InvariantsOut.Item> complete(String system, String user)
       throws IOException {
-    String key = Cassette.key(system, user);
+    return replay(Cassette.key(system, user));
+  }
+
+  /**
+   * Returns the replayed response as an already completed future; replay is a local lookup and
+   * needs no separate thread.
+   *
+   * @param system the system prompt text
+   * @param user the user prompt text
+   * @return completed future holding the replayed items, or failed if the cassette is missing
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeAsync(
+      String system, String user) {
+    return LlmIo.now(() -> complete(system, user));
+  }
+
+  /**
+   * Returns the replayed response of one sample of a prompt pair, from the cassette of that
+   * sample.
+   *
+   * @param system the system prompt text
+   * @param user the user prompt text
+   * @param sample zero-based sample index
+   * @return completed future holding the replayed items, or failed if the cassette is missing
+   */
+  @Override
+  public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeSample(
+      String system, String user, int sample) {
+    return LlmIo.now(() -> replay(Cassette.sampleKey(system, user, Map.of(), sample)));
+  }
+
+  private List<LlmInvariantGenerator.InvariantsOut.Item> replay(String key) throws IOException {
     try {
-      LlmInvariantGenerator.InvariantsOut out =
-          Cassette.read(cassetteDir, key, LlmInvariantGenerator.InvariantsOut.class);
-      return out.invariants;
+      byte[] packed = pack == null ? null : pack.get(key);
+      // batch items are a superset of single-point items, and keep the point label if present
+      LlmInvariantGenerator.BatchInvariantsOut out =
+          packed != null
+              ? Cassette.decode(packed, LlmInvariantGenerator.BatchInvariantsOut.class)
+              : Cassette.read(cassetteDir, key, LlmInvariantGenerator.BatchInvariantsOut.class);
+      recordHit(key);
+      return Collections.unmodifiableList(out.invariants);
     } catch (Exception e) {
       throw new IOException("Cassette missing for key=" + key + " in " + cassetteDir, e);
     }
   }
+
+  private void recordHit(String key) {
+    if (hitLog == null || !hits.add(key)) return;
+    synchronized (hits) {
+      try {
+        Files.writeString(
+            hitLog, key + "\n", StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+      } catch (IOException e) {
+        System.err.println("[DP-LLM] Could not record cassette hit in " + hitLog + ": " + e);
+      }
+    }
+  }
 }
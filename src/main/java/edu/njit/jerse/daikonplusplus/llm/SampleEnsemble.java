@@ -0,0 +1,174 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Agreement vote over independent samples of the response to one prompt.
+ *
+ * <p>Each sample votes once for every distinct canonical expression it proposes. An expression is
+ * agreed once {@code agreement} samples have proposed it. Since a sample can only add votes, the
+ * vote is decided as soon as {@code maxInvariants} admissible expressions are agreed, and the
+ * samples still pending can be cancelled. Sample counts are accumulated process-wide and reported
+ * at the end of a run.
+ */
+public final class SampleEnsemble {
+
+  private static final AtomicLong samples = new AtomicLong();
+  private static final AtomicLong cancelled = new AtomicLong();
+
+  private final int size;
+  private final int agreement;
+  private final int maxInvariants;
+  private final Function<String, @Nullable String> canonical;
+  private final Predicate<String> admissible;
+
+  /** Votes per canonical expression, in order of first proposal, with the first proposed item. */
+  private final Map<String, Tally> tallies = new LinkedHashMap<>();
+
+  private int finished;
+  private int failed;
+  private int items;
+  private int admissibleAgreed;
+
+  private static final class Tally {
+    final LlmInvariantGenerator.InvariantsOut.Item first;
+    final int order;
+    int votes;
+
+    Tally(LlmInvariantGenerator.InvariantsOut.Item first, int order) {
+      this.first = first;
+      this.order = order;
+    }
+  }
+
+  /**
+   * Creates a vote.
+   *
+   * @param size number of samples
+   * @param agreement samples that must propose an expression for it to be agreed, at most {@code
+   *     size}
+   * @param maxInvariants number of agreed admissible expressions that decides the vote
+   * @param canonical maps an expression to its canonical form, or to {@code null} if it does not
+   *     parse; such expressions get no votes
+   * @param admissible whether a proposed expression would pass the quality filter
+   */
+  SampleEnsemble(
+      int size,
+      int agreement,
+      int maxInvariants,
+      Function<String, @Nullable String> canonical,
+      Predicate<String> admissible) {
+    this.size = size;
+    this.agreement = Math.max(1, Math.min(size, agreement));
+    this.maxInvariants = maxInvariants;
+    this.canonical = canonical;
+    this.admissible = admissible;
+    samples.addAndGet(size);
+  }
+
+  /**
+   * Counts the response of one sample.
+   *
+   * @param response items of the sample, or {@code null} if it failed
+   * @return {@code true} once the vote is decided: enough expressions are agreed, or every sample
+   *     has finished
+   */
+  synchronized boolean add(@Nullable List<LlmInvariantGenerator.InvariantsOut.Item> response) {
+    finished++;
+    if (response == null) {
+      failed++;
+    } else {
+      items += response.size();
+      List<String> voted = new ArrayList<>();
+      for (LlmInvariantGenerator.InvariantsOut.Item item : response) {
+        String key = item.expression == null ? null : canonical.apply(item.expression.trim());
+        if (key == null || voted.contains(key)) continue;
+        voted.add(key);
+        Tally tally = tallies.computeIfAbsent(key, k -> new Tally(item, tallies.size()));
+        // the filter judges the text that is kept, which the key only stands for
+        if (++tally.votes == agreement && admissible.test(tally.first.expression.trim())) {
+          admissibleAgreed++;
+        }
+      }
+    }
+    return decided();
+  }
+
+  /**
+   * Returns whether the vote is decided.
+   *
+   * @return {@code true} once enough expressions are agreed or every sample has finished
+   */
+  synchronized boolean decided() {
+    return admissibleAgreed >= maxInvariants || finished == size;
+  }
+
+  /**
+   * Returns whether every sample failed.
+   *
+   * @return {@code true} if no sample answered
+   */
+  synchronized boolean allFailed() {
+    return failed == size;
+  }
+
+  /**
+   * Returns the number of items proposed by the finished samples.
+   *
+   * @return item count
+   */
+  synchronized int items() {
+    return items;
+  }
+
+  /**
+   * Returns the agreed expressions, most votes first and otherwise in order of first proposal, as
+   * the item that first proposed each.
+   *
+   * @return agreed items
+   */
+  synchronized List<LlmInvariantGenerator.InvariantsOut.Item> agreed() {
+    return tallies.values().stream()
+        .filter(t -> t.votes >= agreement)
+        .sorted(Comparator.comparingInt((Tally t) -> -t.votes).thenComparingInt(t -> t.order))
+        .map(t -> t.first)
+        .toList();
+  }
+
+  /** Counts a sample cancelled because the vote was decided without it. */
+  static void recordCancelled() {
+    cancelled.incrementAndGet();
+  }
+
+  /** Resets the counters, at the start of a run. */
+  public static void resetCounters() {
+    samples.set(0);
+    cancelled.set(0);
+  }
+
+  /**
+   * Returns the number of samples requested.
+   *
+   * @return sample count
+   */
+  public static long samples() {
+    return samples.get();
+  }
+
+  /**
+   * Returns the number of samples cancelled because consensus was reached without them.
+   *
+   * @return cancelled sample count
+   */
+  public static long cancelled() {
+    return cancelled.get();
+  }
+}
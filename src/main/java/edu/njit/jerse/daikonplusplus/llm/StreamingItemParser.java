@@ -0,0 +1,109 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Incremental parser for a streamed {@link LlmInvariantGenerator.InvariantsOut} JSON document.
+ *
+ * <p>Model output arrives in arbitrary fragments. The parser tracks just enough JSON structure
+ * (nesting depth, strings and escapes) to locate the top-level {@code "invariants"} array, and
+ * returns each element of that array as soon as its closing brace arrives, so the caller can
+ * filter invariants while the model is still generating. Elements that do not deserialize into an
+ * item are skipped; text outside the array is ignored.
+ *
+ * <p>Not thread-safe: fragments of one response must be fed in order by one thread at a time.
+ */
+final class StreamingItemParser {
+
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private static final String ARRAY_KEY = "invariants";
+
+  private final StringBuilder item = new StringBuilder();
+  private final StringBuilder string = new StringBuilder();
+  private int depth;
+  private boolean inString;
+  private boolean escaped;
+  private String lastString = "";
+  private String key = "";
+  private int arrayDepth = -1;
+  private boolean finished;
+
+  /**
+   * Consumes the next fragment of the response.
+   *
+   * @param fragment next piece of model output
+   * @return items completed by this fragment, in order
+   */
+  List<LlmInvariantGenerator.InvariantsOut.Item> feed(CharSequence fragment) {
+    List<LlmInvariantGenerator.InvariantsOut.Item> out = new ArrayList<>(1);
+    for (int i = 0; i < fragment.length() && !finished; i++) {
+      char c = fragment.charAt(i);
+      boolean inItem = arrayDepth >= 0 && depth > arrayDepth;
+      if (inItem) item.append(c);
+
+      if (inString) {
+        if (escaped) {
+          escaped = false;
+        } else if (c == '\\') {
+          escaped = true;
+        } else if (c == '"') {
+          inString = false;
+          lastString = string.toString();
+        } else if (depth == 1) {
+          string.append(c);
+        }
+        continue;
+      }
+
+      switch (c) {
+        case '"' -> {
+          inString = true;
+          string.setLength(0);
+        }
+        case ':' -> {
+          if (depth == 1) key = lastString;
+        }
+        case ',' -> {
+          if (depth == 1) key = "";
+        }
+        case '{', '[' -> {
+          if (arrayDepth < 0 && c == '[' && depth == 1 && key.equals(ARRAY_KEY)) {
+            arrayDepth = depth + 1;
+          } else if (arrayDepth >= 0 && depth == arrayDepth && c == '{') {
+            item.setLength(0);
+            item.append(c);
+          }
+          depth++;
+        }
+        case '}', ']' -> {
+          depth--;
+          if (arrayDepth >= 0 && depth == arrayDepth && inItem && c == '}') {
+            LlmInvariantGenerator.InvariantsOut.Item parsed = parse(item);
+            if (parsed != null) out.add(parsed);
+          } else if (arrayDepth >= 0 && depth < arrayDepth) {
+            finished = true;
+          }
+        }
+        default -> {}
+      }
+    }
+    return out;
+  }
+
+  private static LlmInvariantGenerator.InvariantsOut.@Nullable Item parse(CharSequence json) {
+    try {
+      // batch items are a superset of single-point items, and keep the point label if present
+      return MAPPER.readValue(
+          json.toString(), LlmInvariantGenerator.BatchInvariantsOut.Item.class);
+    } catch (JsonProcessingException e) {
+      return null;
+    }
+  }
+}
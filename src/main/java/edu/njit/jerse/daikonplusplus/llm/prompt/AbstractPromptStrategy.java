@@ -1,5 +1,8 @@
 package edu.njit.jerse.daikonplusplus.llm.prompt;
 
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 /**
  * Base implementation of {@link PromptStrategy}.
  *
@@ -7,16 +10,86 @@ package edu.njit.jerse.daikonplusplus.llm.prompt;
  * instructions, scope formatting, and program context.
  *
  * <p>Subclasses customize prompts by overriding extension hooks.
+ *
+ * <p>In the {@link PromptLayout#PREFIX} layout the system message is the same for every point: it
+ * holds the rules, the notes and constraints, the strategy's extra instructions and its
+ * point-independent examples ({@link #pointIndependentSystemInstructions()}). The extra
+ * instruction hooks are then called with the first point's context and must not depend on it.
  */
 public abstract class AbstractPromptStrategy implements PromptStrategy {
 
   private static final boolean DEBUG_PRINT_FIRST_PROMPT = true;
   private static boolean printedOnce = false;
 
+  private static final String SYSTEM_RULES =
+      """
+      You are a program analysis assistant.
+
+      Task:
+      Generate candidate invariants for a Java program point.
+
+      Global rules:
+      - Return ONLY JSON matching the required schema.
+      - The JSON schema is:
+        {
+          "invariants": [
+            { "expression": "<Java boolean expression>" }
+          ]
+        }
+      - Each invariant must be a valid Java boolean expression.
+      - Expressions must be valid at the program point.
+      - Use only the listed in-scope names.
+      - Do not introduce new variables, helper functions, or APIs.
+      - Expressions must be side-effect free.
+      """;
+
+  private static final String SCOPE_NOTE =
+      """
+      Note:
+      - These are base variables.
+      - Expressions derived from them (e.g., field accesses and method calls) are allowed if valid at this program point.
+
+      """;
+
+  private static final String RESULT_NOTE =
+      """
+      Note about 'result':
+      - 'result' is a symbolic name for the value returned by the method.
+      - If the method has multiple return statements, 'result' refers to the value returned along any execution path.
+      - Any invariant involving 'result' must hold for all possible return values of the method.
+
+      """;
+
+  private static final String CONSTRAINTS =
+      """
+      - Single-line Java boolean expressions only.
+      - Method calls are allowed and encouraged if callable using listed names.
+      - Method calls may belong to the JDK or the project codebase.
+      - Field accesses (e.g., obj.field) are allowed if accessible using listed names.
+      - Do not invent methods or fields that are not available at this program point.
+      - Add null checks ONLY when required for safe evaluation.
+      - Do not use non-Java logical operators such as ==> or ⇒.
+      - Logical implication (A ⇒ B) must be expressed as (!A || B) using standard Java boolean operators.
+      - Prefer pure predicate-style method calls.
+      - Avoid redundant or trivially true expressions.
+      - Do NOT generate tautologies or self-comparisons (e.g., x == x, obj.method() == obj.method()).
+      - Avoid semantically duplicate invariants that differ only by operand order or equivalent comparison form (e.g., a == b vs b == a, a <= b vs b >= a).
+      - Do not focus solely on nullness-related invariants.
+      - Prioritize invariants that capture meaningful relationships among the in-scope names and reflect the behavior of the method at this program point.
+      """;
+
+  private PromptLayout layout = PromptLayout.STANDARD;
+
+  /** Sets the layout of the prompts built by this strategy; see {@link PromptLayout}. */
+  void setLayout(PromptLayout layout) {
+    this.layout = layout;
+  }
+
   @Override
   public Prompt buildPrompt(PromptContext ctx) {
-    String system = buildSystemMessage(ctx);
-    String user = buildUserMessage(ctx);
+    boolean prefix = layout == PromptLayout.PREFIX;
+    String system = prefix ? buildPrefixSystemMessage(ctx) : buildSystemMessage(ctx);
+    String user = prefix ? buildPrefixUserMessage(ctx) : buildUserMessage(ctx);
 
     if (DEBUG_PRINT_FIRST_PROMPT && !printedOnce) {
       printedOnce = true;
@@ -36,28 +109,192 @@ public abstract class AbstractPromptStrategy implements PromptStrategy {
     return new Prompt(system, user);
   }
 
+  /**
+   * Builds a batch prompt that states the rules once, renders context shared by all points once,
+   * and then lists each point with its own scope and context.
+   */
+  @Override
+  public Prompt buildBatchPrompt(List<PromptContext> contexts) {
+    if (contexts.size() == 1) return buildPrompt(contexts.get(0));
+
+    PromptContext first = contexts.get(0);
+    String classDoc =
+        PromptBatch.shared(
+            contexts.stream().map(PromptContext::enclosingClassDocumentation).toList());
+    String typeDoc =
+        PromptBatch.shared(contexts.stream().map(PromptContext::typeLevelDocumentation).toList());
+
+    boolean prefix = layout == PromptLayout.PREFIX;
+    StringBuilder sb = new StringBuilder();
+    if (!prefix) {
+      appendBatchHeader(sb, contexts.size());
+      sb.append(SCOPE_NOTE);
+      sb.append("Constraints for every program point:\n").append(CONSTRAINTS);
+
+      String extraBeforeContext = extraUserInstructionsBeforeContext(first);
+      if (!extraBeforeContext.isBlank()) {
+        sb.append("\n").append(extraBeforeContext.strip()).append("\n");
+      }
+    }
+
+    if (classDoc != null || typeDoc != null) {
+      PromptContext shared =
+          new PromptContext(
+              first.point(),
+              first.inScope(),
+              null,
+              null,
+              classDoc,
+              typeDoc,
+              null,
+              null,
+              null,
+              first.maxInvariants(),
+              first.contextTokenBudget());
+      sb.append("\n===== SHARED CONTEXT =====\n");
+      sb.append("This context applies to every program point below.\n");
+      sb.append(PromptRenderingUtil.renderContextBlock(shared)).append("\n");
+      sb.append("==========================\n");
+    }
+    if (prefix) {
+      // after the shared context, so that the batch size does not end the common prefix
+      sb.append(sb.length() == 0 ? "" : "\n");
+      appendBatchHeader(sb, contexts.size());
+    }
+
+    for (int i = 0; i < contexts.size(); i++) {
+      PromptContext ctx = contexts.get(i);
+      PromptContext own =
+          new PromptContext(
+              ctx.point(),
+              ctx.inScope(),
+              ctx.methodImplementation(),
+              ctx.methodJavadoc(),
+              classDoc == null ? ctx.enclosingClassDocumentation() : null,
+              typeDoc == null ? ctx.typeLevelDocumentation() : null,
+              ctx.callSiteContext(),
+              ctx.inputOutputExamples(),
+              ctx.calleeDoc(),
+              ctx.maxInvariants(),
+              ctx.contextTokenBudget());
+
+      sb.append("\n===== POINT ").append(PromptBatch.label(i)).append(" =====\n");
+      sb.append(PromptRenderingUtil.renderProgramPointSection(own)).append("\n\n");
+      sb.append(PromptRenderingUtil.renderProgramPointExplanation(own)).append("\n");
+      sb.append("In-scope names:\n");
+      sb.append(PromptRenderingUtil.formatScope(own.inScope())).append("\n\n");
+      if (own.inScope().containsKey("result")) {
+        sb.append(RESULT_NOTE);
+      }
+      sb.append("Program context:\n");
+      sb.append(PromptRenderingUtil.renderContextBlock(own)).append("\n");
+    }
+
+    String extraAfterContext = prefix ? "" : extraUserInstructionsAfterContext(first);
+    if (!extraAfterContext.isBlank()) {
+      sb.append("\n").append(extraAfterContext.strip()).append("\n");
+    }
+
+    sb.append("\nFor each program point, generate up to ")
+        .append(first.maxInvariants())
+        .append(" candidate invariants that are valid at that point.\n");
+    sb.append(PromptBatch.tagInstruction());
+
+    String system = prefix ? buildPrefixSystemMessage(first) : buildSystemMessage(first);
+    return new Prompt(system + PromptBatch.SYSTEM_INSTRUCTIONS, sb.toString());
+  }
+
+  private static void appendBatchHeader(StringBuilder sb, int points) {
+    sb.append("PROGRAM POINTS: ")
+        .append(points)
+        .append(" points of the same class, labeled P1 to ")
+        .append(PromptBatch.label(points - 1))
+        .append(".\n\n");
+  }
+
   protected String buildSystemMessage(PromptContext ctx) {
-    return """
-        You are a program analysis assistant.
-
-        Task:
-        Generate candidate invariants for a Java program point.
-
-        Global rules:
-        - Return ONLY JSON matching the required schema.
-        - The JSON schema is:
-          {
-            "invariants": [
-              { "expression": "<Java boolean expression>" }
-            ]
-          }
-        - Each invariant must be a valid Java boolean expression.
-        - Expressions must be valid at the program point.
-        - Use only the listed in-scope names.
-        - Do not introduce new variables, helper functions, or APIs.
-        - Expressions must be side-effect free.
-        """
-        + extraSystemInstructions(ctx);
+    return SYSTEM_RULES + extraSystemInstructions(ctx);
+  }
+
+  /**
+   * Builds the system message of the prefix layout, which is identical for every program point.
+   */
+  private String buildPrefixSystemMessage(PromptContext ctx) {
+    StringBuilder sb = new StringBuilder(SYSTEM_RULES);
+    sb.append("\n").append(SCOPE_NOTE).append(RESULT_NOTE);
+    sb.append("Constraints for every program point:\n").append(CONSTRAINTS);
+
+    for (String extra :
+        List.of(
+            extraUserInstructionsBeforeContext(ctx), extraUserInstructionsAfterContext(ctx))) {
+      if (!extra.isBlank()) {
+        sb.append("\n").append(extra.strip()).append("\n");
+      }
+    }
+    sb.append(pointIndependentSystemInstructions());
+    return sb.toString();
+  }
+
+  /**
+   * Builds the user message of the prefix layout: the context shared by all methods of the class
+   * first, then the program point with its scope and method-level context.
+   */
+  private String buildPrefixUserMessage(PromptContext ctx) {
+    StringBuilder sb = new StringBuilder();
+
+    if (!isBlank(ctx.enclosingClassDocumentation()) || !isBlank(ctx.typeLevelDocumentation())) {
+      PromptContext classLevel =
+          new PromptContext(
+              ctx.point(),
+              ctx.inScope(),
+              null,
+              null,
+              ctx.enclosingClassDocumentation(),
+              ctx.typeLevelDocumentation(),
+              null,
+              null,
+              null,
+              ctx.maxInvariants(),
+              ctx.contextTokenBudget());
+      sb.append("===== CLASS CONTEXT =====\n");
+      sb.append("This context applies to every method of the class.\n");
+      sb.append(PromptRenderingUtil.renderContextBlock(classLevel)).append("\n");
+      sb.append("=========================\n\n");
+    }
+
+    PromptContext methodLevel =
+        new PromptContext(
+            ctx.point(),
+            ctx.inScope(),
+            ctx.methodImplementation(),
+            ctx.methodJavadoc(),
+            null,
+            null,
+            ctx.callSiteContext(),
+            ctx.inputOutputExamples(),
+            ctx.calleeDoc(),
+            ctx.maxInvariants(),
+            ctx.contextTokenBudget());
+    sb.append(PromptRenderingUtil.renderProgramPointSection(ctx)).append("\n\n");
+    sb.append(PromptRenderingUtil.renderProgramPointExplanation(ctx)).append("\n");
+    sb.append("In-scope names:\n");
+    sb.append(PromptRenderingUtil.formatScope(ctx.inScope())).append("\n");
+
+    sb.append("\n===== PROGRAM CONTEXT =====\n");
+    sb.append("Consider the following context when generating invariants.\n");
+    sb.append(PromptRenderingUtil.renderContextBlock(methodLevel)).append("\n");
+    sb.append("===========================\n");
+
+    sb.append("\nGenerate up to ")
+        .append(ctx.maxInvariants())
+        .append(" candidate invariants that are valid at this program point.\n");
+    sb.append("Return ONLY the JSON.\n");
+
+    return sb.toString();
+  }
+
+  private static boolean isBlank(@Nullable String s) {
+    return s == null || s.isBlank();
   }
 
   protected String buildUserMessage(PromptContext ctx) {
@@ -67,42 +304,12 @@ public abstract class AbstractPromptStrategy implements PromptStrategy {
     sb.append(PromptRenderingUtil.renderProgramPointExplanation(ctx)).append("\n");
     sb.append("In-scope names:\n");
     sb.append(PromptRenderingUtil.formatScope(ctx.inScope())).append("\n\n");
-    sb.append(
-        """
-            Note:
-            - These are base variables.
-            - Expressions derived from them (e.g., field accesses and method calls) are allowed if valid at this program point.
-
-            """);
+    sb.append(SCOPE_NOTE);
 
     if (ctx.inScope().containsKey("result")) {
-      sb.append(
-          """
-      Note about 'result':
-      - 'result' is a symbolic name for the value returned by the method.
-      - If the method has multiple return statements, 'result' refers to the value returned along any execution path.
-      - Any invariant involving 'result' must hold for all possible return values of the method.
-
-      """);
+      sb.append(RESULT_NOTE);
     }
-    sb.append(
-        """
-        Constraints specific to this program point:
-        - Single-line Java boolean expressions only.
-        - Method calls are allowed and encouraged if callable using listed names.
-        - Method calls may belong to the JDK or the project codebase.
-        - Field accesses (e.g., obj.field) are allowed if accessible using listed names.
-        - Do not invent methods or fields that are not available at this program point.
-        - Add null checks ONLY when required for safe evaluation.
-        - Do not use non-Java logical operators such as ==> or ⇒.
-        - Logical implication (A ⇒ B) must be expressed as (!A || B) using standard Java boolean operators.
-        - Prefer pure predicate-style method calls.
-        - Avoid redundant or trivially true expressions.
-        - Do NOT generate tautologies or self-comparisons (e.g., x == x, obj.method() == obj.method()).
-        - Avoid semantically duplicate invariants that differ only by operand order or equivalent comparison form (e.g., a == b vs b == a, a <= b vs b >= a).
-        - Do not focus solely on nullness-related invariants.
-        - Prioritize invariants that capture meaningful relationships among the in-scope names and reflect the behavior of the method at this program point.
-        """);
+    sb.append("Constraints specific to this program point:\n").append(CONSTRAINTS);
 
     String extraBeforeContext = extraUserInstructionsBeforeContext(ctx);
     if (!extraBeforeContext.isBlank()) {
@@ -132,6 +339,14 @@ public abstract class AbstractPromptStrategy implements PromptStrategy {
     return "";
   }
 
+  /**
+   * System-level instructions that do not depend on the program point, used instead of {@link
+   * #extraSystemInstructions(PromptContext)} in the prefix layout.
+   */
+  protected String pointIndependentSystemInstructions() {
+    return "";
+  }
+
   /** Extra user instructions inserted before the program context section. */
   protected String extraUserInstructionsBeforeContext(PromptContext ctx) {
     return "";
@@ -0,0 +1,362 @@
+package edu.njit.jerse.daikonplusplus.llm.prompt;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Fits the program context of a prompt into a token budget.
+ *
+ * <p>Each context section is costed with a character-based token estimate. When the full context
+ * exceeds {@link PromptContext#contextTokenBudget()}, sections are admitted in order of importance
+ * (method implementation, Javadoc, call sites, I/O examples, class documentation, type
+ * documentation). A section that does not fit entirely is reduced instead of dropped: sections made
+ * of independent items (callers, examples, per-type docs) keep their items most relevant to the
+ * program point, and the remaining sections are truncated. Admitted sections are rendered in the
+ * usual order, so a context that fits the budget is rendered exactly as without packing.
+ *
+ * <p>Packing statistics are accumulated process-wide and reported at the end of a run. Each pack
+ * decision, i.e. a context text under a budget, is counted once, however often it is rendered: a
+ * context shared by the entry and exit prompts of a method, or a prompt rendered again, is not
+ * counted twice.
+ */
+public final class ContextPacker {
+
+  /** Average number of characters per token assumed by the estimate. */
+  private static final double CHARS_PER_TOKEN = 4.0;
+
+  /** Truncating a section to less than this many tokens is not worth the header; drop it. */
+  private static final int MIN_TRUNCATED_TOKENS = 32;
+
+  private static final String TRUNCATION_MARKER = "\n... (truncated)";
+
+  private static final Pattern WORD = Pattern.compile("[A-Za-z_$][A-Za-z0-9_$]*");
+
+  private static final AtomicLong packed = new AtomicLong();
+  private static final AtomicLong trimmed = new AtomicLong();
+  private static final AtomicLong tokensBefore = new AtomicLong();
+  private static final AtomicLong tokensAfter = new AtomicLong();
+
+  /** Maximum number of remembered pack decisions; beyond this, the least recent are forgotten. */
+  private static final int MAX_COUNTED = 10_000;
+
+  /** Pack decisions already counted, by hash of the full context text and budget. */
+  private static final Set<List<Object>> counted =
+      Collections.newSetFromMap(
+          Collections.synchronizedMap(
+              new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Object>, Boolean> eldest) {
+                  return size() > MAX_COUNTED;
+                }
+              }));
+
+  private ContextPacker() {}
+
+  /** How a section may be reduced when it does not fit. */
+  private enum Reduce {
+    TRUNCATE,
+    ITEMS
+  }
+
+  /**
+   * A context section.
+   *
+   * @param title section header
+   * @param text stripped section content
+   * @param priority admission order; lower is admitted first
+   * @param reduce how to shrink the section
+   * @param separator item separator for {@link Reduce#ITEMS} sections
+   */
+  private record Section(
+      String title, String text, int priority, Reduce reduce, @Nullable Pattern separator) {}
+
+  /**
+   * Estimates the number of tokens a text will consume.
+   *
+   * @param text text to estimate
+   * @return estimated token count
+   */
+  static int estimateTokens(String text) {
+    return estimateTokens(text.length());
+  }
+
+  /**
+   * Estimates the number of tokens a text of the given length will consume.
+   *
+   * @param chars text length in characters
+   * @return estimated token count
+   */
+  static int estimateTokens(int chars) {
+    return (int) Math.ceil(chars / CHARS_PER_TOKEN);
+  }
+
+  /**
+   * Renders the context block of a prompt within its token budget.
+   *
+   * @param ctx prompt context with a positive {@link PromptContext#contextTokenBudget()}
+   * @return packed context block, or {@code "(none)"} if nothing fits
+   */
+  static String render(PromptContext ctx) {
+    List<Section> sections = sections(ctx);
+    String full = join(sections);
+    int budget = ctx.contextTokenBudget();
+    int fullTokens = estimateTokens(full);
+
+    HashCode fullHash = Hashing.murmur3_128().hashString(full, StandardCharsets.UTF_8);
+    boolean first = counted.add(List.of(fullHash, budget));
+    if (first) {
+      packed.incrementAndGet();
+      tokensBefore.addAndGet(fullTokens);
+    }
+    if (fullTokens <= budget) {
+      if (first) tokensAfter.addAndGet(fullTokens);
+      return full.isEmpty() ? "(none)" : full;
+    }
+
+    Set<String> terms = relevanceTerms(ctx);
+    List<Section> byPriority = new ArrayList<>(sections);
+    byPriority.sort(Comparator.comparingInt(Section::priority));
+
+    Map<Section, String> admitted = new IdentityHashMap<>();
+    int remaining = budget;
+    for (Section s : byPriority) {
+      int overhead = estimateTokens("[" + s.title() + "]\n\n\n");
+      int available = remaining - overhead;
+      if (available <= 0) continue;
+
+      String text =
+          estimateTokens(s.text()) <= available
+              ? s.text()
+              : s.reduce() == Reduce.ITEMS
+                  ? selectItems(s, available, terms)
+                  : truncate(s.text(), available);
+      if (text == null || text.isBlank()) continue;
+
+      admitted.put(s, text);
+      remaining -= overhead + estimateTokens(text);
+    }
+
+    List<Section> kept = new ArrayList<>();
+    for (Section s : sections) {
+      String text = admitted.get(s);
+      if (text != null) kept.add(new Section(s.title(), text, s.priority(), s.reduce(), null));
+    }
+    String packedText = join(kept);
+
+    if (first) {
+      trimmed.incrementAndGet();
+      tokensAfter.addAndGet(estimateTokens(packedText));
+    }
+    return packedText.isEmpty() ? "(none)" : packedText;
+  }
+
+  /**
+   * Collects the non-empty context sections of a prompt in rendering order.
+   *
+   * @param ctx prompt context
+   * @return sections to render
+   */
+  private static List<Section> sections(PromptContext ctx) {
+    List<Section> out = new ArrayList<>();
+    add(out, "Method Implementation", ctx.methodImplementation(), 0, Reduce.TRUNCATE, null);
+    add(out, "Method Javadoc", ctx.methodJavadoc(), 1, Reduce.TRUNCATE, null);
+    add(
+        out,
+        "Enclosing Class Documentation",
+        ctx.enclosingClassDocumentation(),
+        4,
+        Reduce.TRUNCATE,
+        null);
+    add(
+        out,
+        "Type-Level Documentation",
+        ctx.typeLevelDocumentation(),
+        5,
+        Reduce.ITEMS,
+        Pattern.compile("\n\n"));
+    add(
+        out,
+        "Call-Site Context",
+        ctx.callSiteContext(),
+        2,
+        Reduce.ITEMS,
+        Pattern.compile("\n\n(?=Caller: )"));
+    add(
+        out,
+        "Input-Output Examples",
+        ctx.inputOutputExamples(),
+        3,
+        Reduce.ITEMS,
+        Pattern.compile("\n"));
+    return out;
+  }
+
+  private static void add(
+      List<Section> out,
+      String title,
+      @Nullable String value,
+      int priority,
+      Reduce reduce,
+      @Nullable Pattern separator) {
+    if (value == null || value.isBlank()) return;
+    out.add(new Section(title, value.strip(), priority, reduce, separator));
+  }
+
+  /** Renders sections exactly as {@link PromptRenderingUtil#renderContextBlock} does. */
+  private static String join(List<Section> sections) {
+    StringBuilder sb = new StringBuilder();
+    for (Section s : sections) {
+      if (sb.length() > 0) sb.append("\n\n");
+      sb.append("[").append(s.title()).append("]\n").append(s.text());
+    }
+    return sb.toString().strip();
+  }
+
+  /**
+   * Keeps the items of a section most relevant to the program point that fit the available tokens,
+   * in their original order.
+   *
+   * @param s section made of independent items
+   * @param available tokens available for the section's content
+   * @param terms relevance terms of the program point
+   * @return selected items, or {@code null} if none fit
+   */
+  private static @Nullable String selectItems(Section s, int available, Set<String> terms) {
+    String sep = s.separator().pattern().startsWith("\n\n") ? "\n\n" : "\n";
+    String[] items = s.separator().split(s.text());
+
+    Integer[] order = new Integer[items.length];
+    int[] score = new int[items.length];
+    for (int i = 0; i < items.length; i++) {
+      order[i] = i;
+      score[i] = relevance(items[i], terms);
+    }
+    // most relevant first; earlier items win ties, since extractors list them in priority order
+    Arrays.sort(order, Comparator.comparingInt((Integer i) -> -score[i]));
+
+    boolean[] keep = new boolean[items.length];
+    int used = 0;
+    for (int i : order) {
+      int cost = estimateTokens(items[i] + sep);
+      if (used + cost > available) continue;
+      keep[i] = true;
+      used += cost;
+    }
+
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < items.length; i++) {
+      if (!keep[i]) continue;
+      if (sb.length() > 0) sb.append(sep);
+      sb.append(items[i]);
+    }
+    return sb.length() == 0 ? null : sb.toString();
+  }
+
+  /**
+   * Truncates a text to the available tokens, preferring to cut at a line boundary.
+   *
+   * @param text text to truncate
+   * @param available tokens available for the text
+   * @return truncated text, or {@code null} if too little room is left to be useful
+   */
+  private static @Nullable String truncate(String text, int available) {
+    if (available < MIN_TRUNCATED_TOKENS) return null;
+    int maxChars = (int) (available * CHARS_PER_TOKEN) - TRUNCATION_MARKER.length();
+    if (maxChars <= 0) return null;
+
+    String head = text.substring(0, Math.min(text.length(), maxChars));
+    int nl = head.lastIndexOf('\n');
+    if (nl > maxChars / 2) head = head.substring(0, nl);
+    return head.stripTrailing() + TRUNCATION_MARKER;
+  }
+
+  /**
+   * Returns the identifiers that make a context item relevant to a program point: the method name,
+   * the in-scope names and the identifiers in their types.
+   *
+   * @param ctx prompt context
+   * @return relevance terms
+   */
+  private static Set<String> relevanceTerms(PromptContext ctx) {
+    Set<String> terms = new LinkedHashSet<>();
+    String desc = ctx.point().elementId().jvmDescriptor();
+    int paren = desc.indexOf('(');
+    if (paren > 0) terms.add(desc.substring(0, paren));
+
+    for (Map.Entry<String, String> e : ctx.inScope().entrySet()) {
+      terms.add(e.getKey());
+      var m = WORD.matcher(e.getValue());
+      while (m.find()) terms.add(m.group());
+    }
+    return terms;
+  }
+
+  /**
+   * Scores an item by the number of distinct relevance terms it mentions.
+   *
+   * @param item context item
+   * @param terms relevance terms
+   * @return relevance score
+   */
+  private static int relevance(String item, Set<String> terms) {
+    Set<String> words = new LinkedHashSet<>();
+    var m = WORD.matcher(item);
+    while (m.find()) words.add(m.group());
+
+    int score = 0;
+    for (String t : terms) {
+      if (words.contains(t)) score++;
+    }
+    return score;
+  }
+
+  /** Resets the counters, at the start of a run. */
+  public static void resetCounters() {
+    packed.set(0);
+    trimmed.set(0);
+    tokensBefore.set(0);
+    tokensAfter.set(0);
+    counted.clear();
+  }
+
+  /**
+   * Returns the number of prompts rendered under a token budget.
+   *
+   * @return packed prompt count
+   */
+  public static long promptsPacked() {
+    return packed.get();
+  }
+
+  /**
+   * Returns the number of prompts whose context exceeded the budget and was reduced.
+   *
+   * @return trimmed prompt count
+   */
+  public static long promptsTrimmed() {
+    return trimmed.get();
+  }
+
+  /**
+   * Returns the estimated number of context tokens removed by packing.
+   *
+   * @return tokens saved
+   */
+  public static long tokensSaved() {
+    return tokensBefore.get() - tokensAfter.get();
+  }
+}
@@ -37,6 +37,16 @@ public final class FewShotExampleProvider {
     return "\n\n" + baselineExamples(ctx) + "\n";
   }
 
+  /**
+   * Returns the examples of every program point kind, for prompts whose system message must not
+   * depend on the point.
+   *
+   * @return formatted examples
+   */
+  public static String getAllExamples() {
+    return "\n\n" + baselineEntryExamples() + "\n" + baselineExitExamples() + "\n";
+  }
+
   private static String baselineExamples(PromptContext ctx) {
     return switch (ctx.point().kind()) {
       case METHOD_ENTRY -> baselineEntryExamples();
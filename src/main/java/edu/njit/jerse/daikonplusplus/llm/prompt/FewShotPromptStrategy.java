@@ -17,4 +17,9 @@ public final class FewShotPromptStrategy extends AbstractPromptStrategy {
   protected String extraSystemInstructions(PromptContext ctx) {
     return FewShotExampleProvider.getExamples(ctx);
   }
+
+  @Override
+  protected String pointIndependentSystemInstructions() {
+    return FewShotExampleProvider.getAllExamples();
+  }
 }
@@ -0,0 +1,127 @@
+package edu.njit.jerse.daikonplusplus.llm.prompt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Helpers for prompts that cover several program points at once.
+ *
+ * <p>Each point of a batch is labeled {@code P1}, {@code P2}, ... in request order, and the model
+ * tags every invariant with the label of the point it belongs to, so the response can be fanned
+ * back out to the individual points. Context shared by every point of a batch (class and type
+ * documentation) is rendered once instead of once per point.
+ */
+public final class PromptBatch {
+  private PromptBatch() {}
+
+  /** Estimated tokens a point adds to a batch besides its context (header, scope, rules). */
+  private static final int POINT_OVERHEAD_TOKENS = 150;
+
+  /** Instructions appended to the system message of a batch prompt. */
+  static final String SYSTEM_INSTRUCTIONS =
+      """
+
+      Batch requests:
+      - A request may list several program points, each labeled P1, P2, ...
+      - Tag every invariant with the label of its program point in a "point" field:
+        { "point": "P1", "expression": "<Java boolean expression>" }
+      - An invariant is checked only at the program point it is tagged with.
+      """;
+
+  /**
+   * Returns the label of the point at a position of a batch.
+   *
+   * @param index zero-based position of the point in the batch
+   * @return label such as {@code "P1"}
+   */
+  public static String label(int index) {
+    return "P" + (index + 1);
+  }
+
+  /**
+   * Splits the points of a group into batches whose estimated input stays within a token budget.
+   * Points keep their order, and a point that alone exceeds the budget forms its own batch.
+   *
+   * @param contexts prompt contexts of the points, in request order
+   * @param tokenBudget estimated input tokens allowed per batch
+   * @return non-empty batches covering every context exactly once
+   */
+  public static List<List<PromptContext>> partition(List<PromptContext> contexts, int tokenBudget) {
+    List<List<PromptContext>> out = new ArrayList<>();
+    List<PromptContext> current = new ArrayList<>();
+    int used = 0;
+    for (PromptContext ctx : contexts) {
+      int cost = estimateTokens(ctx);
+      if (!current.isEmpty() && used + cost > tokenBudget) {
+        out.add(current);
+        current = new ArrayList<>();
+        used = 0;
+      }
+      current.add(ctx);
+      used += cost;
+    }
+    if (!current.isEmpty()) out.add(current);
+    return out;
+  }
+
+  private static int estimateTokens(PromptContext ctx) {
+    int chars = 0;
+    for (String s :
+        new @Nullable String[] {
+          ctx.methodImplementation(),
+          ctx.methodJavadoc(),
+          ctx.enclosingClassDocumentation(),
+          ctx.typeLevelDocumentation(),
+          ctx.callSiteContext(),
+          ctx.inputOutputExamples()
+        }) {
+      if (s != null) chars += s.length();
+    }
+    chars += ctx.inScope().toString().length();
+    return ContextPacker.estimateTokens(chars) + POINT_OVERHEAD_TOKENS;
+  }
+
+  /**
+   * Returns the value of a context field if every point of the batch has the same non-blank value.
+   *
+   * @param values the field's value for each point
+   * @return shared value, or {@code null} if the points differ or the field is blank
+   */
+  static @Nullable String shared(List<@Nullable String> values) {
+    String first = values.get(0);
+    if (first == null || first.isBlank()) return null;
+    for (String v : values) {
+      if (!Objects.equals(first, v)) return null;
+    }
+    return first;
+  }
+
+  /**
+   * Builds a batch prompt by concatenating the single-point prompts of a strategy under labeled
+   * headers. Used by strategies that do not lay out batches themselves.
+   *
+   * @param strategy strategy building the single-point prompts
+   * @param contexts prompt contexts of the points, in label order
+   * @return batch prompt
+   */
+  static Prompt concatenate(PromptStrategy strategy, List<PromptContext> contexts) {
+    String system = null;
+    StringBuilder user = new StringBuilder();
+    for (int i = 0; i < contexts.size(); i++) {
+      Prompt p = strategy.buildPrompt(contexts.get(i));
+      if (system == null) system = p.systemMessage() + SYSTEM_INSTRUCTIONS;
+      user.append("===== POINT ").append(label(i)).append(" =====\n");
+      user.append(p.userMessage()).append("\n");
+    }
+    user.append(tagInstruction());
+    return new Prompt(Objects.requireNonNull(system), user.toString());
+  }
+
+  /** Closing instruction of a batch user message. */
+  static String tagInstruction() {
+    return "Set \"point\" of every invariant to the label of its program point (e.g., P1).\n"
+        + "Return ONLY the JSON.\n";
+  }
+}
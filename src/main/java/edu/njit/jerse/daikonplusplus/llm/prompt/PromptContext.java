@@ -1,7 +1,10 @@
 package edu.njit.jerse.daikonplusplus.llm.prompt;
 
 import edu.njit.jerse.daikonplusplus.model.ProgramPoint;
+import edu.njit.jerse.daikonplusplus.parse.context.ContextKind;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
@@ -12,7 +15,8 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  * generate.
  *
  * <p>All context fields are optional and may be {@code null} depending on which context extractors
- * are enabled.
+ * are enabled. A positive {@code contextTokenBudget} limits the estimated size of the rendered
+ * context (see {@link ContextPacker}); {@code 0} renders every section in full.
  */
 public record PromptContext(
     ProgramPoint point,
@@ -24,4 +28,54 @@ public record PromptContext(
     @Nullable String callSiteContext,
     @Nullable String inputOutputExamples,
     @Nullable String calleeDoc,
-    int maxInvariants) {}
+    int maxInvariants,
+    int contextTokenBudget) {
+
+  /** Creates a context whose program context is rendered without a token budget. */
+  public PromptContext(
+      ProgramPoint point,
+      Map<String, String> inScope,
+      @Nullable String methodImplementation,
+      @Nullable String methodJavadoc,
+      @Nullable String enclosingClassDocumentation,
+      @Nullable String typeLevelDocumentation,
+      @Nullable String callSiteContext,
+      @Nullable String inputOutputExamples,
+      @Nullable String calleeDoc,
+      int maxInvariants) {
+    this(
+        point,
+        inScope,
+        methodImplementation,
+        methodJavadoc,
+        enclosingClassDocumentation,
+        typeLevelDocumentation,
+        callSiteContext,
+        inputOutputExamples,
+        calleeDoc,
+        maxInvariants,
+        0);
+  }
+
+  /**
+   * Returns the kinds of context present in this prompt context.
+   *
+   * @return kinds whose section is non-blank
+   */
+  public Set<ContextKind> contextKinds() {
+    Set<ContextKind> kinds = EnumSet.noneOf(ContextKind.class);
+    if (present(methodImplementation)) kinds.add(ContextKind.METHOD_BODY);
+    if (!inScope.isEmpty()) kinds.add(ContextKind.SCOPE);
+    if (present(methodJavadoc)) kinds.add(ContextKind.METHOD_JAVADOC);
+    if (present(enclosingClassDocumentation)) kinds.add(ContextKind.CLASS_DOC);
+    if (present(typeLevelDocumentation)) kinds.add(ContextKind.TYPE_DOC);
+    if (present(callSiteContext)) kinds.add(ContextKind.CALL_SITE);
+    if (present(inputOutputExamples)) kinds.add(ContextKind.IO_EXAMPLES);
+    if (present(calleeDoc)) kinds.add(ContextKind.CALLEE_DOC);
+    return kinds;
+  }
+
+  private static boolean present(@Nullable String section) {
+    return section != null && !section.isBlank();
+  }
+}
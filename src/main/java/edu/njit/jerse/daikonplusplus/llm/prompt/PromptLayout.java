@@ -0,0 +1,40 @@
+package edu.njit.jerse.daikonplusplus.llm.prompt;
+
+import java.util.Locale;
+
+/**
+ * Arrangement of the content of a prompt.
+ *
+ * <p>Provider-side prompt caches reuse the longest prefix a request shares with earlier ones. In
+ * the {@link #STANDARD} layout the static rules follow the per-point scope, so requests share
+ * little more than the system message. The {@link #PREFIX} layout places everything that does not
+ * depend on the point first, in a fixed order, so that the cached prefix covers most of the prompt.
+ */
+public enum PromptLayout {
+  /** Rules, scope and context interleaved per point, as the strategies were written. */
+  STANDARD,
+
+  /**
+   * Static content first: the system message holds the rules, schema, notes, strategy
+   * instructions and few-shot examples, identical for every point; the user message starts with
+   * the context shared by all methods of a class, followed by the point itself.
+   */
+  PREFIX;
+
+  /**
+   * Resolves a configured layout name.
+   *
+   * @param name {@code "standard"} or {@code "prefix"}, case-insensitive
+   * @return layout, or {@link #STANDARD} if the name is unknown
+   */
+  public static PromptLayout parse(String name) {
+    return switch (name.trim().toLowerCase(Locale.ROOT)) {
+      case "prefix" -> PREFIX;
+      case "", "standard" -> STANDARD;
+      default -> {
+        System.err.println("[DP] Unknown prompt layout: '" + name + "' — using 'standard'");
+        yield STANDARD;
+      }
+    };
+  }
+}
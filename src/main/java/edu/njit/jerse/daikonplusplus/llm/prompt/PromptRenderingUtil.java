@@ -72,10 +72,16 @@ final class PromptRenderingUtil {
    * <p>Only non-empty context fields are included. Sections are separated by blank lines and
    * labeled with headers.
    *
+   * <p>When the context carries a token budget, rendering is delegated to {@link ContextPacker}.
+   *
    * @param ctx prompt context
    * @return formatted context block, or {@code "(none)"} if no context is available
    */
   static String renderContextBlock(PromptContext ctx) {
+    if (ctx.contextTokenBudget() > 0) {
+      return ContextPacker.render(ctx);
+    }
+
     StringBuilder sb = new StringBuilder();
 
     appendSection(sb, "Method Implementation", ctx.methodImplementation());
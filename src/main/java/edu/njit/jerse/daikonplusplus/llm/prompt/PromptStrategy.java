@@ -1,5 +1,7 @@
 package edu.njit.jerse.daikonplusplus.llm.prompt;
 
+import java.util.List;
+
 /** Strategy for constructing prompts used to query the LLM. */
 public interface PromptStrategy {
 
@@ -15,4 +17,16 @@ public interface PromptStrategy {
    * @return constructed prompt (system + user messages)
    */
   Prompt buildPrompt(PromptContext ctx);
+
+  /**
+   * Builds one prompt covering several program points, whose invariants the model tags with the
+   * point labels of {@link PromptBatch#label(int)}. By default the single-point prompts are
+   * concatenated under labeled headers.
+   *
+   * @param contexts prompt contexts of the points, in label order; not empty
+   * @return constructed batch prompt (system + user messages)
+   */
+  default Prompt buildBatchPrompt(List<PromptContext> contexts) {
+    return PromptBatch.concatenate(this, contexts);
+  }
 }
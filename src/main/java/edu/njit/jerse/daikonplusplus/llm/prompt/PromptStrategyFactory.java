@@ -54,9 +54,24 @@ public final class PromptStrategyFactory {
    * @return selected {@link PromptStrategy}
    */
   public static PromptStrategy create(String raw) {
+    return create(raw, PromptLayout.STANDARD);
+  }
+
+  /**
+   * Creates a {@link PromptStrategy} that lays out its prompts as given and logs the selection.
+   * Strategies that do not derive from {@link AbstractPromptStrategy} keep their own layout.
+   *
+   * @param raw user-provided strategy name (may be null)
+   * @param layout prompt layout
+   * @return selected {@link PromptStrategy}
+   */
+  public static PromptStrategy create(String raw, PromptLayout layout) {
     PromptStrategy strategy = createInternal(raw);
+    boolean prefix = layout == PromptLayout.PREFIX && strategy instanceof AbstractPromptStrategy;
+    if (prefix) ((AbstractPromptStrategy) strategy).setLayout(layout);
 
-    System.out.println("[DP] Using prompt strategy: " + strategy.name());
+    System.out.println(
+        "[DP] Using prompt strategy: " + strategy.name() + (prefix ? " (prefix layout)" : ""));
 
     return strategy;
   }
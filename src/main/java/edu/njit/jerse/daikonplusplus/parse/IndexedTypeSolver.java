@@ -0,0 +1,138 @@
+package edu.njit.jerse.daikonplusplus.parse;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * {@link TypeSolver} for project sources backed by a {@link SymbolIndex}.
+ *
+ * <p>Unlike {@code JavaParserTypeSolver}, which probes the file system and parses candidate files
+ * for every unknown name, this solver consults the index first and parses only the single file that
+ * declares the requested type. Parsed files and solved references are cached for the lifetime of
+ * the solver.
+ */
+public final class IndexedTypeSolver implements TypeSolver {
+
+  private final SymbolIndex index;
+  private final JavaParser parser;
+  private final Map<Path, Optional<CompilationUnit>> parsed = new ConcurrentHashMap<>();
+  private final Map<String, SymbolReference<ResolvedReferenceTypeDeclaration>> solved =
+      new ConcurrentHashMap<>();
+  private final AtomicInteger filesParsed = new AtomicInteger();
+  private @Nullable TypeSolver parent;
+
+  /**
+   * Creates a solver over an index.
+   *
+   * @param index symbol index of the project sources
+   */
+  public IndexedTypeSolver(SymbolIndex index) {
+    this.index = index;
+    this.parser =
+        new JavaParser(
+            new ParserConfiguration()
+                .setLanguageLevel(ParserConfiguration.LanguageLevel.BLEEDING_EDGE));
+  }
+
+  @Override
+  public @Nullable TypeSolver getParent() {
+    return parent;
+  }
+
+  @Override
+  public void setParent(TypeSolver parent) {
+    if (parent == null) throw new IllegalArgumentException("parent cannot be null");
+    if (parent == this) throw new IllegalStateException("a type solver cannot be its own parent");
+    if (this.parent != null) throw new IllegalStateException("parent already set");
+    this.parent = parent;
+  }
+
+  @Override
+  public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+    SymbolReference<ResolvedReferenceTypeDeclaration> cached = solved.get(name);
+    if (cached != null) return cached;
+
+    SymbolReference<ResolvedReferenceTypeDeclaration> ref =
+        index
+            .lookup(name)
+            .flatMap(this::declarationOf)
+            .map(this::solve)
+            .orElseGet(() -> SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class));
+    solved.putIfAbsent(name, ref);
+    return ref;
+  }
+
+  private SymbolReference<ResolvedReferenceTypeDeclaration> solve(TypeDeclaration<?> td) {
+    ResolvedReferenceTypeDeclaration decl = JavaParserFacade.get(getRoot()).getTypeDeclaration(td);
+    return SymbolReference.solved(decl);
+  }
+
+  /**
+   * Returns the number of source files this solver has parsed.
+   *
+   * @return parsed file count
+   */
+  public int filesParsed() {
+    return filesParsed.get();
+  }
+
+  /**
+   * Parses the file declaring an indexed type and finds the declaration in it.
+   *
+   * @param entry indexed type
+   * @return declaration if the file could be parsed and still declares the type
+   */
+  private Optional<TypeDeclaration<?>> declarationOf(SymbolIndex.TypeEntry entry) {
+    Optional<CompilationUnit> cu =
+        parsed.computeIfAbsent(
+            index.fileOf(entry),
+            f -> {
+              try {
+                filesParsed.incrementAndGet();
+                return parser.parse(f).getResult();
+              } catch (Exception e) {
+                return Optional.empty();
+              }
+            });
+    if (cu.isEmpty()) return Optional.empty();
+
+    String pkg = cu.get().getPackageDeclaration().map(pd -> pd.getName().asString()).orElse("");
+    if (entry.range() != null) {
+      Optional<TypeDeclaration<?>> byRange = find(cu.get(), entry, pkg, true);
+      if (byRange.isPresent()) return byRange;
+    }
+    return find(cu.get(), entry, pkg, false);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Optional<TypeDeclaration<?>> find(
+      CompilationUnit cu, SymbolIndex.TypeEntry entry, String pkg, boolean byRange) {
+    return cu.findFirst(
+            TypeDeclaration.class,
+            td -> {
+              if (byRange && !td.getRange().map(entry.range()::equals).orElse(false)) {
+                return false;
+              }
+              String[] names = ProjectTypeIndex.qualifiedNames(td, pkg);
+              return names != null && names[0].equals(entry.qualifiedName());
+            })
+        .map(td -> (TypeDeclaration<?>) td);
+  }
+
+  @Override
+  public String toString() {
+    return "IndexedTypeSolver{index=" + index.file() + ", parent=" + parent + "}";
+  }
+}
@@ -2,13 +2,18 @@ package edu.njit.jerse.daikonplusplus.parse;
 
 import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
 import edu.njit.jerse.daikonplusplus.model.*;
 import java.io.IOException;
 import java.nio.file.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Scans a Java source tree and extracts program points for methods.
@@ -16,10 +21,27 @@ import java.util.List;
  * <p>For each method with a body, this scanner emits two program points: {@link
  * ProgramPointKind#METHOD_ENTRY} and {@link ProgramPointKind#METHOD_EXIT}.
  *
+ * <p>While walking the tree, every declared type is recorded in a {@link ProjectTypeIndex}, which
+ * is registered for the source root so later class lookups need no further directory scans.
+ *
+ * <p>Size and visibility of every scanned method are kept as {@link MethodFacts}, so points can
+ * be prioritized without parsing the sources again.
+ *
  * <p>Files that cannot be parsed are skipped.
  */
 public final class JavaProjectScanner {
 
+  /**
+   * Facts about a scanned method.
+   *
+   * @param lines number of source lines the declaration spans
+   * @param publicApi whether the method is reachable from outside the project, i.e. it is public
+   *     (or an interface method) and so is every enclosing type
+   */
+  public record MethodFacts(int lines, boolean publicApi) {}
+
+  private final Map<ProgramElementId, MethodFacts> methodFacts = new HashMap<>();
+
   /**
    * Walks a source directory and returns method entry and exit program points.
    *
@@ -32,6 +54,7 @@ public final class JavaProjectScanner {
    */
   public List<ProgramPoint> scanMethodEntryExit(Path srcRoot) throws IOException {
     List<ProgramPoint> points = new ArrayList<>();
+    ProjectTypeIndex typeIndex = new ProjectTypeIndex(srcRoot);
     try (var stream = Files.walk(srcRoot)) {
       stream
           .filter(p -> p.toString().endsWith(".java"))
@@ -39,6 +62,7 @@ public final class JavaProjectScanner {
               file -> {
                 try {
                   CompilationUnit cu = StaticJavaParser.parse(file);
+                  typeIndex.addCompilationUnit(file, cu);
                   String pkg =
                       cu.getPackageDeclaration().map(pd -> pd.getName().asString()).orElse("");
                   cu.findAll(ClassOrInterfaceDeclaration.class)
@@ -57,6 +81,11 @@ public final class JavaProjectScanner {
                                               nested,
                                               srcRoot.relativize(file).toString(),
                                               desc);
+                                      methodFacts.put(
+                                          peid,
+                                          new MethodFacts(
+                                              md.getRange().map(r -> r.getLineCount()).orElse(0),
+                                              isPublicApi(md)));
                                       points.add(
                                           new ProgramPointImpl(
                                               peid, ProgramPointKind.METHOD_ENTRY));
@@ -69,6 +98,30 @@ public final class JavaProjectScanner {
                 }
               });
     }
+    ProjectTypeIndex.register(typeIndex);
     return points;
   }
+
+  /**
+   * Returns the facts of the methods found by the last scan.
+   *
+   * @return facts keyed by element identifier
+   */
+  public Map<ProgramElementId, MethodFacts> methodFacts() {
+    return Collections.unmodifiableMap(methodFacts);
+  }
+
+  private static boolean isPublicApi(MethodDeclaration md) {
+    if (!md.isPublic() && !(inInterface(md) && !md.isPrivate())) return false;
+    for (Node n = md.getParentNode().orElse(null); n != null; n = n.getParentNode().orElse(null)) {
+      // members of interfaces are implicitly public
+      if (n instanceof TypeDeclaration<?> t && !t.isPublic() && !inInterface(t)) return false;
+    }
+    return true;
+  }
+
+  private static boolean inInterface(Node n) {
+    return n.getParentNode().orElse(null) instanceof ClassOrInterfaceDeclaration c
+        && c.isInterface();
+  }
 }
@@ -0,0 +1,284 @@
+package edu.njit.jerse.daikonplusplus.parse;
+
+import com.github.javaparser.Range;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Project-wide index from fully qualified type names to the source files that declare them.
+ *
+ * <p>Every top-level and member type is indexed under its canonical name ({@code a.b.Outer.Inner})
+ * and its binary name ({@code a.b.Outer$Inner}), together with its declaration range. Lookups
+ * therefore work for nested types and for sources that do not follow the {@code pkg/Cls.java}
+ * layout. Parsed compilation units and resolved declarations are cached, so each file is parsed at
+ * most once per index regardless of how many lookups target it; a file modified after it was cached
+ * is re-parsed.
+ *
+ * <p>{@link JavaProjectScanner} builds and {@linkplain #register registers} an index for the source
+ * root it scans. {@link #forSourceRoot} returns the registered index, building one on first use if
+ * no scan has registered it.
+ */
+public final class ProjectTypeIndex {
+
+  /**
+   * Location of a declared type.
+   *
+   * @param qualifiedName canonical name of the type
+   * @param file source file declaring the type
+   * @param range declaration range within the file, or {@code null} if unknown
+   */
+  public record TypeLocation(String qualifiedName, Path file, @Nullable Range range) {}
+
+  /** Indexes registered per normalized source root. */
+  private static final Map<Path, ProjectTypeIndex> REGISTERED = new ConcurrentHashMap<>();
+
+  private final Path srcRoot;
+  private final Map<String, TypeLocation> locations = new ConcurrentHashMap<>();
+  private final Map<Path, ParsedSource> parsed = new ConcurrentHashMap<>();
+  private final Map<String, CachedDeclaration> declarations = new ConcurrentHashMap<>();
+
+  /**
+   * Creates an empty index for a source root.
+   *
+   * @param srcRoot root directory of the source code
+   */
+  public ProjectTypeIndex(Path srcRoot) {
+    this.srcRoot = srcRoot.toAbsolutePath().normalize();
+  }
+
+  /**
+   * Registers an index as the one to use for its source root, replacing any previous index.
+   *
+   * @param index index to register
+   */
+  public static void register(ProjectTypeIndex index) {
+    REGISTERED.put(index.srcRoot, index);
+  }
+
+  /**
+   * Returns the index registered for a source root, building and registering one if necessary.
+   *
+   * @param srcRoot root directory of the source code
+   * @return type index for the source root
+   */
+  public static ProjectTypeIndex forSourceRoot(Path srcRoot) {
+    return REGISTERED.computeIfAbsent(
+        srcRoot.toAbsolutePath().normalize(), ProjectTypeIndex::buildFromSources);
+  }
+
+  /**
+   * Builds an index by parsing every Java file under a source root.
+   *
+   * @param srcRoot root directory of the source code
+   * @return populated index
+   */
+  private static ProjectTypeIndex buildFromSources(Path srcRoot) {
+    ProjectTypeIndex index = new ProjectTypeIndex(srcRoot);
+    try (var stream = Files.walk(srcRoot)) {
+      stream
+          .filter(p -> p.toString().endsWith(".java"))
+          .forEach(
+              file -> {
+                try {
+                  index.addCompilationUnit(file, StaticJavaParser.parse(file));
+                } catch (Exception ignored) {
+                  // unparsable files simply contribute no types
+                }
+              });
+    } catch (IOException | RuntimeException ignored) {
+      // a missing or unreadable root yields an empty index
+    }
+    return index;
+  }
+
+  /**
+   * Indexes every named type declared in a compilation unit.
+   *
+   * <p>Local and anonymous classes are not addressable by name and are skipped. When two files
+   * declare the same name, the first one indexed wins.
+   *
+   * @param file source file the unit was parsed from
+   * @param cu parsed compilation unit
+   */
+  public void addCompilationUnit(Path file, CompilationUnit cu) {
+    Path normalized = file.toAbsolutePath().normalize();
+    String pkg = cu.getPackageDeclaration().map(pd -> pd.getName().asString()).orElse("");
+
+    for (TypeDeclaration<?> td : cu.findAll(TypeDeclaration.class)) {
+      String[] names = qualifiedNames(td, pkg);
+      if (names == null) continue;
+
+      TypeLocation loc = new TypeLocation(names[0], normalized, td.getRange().orElse(null));
+      locations.putIfAbsent(names[0], loc);
+      locations.putIfAbsent(names[1], loc);
+    }
+  }
+
+  /**
+   * Returns the number of distinct names (canonical and binary) in the index.
+   *
+   * @return indexed name count
+   */
+  public int size() {
+    return locations.size();
+  }
+
+  /**
+   * Locates a type by its canonical or binary name.
+   *
+   * @param qualifiedName fully qualified type name
+   * @return location of the type if indexed
+   */
+  public Optional<TypeLocation> locate(String qualifiedName) {
+    return Optional.ofNullable(locations.get(qualifiedName));
+  }
+
+  /**
+   * Finds a class or interface declaration by its canonical or binary name.
+   *
+   * <p>Names that are not indexed fall back to the conventional {@code pkg/Cls.java} location, so
+   * files added after the index was built remain reachable.
+   *
+   * @param qualifiedName fully qualified class name
+   * @return matching class declaration if found
+   */
+  public Optional<ClassOrInterfaceDeclaration> findClass(String qualifiedName) {
+    TypeLocation loc = locations.get(qualifiedName);
+    if (loc == null) loc = conventionalLocation(qualifiedName);
+    if (loc == null) return Optional.empty();
+
+    CompilationUnit cu = parse(loc.file());
+    if (cu == null) return Optional.empty();
+
+    CachedDeclaration cached = declarations.get(qualifiedName);
+    if (cached != null && cached.cu() == cu) return cached.declaration();
+
+    Optional<ClassOrInterfaceDeclaration> decl = findDeclaration(cu, loc);
+    declarations.put(qualifiedName, new CachedDeclaration(cu, decl));
+    return decl;
+  }
+
+  /**
+   * Derives the location of a top-level class from the {@code pkg/Cls.java} convention.
+   *
+   * @param qualifiedName fully qualified class name
+   * @return location, or {@code null} if no such file exists
+   */
+  private @Nullable TypeLocation conventionalLocation(String qualifiedName) {
+    int lastDot = qualifiedName.lastIndexOf('.');
+    String pkg = lastDot < 0 ? "" : qualifiedName.substring(0, lastDot);
+    String cls = qualifiedName.substring(lastDot + 1);
+
+    Path file = srcRoot.resolve(pkg.replace('.', '/')).resolve(cls + ".java");
+    if (!Files.exists(file)) return null;
+    return new TypeLocation(qualifiedName, file, null);
+  }
+
+  /**
+   * Locates the declaration of an indexed type within its compilation unit.
+   *
+   * <p>The recorded range is tried first; if the file changed since indexing, the declaration is
+   * looked up by name instead.
+   *
+   * @param cu compilation unit of the type's file
+   * @param loc location of the type
+   * @return declaration if present
+   */
+  private static Optional<ClassOrInterfaceDeclaration> findDeclaration(
+      CompilationUnit cu, TypeLocation loc) {
+
+    String pkg = cu.getPackageDeclaration().map(pd -> pd.getName().asString()).orElse("");
+    String simpleName = loc.qualifiedName().substring(loc.qualifiedName().lastIndexOf('.') + 1);
+
+    if (loc.range() != null) {
+      Optional<ClassOrInterfaceDeclaration> byRange =
+          cu.findFirst(
+              ClassOrInterfaceDeclaration.class,
+              c ->
+                  c.getRange().map(loc.range()::equals).orElse(false)
+                      && c.getNameAsString().equals(simpleName));
+      if (byRange.isPresent()) return byRange;
+    }
+
+    return cu.findFirst(
+        ClassOrInterfaceDeclaration.class,
+        c -> {
+          String[] names = qualifiedNames(c, pkg);
+          return names != null && names[0].equals(loc.qualifiedName());
+        });
+  }
+
+  /**
+   * Returns the cached compilation unit of a file, parsing it if absent or modified since.
+   *
+   * @param file source file
+   * @return compilation unit, or {@code null} if the file cannot be parsed
+   */
+  private @Nullable CompilationUnit parse(Path file) {
+    try {
+      FileTime modified = Files.getLastModifiedTime(file);
+      ParsedSource source =
+          parsed.compute(
+              file,
+              (f, old) -> {
+                if (old != null && old.modified().equals(modified)) return old;
+                try {
+                  return new ParsedSource(StaticJavaParser.parse(f), modified);
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              });
+      return source.cu();
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * Computes the canonical and binary names of a type declaration.
+   *
+   * @param td type declaration
+   * @param pkg package of the enclosing compilation unit
+   * @return {@code [canonical, binary]}, or {@code null} for local and anonymous types
+   */
+  static String @Nullable [] qualifiedNames(TypeDeclaration<?> td, String pkg) {
+    Deque<String> chain = new ArrayDeque<>();
+    Node n = td;
+    while (true) {
+      if (n instanceof TypeDeclaration<?> t) {
+        chain.addFirst(t.getNameAsString());
+      } else if (n instanceof CompilationUnit) {
+        break;
+      } else {
+        return null;
+      }
+      Optional<Node> parent = n.getParentNode();
+      if (parent.isEmpty()) break;
+      n = parent.get();
+    }
+
+    String prefix = pkg.isEmpty() ? "" : pkg + ".";
+    return new String[] {prefix + String.join(".", chain), prefix + String.join("$", chain)};
+  }
+
+  /** A parsed file and the modification time it was parsed at. */
+  private record ParsedSource(CompilationUnit cu, FileTime modified) {}
+
+  /** A declaration lookup result tied to the compilation unit it was found in. */
+  private record CachedDeclaration(
+      CompilationUnit cu, Optional<ClassOrInterfaceDeclaration> declaration) {}
+}
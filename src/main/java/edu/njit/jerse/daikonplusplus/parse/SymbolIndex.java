@@ -0,0 +1,340 @@
+package edu.njit.jerse.daikonplusplus.parse;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Position;
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import edu.njit.jerse.daikonplusplus.util.SortedKeyFile;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Persistent index of the types declared under a source root.
+ *
+ * <p>For every named type the index records the declaring file, the declaration kind and range,
+ * and the descriptors of its methods together with the character offsets of their Javadoc. It is
+ * keyed by canonical ({@code a.b.Outer.Inner}) and binary ({@code a.b.Outer$Inner}) names and
+ * stored as a {@link SortedKeyFile} named after a SHA-256 hash of the source tree's paths and
+ * contents. A later run over an unchanged tree memory-maps the existing file instead of parsing the
+ * sources, so type lookups only touch the files that declare the types actually requested.
+ */
+public final class SymbolIndex implements Closeable {
+
+  /** Format tag stored in the file header, bumped whenever the payload layout changes. */
+  private static final String FORMAT = "symbols/1";
+
+  /**
+   * A method declared directly in an indexed type.
+   *
+   * @param descriptor best-effort descriptor, as produced by {@link
+   *     MethodSignatureUtil#jvmDescriptorBestEffort}
+   * @param javadocStart character offset of the Javadoc comment in the file, or {@code -1}
+   * @param javadocEnd character offset just past the Javadoc comment, or {@code -1}
+   */
+  public record MethodEntry(String descriptor, int javadocStart, int javadocEnd) {}
+
+  /**
+   * An indexed type.
+   *
+   * @param qualifiedName canonical name of the type
+   * @param relativePath declaring file, relative to the source root
+   * @param kind simple name of the declaration node class, e.g. {@code ClassOrInterfaceDeclaration}
+   * @param range declaration range within the file, or {@code null} if unknown
+   * @param methods methods declared directly in the type
+   */
+  public record TypeEntry(
+      String qualifiedName,
+      String relativePath,
+      String kind,
+      @Nullable Range range,
+      List<MethodEntry> methods) {}
+
+  private final Path srcRoot;
+  private final Path file;
+  private final SortedKeyFile data;
+  private final boolean built;
+
+  private SymbolIndex(Path srcRoot, Path file, SortedKeyFile data, boolean built) {
+    this.srcRoot = srcRoot;
+    this.file = file;
+    this.data = data;
+    this.built = built;
+  }
+
+  /**
+   * Opens the index for a source tree, building and persisting it first if no index exists for the
+   * tree's current contents.
+   *
+   * @param srcRoot root directory of the source code
+   * @param indexDir directory holding persisted indexes
+   * @return opened index
+   * @throws IOException if the sources cannot be read or the index cannot be written
+   */
+  public static SymbolIndex loadOrBuild(Path srcRoot, Path indexDir) throws IOException {
+    Path root = srcRoot.toAbsolutePath().normalize();
+    String hash = treeHash(root);
+    Path file = indexDir.resolve("symbols-" + hash.substring(0, 32) + ".dpidx");
+    String meta = FORMAT + " " + hash;
+
+    if (Files.isRegularFile(file)) {
+      try {
+        SortedKeyFile existing = SortedKeyFile.open(file);
+        if (existing.meta().equals(meta)) return new SymbolIndex(root, file, existing, false);
+        existing.close();
+      } catch (IOException e) {
+        // unreadable or stale file; rebuild below
+      }
+    }
+
+    write(root, file, meta);
+    return new SymbolIndex(root, file, SortedKeyFile.open(file), true);
+  }
+
+  /**
+   * Computes a SHA-256 hash over the relative paths and contents of all Java files under a root.
+   *
+   * @param root root directory of the source code
+   * @return hex-encoded hash
+   * @throws IOException if a file cannot be read
+   */
+  public static String treeHash(Path root) throws IOException {
+    MessageDigest sha;
+    try {
+      sha = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    for (Path f : javaFiles(root)) {
+      sha.update(relativePath(root, f).getBytes(StandardCharsets.UTF_8));
+      sha.update((byte) 0);
+      sha.update(Files.readAllBytes(f));
+      sha.update((byte) 0);
+    }
+    return HexFormat.of().formatHex(sha.digest());
+  }
+
+  /**
+   * Parses every Java file under a root and writes the resulting index.
+   *
+   * @param root root directory of the source code
+   * @param file destination index file
+   * @param meta header metadata identifying the tree
+   * @throws IOException if a source cannot be read or the index cannot be written
+   */
+  private static void write(Path root, Path file, String meta) throws IOException {
+    // declarations only; no symbol resolver is needed to build the index
+    JavaParser parser =
+        new JavaParser(
+            new ParserConfiguration()
+                .setLanguageLevel(ParserConfiguration.LanguageLevel.BLEEDING_EDGE));
+
+    Map<String, TypeEntry> entries = new LinkedHashMap<>();
+    for (Path f : javaFiles(root)) {
+      String source = Files.readString(f);
+      ParseResult<CompilationUnit> result = parser.parse(source);
+      if (result.getResult().isEmpty()) continue;
+      CompilationUnit cu = result.getResult().get();
+
+      String pkg = cu.getPackageDeclaration().map(pd -> pd.getName().asString()).orElse("");
+      int[] lineStarts = lineStarts(source);
+
+      for (TypeDeclaration<?> td : cu.findAll(TypeDeclaration.class)) {
+        String[] names = ProjectTypeIndex.qualifiedNames(td, pkg);
+        if (names == null) continue;
+
+        List<MethodEntry> methods = new ArrayList<>();
+        for (MethodDeclaration m : td.getMethods()) {
+          Range doc = m.getJavadocComment().flatMap(c -> c.getRange()).orElse(null);
+          methods.add(
+              new MethodEntry(
+                  MethodSignatureUtil.jvmDescriptorBestEffort(m),
+                  doc == null ? -1 : offset(lineStarts, doc.begin),
+                  doc == null ? -1 : offset(lineStarts, doc.end) + 1));
+        }
+
+        TypeEntry entry =
+            new TypeEntry(
+                names[0],
+                relativePath(root, f),
+                td.getClass().getSimpleName(),
+                td.getRange().orElse(null),
+                List.copyOf(methods));
+        entries.putIfAbsent(names[0], entry);
+        entries.putIfAbsent(names[1], entry);
+      }
+    }
+
+    try (SortedKeyFile.Writer out = SortedKeyFile.writer(file, meta)) {
+      for (Map.Entry<String, TypeEntry> e : entries.entrySet()) {
+        out.put(e.getKey(), encode(e.getValue()));
+      }
+      out.commit();
+    }
+  }
+
+  /**
+   * Looks up a type by its canonical or binary name.
+   *
+   * @param qualifiedName fully qualified type name
+   * @return indexed type if present
+   */
+  public Optional<TypeEntry> lookup(String qualifiedName) {
+    return data.get(qualifiedName).map(SymbolIndex::decode);
+  }
+
+  /**
+   * Returns the absolute path of the file declaring an indexed type.
+   *
+   * @param entry indexed type
+   * @return declaring file
+   */
+  public Path fileOf(TypeEntry entry) {
+    return srcRoot.resolve(entry.relativePath());
+  }
+
+  /**
+   * Reads the Javadoc of an indexed method directly from its source file.
+   *
+   * @param entry type declaring the method
+   * @param method indexed method
+   * @return Javadoc comment text including delimiters, if the method has one
+   * @throws IOException if the source file cannot be read
+   */
+  public Optional<String> javadocOf(TypeEntry entry, MethodEntry method) throws IOException {
+    if (method.javadocStart() < 0) return Optional.empty();
+    String source = Files.readString(fileOf(entry));
+    if (method.javadocEnd() > source.length()) return Optional.empty();
+    return Optional.of(source.substring(method.javadocStart(), method.javadocEnd()));
+  }
+
+  /**
+   * Returns the number of indexed names (canonical and binary).
+   *
+   * @return name count
+   */
+  public int size() {
+    return data.size();
+  }
+
+  /**
+   * Returns whether the index was built by this process rather than loaded from disk.
+   *
+   * @return {@code true} if the index was built on this run
+   */
+  public boolean builtThisRun() {
+    return built;
+  }
+
+  /**
+   * Returns the file backing this index.
+   *
+   * @return index file
+   */
+  public Path file() {
+    return file;
+  }
+
+  @Override
+  public void close() throws IOException {
+    data.close();
+  }
+
+  private static List<Path> javaFiles(Path root) throws IOException {
+    try (var stream = Files.walk(root)) {
+      return stream
+          .filter(p -> p.toString().endsWith(".java") && Files.isRegularFile(p))
+          .sorted()
+          .toList();
+    }
+  }
+
+  private static String relativePath(Path root, Path file) {
+    return root.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+  }
+
+  /**
+   * Computes the character offset at which each line of a source starts.
+   *
+   * @param source file contents
+   * @return offsets indexed by zero-based line number
+   */
+  private static int[] lineStarts(String source) {
+    List<Integer> starts = new ArrayList<>();
+    starts.add(0);
+    for (int i = 0; i < source.length(); i++) {
+      char c = source.charAt(i);
+      if (c == '\r' && i + 1 < source.length() && source.charAt(i + 1) == '\n') i++;
+      if (c == '\n' || c == '\r') starts.add(i + 1);
+    }
+    return starts.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private static int offset(int[] lineStarts, Position pos) {
+    return lineStarts[pos.line - 1] + pos.column - 1;
+  }
+
+  private static byte[] encode(TypeEntry entry) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeUTF(entry.qualifiedName());
+      out.writeUTF(entry.relativePath());
+      out.writeUTF(entry.kind());
+      Range r = entry.range();
+      out.writeInt(r == null ? -1 : r.begin.line);
+      out.writeInt(r == null ? -1 : r.begin.column);
+      out.writeInt(r == null ? -1 : r.end.line);
+      out.writeInt(r == null ? -1 : r.end.column);
+      out.writeInt(entry.methods().size());
+      for (MethodEntry m : entry.methods()) {
+        out.writeUTF(m.descriptor());
+        out.writeInt(m.javadocStart());
+        out.writeInt(m.javadocEnd());
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  private static TypeEntry decode(ByteBuffer buf) {
+    byte[] bytes = new byte[buf.remaining()];
+    buf.get(bytes);
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      String name = in.readUTF();
+      String path = in.readUTF();
+      String kind = in.readUTF();
+      int bl = in.readInt();
+      int bc = in.readInt();
+      int el = in.readInt();
+      int ec = in.readInt();
+      Range range = bl < 0 ? null : Range.range(bl, bc, el, ec);
+      int n = in.readInt();
+      List<MethodEntry> methods = new ArrayList<>(n);
+      for (int i = 0; i < n; i++) {
+        methods.add(new MethodEntry(in.readUTF(), in.readInt(), in.readInt()));
+      }
+      return new TypeEntry(name, path, kind, range, List.copyOf(methods));
+    } catch (IOException e) {
+      throw new IllegalStateException("Corrupt symbol index entry", e);
+    }
+  }
+}
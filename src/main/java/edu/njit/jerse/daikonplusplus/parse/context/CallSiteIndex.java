@@ -0,0 +1,469 @@
+package edu.njit.jerse.daikonplusplus.parse.context;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import edu.njit.jerse.daikonplusplus.parse.MethodSignatureUtil;
+import edu.njit.jerse.daikonplusplus.parse.SymbolIndex;
+import edu.njit.jerse.daikonplusplus.util.SortedKeyFile;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Reverse call graph of a source tree: for every method, the methods that call it.
+ *
+ * <p>The index is built in parallel over the source files. Each call is resolved with the symbol
+ * solver of the supplied {@link ParserConfiguration}; calls that cannot be resolved in time fall
+ * back to matching declared methods by name and argument count. The result is stored as a {@link
+ * SortedKeyFile} named after the hash of the source tree (see {@link SymbolIndex#treeHash}) and
+ * reused as long as the sources are unchanged.
+ *
+ * <p>Callees are keyed the same way {@code JavaProjectScanner} identifies program points, so {@link
+ * ContextUtils#extractCallSiteContext} can look callers up by {@code point.elementId().toString()}.
+ * Callers are recorded as {@code pkg.Outer$Inner#name(paramTypes):returnType}, with their Javadoc
+ * and the line of the call.
+ */
+public final class CallSiteIndex implements Closeable {
+
+  /** Format tag stored in the file header, bumped whenever the payload layout changes. */
+  private static final String FORMAT = "callsites/1";
+
+  /** Timeout for resolving a single call, in milliseconds. */
+  private static final long RESOLVE_TIMEOUT_MS = 200;
+
+  /** Name/arity matches with more candidates than this are considered too ambiguous to record. */
+  private static final int MAX_FALLBACK_CANDIDATES = 4;
+
+  /**
+   * One caller of a method.
+   *
+   * @param callerKey caller identifier in {@code pkg.Class#name(paramTypes):returnType} format
+   * @param callerJavadoc Javadoc text of the caller, or {@code null} if unknown
+   * @param callSite description of the call site, or {@code null} if unknown
+   */
+  public record Caller(
+      String callerKey, @Nullable String callerJavadoc, @Nullable String callSite) {}
+
+  private final Path file;
+  private final SortedKeyFile data;
+  private final boolean built;
+  private final long resolvedCalls;
+  private final long matchedCalls;
+
+  private CallSiteIndex(
+      Path file, SortedKeyFile data, boolean built, long resolvedCalls, long matchedCalls) {
+    this.file = file;
+    this.data = data;
+    this.built = built;
+    this.resolvedCalls = resolvedCalls;
+    this.matchedCalls = matchedCalls;
+  }
+
+  /**
+   * Opens a previously built call-site index.
+   *
+   * @param file index file
+   * @return opened index
+   * @throws IOException if the file cannot be read or is not a call-site index
+   */
+  public static CallSiteIndex open(Path file) throws IOException {
+    SortedKeyFile data = SortedKeyFile.open(file);
+    if (!data.meta().startsWith(FORMAT + " ")) {
+      data.close();
+      throw new IOException("Not a call-site index: " + file);
+    }
+    return new CallSiteIndex(file, data, false, 0, 0);
+  }
+
+  /**
+   * Opens the call-site index for a source tree, building and persisting it first if no index
+   * exists for the tree's current contents.
+   *
+   * @param srcRoot root directory of the source code
+   * @param indexDir directory holding persisted indexes
+   * @param config parser configuration whose symbol resolver is used to resolve calls
+   * @param threads number of files processed in parallel
+   * @return opened index
+   * @throws IOException if the sources cannot be read or the index cannot be written
+   */
+  public static CallSiteIndex loadOrBuild(
+      Path srcRoot, Path indexDir, ParserConfiguration config, int threads) throws IOException {
+    Path root = srcRoot.toAbsolutePath().normalize();
+    String hash = SymbolIndex.treeHash(root);
+    Path file = indexDir.resolve("callsites-" + hash.substring(0, 32) + ".dpidx");
+    String meta = FORMAT + " " + hash;
+
+    if (Files.isRegularFile(file)) {
+      try {
+        SortedKeyFile existing = SortedKeyFile.open(file);
+        if (existing.meta().equals(meta)) return new CallSiteIndex(file, existing, false, 0, 0);
+        existing.close();
+      } catch (IOException e) {
+        // unreadable or stale file; rebuild below
+      }
+    }
+
+    Builder builder = new Builder(root, config);
+    Map<String, List<Caller>> callers = builder.build(Math.max(1, threads));
+    try (SortedKeyFile.Writer out = SortedKeyFile.writer(file, meta)) {
+      for (Map.Entry<String, List<Caller>> e : callers.entrySet()) {
+        out.put(e.getKey(), encode(e.getValue()));
+      }
+      out.commit();
+    }
+    return new CallSiteIndex(
+        file, SortedKeyFile.open(file), true, builder.resolved.get(), builder.matched.get());
+  }
+
+  /**
+   * Returns the recorded callers of a method.
+   *
+   * @param calleeKey callee identifier, as produced by {@code ProgramElementId#toString()}
+   * @return callers in source order, or an empty list if none were recorded
+   */
+  public List<Caller> callersOf(String calleeKey) {
+    return data.get(calleeKey).map(CallSiteIndex::decode).orElse(List.of());
+  }
+
+  /**
+   * Returns the number of methods with at least one recorded caller.
+   *
+   * @return callee count
+   */
+  public int size() {
+    return data.size();
+  }
+
+  /**
+   * Returns the file backing this index.
+   *
+   * @return index file
+   */
+  public Path file() {
+    return file;
+  }
+
+  /**
+   * Returns whether the index was built by this process rather than loaded from disk.
+   *
+   * @return {@code true} if the index was built on this run
+   */
+  public boolean builtThisRun() {
+    return built;
+  }
+
+  /**
+   * Returns the number of calls resolved by the symbol solver while building.
+   *
+   * @return resolved call count, or {@code 0} if the index was loaded
+   */
+  public long resolvedCalls() {
+    return resolvedCalls;
+  }
+
+  /**
+   * Returns the number of calls attributed by name/arity matching while building.
+   *
+   * @return matched call count, or {@code 0} if the index was loaded
+   */
+  public long matchedCalls() {
+    return matchedCalls;
+  }
+
+  @Override
+  public void close() throws IOException {
+    data.close();
+  }
+
+  /**
+   * Returns the keys under which {@code JavaProjectScanner} reports a method: one per enclosing
+   * class, each qualified by the package and the class's simple name.
+   *
+   * @param md method declaration
+   * @return program point keys of the method
+   */
+  static List<String> pointKeys(MethodDeclaration md) {
+    String prefix = packagePrefix(md);
+    String desc = MethodSignatureUtil.jvmDescriptorBestEffort(md);
+    List<String> keys = new ArrayList<>();
+    Optional<Node> n = md.getParentNode();
+    while (n.isPresent()) {
+      if (n.get() instanceof ClassOrInterfaceDeclaration c) {
+        keys.add(prefix + c.getNameAsString() + "#" + desc);
+      }
+      n = n.get().getParentNode();
+    }
+    return keys;
+  }
+
+  /**
+   * Returns the caller key of a method: its binary class name followed by its descriptor.
+   *
+   * @param md method declaration
+   * @return caller key
+   */
+  static String callerKey(MethodDeclaration md) {
+    List<String> chain = new ArrayList<>();
+    Optional<Node> n = md.getParentNode();
+    while (n.isPresent()) {
+      if (n.get() instanceof TypeDeclaration<?> td) chain.add(0, td.getNameAsString());
+      n = n.get().getParentNode();
+    }
+    return packagePrefix(md)
+        + String.join("$", chain)
+        + "#"
+        + MethodSignatureUtil.jvmDescriptorBestEffort(md);
+  }
+
+  private static String packagePrefix(Node node) {
+    return node.findCompilationUnit()
+        .flatMap(CompilationUnit::getPackageDeclaration)
+        .map(pd -> pd.getName().asString() + ".")
+        .orElse("");
+  }
+
+  private static byte[] encode(List<Caller> callers) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(callers.size());
+      for (Caller c : callers) {
+        out.writeUTF(c.callerKey());
+        out.writeUTF(c.callerJavadoc() == null ? "" : c.callerJavadoc());
+        out.writeUTF(c.callSite() == null ? "" : c.callSite());
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  private static List<Caller> decode(ByteBuffer buf) {
+    byte[] bytes = new byte[buf.remaining()];
+    buf.get(bytes);
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      int n = in.readInt();
+      List<Caller> callers = new ArrayList<>(n);
+      for (int i = 0; i < n; i++) {
+        callers.add(new Caller(in.readUTF(), in.readUTF(), in.readUTF()));
+      }
+      return callers;
+    } catch (IOException e) {
+      throw new IllegalStateException("Corrupt call-site index entry", e);
+    }
+  }
+
+  /** Parses a source tree and collects the callers of every method declared in it. */
+  private static final class Builder {
+
+    private final Path root;
+    private final ParserConfiguration config;
+    private final AtomicLong resolved = new AtomicLong();
+    private final AtomicLong matched = new AtomicLong();
+
+    /** Methods with a body, by simple name, used for name/arity matching. */
+    private final Map<String, List<MethodDeclaration>> byName = new HashMap<>();
+
+    Builder(Path root, ParserConfiguration config) {
+      this.root = root;
+      this.config = config;
+    }
+
+    Map<String, List<Caller>> build(int threads) throws IOException {
+      List<Path> files;
+      try (var stream = Files.walk(root)) {
+        files = stream.filter(p -> p.toString().endsWith(".java")).sorted().toList();
+      }
+
+      ExecutorService pool = Executors.newFixedThreadPool(threads);
+      try {
+        // pass 1: parse every file once, in parallel
+        List<Future<Optional<CompilationUnit>>> parses = new ArrayList<>();
+        for (Path f : files) {
+          parses.add(
+              pool.submit(
+                  () -> {
+                    try {
+                      return new JavaParser(config).parse(f).getResult();
+                    } catch (Exception e) {
+                      return Optional.<CompilationUnit>empty();
+                    }
+                  }));
+        }
+        List<CompilationUnit> units = new ArrayList<>();
+        for (Future<Optional<CompilationUnit>> p : parses) {
+          join(p).ifPresent(units::add);
+        }
+        for (CompilationUnit cu : units) {
+          for (MethodDeclaration md :
+              cu.findAll(MethodDeclaration.class, m -> m.getBody().isPresent())) {
+            byName.computeIfAbsent(md.getNameAsString(), k -> new ArrayList<>()).add(md);
+          }
+        }
+
+        // pass 2: attribute each call inside a method body to its callee(s), in parallel
+        Map<String, Map<String, Caller>> edges = new ConcurrentHashMap<>();
+        List<Future<?>> scans = new ArrayList<>();
+        for (CompilationUnit cu : units) {
+          scans.add(pool.submit(() -> collectCalls(cu, edges)));
+        }
+        for (Future<?> s : scans) {
+          join(s);
+        }
+
+        // deterministic output: callers in source order per callee
+        Map<String, List<Caller>> out = new TreeMap<>();
+        edges.forEach(
+            (callee, callers) ->
+                out.put(
+                    callee,
+                    callers.values().stream()
+                        .sorted(Comparator.comparing(Caller::callSite))
+                        .toList()));
+        return out;
+      } finally {
+        pool.shutdownNow();
+      }
+    }
+
+    private void collectCalls(CompilationUnit cu, Map<String, Map<String, Caller>> edges) {
+      String path =
+          cu.getStorage()
+              .map(s -> root.relativize(s.getPath().toAbsolutePath().normalize()).toString())
+              .orElse("");
+
+      for (MethodCallExpr call : cu.findAll(MethodCallExpr.class)) {
+        Optional<MethodDeclaration> caller = call.findAncestor(MethodDeclaration.class);
+        if (caller.isEmpty()) continue;
+
+        Set<String> callees = calleeKeys(call);
+        if (callees.isEmpty()) continue;
+
+        String callerKey = callerKey(caller.get());
+        String javadoc = caller.get().getJavadoc().map(j -> j.toText().strip()).orElse("");
+        int line = call.getBegin().map(p -> p.line).orElse(0);
+        // zero-padded so that lexical order is file order, then line order
+        String site = String.format("%s:%06d: %s", path, line, call);
+        Caller record = new Caller(callerKey, javadoc, site);
+
+        for (String callee : callees) {
+          edges
+              .computeIfAbsent(callee, k -> new ConcurrentHashMap<>())
+              .merge(callerKey, record, Builder::earlier);
+        }
+      }
+    }
+
+    /**
+     * Determines the program point keys of the methods a call may invoke.
+     *
+     * @param call method call
+     * @return callee keys; empty if the target is outside the source tree or too ambiguous
+     */
+    private Set<String> calleeKeys(MethodCallExpr call) {
+      // shares the memo with the context extractors, so each method is resolved once per
+      // receiver and argument types rather than once per call site
+      Optional<ResolvedMethodDeclaration> target =
+          ContextUtils.resolveCall(call, RESOLVE_TIMEOUT_MS);
+      if (target.isPresent()) {
+        Optional<MethodDeclaration> decl = target.get().toAst(MethodDeclaration.class);
+        // resolved to a library method: not part of the project, nothing to record
+        if (decl.isEmpty()) return Set.of();
+        resolved.incrementAndGet();
+        return new LinkedHashSet<>(pointKeys(decl.get()));
+      }
+
+      List<MethodDeclaration> candidates =
+          byName.getOrDefault(call.getNameAsString(), List.of()).stream()
+              .filter(m -> m.getParameters().size() == call.getArguments().size())
+              .toList();
+
+      // a simple-name scope such as MathUtils.add(..) usually names the declaring class
+      if (candidates.size() > 1 && call.getScope().orElse(null) instanceof NameExpr scope) {
+        List<MethodDeclaration> inScope =
+            candidates.stream()
+                .filter(
+                    m ->
+                        m.findAncestor(TypeDeclaration.class)
+                            .map(td -> td.getNameAsString().equals(scope.getNameAsString()))
+                            .orElse(false))
+                .toList();
+        if (!inScope.isEmpty()) candidates = inScope;
+      }
+      if (candidates.isEmpty() || candidates.size() > MAX_FALLBACK_CANDIDATES) return Set.of();
+
+      matched.incrementAndGet();
+      Set<String> keys = new LinkedHashSet<>();
+      for (MethodDeclaration m : candidates) {
+        keys.addAll(pointKeys(m));
+      }
+      return keys;
+    }
+
+    /** Keeps the first call site of a caller when it calls the same method more than once. */
+    private static Caller earlier(Caller a, Caller b) {
+      return a.callSite().compareTo(b.callSite()) <= 0 ? a : b;
+    }
+
+    private static <T> T join(Future<T> f) throws IOException {
+      try {
+        return f.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while building call-site index", e);
+      } catch (ExecutionException e) {
+        throw new IOException("Failed to build call-site index", e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Converts a JSON call-site index, as produced by offline call-graph tools, into the same
+   * representation used by the binary index.
+   *
+   * @param json parsed JSON index
+   * @return callers by callee key
+   */
+  static Map<String, List<Caller>> fromJson(Map<String, List<Map<String, String>>> json) {
+    Map<String, List<Caller>> out = new LinkedHashMap<>();
+    json.forEach(
+        (callee, callers) -> {
+          List<Caller> list = new ArrayList<>();
+          for (Map<String, String> c : callers) {
+            String key = c.get("callerKey");
+            if (key == null || key.isBlank()) continue;
+            list.add(new Caller(key, c.get("callerJavadoc"), c.get("callSite")));
+          }
+          out.put(callee, list);
+        });
+    return out;
+  }
+}
@@ -0,0 +1,353 @@
+package edu.njit.jerse.daikonplusplus.parse.context;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import edu.njit.jerse.daikonplusplus.model.ProgramPoint;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Memoizing context extractor that builds one {@link MethodContextBundle} per method.
+ *
+ * <p>The ENTRY and EXIT points of a method need the same body, documentation, call-site and
+ * callee context; only the scope differs (EXIT adds {@code result}). This engine parses each source
+ * file once, indexes its methods by descriptor in a single traversal, and computes every enabled
+ * {@link ContextKind} for a method exactly once. Later requests for any point of the same method
+ * are served from the memoized bundle. Class documentation is additionally memoized per class, so
+ * it is shared by all methods of that class.
+ *
+ * <p>A parsed file is held only until every method of the file that has program points has its
+ * bundle; callers announce those points with {@link #expect}. Without it, a file is held until all
+ * of its methods have bundles.
+ *
+ * <p>Work is performed on the thread that first requests a bundle; concurrent requests for the
+ * same method wait for that result instead of recomputing it. The rendered text of every context
+ * kind is identical to what the individual {@link ContextUtils} extractors produce.
+ */
+public final class ContextEngine implements ContextExtractor {
+
+  private final Set<ContextKind> enabled;
+  private final @Nullable String callSitesIndexPath;
+  private final @Nullable String ioExamplesIndexPath;
+  private final boolean classifyTrivial;
+
+  private final ConcurrentHashMap<MethodKey, CompletableFuture<MethodContextBundle>> bundles =
+      new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Path, CompletableFuture<ParsedFile>> files =
+      new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<ClassKey, CompletableFuture<String>> classDocs =
+      new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Path, Set<String>> expected = new ConcurrentHashMap<>();
+
+  private final AtomicLong filesParsed = new AtomicLong();
+  private final AtomicLong bundlesBuilt = new AtomicLong();
+  private final AtomicLong bundlesReused = new AtomicLong();
+
+  /**
+   * Creates a context engine.
+   *
+   * @param enabled context kinds to extract; all others are left empty
+   * @param callSitesIndexPath path to the call-site index, or {@code null} if unset
+   * @param ioExamplesIndexPath path to the I/O-examples index, or {@code null} if unset
+   */
+  public ContextEngine(
+      Set<ContextKind> enabled,
+      @Nullable String callSitesIndexPath,
+      @Nullable String ioExamplesIndexPath) {
+    this(enabled, callSitesIndexPath, ioExamplesIndexPath, false);
+  }
+
+  /**
+   * Creates a context engine that may also classify trivial methods.
+   *
+   * @param enabled context kinds to extract; all others are left empty
+   * @param callSitesIndexPath path to the call-site index, or {@code null} if unset
+   * @param ioExamplesIndexPath path to the I/O-examples index, or {@code null} if unset
+   * @param classifyTrivial whether bundles record trivial methods (see {@link
+   *     TrivialMethodClassifier})
+   */
+  public ContextEngine(
+      Set<ContextKind> enabled,
+      @Nullable String callSitesIndexPath,
+      @Nullable String ioExamplesIndexPath,
+      boolean classifyTrivial) {
+    this.enabled = enabled.isEmpty() ? EnumSet.noneOf(ContextKind.class) : EnumSet.copyOf(enabled);
+    this.callSitesIndexPath = callSitesIndexPath;
+    this.ioExamplesIndexPath = ioExamplesIndexPath;
+    this.classifyTrivial = classifyTrivial;
+  }
+
+  /**
+   * Extracts the context of a program point, reusing the bundle of its method when available.
+   *
+   * @param point program point
+   * @param srcRoot root directory of the source code
+   * @return extracted context for the point
+   * @throws IOException if the source file cannot be parsed
+   */
+  @Override
+  public ExtractedContext extract(ProgramPoint point, Path srcRoot) throws IOException {
+    return bundleFor(point, srcRoot).forPoint(point.kind());
+  }
+
+  /**
+   * Returns the memoized context bundle for the method of a program point, building it on first
+   * use.
+   *
+   * @param point program point
+   * @param srcRoot root directory of the source code
+   * @return context bundle shared by all points of the method
+   * @throws IOException if the source file cannot be parsed
+   */
+  public MethodContextBundle bundleFor(ProgramPoint point, Path srcRoot) throws IOException {
+    Path file = srcRoot.resolve(point.elementId().filePath()).normalize();
+    MethodKey key = new MethodKey(file, point.elementId().toString());
+    return memoized(bundles, key, () -> build(point, srcRoot, file), bundlesReused);
+  }
+
+  /**
+   * Announces the program points whose contexts will be requested, so that a parsed file is
+   * released once the methods of these points have their bundles, instead of waiting for methods
+   * that have no points. Must be called before the first extraction.
+   *
+   * @param points program points that will be requested
+   * @param srcRoot root directory of the source code
+   */
+  public void expect(Collection<? extends ProgramPoint> points, Path srcRoot) {
+    for (ProgramPoint point : points) {
+      Path file = srcRoot.resolve(point.elementId().filePath()).normalize();
+      expected
+          .computeIfAbsent(file, __ -> ConcurrentHashMap.newKeySet())
+          .add(point.elementId().jvmDescriptor());
+    }
+  }
+
+  /**
+   * Releases every parsed file still held, e.g. once no more points will be requested because the
+   * proposal phase ended. Bundles already built are kept.
+   */
+  public void releaseFiles() {
+    files.clear();
+  }
+
+  /**
+   * Returns the number of parsed source files currently held in memory.
+   *
+   * @return held file count
+   */
+  public int filesHeld() {
+    return files.size();
+  }
+
+  /**
+   * Returns the number of source files parsed so far.
+   *
+   * @return parsed file count
+   */
+  public long filesParsed() {
+    return filesParsed.get();
+  }
+
+  /**
+   * Returns the number of method bundles built so far.
+   *
+   * @return built bundle count
+   */
+  public long bundlesBuilt() {
+    return bundlesBuilt.get();
+  }
+
+  /**
+   * Returns the number of requests served from an already built (or in-flight) bundle.
+   *
+   * @return reused bundle count
+   */
+  public long bundlesReused() {
+    return bundlesReused.get();
+  }
+
+  /**
+   * Builds the context bundle for the method of a program point.
+   *
+   * @param point program point
+   * @param srcRoot root directory of the source code
+   * @param file normalized path of the point's source file
+   * @return context bundle
+   * @throws IOException if the source file cannot be parsed
+   */
+  private MethodContextBundle build(ProgramPoint point, Path srcRoot, Path file)
+      throws IOException {
+
+    ParsedFile parsed = memoized(files, file, () -> parse(file), null);
+    String desc = point.elementId().jvmDescriptor();
+
+    String classDoc = enabled.contains(ContextKind.CLASS_DOC) ? classDocFor(point, srcRoot) : "";
+
+    String callSite =
+        enabled.contains(ContextKind.CALL_SITE)
+            ? ContextUtils.extractCallSiteContext(point, srcRoot, callSitesIndexPath).orElse("")
+            : "";
+
+    String ioExamples =
+        enabled.contains(ContextKind.IO_EXAMPLES)
+            ? ContextUtils.extractIOExamples(point, srcRoot, ioExamplesIndexPath).orElse("")
+            : "";
+
+    bundlesBuilt.incrementAndGet();
+
+    MethodDeclaration m = parsed.methods.get(desc);
+    if (m == null) {
+      if (parsed.pending.isEmpty()) files.remove(file);
+      return new MethodContextBundle(
+          Map.of(), null, "", "", classDoc, "", callSite, ioExamples, "", null);
+    }
+
+    // The AST is shared by all methods of the file, and symbol resolution caches data on its
+    // nodes, so bundles of the same file are built one at a time.
+    synchronized (parsed) {
+      try {
+        String methodBody =
+            enabled.contains(ContextKind.METHOD_BODY) ? ContextUtils.extractMethodBodyRaw(m) : "";
+
+        String methodJavadoc =
+            enabled.contains(ContextKind.METHOD_JAVADOC)
+                ? ContextUtils.extractMethodJavadoc(m).orElse("")
+                : "";
+
+        String typeDoc =
+            enabled.contains(ContextKind.TYPE_DOC)
+                ? ContextUtils.extractTypeDocumentation(m, srcRoot).orElse("")
+                : "";
+
+        String calleeDoc =
+            enabled.contains(ContextKind.CALLEE_DOC)
+                ? ContextUtils.extractCalleeDocumentation(m, srcRoot).orElse("")
+                : "";
+
+        return new MethodContextBundle(
+            ContextUtils.extractParameters(m),
+            m.getType().toString(),
+            methodBody,
+            methodJavadoc,
+            classDoc,
+            typeDoc,
+            callSite,
+            ioExamples,
+            calleeDoc,
+            classifyTrivial ? TrivialMethodClassifier.classify(m) : null);
+
+      } finally {
+        // Release the AST once every method of the file has its bundle.
+        parsed.pending.remove(desc);
+        if (parsed.pending.isEmpty()) files.remove(file);
+      }
+    }
+  }
+
+  /**
+   * Parses a source file and indexes its methods by descriptor.
+   *
+   * @param file source file
+   * @return parsed file
+   * @throws IOException if parsing fails
+   */
+  private ParsedFile parse(Path file) throws IOException {
+    CompilationUnit cu = StaticJavaParser.parse(file);
+    filesParsed.incrementAndGet();
+    return new ParsedFile(ContextUtils.indexMethodsByDescriptor(cu), expected.get(file));
+  }
+
+  /**
+   * Returns the memoized documentation of the class enclosing a program point.
+   *
+   * @param point program point
+   * @param srcRoot root directory of the source code
+   * @return class documentation, or an empty string if unavailable
+   * @throws IOException never in practice; declared for {@link #memoized}
+   */
+  private String classDocFor(ProgramPoint point, Path srcRoot) throws IOException {
+    String className = ContextUtils.extractClassNameFromPoint(point);
+    return memoized(
+        classDocs,
+        new ClassKey(srcRoot, className),
+        () -> ContextUtils.extractFullClassInfo(className, srcRoot).orElse(""),
+        null);
+  }
+
+  /**
+   * Returns the value memoized under a key, computing it on the calling thread if absent.
+   *
+   * <p>Failures are memoized too, so every caller of a failing key observes the same exception.
+   *
+   * @param memo memo table
+   * @param key key
+   * @param compute computation producing the value
+   * @param reuses counter incremented when an existing entry is reused, or {@code null}
+   * @return memoized value
+   * @throws IOException if the computation failed with an {@link IOException}
+   */
+  private static <K, V> V memoized(
+      ConcurrentHashMap<K, CompletableFuture<V>> memo,
+      K key,
+      Callable<V> compute,
+      @Nullable AtomicLong reuses)
+      throws IOException {
+
+    CompletableFuture<V> mine = new CompletableFuture<>();
+    CompletableFuture<V> existing = memo.putIfAbsent(key, mine);
+
+    if (existing == null) {
+      try {
+        mine.complete(compute.call());
+      } catch (Throwable t) {
+        mine.completeExceptionally(t);
+      }
+      existing = mine;
+    } else if (reuses != null) {
+      reuses.incrementAndGet();
+    }
+
+    try {
+      return existing.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException io) throw io;
+      if (cause instanceof RuntimeException re) throw re;
+      if (cause instanceof Error err) throw err;
+      throw new IOException(cause);
+    }
+  }
+
+  /** Memo key of a method bundle: the resolved source file plus the element's identifier. */
+  private record MethodKey(Path file, String elementKey) {}
+
+  /** Memo key of a class's documentation. */
+  private record ClassKey(Path srcRoot, String qualifiedName) {}
+
+  /**
+   * A parsed source file together with the methods whose bundles are still expected but have not
+   * been built yet.
+   */
+  private static final class ParsedFile {
+    final Map<String, MethodDeclaration> methods;
+    final Set<String> pending;
+
+    ParsedFile(Map<String, MethodDeclaration> methods, @Nullable Set<String> expected) {
+      this.methods = methods;
+      this.pending = new HashSet<>(methods.keySet());
+      if (expected != null) pending.retainAll(expected);
+    }
+  }
+}
@@ -4,22 +4,29 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.TypeParameter;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
 import com.github.javaparser.resolution.types.ResolvedType;
 import edu.njit.jerse.daikonplusplus.model.ProgramPoint;
 import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
 import edu.njit.jerse.daikonplusplus.parse.MethodSignatureUtil;
+import edu.njit.jerse.daikonplusplus.parse.ProjectTypeIndex;
+import edu.njit.jerse.daikonplusplus.util.SortedKeyFile;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -31,28 +38,206 @@ public final class ContextUtils {
   private ContextUtils() {}
 
   /**
-   * Executes a task with a timeout.
+   * Executes a task with a timeout on the shared {@link ResolverPool}.
    *
    * @param task computation to execute
    * @param millis timeout in milliseconds
    * @return result wrapped in {@link Optional}, or empty if timeout or failure occurs
    */
   public static <T> Optional<T> runWithTimeout(Callable<T> task, long millis) {
-    ExecutorService executor = Executors.newSingleThreadExecutor();
+    return ResolverPool.shared().run(task, millis);
+  }
+
+  /** Timeout for a single symbol resolution, in milliseconds. */
+  private static final long RESOLVE_TIMEOUT_MS = 100;
+
+  /**
+   * Resolves a type on the shared {@link ResolverPool}, memoized per file, enclosing type and type
+   * text.
+   *
+   * <p>Types that mention a type parameter of the enclosing method are not memoized, since the same
+   * text may denote a different type elsewhere in the class.
+   *
+   * @param t type to resolve
+   * @return resolved type if resolution succeeds in time
+   */
+  private static Optional<ResolvedType> resolveType(com.github.javaparser.ast.type.Type t) {
+    Optional<Object> resolver = symbolResolverOf(t);
+    if (resolver.isEmpty()) {
+      // without a configured resolver, resolution fails immediately; skip the thread hop
+      ResolverPool.shared().recordFailure();
+      return Optional.empty();
+    }
+
+    Object key =
+        mentionsMethodTypeParameter(t)
+            ? null
+            : sourceFileOf(t)
+                .map(
+                    file ->
+                        List.of(
+                            resolver.get(),
+                            file,
+                            t.findAncestor(TypeDeclaration.class)
+                                .map(td -> td.getNameAsString())
+                                .orElse(""),
+                            t.asString()))
+                .orElse(null);
+
+    return ResolverPool.shared().resolve(key, t::resolve, RESOLVE_TIMEOUT_MS);
+  }
+
+  /**
+   * Returns whether a type refers to a type parameter of its enclosing method.
+   *
+   * @param t type
+   * @return {@code true} if any component names one of the method's type parameters
+   */
+  private static boolean mentionsMethodTypeParameter(com.github.javaparser.ast.type.Type t) {
+    Set<String> typeParams =
+        t.findAncestor(MethodDeclaration.class)
+            .map(
+                m ->
+                    m.getTypeParameters().stream()
+                        .map(TypeParameter::getNameAsString)
+                        .collect(Collectors.toSet()))
+            .orElse(Set.of());
+    if (typeParams.isEmpty()) return false;
+
+    return t.findAll(ClassOrInterfaceType.class).stream()
+        .anyMatch(c -> typeParams.contains(c.getNameAsString()));
+  }
+
+  /**
+   * Resolves a method call on the shared {@link ResolverPool}, memoized per scope type, method name
+   * and argument types, so that every call of the same method on the same receiver type with the
+   * same argument types shares one resolution.
+   *
+   * <p>Calls whose key cannot be computed (e.g. a lambda argument, or a call inside an anonymous or
+   * local class) are resolved without memoization.
+   *
+   * @param call method call expression
+   * @param millis timeout in milliseconds, for the key and for the resolution each
+   * @return resolved method declaration if resolution succeeds in time
+   */
+  static Optional<ResolvedMethodDeclaration> resolveCall(MethodCallExpr call, long millis) {
+    Optional<Object> resolver = symbolResolverOf(call);
+    if (resolver.isEmpty()) {
+      ResolverPool.shared().recordFailure();
+      return Optional.empty();
+    }
+
+    // computing the key resolves the argument types, which may be slow too
+    Object key =
+        ResolverPool.shared().run(() -> callKey(resolver.get(), call), millis).orElse(null);
 
+    return ResolverPool.shared().resolve(key, call::resolve, millis);
+  }
+
+  /**
+   * Returns the memo key of a method call: the resolver, the type the method is looked up in, the
+   * method name and the argument types.
+   *
+   * <p>The lookup type is the static type of the scope. A scope that names a type (as in {@code
+   * Math.max(..)}) or a missing scope is looked up from the enclosing named type, whose members,
+   * outer types and imports decide what the name refers to.
+   *
+   * @param resolver symbol resolver of the call's unit
+   * @param call method call expression
+   * @return memo key, or {@code null} if some part of it cannot be determined
+   */
+  private static @Nullable Object callKey(Object resolver, MethodCallExpr call) {
     try {
-      Future<T> future = executor.submit(task);
-      return Optional.ofNullable(future.get(millis, TimeUnit.MILLISECONDS));
-    } catch (Exception e) {
-      return Optional.empty(); // timeout or failure
-    } finally {
-      executor.shutdownNow();
+      String lookup;
+      Optional<Expression> scope = call.getScope();
+      if (scope.isEmpty()) {
+        lookup = enclosingTypeName(call);
+      } else if (scope.get().isNameExpr() || scope.get().isFieldAccessExpr()) {
+        // a variable or field has a type; otherwise the name is a type, read in this context
+        lookup = typeOrName(scope.get(), call);
+      } else {
+        lookup = scope.get().calculateResolvedType().describe();
+      }
+      if (lookup == null) return null;
+
+      List<String> argumentTypes = new ArrayList<>();
+      for (Expression argument : call.getArguments()) {
+        argumentTypes.add(argument.calculateResolvedType().describe());
+      }
+      return List.of(resolver, lookup, call.getNameAsString(), argumentTypes);
+    } catch (RuntimeException e) {
+      // an unresolvable scope or argument; the call itself is unlikely to resolve either
+      return null;
+    }
+  }
+
+  /**
+   * Returns the static type of a scope that is a simple or qualified name, or, if the name does
+   * not denote a value, the name itself qualified by the type it is read in.
+   *
+   * @param scope name or field access scope of a call
+   * @param call the call
+   * @return lookup type or name, or {@code null} if the reading context is anonymous or local
+   */
+  private static @Nullable String typeOrName(Expression scope, MethodCallExpr call) {
+    try {
+      return scope.calculateResolvedType().describe();
+    } catch (RuntimeException e) {
+      String context = enclosingTypeName(call);
+      return context == null ? null : context + " " + scope;
     }
   }
 
+  /**
+   * Returns the fully qualified name of the named type enclosing a node.
+   *
+   * @param node AST node
+   * @return type name, or {@code null} if the nearest enclosing type is anonymous or local
+   */
+  private static @Nullable String enclosingTypeName(Node node) {
+    Optional<Node> owner =
+        node.findAncestor(
+            Node.class,
+            n ->
+                n instanceof TypeDeclaration<?>
+                    || (n instanceof ObjectCreationExpr o
+                        && o.getAnonymousClassBody().isPresent()));
+    if (owner.isEmpty() || !(owner.get() instanceof TypeDeclaration<?> td)) return null;
+    if (td instanceof ClassOrInterfaceDeclaration c && c.isLocalClassDeclaration()) return null;
+    return td.getFullyQualifiedName().orElse(null);
+  }
+
+  /**
+   * Returns the symbol resolver attached to a node's compilation unit, if any.
+   *
+   * @param node AST node
+   * @return symbol resolver if the unit was parsed with one configured
+   */
+  private static Optional<Object> symbolResolverOf(Node node) {
+    return node.findCompilationUnit()
+        .filter(cu -> cu.containsData(Node.SYMBOL_RESOLVER_KEY))
+        .map(cu -> cu.getData(Node.SYMBOL_RESOLVER_KEY));
+  }
+
+  /**
+   * Returns the path of the source file a node was parsed from, if known.
+   *
+   * @param node AST node
+   * @return source file path
+   */
+  private static Optional<Path> sourceFileOf(Node node) {
+    return node.findCompilationUnit()
+        .flatMap(CompilationUnit::getStorage)
+        .map(CompilationUnit.Storage::getPath);
+  }
+
   /**
    * Finds a class declaration in the source tree by its fully qualified name.
    *
+   * <p>Lookups go through the project's {@link ProjectTypeIndex}, so nested classes (by canonical
+   * or binary name) and classes outside the {@code pkg/Cls.java} layout are found, and each source
+   * file is parsed at most once.
+   *
    * @param qualifiedName fully qualified class name
    * @param srcRoot root directory of the source code
    * @return matching class declaration if found
@@ -60,22 +245,10 @@ public final class ContextUtils {
   public static Optional<ClassOrInterfaceDeclaration> findClassInProject(
       String qualifiedName, Path srcRoot) {
 
-    try {
-      // Convert package to path
-      int lastDot = qualifiedName.lastIndexOf('.');
-      if (lastDot < 0) return Optional.empty();
-
-      String pkg = qualifiedName.substring(0, lastDot);
-      String cls = qualifiedName.substring(lastDot + 1);
-
-      Path file = srcRoot.resolve(pkg.replace('.', '/') + "/" + cls + ".java");
-
-      if (!java.nio.file.Files.exists(file)) return Optional.empty();
-
-      CompilationUnit cu = StaticJavaParser.parse(file);
-
-      return cu.findFirst(ClassOrInterfaceDeclaration.class, c -> c.getNameAsString().equals(cls));
+    if (qualifiedName.lastIndexOf('.') < 0) return Optional.empty();
 
+    try {
+      return ProjectTypeIndex.forSourceRoot(srcRoot).findClass(qualifiedName);
     } catch (Exception e) {
       return Optional.empty();
     }
@@ -94,74 +267,94 @@ public final class ContextUtils {
   public static Map<String, String> extractScope(ProgramPoint point, Path srcRoot)
       throws IOException {
 
-    Path file = srcRoot.resolve(point.elementId().filePath()).normalize();
-    CompilationUnit cu = StaticJavaParser.parse(file);
-    final String targetDesc = point.elementId().jvmDescriptor();
-
-    for (ClassOrInterfaceDeclaration cls : cu.findAll(ClassOrInterfaceDeclaration.class)) {
-
-      for (MethodDeclaration m : cls.getMethods()) {
-
-        if (!m.getBody().isPresent()) continue;
+    Optional<MethodDeclaration> maybe = findMethodForPoint(point, srcRoot);
+    if (maybe.isEmpty()) return Map.of();
 
-        String desc = MethodSignatureUtil.jvmDescriptorBestEffort(m);
-        if (!desc.equals(targetDesc)) continue;
-
-        LinkedHashMap<String, String> scope =
-            m.getParameters().stream()
-                .collect(
-                    Collectors.toMap(
-                        p -> p.getName().asString(),
-                        p -> p.getType().toString(),
-                        (a, b) -> a,
-                        LinkedHashMap::new));
-
-        if (point.kind() == ProgramPointKind.METHOD_EXIT) {
-          String ret = m.getType().toString();
-          if (!"void".equals(ret)) {
-            scope.put("result", ret);
-          }
-        }
+    MethodDeclaration m = maybe.get();
+    LinkedHashMap<String, String> scope = new LinkedHashMap<>(extractParameters(m));
 
-        return scope;
+    if (point.kind() == ProgramPointKind.METHOD_EXIT) {
+      String ret = m.getType().toString();
+      if (!"void".equals(ret)) {
+        scope.put("result", ret);
       }
     }
 
-    return Map.of();
+    return scope;
   }
 
   /**
-   * Extracts the raw source code of the method corresponding to a program point.
+   * Extracts the declared parameters of a method, in declaration order.
+   *
+   * @param m method declaration
+   * @return map from parameter name to type
+   */
+  public static Map<String, String> extractParameters(MethodDeclaration m) {
+    return m.getParameters().stream()
+        .collect(
+            Collectors.toMap(
+                p -> p.getName().asString(),
+                p -> p.getType().toString(),
+                (a, b) -> a,
+                LinkedHashMap::new));
+  }
+
+  /**
+   * Parses the source file of a program point and locates the method it refers to.
    *
    * @param point program point
    * @param srcRoot root directory of the source code
-   * @return method body as a string if found
+   * @return matching method declaration if found
    * @throws IOException if parsing fails
    */
-  public static Optional<String> extractMethodBodyRaw(ProgramPoint point, Path srcRoot)
+  static Optional<MethodDeclaration> findMethodForPoint(ProgramPoint point, Path srcRoot)
       throws IOException {
-
     Path file = srcRoot.resolve(point.elementId().filePath()).normalize();
     CompilationUnit cu = StaticJavaParser.parse(file);
-    final String targetDesc = point.elementId().jvmDescriptor();
+    return Optional.ofNullable(indexMethodsByDescriptor(cu).get(point.elementId().jvmDescriptor()));
+  }
 
+  /**
+   * Indexes every method with a body in a compilation unit by its best-effort JVM descriptor.
+   *
+   * <p>Classes are visited in pre-order and methods in declaration order; when several methods
+   * share a descriptor (e.g. in nested classes), the first one encountered wins.
+   *
+   * @param cu parsed compilation unit
+   * @return map from descriptor to method declaration, in traversal order
+   */
+  static Map<String, MethodDeclaration> indexMethodsByDescriptor(CompilationUnit cu) {
+    Map<String, MethodDeclaration> index = new LinkedHashMap<>();
     for (ClassOrInterfaceDeclaration cls : cu.findAll(ClassOrInterfaceDeclaration.class)) {
-      Optional<MethodDeclaration> maybe =
-          cls.getMethods().stream()
-              .filter(m -> m.getBody().isPresent())
-              .filter(m -> MethodSignatureUtil.jvmDescriptorBestEffort(m).equals(targetDesc))
-              .findFirst();
-
-      if (maybe.isPresent()) {
-        MethodDeclaration md = maybe.get();
-
-        return md.getTokenRange()
-            .map(tr -> Optional.of(tr.toString()))
-            .orElseGet(() -> Optional.of(md.toString()));
+      for (MethodDeclaration m : cls.getMethods()) {
+        if (!m.getBody().isPresent()) continue;
+        index.putIfAbsent(MethodSignatureUtil.jvmDescriptorBestEffort(m), m);
       }
     }
+    return index;
+  }
 
-    return Optional.empty();
+  /**
+   * Extracts the raw source code of the method corresponding to a program point.
+   *
+   * @param point program point
+   * @param srcRoot root directory of the source code
+   * @return method body as a string if found
+   * @throws IOException if parsing fails
+   */
+  public static Optional<String> extractMethodBodyRaw(ProgramPoint point, Path srcRoot)
+      throws IOException {
+    return findMethodForPoint(point, srcRoot).map(ContextUtils::extractMethodBodyRaw);
+  }
+
+  /**
+   * Extracts the raw source code of a method, preserving its original formatting.
+   *
+   * @param md method declaration
+   * @return method source code
+   */
+  public static String extractMethodBodyRaw(MethodDeclaration md) {
+    return md.getTokenRange().map(tr -> tr.toString()).orElseGet(md::toString);
   }
 
   /**
@@ -174,24 +367,17 @@ public final class ContextUtils {
    */
   public static Optional<String> extractMethodJavadoc(ProgramPoint point, Path srcRoot)
       throws IOException {
+    return findMethodForPoint(point, srcRoot).flatMap(ContextUtils::extractMethodJavadoc);
+  }
 
-    Path file = srcRoot.resolve(point.elementId().filePath()).normalize();
-    CompilationUnit cu = StaticJavaParser.parse(file);
-    final String targetDesc = point.elementId().jvmDescriptor();
-
-    for (ClassOrInterfaceDeclaration cls : cu.findAll(ClassOrInterfaceDeclaration.class)) {
-      for (MethodDeclaration m : cls.getMethods()) {
-
-        if (!m.getBody().isPresent()) continue;
-
-        String desc = MethodSignatureUtil.jvmDescriptorBestEffort(m);
-        if (!desc.equals(targetDesc)) continue;
-
-        return m.getJavadoc().map(j -> j.toText());
-      }
-    }
-
-    return Optional.empty();
+  /**
+   * Extracts the Javadoc text of a method.
+   *
+   * @param m method declaration
+   * @return method Javadoc text if present
+   */
+  public static Optional<String> extractMethodJavadoc(MethodDeclaration m) {
+    return m.getJavadoc().map(j -> j.toText());
   }
 
   /**
@@ -218,100 +404,106 @@ public final class ContextUtils {
    */
   public static Optional<String> extractTypeDocumentation(ProgramPoint point, Path srcRoot)
       throws IOException {
+    Optional<MethodDeclaration> maybe = findMethodForPoint(point, srcRoot);
+    if (maybe.isEmpty()) return Optional.empty();
+    return extractTypeDocumentation(maybe.get(), srcRoot);
+  }
 
-    Path file = srcRoot.resolve(point.elementId().filePath()).normalize();
-    CompilationUnit cu = StaticJavaParser.parse(file);
-    final String targetDesc = point.elementId().jvmDescriptor();
-
-    for (ClassOrInterfaceDeclaration cls : cu.findAll(ClassOrInterfaceDeclaration.class)) {
-      for (MethodDeclaration m : cls.getMethods()) {
-
-        if (!m.getBody().isPresent()) continue;
-
-        String desc = MethodSignatureUtil.jvmDescriptorBestEffort(m);
-        if (!desc.equals(targetDesc)) continue;
-
-        Set<String> seen = new HashSet<>();
-        List<String> collected = new ArrayList<>();
+  /**
+   * Extracts documentation for project types referenced in a method's signature.
+   *
+   * @param m method declaration
+   * @param srcRoot root directory of the source code
+   * @return concatenated documentation for referenced types if available
+   */
+  public static Optional<String> extractTypeDocumentation(MethodDeclaration m, Path srcRoot) {
 
-        List<com.github.javaparser.ast.type.Type> types = new ArrayList<>();
-        m.getParameters().forEach(p -> types.add(p.getType()));
-        types.add(m.getType());
+    Set<String> seen = new HashSet<>();
+    List<String> collected = new ArrayList<>();
 
-        List<com.github.javaparser.ast.type.Type> expanded = new ArrayList<>();
-        for (var t : types) collectTypesRecursively(t, expanded);
+    List<com.github.javaparser.ast.type.Type> types = new ArrayList<>();
+    m.getParameters().forEach(p -> types.add(p.getType()));
+    types.add(m.getType());
 
-        for (var t : expanded) {
-          try {
-            Optional<ResolvedType> resolvedOpt = runWithTimeout(() -> t.resolve(), 100);
-            if (resolvedOpt.isEmpty()) continue;
+    List<com.github.javaparser.ast.type.Type> expanded = new ArrayList<>();
+    for (var t : types) collectTypesRecursively(t, expanded);
 
-            var resolved = resolvedOpt.get();
-            if (!resolved.isReferenceType()) continue;
+    for (var t : expanded) {
+      try {
+        Optional<ResolvedType> resolvedOpt = resolveType(t);
+        if (resolvedOpt.isEmpty()) continue;
 
-            String qName = resolved.asReferenceType().getQualifiedName();
+        var resolved = resolvedOpt.get();
+        if (!resolved.isReferenceType()) continue;
 
-            if (qName.startsWith("java.")
-                || qName.startsWith("javax.")
-                || qName.startsWith("sun.")) {
-              continue;
-            }
+        String qName = resolved.asReferenceType().getQualifiedName();
 
-            if (!seen.add(qName)) continue;
+        if (qName.startsWith("java.") || qName.startsWith("javax.") || qName.startsWith("sun.")) {
+          continue;
+        }
 
-            extractFullClassInfo(qName, srcRoot).ifPresent(collected::add);
+        if (!seen.add(qName)) continue;
 
-          } catch (Exception ignored) {
-          }
-        }
+        extractFullClassInfo(qName, srcRoot).ifPresent(collected::add);
 
-        if (collected.isEmpty()) {
-          return Optional.empty();
-        }
+      } catch (Exception ignored) {
+      }
+    }
 
-        StringBuilder sb = new StringBuilder();
+    if (collected.isEmpty()) {
+      return Optional.empty();
+    }
 
-        for (String info : collected) {
-          sb.append(info).append("\n\n");
-        }
+    StringBuilder sb = new StringBuilder();
 
-        return Optional.of(sb.toString().trim());
-      }
+    for (String info : collected) {
+      sb.append(info).append("\n\n");
     }
 
-    return Optional.empty();
+    return Optional.of(sb.toString().trim());
   }
 
-  /**
-   * Cache of parsed call-site index files, keyed by file path, so each is read only once per run.
-   */
-  private static final Map<String, Map<String, List<Map<String, String>>>> CALL_SITE_INDEX_CACHE =
-      new ConcurrentHashMap<>();
+  /** Cache of loaded call-site indexes, keyed by file path, so each is read only once per run. */
+  private static final Map<String, Function<String, List<CallSiteIndex.Caller>>>
+      CALL_SITE_INDEX_CACHE = new ConcurrentHashMap<>();
 
   /** Maximum number of call sites to include as context for a single program point. */
   private static final int MAX_CALL_SITES = 5;
 
   /**
-   * Loads (and caches) a pre-built call-site index from disk.
+   * Loads (and caches) a call-site index from disk.
    *
-   * <p>The index is a JSON object mapping a callee's key (in the same {@code
-   * pkg.Class#name(paramTypes):returnType} format produced by {@link
+   * <p>Two formats are accepted. A binary index built by {@link CallSiteIndex} is memory-mapped and
+   * queried per key. Otherwise the file is read as a JSON object mapping a callee's key (in the
+   * same {@code pkg.Class#name(paramTypes):returnType} format produced by {@link
    * edu.njit.jerse.daikonplusplus.model.ProgramElementId#toString()}) to a list of caller records,
    * each with {@code callerKey}, {@code callerJavadoc}, and {@code callSite} fields.
    *
-   * @param path path to the call-site index JSON file
-   * @return parsed index, or an empty map if the file is missing or unparsable
+   * @param path path to the call-site index file
+   * @return lookup from callee key to callers; returns {@code null} for unknown keys and for every
+   *     key if the file is missing or unparsable
    */
-  private static Map<String, List<Map<String, String>>> loadCallSiteIndex(String path) {
+  private static Function<String, List<CallSiteIndex.Caller>> loadCallSiteIndex(String path) {
     return CALL_SITE_INDEX_CACHE.computeIfAbsent(
         path,
         p -> {
           try {
+            if (SortedKeyFile.isSortedKeyFile(Path.of(p))) {
+              CallSiteIndex index = CallSiteIndex.open(Path.of(p));
+              return key -> {
+                List<CallSiteIndex.Caller> callers = index.callersOf(key);
+                return callers.isEmpty() ? null : callers;
+              };
+            }
             ObjectMapper mapper = new ObjectMapper();
-            return mapper.readValue(
-                new File(p), new TypeReference<Map<String, List<Map<String, String>>>>() {});
+            Map<String, List<CallSiteIndex.Caller>> json =
+                CallSiteIndex.fromJson(
+                    mapper.readValue(
+                        new File(p),
+                        new TypeReference<Map<String, List<Map<String, String>>>>() {}));
+            return json::get;
           } catch (Exception e) {
-            return Map.of();
+            return key -> null;
           }
         });
   }
@@ -350,14 +542,14 @@ public final class ContextUtils {
   /**
    * Extracts call-site context for a program point, using a pre-built call-site index.
    *
-   * <p>The index is expected to have been produced offline (e.g. via static call-graph analysis)
-   * and configured via {@code DP_CALL_SITES_INDEX} / {@code dp.callSitesIndex}. For each of the
-   * program point's recorded callers (up to {@link #MAX_CALL_SITES}), this includes the caller's
-   * javadoc (if any) and its method implementation.
+   * <p>The index is either built by {@link CallSiteIndex} or produced offline (e.g. via static
+   * call-graph analysis), and configured via {@code DP_CALL_SITES_INDEX} / {@code
+   * dp.callSitesIndex}. For each of the program point's recorded callers (up to {@link
+   * #MAX_CALL_SITES}), this includes the caller's javadoc (if any) and its method implementation.
    *
    * @param point program point
    * @param srcRoot root directory of the source code
-   * @param callSitesIndexPath path to the call-site index JSON file, or {@code null} if unset
+   * @param callSitesIndexPath path to the binary or JSON call-site index, or {@code null} if unset
    * @return call-site context if available
    */
   public static Optional<String> extractCallSiteContext(
@@ -367,20 +559,17 @@ public final class ContextUtils {
       return Optional.empty();
     }
 
-    Map<String, List<Map<String, String>>> index = loadCallSiteIndex(callSitesIndexPath);
-    if (index.isEmpty()) return Optional.empty();
-
     String key = point.elementId().toString();
-    List<Map<String, String>> callers = index.get(key);
+    List<CallSiteIndex.Caller> callers = loadCallSiteIndex(callSitesIndexPath).apply(key);
     if (callers == null || callers.isEmpty()) return Optional.empty();
 
     StringBuilder sb = new StringBuilder();
     int included = 0;
 
-    for (Map<String, String> caller : callers) {
+    for (CallSiteIndex.Caller caller : callers) {
       if (included >= MAX_CALL_SITES) break;
 
-      String callerKey = caller.get("callerKey");
+      String callerKey = caller.callerKey();
       if (callerKey == null || callerKey.isBlank()) continue;
 
       Optional<MethodDeclaration> callerMethodOpt = findCallerDeclaration(callerKey, srcRoot);
@@ -390,7 +579,7 @@ public final class ContextUtils {
       Optional<String> body = callerMethod.getBody().map(Object::toString);
       if (body.isEmpty()) continue;
 
-      String javadoc = caller.getOrDefault("callerJavadoc", "");
+      String javadoc = caller.callerJavadoc();
       if (javadoc == null || javadoc.isBlank()) {
         javadoc = callerMethod.getJavadoc().map(j -> j.toText().strip()).orElse("");
       }
@@ -410,11 +599,10 @@ public final class ContextUtils {
   }
 
   /**
-   * Cache of parsed I/O-examples index files, keyed by file path, so each is read only once per
-   * run.
+   * Cache of loaded I/O-examples indexes, keyed by file path, so each is opened only once per run.
    */
-  private static final Map<String, Map<String, List<Map<String, Object>>>> IO_EXAMPLES_INDEX_CACHE =
-      new ConcurrentHashMap<>();
+  private static final Map<String, Function<String, Iterable<Map<String, Object>>>>
+      IO_EXAMPLES_INDEX_CACHE = new ConcurrentHashMap<>();
 
   /** Maximum number of input-output examples to include as context for a single program point. */
   private static final int MAX_IO_EXAMPLES = 5;
@@ -428,19 +616,35 @@ public final class ContextUtils {
    * each with an {@code args} object (parameter name to observed value) and a {@code return} value,
    * as captured by Daikon's Chicory front end from a real test run.
    *
-   * @param path path to the I/O-examples index JSON file
-   * @return parsed index, or an empty map if the file is missing or unparsable
+   * <p>Such files can be very large, so the JSON is converted once into a memory-mapped {@link
+   * IOExamplesIndex} sidecar and examples are decoded on demand. A path that already names a binary
+   * index is opened directly. If no sidecar can be written, the JSON is read into memory instead.
+   *
+   * @param path path to the I/O-examples index, JSON or binary
+   * @return lookup from method key to examples; returns {@code null} for unknown keys and for every
+   *     key if the file is missing or unparsable
    */
-  private static Map<String, List<Map<String, Object>>> loadIOExamplesIndex(String path) {
+  private static Function<String, Iterable<Map<String, Object>>> loadIOExamplesIndex(String path) {
     return IO_EXAMPLES_INDEX_CACHE.computeIfAbsent(
         path,
         p -> {
+          try {
+            IOExamplesIndex index =
+                SortedKeyFile.isSortedKeyFile(Path.of(p))
+                    ? IOExamplesIndex.open(Path.of(p))
+                    : IOExamplesIndex.openConverted(Path.of(p));
+            return index::examplesOf;
+          } catch (Exception e) {
+            // fall through to the in-memory JSON reader
+          }
           try {
             ObjectMapper mapper = new ObjectMapper();
-            return mapper.readValue(
-                new File(p), new TypeReference<Map<String, List<Map<String, Object>>>>() {});
+            Map<String, List<Map<String, Object>>> json =
+                mapper.readValue(
+                    new File(p), new TypeReference<Map<String, List<Map<String, Object>>>>() {});
+            return json::get;
           } catch (Exception e) {
-            return Map.of();
+            return key -> null;
           }
         });
   }
@@ -456,7 +660,8 @@ public final class ContextUtils {
    * @param point program point
    * @param srcRoot root directory of the source code (unused; kept for signature symmetry with
    *     other {@code extract*} methods)
-   * @param ioExamplesIndexPath path to the I/O-examples index JSON file, or {@code null} if unset
+   * @param ioExamplesIndexPath path to the I/O-examples index, JSON or binary, or {@code null} if
+   *     unset
    * @return input-output example context if available
    */
   public static Optional<String> extractIOExamples(
@@ -466,12 +671,9 @@ public final class ContextUtils {
       return Optional.empty();
     }
 
-    Map<String, List<Map<String, Object>>> index = loadIOExamplesIndex(ioExamplesIndexPath);
-    if (index.isEmpty()) return Optional.empty();
-
     String key = point.elementId().toString();
-    List<Map<String, Object>> examples = index.get(key);
-    if (examples == null || examples.isEmpty()) return Optional.empty();
+    Iterable<Map<String, Object>> examples = loadIOExamplesIndex(ioExamplesIndexPath).apply(key);
+    if (examples == null) return Optional.empty();
 
     StringBuilder sb = new StringBuilder();
     int included = 0;
@@ -532,108 +734,104 @@ public final class ContextUtils {
    */
   public static Optional<String> extractCalleeDocumentation(ProgramPoint point, Path srcRoot)
       throws IOException {
+    Optional<MethodDeclaration> maybe = findMethodForPoint(point, srcRoot);
+    if (maybe.isEmpty()) return Optional.empty();
+    return extractCalleeDocumentation(maybe.get(), srcRoot);
+  }
 
-    Path file = srcRoot.resolve(point.elementId().filePath()).normalize();
-    CompilationUnit cu = StaticJavaParser.parse(file);
-    final String targetDesc = point.elementId().jvmDescriptor();
-
-    for (ClassOrInterfaceDeclaration cls : cu.findAll(ClassOrInterfaceDeclaration.class)) {
-      for (MethodDeclaration m : cls.getMethods()) {
-
-        if (!m.getBody().isPresent()) continue;
-
-        String desc = MethodSignatureUtil.jvmDescriptorBestEffort(m);
-        if (!desc.equals(targetDesc)) continue;
-
-        StringBuilder sb = new StringBuilder();
-        Set<String> seen = new HashSet<>();
-
-        // find all method calls
-        m.findAll(com.github.javaparser.ast.expr.MethodCallExpr.class).stream()
-            .limit(5) // limit to avoid explosion
-            .forEach(
-                call -> {
-                  try {
+  /**
+   * Extracts documentation for project methods called within a method.
+   *
+   * @param m method declaration
+   * @param srcRoot root directory of the source code
+   * @return documentation for called methods if available
+   */
+  public static Optional<String> extractCalleeDocumentation(MethodDeclaration m, Path srcRoot) {
 
-                    Optional<
-                            com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration>
-                        resolvedOpt = runWithTimeout(() -> call.resolve(), 100);
+    StringBuilder sb = new StringBuilder();
+    Set<String> seen = new HashSet<>();
 
-                    if (resolvedOpt.isEmpty()) return;
+    // find all method calls
+    m.findAll(com.github.javaparser.ast.expr.MethodCallExpr.class).stream()
+        .limit(5) // limit to avoid explosion
+        .forEach(
+            call -> {
+              try {
 
-                    var resolved = resolvedOpt.get();
+                Optional<com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration>
+                    resolvedOpt = resolveCall(call, RESOLVE_TIMEOUT_MS);
 
-                    String qClass = resolved.getPackageName() + "." + resolved.getClassName();
+                if (resolvedOpt.isEmpty()) return;
 
-                    // skip JDK
-                    if (qClass.startsWith("java.")
-                        || qClass.startsWith("javax.")
-                        || qClass.startsWith("sun.")) {
-                      return;
-                    }
+                var resolved = resolvedOpt.get();
 
-                    String signature = resolved.getQualifiedSignature();
+                String qClass = resolved.getPackageName() + "." + resolved.getClassName();
 
-                    if (!seen.add(signature)) return;
+                // skip JDK
+                if (qClass.startsWith("java.")
+                    || qClass.startsWith("javax.")
+                    || qClass.startsWith("sun.")) {
+                  return;
+                }
 
-                    sb.append("Called Method: ").append(signature).append("\n");
+                String signature = resolved.getQualifiedSignature();
 
-                    // try to find source
-                    Optional<Optional<ClassOrInterfaceDeclaration>> maybeClassWrapped =
-                        runWithTimeout(() -> findClassInProject(qClass, srcRoot), 100);
+                if (!seen.add(signature)) return;
 
-                    Optional<ClassOrInterfaceDeclaration> maybeClass =
-                        maybeClassWrapped.orElse(Optional.empty());
+                sb.append("Called Method: ").append(signature).append("\n");
 
-                    if (maybeClass.isPresent()) {
-                      ClassOrInterfaceDeclaration ci = maybeClass.get();
+                // try to find source
+                Optional<Optional<ClassOrInterfaceDeclaration>> maybeClassWrapped =
+                    runWithTimeout(() -> findClassInProject(qClass, srcRoot), RESOLVE_TIMEOUT_MS);
 
-                      Optional<MethodDeclaration> targetMethod =
-                          ci.getMethodsByName(resolved.getName()).stream().findFirst();
+                Optional<ClassOrInterfaceDeclaration> maybeClass =
+                    maybeClassWrapped.orElse(Optional.empty());
 
-                      if (targetMethod.isPresent()) {
+                if (maybeClass.isPresent()) {
+                  ClassOrInterfaceDeclaration ci = maybeClass.get();
 
-                        MethodDeclaration callee = targetMethod.get();
+                  Optional<MethodDeclaration> targetMethod =
+                      ci.getMethodsByName(resolved.getName()).stream().findFirst();
 
-                        if (callee.getJavadoc().isPresent()) {
-                          sb.append("Javadoc: ")
-                              .append(callee.getJavadoc().get().toText())
-                              .append("\n");
-                        } else {
-                          // fallback: short implementation only
-                          sb.append("Signature: ")
-                              .append(callee.getDeclarationAsString(false, false, false))
-                              .append("\n");
+                  if (targetMethod.isPresent()) {
 
-                          callee
-                              .getBody()
-                              .ifPresent(
-                                  b -> {
-                                    String body = b.toString();
-                                    if (body.length() < 300) {
-                                      sb.append("Body: ").append(body).append("\n");
-                                    } else {
-                                      sb.append("Body: <omitted: too large>\n");
-                                    }
-                                  });
-                        }
-                      }
+                    MethodDeclaration callee = targetMethod.get();
 
+                    if (callee.getJavadoc().isPresent()) {
+                      sb.append("Javadoc: ")
+                          .append(callee.getJavadoc().get().toText())
+                          .append("\n");
                     } else {
-                      sb.append("Source: not available\n");
+                      // fallback: short implementation only
+                      sb.append("Signature: ")
+                          .append(callee.getDeclarationAsString(false, false, false))
+                          .append("\n");
+
+                      callee
+                          .getBody()
+                          .ifPresent(
+                              b -> {
+                                String body = b.toString();
+                                if (body.length() < 300) {
+                                  sb.append("Body: ").append(body).append("\n");
+                                } else {
+                                  sb.append("Body: <omitted: too large>\n");
+                                }
+                              });
                     }
+                  }
 
-                    sb.append("\n");
+                } else {
+                  sb.append("Source: not available\n");
+                }
 
-                  } catch (Exception ignored) {
-                  }
-                });
+                sb.append("\n");
 
-        return sb.length() == 0 ? Optional.empty() : Optional.of(sb.toString());
-      }
-    }
+              } catch (Exception ignored) {
+              }
+            });
 
-    return Optional.empty();
+    return sb.length() == 0 ? Optional.empty() : Optional.of(sb.toString());
   }
 
   /**
@@ -646,19 +844,7 @@ public final class ContextUtils {
   public static Optional<String> extractFullClassInfo(String qualifiedName, Path srcRoot) {
 
     try {
-      int lastDot = qualifiedName.lastIndexOf('.');
-      if (lastDot < 0) return Optional.empty();
-
-      String pkg = qualifiedName.substring(0, lastDot);
-      String clsName = qualifiedName.substring(lastDot + 1);
-
-      Path file = srcRoot.resolve(pkg.replace('.', '/') + "/" + clsName + ".java");
-      if (!java.nio.file.Files.exists(file)) return Optional.empty();
-
-      CompilationUnit cu = StaticJavaParser.parse(file);
-
-      Optional<ClassOrInterfaceDeclaration> clsOpt =
-          cu.findFirst(ClassOrInterfaceDeclaration.class, c -> c.getNameAsString().equals(clsName));
+      Optional<ClassOrInterfaceDeclaration> clsOpt = findClassInProject(qualifiedName, srcRoot);
 
       if (clsOpt.isEmpty()) return Optional.empty();
 
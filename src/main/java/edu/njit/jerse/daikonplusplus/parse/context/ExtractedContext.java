@@ -1,6 +1,7 @@
 package edu.njit.jerse.daikonplusplus.parse.context;
 
 import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Container for contextual information extracted for a program point.
@@ -18,6 +19,9 @@ public class ExtractedContext {
   public final String ioExamples;
   public final String calleeDoc;
 
+  /** Shape and template invariants of the method, or {@code null} if it is not trivial. */
+  public final TrivialMethodClassifier.@Nullable TrivialMethod trivial;
+
   /**
    * Creates a new extracted context instance.
    *
@@ -39,6 +43,41 @@ public class ExtractedContext {
       String callSiteContext,
       String ioExamples,
       String calleeDoc) {
+    this(
+        inScope,
+        methodBody,
+        methodJavadoc,
+        classDoc,
+        typeDoc,
+        callSiteContext,
+        ioExamples,
+        calleeDoc,
+        null);
+  }
+
+  /**
+   * Creates a new extracted context instance for a point of a method that may be trivial.
+   *
+   * @param inScope variables and their types available at the program point
+   * @param methodBody source code of the method
+   * @param methodJavadoc method-level documentation
+   * @param classDoc documentation of the enclosing class
+   * @param typeDoc documentation of referenced types
+   * @param callSiteContext call-site information
+   * @param ioExamples input-output examples
+   * @param calleeDoc documentation of called methods
+   * @param trivial shape and template invariants of the method, or {@code null} if not trivial
+   */
+  public ExtractedContext(
+      Map<String, String> inScope,
+      String methodBody,
+      String methodJavadoc,
+      String classDoc,
+      String typeDoc,
+      String callSiteContext,
+      String ioExamples,
+      String calleeDoc,
+      TrivialMethodClassifier.@Nullable TrivialMethod trivial) {
 
     this.inScope = inScope;
     this.methodBody = methodBody;
@@ -48,5 +87,6 @@ public class ExtractedContext {
     this.callSiteContext = callSiteContext;
     this.ioExamples = ioExamples;
     this.calleeDoc = calleeDoc;
+    this.trivial = trivial;
   }
 }
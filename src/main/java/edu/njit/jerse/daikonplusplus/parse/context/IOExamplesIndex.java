@@ -0,0 +1,194 @@
+package edu.njit.jerse.daikonplusplus.parse.context;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.njit.jerse.daikonplusplus.util.SortedKeyFile;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Memory-mapped, key-sorted form of an input-output examples index.
+ *
+ * <p>The JSON index produced from a Chicory trace maps each method key to a list of example
+ * records and can be several gigabytes large. {@link #convert} streams such a file once into a
+ * {@link SortedKeyFile} whose payload for each method is the sequence of its example records, each
+ * stored as a length-prefixed JSON object. {@link #examplesOf} then locates a method by binary
+ * search and decodes its records one at a time, so only the examples that are actually rendered are
+ * ever parsed and memory use does not grow with the size of the trace.
+ */
+public final class IOExamplesIndex implements Closeable {
+
+  /** Format tag stored in the file header, bumped whenever the payload layout changes. */
+  private static final String FORMAT = "ioexamples/1";
+
+  /** Suffix of the binary index written next to a JSON index. */
+  static final String SIDECAR_SUFFIX = ".dpidx";
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final TypeReference<Map<String, Object>> EXAMPLE_TYPE = new TypeReference<>() {};
+
+  private final SortedKeyFile data;
+
+  private IOExamplesIndex(SortedKeyFile data) {
+    this.data = data;
+  }
+
+  /**
+   * Opens a binary examples index.
+   *
+   * @param file index file written by {@link #convert}
+   * @return opened index
+   * @throws IOException if the file cannot be read or is not an examples index
+   */
+  public static IOExamplesIndex open(Path file) throws IOException {
+    SortedKeyFile data = SortedKeyFile.open(file);
+    if (!data.meta().startsWith(FORMAT)) {
+      data.close();
+      throw new IOException("Not an I/O-examples index: " + file);
+    }
+    return new IOExamplesIndex(data);
+  }
+
+  /**
+   * Opens the binary form of a JSON examples index, converting it into a sidecar file next to the
+   * JSON file first if the sidecar is missing or was produced from a different version of it.
+   *
+   * @param json JSON examples index
+   * @return opened binary index
+   * @throws IOException if the JSON cannot be converted or the sidecar cannot be written
+   */
+  public static IOExamplesIndex openConverted(Path json) throws IOException {
+    Path sidecar = json.resolveSibling(json.getFileName() + SIDECAR_SUFFIX);
+    String meta = sourceMeta(json);
+
+    if (Files.isRegularFile(sidecar)) {
+      try {
+        IOExamplesIndex existing = open(sidecar);
+        if (existing.data.meta().equals(meta)) return existing;
+        existing.close();
+      } catch (IOException e) {
+        // unreadable or stale sidecar; convert again below
+      }
+    }
+
+    convert(json, sidecar);
+    return open(sidecar);
+  }
+
+  /**
+   * Converts a JSON examples index into a binary index, streaming one token at a time.
+   *
+   * @param json JSON object mapping method keys to arrays of example objects
+   * @param out destination binary index
+   * @throws IOException if the JSON is malformed or the index cannot be written
+   */
+  public static void convert(Path json, Path out) throws IOException {
+    JsonFactory factory = MAPPER.getFactory();
+    try (JsonParser parser = factory.createParser(json.toFile());
+        SortedKeyFile.Writer writer = SortedKeyFile.writer(out, sourceMeta(json))) {
+
+      expect(parser.nextToken(), JsonToken.START_OBJECT);
+      ByteArrayOutputStream record = new ByteArrayOutputStream();
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String key = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if (value == JsonToken.VALUE_NULL) continue;
+        expect(value, JsonToken.START_ARRAY);
+
+        try (DataOutputStream payload = new DataOutputStream(writer.entry(key))) {
+          while (parser.nextToken() != JsonToken.END_ARRAY) {
+            expect(parser.currentToken(), JsonToken.START_OBJECT);
+            record.reset();
+            try (JsonGenerator gen = factory.createGenerator(record)) {
+              gen.copyCurrentStructure(parser);
+            }
+            payload.writeInt(record.size());
+            record.writeTo(payload);
+          }
+        }
+      }
+      writer.commit();
+    }
+  }
+
+  /**
+   * Returns the examples recorded for a method. Records are decoded lazily as the iteration
+   * advances.
+   *
+   * @param key method key, as produced by {@code ProgramElementId#toString()}
+   * @return recorded examples, or {@code null} if the method has none
+   */
+  public @Nullable Iterable<Map<String, Object>> examplesOf(String key) {
+    ByteBuffer payload = data.get(key).orElse(null);
+    if (payload == null || !payload.hasRemaining()) return null;
+    return () -> new ExampleIterator(payload.duplicate());
+  }
+
+  /**
+   * Returns the number of methods with recorded examples.
+   *
+   * @return method count
+   */
+  public int size() {
+    return data.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    data.close();
+  }
+
+  /** Identifies the version of a JSON file a sidecar was converted from. */
+  private static String sourceMeta(Path json) throws IOException {
+    return FORMAT + " " + Files.size(json) + " " + Files.getLastModifiedTime(json).toMillis();
+  }
+
+  private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+    if (actual != expected) {
+      throw new IOException(
+          "Malformed I/O-examples index: expected " + expected + " but found " + actual);
+    }
+  }
+
+  /** Decodes one length-prefixed example record per step. */
+  private static final class ExampleIterator implements Iterator<Map<String, Object>> {
+
+    private final ByteBuffer buf;
+
+    ExampleIterator(ByteBuffer buf) {
+      this.buf = buf;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return buf.remaining() >= Integer.BYTES;
+    }
+
+    @Override
+    public Map<String, Object> next() {
+      if (!hasNext()) throw new NoSuchElementException();
+      int len = buf.getInt();
+      byte[] record = new byte[len];
+      buf.get(record);
+      try {
+        return MAPPER.readValue(record, EXAMPLE_TYPE);
+      } catch (IOException e) {
+        throw new IllegalStateException("Corrupt I/O-examples record", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package edu.njit.jerse.daikonplusplus.parse.context;
+
+import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Immutable context extracted once for a method and shared by all of its program points.
+ *
+ * <p>Context kinds that were not enabled when the bundle was built are represented by empty
+ * strings, mirroring how disabled kinds are passed to the prompt builder.
+ *
+ * @param parameters declared parameters, from name to type, in declaration order
+ * @param returnType declared return type, or {@code null} if the method could not be located
+ * @param methodBody source code of the method
+ * @param methodJavadoc method-level documentation
+ * @param classDoc documentation of the enclosing class
+ * @param typeDoc documentation of referenced types
+ * @param callSiteContext call-site information
+ * @param ioExamples input-output examples
+ * @param calleeDoc documentation of called methods
+ * @param trivial shape and template invariants of the method, or {@code null} if it is not
+ *     trivial (see {@link TrivialMethodClassifier})
+ */
+public record MethodContextBundle(
+    Map<String, String> parameters,
+    @Nullable String returnType,
+    String methodBody,
+    String methodJavadoc,
+    String classDoc,
+    String typeDoc,
+    String callSiteContext,
+    String ioExamples,
+    String calleeDoc,
+    TrivialMethodClassifier.@Nullable TrivialMethod trivial) {
+
+  public MethodContextBundle {
+    parameters = Collections.unmodifiableMap(new LinkedHashMap<>(parameters));
+  }
+
+  /**
+   * Returns the variables in scope at a program point of this method.
+   *
+   * <p>Exit points additionally see the return value as {@code result} unless the method is {@code
+   * void}.
+   *
+   * @param kind program point kind
+   * @return map from variable name to type
+   */
+  public Map<String, String> scopeAt(ProgramPointKind kind) {
+    if (returnType == null) return Map.of();
+    if (kind != ProgramPointKind.METHOD_EXIT || "void".equals(returnType)) return parameters;
+
+    LinkedHashMap<String, String> scope = new LinkedHashMap<>(parameters);
+    scope.put("result", returnType);
+    return scope;
+  }
+
+  /**
+   * Views this bundle as the context of a single program point.
+   *
+   * @param kind program point kind
+   * @return extracted context for the point
+   */
+  public ExtractedContext forPoint(ProgramPointKind kind) {
+    return new ExtractedContext(
+        scopeAt(kind),
+        methodBody,
+        methodJavadoc,
+        classDoc,
+        typeDoc,
+        callSiteContext,
+        ioExamples,
+        calleeDoc,
+        trivial);
+  }
+}
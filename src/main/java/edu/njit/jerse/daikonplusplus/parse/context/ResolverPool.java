@@ -0,0 +1,274 @@
+package edu.njit.jerse.daikonplusplus.parse.context;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Shared, bounded pool for running symbol-resolution tasks under a timeout.
+ *
+ * <p>All context extractors submit their resolution work here instead of creating an executor per
+ * call. The pool uses a fixed number of daemon threads and a bounded queue; submissions that do not
+ * fit are rejected immediately rather than piling up. Deadlines are cooperative: a task that is
+ * dequeued after its caller has already given up is skipped instead of run.
+ *
+ * <p>Results of keyed resolutions are memoized. Successful results and deterministic failures are
+ * cached; timeouts, expired tasks and rejections are not, so a later attempt may still succeed.
+ * Cached values reference resolved declarations and thereby their ASTs, so the cache keeps only
+ * the most recently used entries and is cleared at the start of each run.
+ */
+public final class ResolverPool {
+
+  /** Number of resolver threads in the shared pool. */
+  private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+  /** Maximum number of queued resolutions before new submissions are rejected. */
+  private static final int QUEUE_CAPACITY = THREADS * 64;
+
+  /** Maximum number of memoized resolutions; beyond this, the least recently used are evicted. */
+  private static final int MAX_CACHED = 20_000;
+
+  private static final ResolverPool SHARED = new ResolverPool(THREADS, QUEUE_CAPACITY);
+
+  private final ThreadPoolExecutor executor;
+  private final Map<Object, Optional<?>> cache =
+      Collections.synchronizedMap(
+          new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Optional<?>> eldest) {
+              return size() > MAX_CACHED;
+            }
+          });
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong timeouts = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong expired = new AtomicLong();
+
+  /**
+   * Creates a resolver pool.
+   *
+   * @param threads number of worker threads
+   * @param queueCapacity maximum number of queued tasks
+   */
+  ResolverPool(int threads, int queueCapacity) {
+    AtomicInteger seq = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            30,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+              Thread t = new Thread(r, "dp-resolver-" + seq.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Returns the process-wide resolver pool.
+   *
+   * @return shared pool
+   */
+  public static ResolverPool shared() {
+    return SHARED;
+  }
+
+  /**
+   * Runs a task on the pool and waits for it up to a timeout, without memoization.
+   *
+   * @param task computation to execute
+   * @param millis timeout in milliseconds
+   * @return result wrapped in {@link Optional}, or empty on timeout, rejection or failure
+   */
+  public <T> Optional<T> run(Callable<T> task, long millis) {
+    return execute(task, millis).value();
+  }
+
+  /**
+   * Runs a resolution task, serving it from the memo cache when the same key was resolved before.
+   *
+   * @param key memo key identifying the resolution, or {@code null} to skip memoization
+   * @param task resolution to execute
+   * @param millis timeout in milliseconds
+   * @return resolved value wrapped in {@link Optional}, or empty if it could not be resolved
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Optional<T> resolve(@Nullable Object key, Callable<T> task, long millis) {
+    if (key == null) return run(task, millis);
+
+    Optional<?> cached = cache.get(key);
+    if (cached != null) {
+      hits.incrementAndGet();
+      return (Optional<T>) cached;
+    }
+    misses.incrementAndGet();
+
+    Outcome<T> outcome = execute(task, millis);
+    if (outcome.cacheable()) cache.putIfAbsent(key, outcome.value());
+    return outcome.value();
+  }
+
+  /** Drops every memoized resolution, releasing the declarations and ASTs they reference. */
+  public void clearCache() {
+    cache.clear();
+  }
+
+  /**
+   * Returns the number of memoized resolutions.
+   *
+   * @return cache size
+   */
+  int cached() {
+    return cache.size();
+  }
+
+  /**
+   * Records a resolution that failed without being submitted (e.g. no symbol resolver configured).
+   */
+  void recordFailure() {
+    failures.incrementAndGet();
+  }
+
+  /**
+   * Submits a task and waits for its result.
+   *
+   * @param task computation to execute
+   * @param millis timeout in milliseconds
+   * @return outcome of the task
+   */
+  private <T> Outcome<T> execute(Callable<T> task, long millis) {
+    final long deadlineNs = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+
+    Future<T> future;
+    try {
+      future =
+          executor.submit(
+              () -> {
+                // cooperative deadline: the caller has already given up on this task
+                if (System.nanoTime() - deadlineNs > 0) {
+                  expired.incrementAndGet();
+                  throw new ExpiredException();
+                }
+                return task.call();
+              });
+    } catch (RejectedExecutionException e) {
+      rejected.incrementAndGet();
+      return new Outcome<>(Optional.empty(), false);
+    }
+
+    try {
+      long remainingNs = Math.max(0, deadlineNs - System.nanoTime());
+      return new Outcome<>(
+          Optional.ofNullable(future.get(remainingNs, TimeUnit.NANOSECONDS)), true);
+    } catch (TimeoutException e) {
+      timeouts.incrementAndGet();
+      future.cancel(true);
+      return new Outcome<>(Optional.empty(), false);
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      return new Outcome<>(Optional.empty(), false);
+    } catch (ExecutionException e) {
+      // an expired task says nothing about the resolution, so it is not memoized
+      if (e.getCause() instanceof ExpiredException) return new Outcome<>(Optional.empty(), false);
+      failures.incrementAndGet();
+      return new Outcome<>(Optional.empty(), true);
+    }
+  }
+
+  /** Resets the counters, at the start of a run. */
+  public void resetCounters() {
+    for (AtomicLong count : List.of(hits, misses, timeouts, failures, rejected, expired)) {
+      count.set(0);
+    }
+  }
+
+  /**
+   * Returns the number of keyed resolutions served from the memo cache.
+   *
+   * @return cache hit count
+   */
+  public long hits() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of keyed resolutions that had to be computed.
+   *
+   * @return cache miss count
+   */
+  public long misses() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the number of tasks whose caller stopped waiting at the timeout.
+   *
+   * @return timeout count
+   */
+  public long timeouts() {
+    return timeouts.get();
+  }
+
+  /**
+   * Returns the number of tasks that failed with an exception.
+   *
+   * @return failure count
+   */
+  public long failures() {
+    return failures.get();
+  }
+
+  /**
+   * Returns the number of tasks rejected because the queue was full.
+   *
+   * @return rejection count
+   */
+  public long rejected() {
+    return rejected.get();
+  }
+
+  /**
+   * Returns the number of queued tasks skipped because their deadline had passed.
+   *
+   * @return skipped task count
+   */
+  public long expired() {
+    return expired.get();
+  }
+
+  /**
+   * Result of one task execution.
+   *
+   * @param value result, or empty if none was produced
+   * @param cacheable whether the result is deterministic enough to memoize
+   */
+  private record Outcome<T>(Optional<T> value, boolean cacheable) {}
+
+  /** Thrown by a task dequeued after its deadline, instead of running it. */
+  private static final class ExpiredException extends RuntimeException {
+    ExpiredException() {
+      super("resolution deadline passed while queued", null, false, false);
+    }
+  }
+}
@@ -0,0 +1,297 @@
+package edu.njit.jerse.daikonplusplus.parse.context;
+
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.BooleanLiteralExpr;
+import com.github.javaparser.ast.expr.CharLiteralExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.IntegerLiteralExpr;
+import com.github.javaparser.ast.expr.LongLiteralExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.NullLiteralExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.type.Type;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Static classifier for methods whose invariants follow from their shape, so that their program
+ * points need no LLM request.
+ *
+ * <p>A method is trivial if its body is empty or a single statement of one of these shapes:
+ *
+ * <ul>
+ *   <li>{@code GETTER}: returns a field of the enclosing type and takes no parameters
+ *   <li>{@code SETTER}: assigns its only parameter to a field of the enclosing type
+ *   <li>{@code EMPTY}: has an empty body, e.g. a no-op override
+ *   <li>{@code CONSTANT}: returns a boolean, integral, character or {@code null} literal
+ *   <li>{@code DELEGATE}: calls one method on {@code this}, {@code super}, a field or a parameter,
+ *       passing only parameters and literals, and returns its result if any
+ * </ul>
+ *
+ * <p>Each shape comes with template invariants that hold by construction, e.g. {@code result ==
+ * this.name} at the exit of a getter. Empty methods and delegations have none. A point with
+ * templates is answered with them; a point without templates is answered with none only if the
+ * caller opts in (see {@link TrivialMethod#answers}), since the LLM may still find invariants of
+ * the method's inputs. Fields are only recognized if declared in the enclosing type; anything else
+ * is not trivial. Points answered from templates are counted process-wide and reported at the end
+ * of a run.
+ */
+public final class TrivialMethodClassifier {
+
+  /** Shapes of trivial methods. */
+  public enum Shape {
+    GETTER,
+    SETTER,
+    EMPTY,
+    CONSTANT,
+    DELEGATE
+  }
+
+  /**
+   * A trivial method together with its template invariants.
+   *
+   * @param shape shape of the method
+   * @param entry invariants holding at method entry
+   * @param exit invariants holding at method exit
+   */
+  public record TrivialMethod(Shape shape, List<String> entry, List<String> exit) {
+
+    /**
+     * Returns the template invariants of a program point of the method.
+     *
+     * @param kind program point kind
+     * @return template invariants, possibly none
+     */
+    public List<String> at(ProgramPointKind kind) {
+      return kind == ProgramPointKind.METHOD_EXIT ? exit : entry;
+    }
+
+    /**
+     * Returns whether a program point of the method is answered from templates instead of the LLM.
+     *
+     * @param kind program point kind
+     * @param skipEmpty whether a point without templates is answered too, with none
+     * @return {@code true} if the point needs no LLM request
+     */
+    public boolean answers(ProgramPointKind kind, boolean skipEmpty) {
+      return skipEmpty || !at(kind).isEmpty();
+    }
+  }
+
+  /** Simple names of the boxed primitive types. */
+  private static final Set<String> BOXED =
+      Set.of("Boolean", "Byte", "Character", "Short", "Integer", "Long", "Float", "Double");
+
+  private static final Map<Shape, AtomicLong> answered = new EnumMap<>(Shape.class);
+  private static final AtomicLong templates = new AtomicLong();
+
+  static {
+    for (Shape shape : Shape.values()) answered.put(shape, new AtomicLong());
+  }
+
+  private TrivialMethodClassifier() {}
+
+  /**
+   * Classifies a method.
+   *
+   * @param m method declaration, attached to its compilation unit
+   * @return the trivial method with its templates, or {@code null} if the method is not trivial
+   */
+  public static @Nullable TrivialMethod classify(MethodDeclaration m) {
+    // members of anonymous classes and enum constant bodies cannot name their type's fields
+    if (!(m.getParentNode().orElse(null) instanceof TypeDeclaration)) return null;
+    Optional<BlockStmt> body = m.getBody();
+    if (body.isEmpty()) return null;
+    List<Statement> stmts = body.get().getStatements();
+
+    if (stmts.isEmpty()) {
+      return m.getType().isVoidType() ? new TrivialMethod(Shape.EMPTY, List.of(), List.of()) : null;
+    }
+    if (stmts.size() != 1) return null;
+    Statement stmt = stmts.get(0);
+
+    if (stmt instanceof ReturnStmt ret && ret.getExpression().isPresent()) {
+      Expression value = ret.getExpression().get();
+
+      if (m.getParameters().isEmpty()) {
+        FieldDeclaration field = fieldOf(m, value);
+        if (field != null) {
+          String ref = fieldRef(m, field, value);
+          return new TrivialMethod(
+              Shape.GETTER, List.of(), List.of(equality("result", ref, m.getType())));
+        }
+      }
+
+      String constant = constantTemplate(value);
+      if (constant != null) return new TrivialMethod(Shape.CONSTANT, List.of(), List.of(constant));
+
+      if (value instanceof MethodCallExpr call) return delegate(m, call);
+      return null;
+    }
+
+    if (stmt instanceof ExpressionStmt es) {
+      Expression e = es.getExpression();
+
+      if (e instanceof AssignExpr assign
+          && assign.getOperator() == AssignExpr.Operator.ASSIGN
+          && m.getParameters().size() == 1
+          && assign.getValue() instanceof NameExpr value
+          && value.getNameAsString().equals(m.getParameter(0).getNameAsString())) {
+        FieldDeclaration field = fieldOf(m, assign.getTarget());
+        if (field == null) return null;
+        String ref = fieldRef(m, field, assign.getTarget());
+        Parameter param = m.getParameter(0);
+        return new TrivialMethod(
+            Shape.SETTER,
+            List.of(),
+            List.of(equality(ref, param.getNameAsString(), param.getType())));
+      }
+
+      if (e instanceof MethodCallExpr call) return delegate(m, call);
+    }
+    return null;
+  }
+
+  /** Classifies a single call as a delegation, or returns {@code null} if it is not one. */
+  private static @Nullable TrivialMethod delegate(MethodDeclaration m, MethodCallExpr call) {
+    Set<String> params =
+        m.getParameters().stream().map(Parameter::getNameAsString).collect(Collectors.toSet());
+    for (Expression arg : call.getArguments()) {
+      boolean param = arg instanceof NameExpr n && params.contains(n.getNameAsString());
+      if (!param && !arg.isLiteralExpr() && !arg.isThisExpr()) return null;
+    }
+
+    // a null target fails the call rather than the entry, so no template follows from the shape
+    Optional<Expression> scope = call.getScope();
+    boolean target =
+        scope.isEmpty()
+            || scope.get().isThisExpr()
+            || scope.get().isSuperExpr()
+            || (scope.get() instanceof NameExpr n && params.contains(n.getNameAsString()))
+            || fieldOf(m, scope.get()) != null;
+    return target ? new TrivialMethod(Shape.DELEGATE, List.of(), List.of()) : null;
+  }
+
+  /**
+   * Returns the field of the enclosing type an expression refers to, or {@code null} if it is not
+   * a plain reference to such a field.
+   */
+  private static @Nullable FieldDeclaration fieldOf(MethodDeclaration m, Expression e) {
+    TypeDeclaration<?> owner = (TypeDeclaration<?>) m.getParentNode().orElseThrow();
+    String name;
+    boolean qualifiedByType = false;
+    if (e instanceof NameExpr n) {
+      name = n.getNameAsString();
+      if (m.getParameterByName(name).isPresent()) return null;
+    } else if (e instanceof FieldAccessExpr fa && fa.getScope().isThisExpr()) {
+      name = fa.getNameAsString();
+    } else if (e instanceof FieldAccessExpr fa
+        && fa.getScope() instanceof NameExpr scope
+        && scope.getNameAsString().equals(owner.getNameAsString())) {
+      name = fa.getNameAsString();
+      qualifiedByType = true;
+    } else {
+      return null;
+    }
+    FieldDeclaration field = owner.getFieldByName(name).orElse(null);
+    if (field == null || ((m.isStatic() || qualifiedByType) && !field.isStatic())) return null;
+    return field;
+  }
+
+  /** Renders a reference to a field that is not shadowed inside the method. */
+  private static String fieldRef(MethodDeclaration m, FieldDeclaration field, Expression e) {
+    String name =
+        e instanceof NameExpr n ? n.getNameAsString() : ((FieldAccessExpr) e).getNameAsString();
+    if (!field.isStatic()) return "this." + name;
+    return ((TypeDeclaration<?>) m.getParentNode().orElseThrow()).getNameAsString() + "." + name;
+  }
+
+  /**
+   * Renders the equality of two values of a type. Primitive floating-point values are compared
+   * bitwise, so that {@code NaN} equals itself; boxed values are compared with {@code
+   * Objects.equals}, which also accepts {@code null}.
+   */
+  private static String equality(String a, String b, Type type) {
+    String t = type.asString();
+    if (t.equals("double") || t.equals("float")) {
+      return "Double.compare(" + a + ", " + b + ") == 0";
+    }
+    if (BOXED.contains(t.startsWith("java.lang.") ? t.substring("java.lang.".length()) : t)) {
+      return "java.util.Objects.equals(" + a + ", " + b + ")";
+    }
+    return a + " == " + b;
+  }
+
+  /** Returns the exit template of a method returning a literal, or {@code null}. */
+  private static @Nullable String constantTemplate(Expression value) {
+    if (value instanceof BooleanLiteralExpr b) return b.getValue() ? "result" : "!result";
+    if (value instanceof NullLiteralExpr) return "result == null";
+    if (value instanceof IntegerLiteralExpr
+        || value instanceof LongLiteralExpr
+        || value instanceof CharLiteralExpr) {
+      return "result == " + value;
+    }
+    return null;
+  }
+
+  /**
+   * Counts a program point answered from templates instead of the LLM.
+   *
+   * @param shape shape of the point's method
+   * @param count number of template invariants used
+   */
+  public static void recordAnswered(Shape shape, int count) {
+    answered.get(shape).incrementAndGet();
+    templates.addAndGet(count);
+  }
+
+  /** Resets the counters, at the start of a run. */
+  public static void resetCounters() {
+    for (AtomicLong count : answered.values()) count.set(0);
+    templates.set(0);
+  }
+
+  /**
+   * Returns the number of program points answered from templates.
+   *
+   * @return point count
+   */
+  public static long answered() {
+    return answered.values().stream().mapToLong(AtomicLong::get).sum();
+  }
+
+  /**
+   * Returns the number of program points of one shape answered from templates.
+   *
+   * @param shape method shape
+   * @return point count
+   */
+  public static long answered(Shape shape) {
+    return answered.get(shape).get();
+  }
+
+  /**
+   * Returns the number of template invariants used.
+   *
+   * @return template count
+   */
+  public static long templates() {
+    return templates.get();
+  }
+}
@@ -6,6 +6,7 @@ import edu.njit.jerse.daikonplusplus.model.ProgramElementId;
 import edu.njit.jerse.daikonplusplus.model.ProgramPoint;
 import edu.njit.jerse.daikonplusplus.model.ProgramPointImpl;
 import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
+import edu.njit.jerse.daikonplusplus.util.ExpressionCanonicalizer;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -154,11 +155,46 @@ public final class InvariantRegistry {
     }
   }
 
+  // ----- Previous-run statistics -----
+
+  /**
+   * Counts, per program element, the invariants of a previous run that executed, by joining a
+   * registry with the outcomes sidecar written for it. Missing or unreadable files count nothing.
+   *
+   * @param registryJsonl registry of the previous run
+   * @param outcomesJsonl outcomes of the previous run
+   * @return executed-invariant counts keyed by element label (see {@link
+   *     ProgramElementId#toString()})
+   */
+  public static Map<String, Long> executedCountsByElement(Path registryJsonl, Path outcomesJsonl) {
+    Map<String, Long> out = new HashMap<>();
+    if (!Files.exists(registryJsonl) || !Files.exists(outcomesJsonl)) return out;
+    try {
+      Set<String> executed = new HashSet<>();
+      for (String line : Files.readAllLines(outcomesJsonl, StandardCharsets.UTF_8)) {
+        // outcome lines carry unquoted booleans, which parseFlatJson does not handle
+        int at = line.indexOf("\"id\":\"");
+        if (at < 0 || !line.contains("\"executed\":true")) continue;
+        int end = line.indexOf('"', at + 6);
+        if (end > 0) executed.add(line.substring(at + 6, end));
+      }
+      for (String line : Files.readAllLines(registryJsonl, StandardCharsets.UTF_8)) {
+        if (line.isBlank()) continue;
+        Map<String, String> m = parseFlatJson(line);
+        String element = m.get("element");
+        if (element != null && executed.contains(m.get("id"))) out.merge(element, 1L, Long::sum);
+      }
+    } catch (IOException ignore) {
+      // without statistics every element counts as unexecuted
+    }
+    return out;
+  }
+
   // ----- Internal helpers -----
 
   // Create a canonical key for dedup
   private static String keyOf(InvariantRecord r) {
-    String norm = r.spec().expression().trim().replaceAll("\\s+", " ");
+    String norm = ExpressionCanonicalizer.canonical(r.spec().expression());
     return r.point().kind().name() + "|" + r.point().elementId().toString() + "|" + norm;
   }
 
@@ -171,9 +207,9 @@ public final class InvariantRegistry {
         Map<String, String> m = parseFlatJson(line);
         String kind = m.getOrDefault("kind", "METHOD_ENTRY");
         String element = m.getOrDefault("element", "");
-        String expr = m.getOrDefault("expr", "").trim().replaceAll("\\s+", " ");
+        String expr = m.getOrDefault("expr", "").trim();
         if (!expr.isEmpty() && !element.isEmpty()) {
-          seenKeys.add(kind + "|" + element + "|" + expr);
+          seenKeys.add(kind + "|" + element + "|" + ExpressionCanonicalizer.canonical(expr));
         }
       }
     } catch (IOException ignore) {
@@ -285,7 +321,7 @@ public final class InvariantRegistry {
     return ProgramElementId.forMethod(pkg, topLevelClass, nestedPath, filePath, descriptor);
   }
 
-  private Map<String, String> parseFlatJson(String json) {
+  private static Map<String, String> parseFlatJson(String json) {
     // tiny parser for {"k":"v",...} without escaped commas (we escape quotes only)
     Map<String, String> out = new HashMap<>();
     String inner = json.trim();
@@ -0,0 +1,153 @@
+package edu.njit.jerse.daikonplusplus.util;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the number of asynchronous operations in flight without blocking threads.
+ *
+ * <p>Operations submitted while the limit is reached are queued and started, in submission order,
+ * as earlier operations complete. Unlike a {@link java.util.concurrent.Semaphore}, waiting for a
+ * slot never parks a thread, so a small pool can keep hundreds of network calls outstanding.
+ *
+ * <p>Cancelling a returned future cancels the operation, or drops it if it has not started yet.
+ */
+public final class AsyncLimiter {
+
+  private final Queue<Runnable> waiting = new ArrayDeque<>();
+  private int limit;
+  private int inFlight;
+  private int maxObserved;
+  private boolean draining;
+
+  /**
+   * Creates a limiter.
+   *
+   * @param limit maximum number of operations in flight; at least 1
+   */
+  public AsyncLimiter(int limit) {
+    this.limit = Math.max(1, limit);
+  }
+
+  /**
+   * Starts an operation once a slot is free.
+   *
+   * @param operation starts the operation and returns its future; invoked at most once
+   * @param <T> result type
+   * @return future completed with the operation's outcome; cancelling it cancels the operation
+   */
+  public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> operation) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Runnable start =
+        () -> {
+          // cancelled while queued: give the slot back without starting
+          if (result.isDone()) {
+            release();
+            return;
+          }
+          CompletableFuture<T> f;
+          try {
+            f = operation.get();
+          } catch (RuntimeException e) {
+            f = CompletableFuture.failedFuture(e);
+          }
+          f.whenComplete(
+              (v, e) -> {
+                release();
+                if (e != null) result.completeExceptionally(e);
+                else result.complete(v);
+              });
+          CompletableFuture<T> started = f;
+          result.whenComplete(
+              (v, e) -> {
+                if (result.isCancelled()) started.cancel(true);
+              });
+        };
+
+    boolean runNow;
+    synchronized (this) {
+      runNow = inFlight < limit;
+      if (runNow) acquired();
+      else waiting.add(start);
+    }
+    if (runNow) start.run();
+    return result;
+  }
+
+  /**
+   * Changes the limit. Raising it starts queued operations immediately; lowering it lets
+   * operations already in flight finish.
+   *
+   * @param newLimit maximum number of operations in flight; at least 1
+   */
+  public void setLimit(int newLimit) {
+    synchronized (this) {
+      limit = Math.max(1, newLimit);
+    }
+    drain();
+  }
+
+  /**
+   * Returns the current limit.
+   *
+   * @return maximum number of operations in flight
+   */
+  public synchronized int limit() {
+    return limit;
+  }
+
+  /**
+   * Returns the number of operations currently in flight.
+   *
+   * @return in-flight count
+   */
+  public synchronized int inFlight() {
+    return inFlight;
+  }
+
+  /**
+   * Returns the highest number of operations that were in flight at once.
+   *
+   * @return peak in-flight count
+   */
+  public synchronized int maxObserved() {
+    return maxObserved;
+  }
+
+  private void acquired() {
+    inFlight++;
+    maxObserved = Math.max(maxObserved, inFlight);
+  }
+
+  private void release() {
+    synchronized (this) {
+      inFlight--;
+    }
+    drain();
+  }
+
+  /**
+   * Starts queued operations while slots are free. Only one thread drains at a time, so operations
+   * that complete synchronously are started iteratively rather than recursively.
+   */
+  private void drain() {
+    synchronized (this) {
+      if (draining) return;
+      draining = true;
+    }
+    while (true) {
+      Runnable next;
+      synchronized (this) {
+        if (inFlight >= limit || waiting.isEmpty()) {
+          draining = false;
+          return;
+        }
+        next = waiting.poll();
+        acquired();
+      }
+      next.run();
+    }
+  }
+}
@@ -0,0 +1,325 @@
+package edu.njit.jerse.daikonplusplus.util;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.ArrayAccessExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.BooleanLiteralExpr;
+import com.github.javaparser.ast.expr.CastExpr;
+import com.github.javaparser.ast.expr.ConditionalExpr;
+import com.github.javaparser.ast.expr.EnclosedExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.InstanceOfExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Canonical form of invariant expressions, used as the deduplication key of every dedup layer.
+ *
+ * <p>Expressions are compared by their JavaParser AST rather than their text, so that spellings of
+ * the same condition share one key:
+ *
+ * <ul>
+ *   <li>redundant parentheses are dropped; the key has exactly the parentheses its structure needs
+ *   <li>negations are pushed inwards: {@code !!a} is {@code a}, {@code !(a != b)} is {@code a ==
+ *       b} and {@code !(a && b)} is {@code !a || !b}
+ *   <li>comparisons are oriented: a literal goes to the right, and otherwise the operand that
+ *       prints first goes to the left, so {@code 0 <= a} is {@code a >= 0}
+ *   <li>operands of {@code &&} and {@code ||} chains that cannot throw are sorted, and repeats are
+ *       dropped
+ * </ul>
+ *
+ * <p>Spellings that may evaluate differently keep different keys, since dedup keeps whichever is
+ * proposed first. An operand that may throw, such as {@code o.f() > 0}, is never moved across
+ * another operand, which may be its guard ({@code o != null}). An ordering comparison is only
+ * complemented if neither operand can be floating-point, as {@code !(a < b)} holds and {@code a >=
+ * b} does not when an operand is {@code NaN}; the types of names are not known, so {@code !(a <
+ * 0)} keeps its negation. Text that does not parse is keyed with its whitespace collapsed.
+ */
+public final class ExpressionCanonicalizer {
+
+  private ExpressionCanonicalizer() {}
+
+  /**
+   * Returns the canonical form of an expression.
+   *
+   * @param expr invariant expression
+   * @return canonical key of the expression
+   */
+  public static String canonical(String expr) {
+    String text = expr.trim().replaceAll("\\s+", " ");
+    Expression parsed;
+    try {
+      parsed = StaticJavaParser.parseExpression(text);
+    } catch (RuntimeException e) {
+      return text;
+    }
+    return print(canon(parsed));
+  }
+
+  /** Returns a canonical copy of an expression, without parentheses. */
+  private static Expression canon(Expression e) {
+    if (e instanceof EnclosedExpr enclosed) return canon(enclosed.getInner());
+
+    if (e instanceof UnaryExpr u) {
+      Expression operand = canon(u.getExpression());
+      if (u.getOperator() == UnaryExpr.Operator.LOGICAL_COMPLEMENT) return negate(operand);
+      return new UnaryExpr(operand, u.getOperator());
+    }
+
+    if (e instanceof BinaryExpr b) {
+      BinaryExpr.Operator op = b.getOperator();
+      Expression left = canon(b.getLeft());
+      Expression right = canon(b.getRight());
+      if (op == BinaryExpr.Operator.AND || op == BinaryExpr.Operator.OR) {
+        return chain(op, List.of(left, right));
+      }
+      if (isComparison(op)) return orient(left, right, op);
+      return new BinaryExpr(left, right, op);
+    }
+
+    Expression copy = e.clone();
+    for (Node child : new ArrayList<>(copy.getChildNodes())) {
+      if (child instanceof Expression sub) sub.replace(canon(sub));
+    }
+    return copy;
+  }
+
+  /** Returns the canonical negation of a canonical expression. */
+  private static Expression negate(Expression e) {
+    if (e instanceof UnaryExpr u && u.getOperator() == UnaryExpr.Operator.LOGICAL_COMPLEMENT) {
+      return u.getExpression();
+    }
+    if (e instanceof BooleanLiteralExpr lit) return new BooleanLiteralExpr(!lit.getValue());
+    if (e instanceof BinaryExpr b) {
+      BinaryExpr.Operator op = b.getOperator();
+      if (isComparison(op) && isComplementable(b)) {
+        return orient(b.getLeft(), b.getRight(), complement(op));
+      }
+      if (op == BinaryExpr.Operator.AND || op == BinaryExpr.Operator.OR) {
+        List<Expression> negated = new ArrayList<>();
+        for (Expression operand : operands(b, op)) negated.add(negate(operand));
+        BinaryExpr.Operator dual =
+            op == BinaryExpr.Operator.AND ? BinaryExpr.Operator.OR : BinaryExpr.Operator.AND;
+        return chain(dual, negated);
+      }
+    }
+    return new UnaryExpr(e, UnaryExpr.Operator.LOGICAL_COMPLEMENT);
+  }
+
+  /**
+   * Builds a repeat-free chain of operands joined by {@code &&} or {@code ||}, sorting each run of
+   * operands that cannot throw. Other operands keep their place, since an operand before them may
+   * guard them.
+   */
+  private static Expression chain(BinaryExpr.Operator op, List<Expression> parts) {
+    Set<String> seen = new HashSet<>();
+    List<Expression> flat = new ArrayList<>();
+    for (Expression part : parts) {
+      for (Expression operand : operands(part, op)) {
+        if (seen.add(print(operand))) flat.add(operand);
+      }
+    }
+    int run = 0;
+    for (int i = 0; i <= flat.size(); i++) {
+      if (i < flat.size() && isInert(flat.get(i))) continue;
+      flat.subList(run, i).sort((a, b) -> print(a).compareTo(print(b)));
+      run = i + 1;
+    }
+    Expression out = flat.get(0);
+    for (int i = 1; i < flat.size(); i++) out = new BinaryExpr(out, flat.get(i), op);
+    return out;
+  }
+
+  /** Returns the operands of a chain of one operator, or the expression itself. */
+  private static List<Expression> operands(Expression e, BinaryExpr.Operator op) {
+    if (!(e instanceof BinaryExpr b) || b.getOperator() != op) return List.of(e);
+    List<Expression> out = new ArrayList<>(operands(b.getLeft(), op));
+    out.addAll(operands(b.getRight(), op));
+    return out;
+  }
+
+  /** Orders the operands of a comparison, flipping its operator if they are swapped. */
+  private static Expression orient(Expression left, Expression right, BinaryExpr.Operator op) {
+    boolean literalLeft = isLiteral(left);
+    boolean swap =
+        literalLeft != isLiteral(right) ? literalLeft : print(left).compareTo(print(right)) > 0;
+    return swap ? new BinaryExpr(right, left, flip(op)) : new BinaryExpr(left, right, op);
+  }
+
+  /**
+   * Returns whether evaluating an expression can neither throw nor have side effects: a name, a
+   * field of {@code this}, a literal, or a negation, comparison, {@code &&} or {@code ||} of those.
+   */
+  private static boolean isInert(Expression e) {
+    if (e.isNameExpr() || isLiteral(e)) return true;
+    if (e instanceof FieldAccessExpr f) return f.getScope().isThisExpr();
+    if (e instanceof UnaryExpr u && u.getOperator() == UnaryExpr.Operator.LOGICAL_COMPLEMENT) {
+      return isInert(u.getExpression());
+    }
+    return e instanceof BinaryExpr b
+        && (isComparison(b.getOperator())
+            || b.getOperator() == BinaryExpr.Operator.AND
+            || b.getOperator() == BinaryExpr.Operator.OR)
+        && isInert(b.getLeft())
+        && isInert(b.getRight());
+  }
+
+  /**
+   * Returns whether a comparison can be replaced by the complemented one: always for equality,
+   * which {@code NaN} does not break, and for ordering if neither operand can be floating-point.
+   */
+  private static boolean isComplementable(BinaryExpr b) {
+    return isEquality(b.getOperator()) || isIntegral(b.getLeft()) && isIntegral(b.getRight());
+  }
+
+  /** Returns whether an expression is an integral or character literal, possibly signed. */
+  private static boolean isIntegral(Expression e) {
+    if (e instanceof UnaryExpr u
+        && (u.getOperator() == UnaryExpr.Operator.MINUS
+            || u.getOperator() == UnaryExpr.Operator.PLUS)) {
+      return isIntegral(u.getExpression());
+    }
+    return e.isIntegerLiteralExpr() || e.isLongLiteralExpr() || e.isCharLiteralExpr();
+  }
+
+  /** Returns whether an expression is a literal, possibly signed. */
+  private static boolean isLiteral(Expression e) {
+    if (e instanceof UnaryExpr u
+        && (u.getOperator() == UnaryExpr.Operator.MINUS
+            || u.getOperator() == UnaryExpr.Operator.PLUS)) {
+      return u.getExpression().isLiteralExpr();
+    }
+    return e.isLiteralExpr();
+  }
+
+  private static boolean isEquality(BinaryExpr.Operator op) {
+    return op == BinaryExpr.Operator.EQUALS || op == BinaryExpr.Operator.NOT_EQUALS;
+  }
+
+  private static boolean isComparison(BinaryExpr.Operator op) {
+    return switch (op) {
+      case EQUALS, NOT_EQUALS, LESS, LESS_EQUALS, GREATER, GREATER_EQUALS -> true;
+      default -> false;
+    };
+  }
+
+  /** Returns the operator comparing the swapped operands alike. */
+  private static BinaryExpr.Operator flip(BinaryExpr.Operator op) {
+    return switch (op) {
+      case LESS -> BinaryExpr.Operator.GREATER;
+      case LESS_EQUALS -> BinaryExpr.Operator.GREATER_EQUALS;
+      case GREATER -> BinaryExpr.Operator.LESS;
+      case GREATER_EQUALS -> BinaryExpr.Operator.LESS_EQUALS;
+      default -> op;
+    };
+  }
+
+  /** Returns the operator of the negated comparison. */
+  private static BinaryExpr.Operator complement(BinaryExpr.Operator op) {
+    return switch (op) {
+      case EQUALS -> BinaryExpr.Operator.NOT_EQUALS;
+      case NOT_EQUALS -> BinaryExpr.Operator.EQUALS;
+      case LESS -> BinaryExpr.Operator.GREATER_EQUALS;
+      case LESS_EQUALS -> BinaryExpr.Operator.GREATER;
+      case GREATER -> BinaryExpr.Operator.LESS_EQUALS;
+      case GREATER_EQUALS -> BinaryExpr.Operator.LESS;
+      default -> throw new IllegalArgumentException("not a comparison: " + op);
+    };
+  }
+
+  // =====================================================================
+  // Printing with the parentheses the structure needs
+  // =====================================================================
+
+  /** Prints a parenthesis-free expression, adding the parentheses its structure needs. */
+  private static String print(Expression e) {
+    return parenthesize(e.clone()).toString();
+  }
+
+  /** Adds the parentheses an expression's structure needs, and returns the expression. */
+  private static Expression parenthesize(Expression e) {
+    for (Node child : new ArrayList<>(e.getChildNodes())) {
+      if (!(child instanceof Expression sub)) continue;
+      Expression done = parenthesize(sub);
+      if (needsParens(e, done)) done.replace(new EnclosedExpr(done.clone()));
+    }
+    return e;
+  }
+
+  /** Returns whether a child expression must be parenthesized under its parent. */
+  private static boolean needsParens(Expression parent, Expression child) {
+    if (isPrimary(child)) return false;
+    if (parent instanceof BinaryExpr b) {
+      int outer = precedence(b.getOperator());
+      int inner = precedence(child);
+      if (inner != outer) return inner < outer;
+      boolean right = child == b.getRight();
+      boolean associative =
+          child instanceof BinaryExpr c
+              && c.getOperator() == b.getOperator()
+              && (c.getOperator() == BinaryExpr.Operator.AND
+                  || c.getOperator() == BinaryExpr.Operator.OR);
+      return right && !associative;
+    }
+    if (parent instanceof InstanceOfExpr) return precedence(child) <= RELATIONAL;
+    if (parent instanceof ConditionalExpr c) {
+      return child instanceof ConditionalExpr && child == c.getCondition();
+    }
+    if (parent instanceof UnaryExpr
+        || parent instanceof CastExpr
+        || parent instanceof MethodCallExpr m && m.getScope().orElse(null) == child
+        || parent instanceof FieldAccessExpr
+        || parent instanceof ArrayAccessExpr a && a.getName() == child) {
+      return true;
+    }
+    return false;
+  }
+
+  /** Returns whether an expression binds tighter than any operator. */
+  private static boolean isPrimary(Expression e) {
+    return e.isNameExpr()
+        || e.isLiteralExpr()
+        || e.isMethodCallExpr()
+        || e.isFieldAccessExpr()
+        || e.isArrayAccessExpr()
+        || e.isThisExpr()
+        || e.isSuperExpr()
+        || e.isEnclosedExpr()
+        || e.isObjectCreationExpr()
+        || e.isArrayCreationExpr()
+        || e.isClassExpr()
+        || e.isMethodReferenceExpr();
+  }
+
+  private static final int RELATIONAL = 7;
+
+  /** Returns the precedence of a non-primary expression; higher binds tighter. */
+  private static int precedence(Expression e) {
+    if (e instanceof BinaryExpr b) return precedence(b.getOperator());
+    if (e instanceof InstanceOfExpr) return RELATIONAL;
+    if (e instanceof UnaryExpr || e instanceof CastExpr) return 11;
+    if (e instanceof ConditionalExpr) return 0;
+    return -1; // assignments and lambdas
+  }
+
+  private static int precedence(BinaryExpr.Operator op) {
+    return switch (op) {
+      case OR -> 1;
+      case AND -> 2;
+      case BINARY_OR -> 3;
+      case XOR -> 4;
+      case BINARY_AND -> 5;
+      case EQUALS, NOT_EQUALS -> 6;
+      case LESS, LESS_EQUALS, GREATER, GREATER_EQUALS -> RELATIONAL;
+      case LEFT_SHIFT, SIGNED_RIGHT_SHIFT, UNSIGNED_RIGHT_SHIFT -> 8;
+      case PLUS, MINUS -> 9;
+      case MULTIPLY, DIVIDE, REMAINDER -> 10;
+    };
+  }
+}
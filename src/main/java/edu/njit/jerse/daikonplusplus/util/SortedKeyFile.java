@@ -0,0 +1,453 @@
+package edu.njit.jerse.daikonplusplus.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Immutable, memory-mapped file of byte payloads keyed by strings.
+ *
+ * <p>The file consists of a fixed header, a table of fixed-size slots sorted by key, a blob of key
+ * bytes and a blob of payload bytes. Lookups binary-search the slot table directly in the mapped
+ * file, so opening a file costs a single {@code mmap} regardless of its size and only the pages
+ * that are actually read are loaded. Payloads are mapped lazily in windows of at most {@value
+ * #WINDOW} bytes; a payload that straddles two windows is read with a positional read instead.
+ *
+ * <p>Files are produced by a {@link Writer}, which streams payloads to disk as they are added and
+ * publishes the finished file atomically on {@link Writer#commit()}.
+ *
+ * <pre>
+ * header: magic "DPSK" | version | count | metaLen | keysLen (long) | meta (UTF-8)
+ * slot:   keyOff (long) | keyLen (int) | dataOff (long) | dataLen (int)
+ * </pre>
+ */
+public final class SortedKeyFile implements Closeable {
+
+  /** File magic, {@code "DPSK"}. */
+  private static final int MAGIC = 0x4450534B;
+
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 24;
+  private static final int SLOT_BYTES = 24;
+
+  /** Maximum size of one lazily mapped payload window. */
+  private static final long WINDOW = 1L << 30;
+
+  private final FileChannel channel;
+  private final MappedByteBuffer index;
+  private final int count;
+  private final String meta;
+  private final int slotsStart;
+  private final int keysStart;
+  private final long dataStart;
+  private final long dataLength;
+  private final MappedByteBuffer[] windows;
+
+  private SortedKeyFile(FileChannel channel) throws IOException {
+    this.channel = channel;
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    channel.read(header, 0);
+    header.flip();
+    if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+      throw new IOException("Not a sorted key file");
+    }
+    int version = header.getInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported sorted key file version: " + version);
+    }
+    this.count = header.getInt();
+    int metaLen = header.getInt();
+    long keysLen = header.getLong();
+
+    long indexBytes = HEADER_BYTES + (long) metaLen + (long) count * SLOT_BYTES + keysLen;
+    if (count < 0 || metaLen < 0 || keysLen < 0 || indexBytes > Integer.MAX_VALUE) {
+      throw new IOException("Corrupt or oversized sorted key file header");
+    }
+    if (indexBytes > channel.size()) {
+      throw new IOException("Truncated sorted key file");
+    }
+
+    this.index = channel.map(FileChannel.MapMode.READ_ONLY, 0, indexBytes);
+    byte[] metaBytes = new byte[metaLen];
+    index.get(HEADER_BYTES, metaBytes);
+    this.meta = new String(metaBytes, StandardCharsets.UTF_8);
+
+    this.slotsStart = HEADER_BYTES + metaLen;
+    this.keysStart = slotsStart + count * SLOT_BYTES;
+    this.dataStart = indexBytes;
+    this.dataLength = channel.size() - indexBytes;
+    this.windows = new MappedByteBuffer[(int) ((dataLength + WINDOW - 1) / WINDOW)];
+  }
+
+  /**
+   * Opens a sorted key file for reading.
+   *
+   * @param file file written by a {@link Writer}
+   * @return opened file
+   * @throws IOException if the file cannot be read or is not a sorted key file
+   */
+  public static SortedKeyFile open(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      return new SortedKeyFile(channel);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Checks whether a file starts with the sorted key file magic.
+   *
+   * @param file file to inspect
+   * @return {@code true} if the file looks like a sorted key file
+   */
+  public static boolean isSortedKeyFile(Path file) {
+    try (InputStream in = Files.newInputStream(file)) {
+      byte[] magic = in.readNBytes(4);
+      return magic.length == 4 && ByteBuffer.wrap(magic).getInt() == MAGIC;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Creates a writer that publishes its output to the given file on commit.
+   *
+   * @param target destination file
+   * @param meta free-form metadata stored in the header
+   * @return new writer
+   * @throws IOException if the temporary payload file cannot be created
+   */
+  public static Writer writer(Path target, String meta) throws IOException {
+    return new Writer(target, meta);
+  }
+
+  /**
+   * Returns the number of entries in the file.
+   *
+   * @return entry count
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Returns the metadata stored in the header.
+   *
+   * @return metadata string
+   */
+  public String meta() {
+    return meta;
+  }
+
+  /**
+   * Looks up the payload stored under a key.
+   *
+   * @param key key to look up
+   * @return read-only view of the payload, or empty if the key is absent
+   */
+  public Optional<ByteBuffer> get(String key) {
+    byte[] k = key.getBytes(StandardCharsets.UTF_8);
+    int lo = 0;
+    int hi = count - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int cmp = compareKeyAt(mid, k);
+      if (cmp < 0) {
+        lo = mid + 1;
+      } else if (cmp > 0) {
+        hi = mid - 1;
+      } else {
+        return Optional.of(valueAt(mid));
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Returns the payload stored under a key as a byte array.
+   *
+   * @param key key to look up
+   * @return payload bytes, or {@code null} if the key is absent
+   */
+  public byte @Nullable [] getBytes(String key) {
+    Optional<ByteBuffer> value = get(key);
+    if (value.isEmpty()) return null;
+    ByteBuffer buf = value.get();
+    byte[] bytes = new byte[buf.remaining()];
+    buf.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Returns the key stored in a slot. Slots are ordered by the unsigned UTF-8 bytes of their keys.
+   *
+   * @param i slot index, {@code 0 <= i < size()}
+   * @return key of the slot
+   */
+  public String keyAt(int i) {
+    int slot = slotsStart + checkIndex(i) * SLOT_BYTES;
+    int off = keysStart + (int) index.getLong(slot);
+    byte[] k = new byte[index.getInt(slot + 8)];
+    index.get(off, k);
+    return new String(k, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns the payload stored in a slot.
+   *
+   * @param i slot index, {@code 0 <= i < size()}
+   * @return read-only view of the payload
+   */
+  public ByteBuffer valueAt(int i) {
+    int slot = slotsStart + checkIndex(i) * SLOT_BYTES;
+    long off = index.getLong(slot + 12);
+    int len = index.getInt(slot + 20);
+    if (off < 0 || len < 0 || off + len > dataLength) {
+      throw new IllegalStateException("Corrupt slot " + i);
+    }
+
+    int w = (int) (off / WINDOW);
+    long inWindow = off - w * WINDOW;
+    if (inWindow + len <= WINDOW) {
+      return window(w).slice((int) inWindow, len).asReadOnlyBuffer();
+    }
+
+    // the payload crosses a window boundary; copy it out instead of mapping both windows
+    ByteBuffer buf = ByteBuffer.allocate(len);
+    try {
+      long pos = dataStart + off;
+      while (buf.hasRemaining()) {
+        if (channel.read(buf, pos + buf.position()) < 0) break;
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read payload " + i, e);
+    }
+    buf.flip();
+    return buf.asReadOnlyBuffer();
+  }
+
+  private int checkIndex(int i) {
+    if (i < 0 || i >= count) throw new IndexOutOfBoundsException(i);
+    return i;
+  }
+
+  /**
+   * Compares the key in a slot with the given key bytes, as unsigned bytes.
+   *
+   * @param i slot index
+   * @param k key bytes
+   * @return negative, zero or positive as the slot key is less than, equal to or greater than
+   *     {@code k}
+   */
+  private int compareKeyAt(int i, byte[] k) {
+    int slot = slotsStart + i * SLOT_BYTES;
+    int off = keysStart + (int) index.getLong(slot);
+    int len = index.getInt(slot + 8);
+    int n = Math.min(len, k.length);
+    for (int j = 0; j < n; j++) {
+      int cmp = Byte.compareUnsigned(index.get(off + j), k[j]);
+      if (cmp != 0) return cmp;
+    }
+    return Integer.compare(len, k.length);
+  }
+
+  private synchronized MappedByteBuffer window(int w) {
+    MappedByteBuffer mapped = windows[w];
+    if (mapped == null) {
+      long start = w * WINDOW;
+      try {
+        mapped =
+            channel.map(
+                FileChannel.MapMode.READ_ONLY,
+                dataStart + start,
+                Math.min(WINDOW, dataLength - start));
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to map payload window " + w, e);
+      }
+      windows[w] = mapped;
+    }
+    return mapped;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Streaming writer for a {@link SortedKeyFile}.
+   *
+   * <p>Payloads are appended to a temporary file as they arrive; only keys and offsets are kept in
+   * memory. {@link #commit()} sorts the keys, assembles the final file next to the target and moves
+   * it into place atomically. Closing a writer that was not committed discards its output.
+   */
+  public static final class Writer implements Closeable {
+
+    private final Path target;
+    private final byte[] meta;
+    private final Path payloads;
+    private final OutputStream payloadOut;
+    private final List<Entry> entries = new ArrayList<>();
+    private long dataLen = 0;
+    private boolean open = false;
+    private boolean done = false;
+
+    private Writer(Path target, String meta) throws IOException {
+      this.target = target.toAbsolutePath();
+      this.meta = meta.getBytes(StandardCharsets.UTF_8);
+      Path dir = this.target.getParent();
+      Files.createDirectories(dir);
+      this.payloads = Files.createTempFile(dir, this.target.getFileName().toString(), ".data");
+      this.payloadOut = new BufferedOutputStream(Files.newOutputStream(payloads));
+    }
+
+    /**
+     * Adds an entry.
+     *
+     * @param key entry key; must be unique within the file
+     * @param value payload bytes
+     * @throws IOException if the payload cannot be written
+     */
+    public void put(String key, byte[] value) throws IOException {
+      try (OutputStream out = entry(key)) {
+        out.write(value);
+      }
+    }
+
+    /**
+     * Adds an entry whose payload is streamed rather than held in memory. The entry is recorded
+     * when the returned stream is closed; only one entry may be open at a time.
+     *
+     * @param key entry key; must be unique within the file
+     * @return stream receiving the payload bytes
+     */
+    public OutputStream entry(String key) {
+      if (done) throw new IllegalStateException("Writer already closed");
+      if (open) throw new IllegalStateException("Previous entry still open");
+      open = true;
+      byte[] k = key.getBytes(StandardCharsets.UTF_8);
+      long start = dataLen;
+      return new OutputStream() {
+        private boolean closed = false;
+
+        @Override
+        public void write(int b) throws IOException {
+          payloadOut.write(b);
+          dataLen++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+          payloadOut.write(b, off, len);
+          dataLen += len;
+        }
+
+        @Override
+        public void close() {
+          if (closed) return;
+          closed = true;
+          open = false;
+          long len = dataLen - start;
+          if (len > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Payload too large for key: " + key);
+          }
+          entries.add(new Entry(k, start, (int) len));
+        }
+      };
+    }
+
+    /**
+     * Sorts the entries, writes the final file and atomically replaces the target with it.
+     *
+     * @throws IOException if writing or moving the file fails
+     * @throws IllegalArgumentException if a key was added more than once
+     */
+    public void commit() throws IOException {
+      if (done) throw new IllegalStateException("Writer already closed");
+      if (open) throw new IllegalStateException("Entry still open");
+      payloadOut.close();
+
+      entries.sort((a, b) -> Arrays.compareUnsigned(a.key(), b.key()));
+      long keysLen = 0;
+      for (int i = 0; i < entries.size(); i++) {
+        if (i > 0 && Arrays.equals(entries.get(i - 1).key(), entries.get(i).key())) {
+          discard();
+          throw new IllegalArgumentException(
+              "Duplicate key: " + new String(entries.get(i).key(), StandardCharsets.UTF_8));
+        }
+        keysLen += entries.get(i).key().length;
+      }
+
+      Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+      try {
+        try (DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+          out.writeInt(MAGIC);
+          out.writeInt(VERSION);
+          out.writeInt(entries.size());
+          out.writeInt(meta.length);
+          out.writeLong(keysLen);
+          out.write(meta);
+
+          long keyOff = 0;
+          for (Entry e : entries) {
+            out.writeLong(keyOff);
+            out.writeInt(e.key().length);
+            out.writeLong(e.dataOff());
+            out.writeInt(e.dataLen());
+            keyOff += e.key().length;
+          }
+          for (Entry e : entries) {
+            out.write(e.key());
+          }
+          Files.copy(payloads, out);
+        }
+
+        try {
+          Files.move(
+              tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+      } finally {
+        Files.deleteIfExists(tmp);
+        discard();
+      }
+    }
+
+    /** Discards the temporary payload file. */
+    private void discard() throws IOException {
+      done = true;
+      payloadOut.close();
+      Files.deleteIfExists(payloads);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!done) discard();
+    }
+
+    /** Key bytes and payload location of one entry. */
+    private record Entry(byte[] key, long dataOff, int dataLen) {}
+  }
+}
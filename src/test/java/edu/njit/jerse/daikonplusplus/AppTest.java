@@ -42,7 +42,7 @@ final class AppTest {
         invokePrivateStatic(
             App.class, "keyFor", new Class<?>[] {ProgramPoint.class, String.class}, pt, messyExpr);
 
-    assertEquals("METHOD_ENTRY|SomeElementId(sig=foo)|x == 42 && y!=null", key);
+    assertEquals("METHOD_ENTRY|SomeElementId(sig=foo)|x == 42 && y != null", key);
   }
 
   // ---------- parseRegistryLite ----------
@@ -0,0 +1,69 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifies that {@link CachingLlmClient} only forwards prompts it has not answered before for the
+ * same model and strategy, survives a restart through its on-disk store, and bounds that store.
+ */
+public class CachingLlmClientTest {
+
+  /** Live client stand-in that echoes the user prompt and counts calls. */
+  private static final class CountingClient implements LlmClient {
+    final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public List<LlmInvariantGenerator.InvariantsOut.Item> complete(String system, String user) {
+      calls.incrementAndGet();
+      var item = new LlmInvariantGenerator.InvariantsOut.Item();
+      item.expression = user;
+      return List.of(item);
+    }
+  }
+
+  @Test
+  void repeatedPromptsAreServedFromCache(@TempDir Path dir) throws Exception {
+    CountingClient live = new CountingClient();
+    CachingLlmClient cache = new CachingLlmClient(live, dir, "m", "baseline", null, 100);
+
+    assertEquals("x > 0", cache.complete("sys", "x > 0").get(0).expression);
+    assertEquals("x > 0", cache.complete("sys", "x > 0").get(0).expression);
+    cache.complete("sys", "y > 0");
+    assertEquals(2, live.calls.get());
+
+    // a fresh client over the same directory reads the persisted responses
+    CachingLlmClient restarted = new CachingLlmClient(live, dir, "m", "baseline", null, 100);
+    assertEquals("y > 0", restarted.complete("sys", "y > 0").get(0).expression);
+    assertEquals(2, live.calls.get());
+  }
+
+  @Test
+  void modelAndStrategyArePartOfTheKey(@TempDir Path dir) throws Exception {
+    CountingClient live = new CountingClient();
+    new CachingLlmClient(live, dir, "m1", "baseline", null, 100).complete("sys", "x > 0");
+    new CachingLlmClient(live, dir, "m2", "baseline", null, 100).complete("sys", "x > 0");
+    new CachingLlmClient(live, dir, "m1", "few-shot", null, 100).complete("sys", "x > 0");
+
+    assertEquals(3, live.calls.get());
+  }
+
+  @Test
+  void diskStoreIsBoundedByMaxEntries(@TempDir Path dir) throws Exception {
+    CachingLlmClient cache = new CachingLlmClient(new CountingClient(), dir, "m", "s", null, 5);
+    for (int i = 0; i < 20; i++) cache.complete("sys", "x > " + i);
+
+    try (Stream<Path> files = Files.list(dir)) {
+      assertTrue(files.count() <= 5);
+    }
+    assertTrue(CachingLlmClient.evicted() >= 15);
+  }
+}
@@ -0,0 +1,81 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifies that a packed cassette directory replays the same responses as its loose JSON files,
+ * that compaction keeps only cassettes listed in a hit log, and that replay records its hits.
+ */
+public class CassettePackTest {
+
+  private static void record(Path dir, String user, String expression) throws Exception {
+    var item = new LlmInvariantGenerator.InvariantsOut.Item();
+    item.expression = expression;
+    var out = new LlmInvariantGenerator.InvariantsOut();
+    out.invariants = List.of(item);
+    Cassette.write(dir, Cassette.key("sys", user), out);
+  }
+
+  private static void deleteJson(Path dir) throws IOException {
+    try (var files = Files.list(dir)) {
+      for (Path f : files.filter(p -> p.toString().endsWith(".json")).toList()) Files.delete(f);
+    }
+  }
+
+  @Test
+  void packedCassettesReplayWithoutJsonFiles(@TempDir Path dir) throws Exception {
+    record(dir, "a", "x > 0");
+    record(dir, "b", "y != null");
+
+    assertEquals(2, CassettePack.pack(dir, null).size());
+    deleteJson(dir);
+
+    ReplayingLlmClient replay = new ReplayingLlmClient(dir);
+    assertEquals("x > 0", replay.complete("sys", "a").get(0).expression);
+    assertEquals("y != null", replay.complete("sys", "b").get(0).expression);
+    assertThrows(IOException.class, () -> replay.complete("sys", "c"));
+  }
+
+  @Test
+  void looseFilesAreMergedIntoExistingPack(@TempDir Path dir) throws Exception {
+    record(dir, "a", "x > 0");
+    CassettePack.pack(dir, null);
+    deleteJson(dir);
+
+    record(dir, "a", "x >= 0");
+    record(dir, "b", "y != null");
+    CassettePack.pack(dir, null);
+    deleteJson(dir);
+
+    ReplayingLlmClient replay = new ReplayingLlmClient(dir);
+    assertEquals("x >= 0", replay.complete("sys", "a").get(0).expression);
+    assertEquals("y != null", replay.complete("sys", "b").get(0).expression);
+  }
+
+  @Test
+  void compactionKeepsOnlyHitCassettes(@TempDir Path dir) throws Exception {
+    record(dir, "a", "x > 0");
+    record(dir, "b", "y != null");
+    Path hits = dir.resolve("hits.txt");
+
+    ReplayingLlmClient replay = new ReplayingLlmClient(dir, hits);
+    replay.complete("sys", "b");
+    replay.complete("sys", "b");
+    assertEquals(List.of(Cassette.key("sys", "b")), Files.readAllLines(hits));
+
+    Set<String> kept = CassettePack.pack(dir, Set.copyOf(Files.readAllLines(hits)));
+    assertEquals(Set.of(Cassette.key("sys", "b")), kept);
+    try (CassettePack pack = CassettePack.open(dir.resolve(CassettePack.FILE_NAME))) {
+      assertEquals(1, pack.size());
+    }
+  }
+}
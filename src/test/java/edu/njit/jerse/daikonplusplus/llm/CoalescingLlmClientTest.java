@@ -0,0 +1,102 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that {@link CoalescingLlmClient} sends concurrent identical prompts once, shares the
+ * outcome with every waiting caller, and releases the prompt once the call completes.
+ */
+public class CoalescingLlmClientTest {
+
+  /** Client stand-in whose calls stay pending until the test completes them. */
+  private static final class PendingClient implements LlmClient {
+    final List<CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>>> calls =
+        new ArrayList<>();
+
+    @Override
+    public List<LlmInvariantGenerator.InvariantsOut.Item> complete(String system, String user) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeAsync(
+        String system, String user) {
+      var f = new CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>>();
+      calls.add(f);
+      return f;
+    }
+  }
+
+  private static List<LlmInvariantGenerator.InvariantsOut.Item> items(String expr) {
+    var item = new LlmInvariantGenerator.InvariantsOut.Item();
+    item.expression = expr;
+    return List.of(item);
+  }
+
+  @Test
+  void identicalPendingPromptsShareOneCall() {
+    PendingClient live = new PendingClient();
+    CoalescingLlmClient client = new CoalescingLlmClient(live);
+
+    var a = client.completeAsync("sys", "x > 0");
+    var b = client.completeAsync("sys", "x > 0");
+    var other = client.completeAsync("sys", "y > 0");
+    assertEquals(2, live.calls.size());
+
+    live.calls.get(0).complete(items("x > 0"));
+    assertSame(a.join().get(0), b.join().get(0));
+    assertFalse(other.isDone());
+
+    // the key is released once the call completes
+    client.completeAsync("sys", "x > 0");
+    assertEquals(3, live.calls.size());
+  }
+
+  @Test
+  void failureIsSharedAndCancellationIsNot() {
+    PendingClient live = new PendingClient();
+    CoalescingLlmClient client = new CoalescingLlmClient(live);
+
+    var a = client.completeAsync("sys", "x > 0");
+    var b = client.completeAsync("sys", "x > 0");
+    var c = client.completeAsync("sys", "x > 0");
+    a.cancel(true);
+    assertEquals(1, live.calls.size());
+
+    live.calls.get(0).completeExceptionally(new IOException("HTTP 500"));
+    for (var f : List.of(b, c)) {
+      CompletionException e = assertThrows(CompletionException.class, f::join);
+      assertTrue(e.getCause() instanceof IOException);
+    }
+  }
+
+  @Test
+  void callIsCancelledOnceEveryCallerCancels() {
+    PendingClient live = new PendingClient();
+    CoalescingLlmClient client = new CoalescingLlmClient(live);
+
+    var a = client.completeAsync("sys", "x > 0");
+    var b = client.completeAsync("sys", "x > 0");
+    // cancelling reports whether the call itself stopped, e.g. to count an ensemble's savings
+    assertFalse(client.cancel(a));
+    assertFalse(live.calls.get(0).isCancelled());
+
+    assertTrue(client.cancel(b));
+    assertTrue(live.calls.get(0).isCancelled());
+
+    // the cancelled call is released, so the next request starts a new one
+    client.completeAsync("sys", "x > 0");
+    assertEquals(2, live.calls.size());
+  }
+}
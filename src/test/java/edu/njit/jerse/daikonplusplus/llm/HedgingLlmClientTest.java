@@ -0,0 +1,154 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that {@link HedgingLlmClient} duplicates a request only once its latency history is
+ * known, answers with the first successful copy, and cancels the copy that lost. Hedges go through
+ * the rate limiter, and time spent in its queue does not count towards the threshold.
+ */
+public class HedgingLlmClientTest {
+
+  /**
+   * Client stand-in whose calls stay pending until the test completes them, unless it is set to
+   * answer immediately.
+   */
+  private static final class PendingClient implements LlmClient {
+    final List<CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>>> calls =
+        new CopyOnWriteArrayList<>();
+    final List<Runnable> queued = new CopyOnWriteArrayList<>();
+    volatile boolean instant;
+    volatile boolean queueing;
+
+    @Override
+    public List<LlmInvariantGenerator.InvariantsOut.Item> complete(String system, String user) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeAsync(
+        String system, String user) {
+      if (instant) return CompletableFuture.completedFuture(items("x > 0"));
+      var f = new CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>>();
+      calls.add(f);
+      return f;
+    }
+
+    /** Holds back the send notification while {@code queueing}, like a rate limiter queue. */
+    @Override
+    public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeAsync(
+        String system, String user, Runnable onSend) {
+      if (queueing) {
+        queued.add(onSend);
+      } else {
+        onSend.run();
+      }
+      return completeAsync(system, user);
+    }
+
+    /** Waits until the number of calls received reaches {@code n}. */
+    void awaitCalls(int n) throws InterruptedException {
+      for (int i = 0; i < 500 && calls.size() < n; i++) Thread.sleep(10);
+      assertEquals(n, calls.size());
+    }
+  }
+
+  private static List<LlmInvariantGenerator.InvariantsOut.Item> items(String expr) {
+    var item = new LlmInvariantGenerator.InvariantsOut.Item();
+    item.expression = expr;
+    return List.of(item);
+  }
+
+  /** Answers enough requests immediately to establish a latency threshold. */
+  private static void warmUp(PendingClient live, LlmClient client) {
+    live.instant = true;
+    for (int i = 0; i < 30; i++) client.completeAsync("sys", "warm " + i).join();
+    live.instant = false;
+  }
+
+  @Test
+  void noHedgeWithoutLatencyHistory() throws InterruptedException {
+    PendingClient live = new PendingClient();
+    HedgingLlmClient client = new HedgingLlmClient(live, 90);
+
+    var f = client.completeAsync("sys", "x > 0");
+    Thread.sleep(100);
+    assertEquals(1, live.calls.size());
+    assertFalse(f.isDone());
+  }
+
+  @Test
+  void slowRequestIsHedgedAndLoserCancelled() throws InterruptedException {
+    PendingClient live = new PendingClient();
+    HedgingLlmClient client = new HedgingLlmClient(live, 90);
+    warmUp(live, client);
+
+    var f = client.completeAsync("sys", "slow");
+    live.awaitCalls(2);
+    var primary = live.calls.get(0);
+    var hedge = live.calls.get(1);
+
+    hedge.complete(items("y > 0"));
+    assertEquals("y > 0", f.join().get(0).expression);
+    assertTrue(primary.isCancelled());
+  }
+
+  @Test
+  void failedCopyDoesNotFailRequestWhileOtherIsPending() throws InterruptedException {
+    PendingClient live = new PendingClient();
+    HedgingLlmClient client = new HedgingLlmClient(live, 90);
+    warmUp(live, client);
+
+    var f = client.completeAsync("sys", "slow");
+    live.awaitCalls(2);
+
+    live.calls.get(0).completeExceptionally(new IOException("HTTP 503"));
+    assertFalse(f.isDone());
+    live.calls.get(1).complete(items("y > 0"));
+    assertEquals("y > 0", f.join().get(0).expression);
+  }
+
+  @Test
+  void queueingTimeDoesNotTriggerAHedge() throws InterruptedException {
+    PendingClient live = new PendingClient();
+    HedgingLlmClient client = new HedgingLlmClient(live, 90);
+    warmUp(live, client);
+
+    live.queueing = true;
+    var f = client.completeAsync("sys", "queued");
+    Thread.sleep(100);
+    assertEquals(1, live.calls.size());
+
+    live.queued.forEach(Runnable::run);
+    live.awaitCalls(2);
+    live.calls.get(1).complete(items("y > 0"));
+    assertEquals("y > 0", f.join().get(0).expression);
+  }
+
+  @Test
+  void hedgesWaitForTheRateLimiter() throws InterruptedException {
+    PendingClient live = new PendingClient();
+    LlmClient limited = new RateLimitedLlmClient(live, 0, 0, 1, 1, 0, Duration.ofMinutes(1));
+    HedgingLlmClient client = new HedgingLlmClient(limited, 90);
+    warmUp(live, client);
+
+    var f = client.completeAsync("sys", "slow");
+    Thread.sleep(100);
+    // the hedge waits for the only concurrency slot, which the primary holds
+    assertEquals(1, live.calls.size());
+
+    live.calls.get(0).complete(items("x > 0"));
+    assertEquals("x > 0", f.join().get(0).expression);
+    // a hedge that got the slot as the primary released it is cancelled at once
+    for (var call : live.calls.subList(1, live.calls.size())) assertTrue(call.isCancelled());
+  }
+}
@@ -0,0 +1,86 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that {@link InvariantsJson} parses clean model output as is and salvages the complete
+ * invariants of malformed output.
+ */
+public class InvariantsJsonTest {
+
+  private static List<String> expressions(String content) {
+    return InvariantsJson.parse(content).stream().map(i -> i.expression).toList();
+  }
+
+  @Test
+  void cleanOutputIsParsedWithoutSalvage() {
+    long before = InvariantsJson.salvaged();
+
+    assertEquals(
+        List.of("x > 0", "y != null"),
+        expressions(
+            "{\"invariants\": [{\"expression\": \"x > 0\"}, {\"expression\": \"y != null\"}]}"));
+    assertEquals(List.of(), expressions("  "));
+    assertEquals(before, InvariantsJson.salvaged());
+  }
+
+  @Test
+  void proseFencesAndTruncationAreSalvaged() {
+    long before = InvariantsJson.salvaged();
+
+    String fenced =
+        "Here are the invariants:\n```json\n"
+            + "{\"invariants\": [{\"expression\": \"x > 0\"},"
+            + " {\"expression\": \"s.length() > 1\"}]}"
+            + "\n```";
+    assertEquals(List.of("x > 0", "s.length() > 1"), expressions(fenced));
+
+    // output cut off inside the third invariant keeps the first two
+    String truncated =
+        "{\"invariants\": [{\"expression\": \"a <= b\"}, {\"expression\": \"b < 10\"},"
+            + " {\"expression\": \"a >";
+    assertEquals(List.of("a <= b", "b < 10"), expressions(truncated));
+
+    assertEquals(before + 2, InvariantsJson.salvaged());
+  }
+
+  @Test
+  void onlyTheBatchSchemaAsksForPointLabels() {
+    String itemProperties = "/properties/invariants/items/properties";
+    assertFalse(InvariantsJson.SCHEMA.at(itemProperties).has("point"));
+    assertTrue(InvariantsJson.BATCH_SCHEMA.at(itemProperties).has("point"));
+    assertSame(InvariantsJson.SCHEMA, InvariantsJson.schema(false));
+    assertSame(InvariantsJson.BATCH_SCHEMA, InvariantsJson.schema(true));
+
+    List<LlmInvariantGenerator.InvariantsOut.Item> items =
+        InvariantsJson.parse(
+            "{\"invariants\": [{\"point\": \"P2\", \"expression\": \"x > 0\"}]}");
+    assertEquals("P2", LlmInvariantGenerator.pointLabel(items.get(0)));
+    assertNull(LlmInvariantGenerator.pointLabel(new LlmInvariantGenerator.InvariantsOut.Item()));
+  }
+
+  @Test
+  void schemasDescribeEveryItemField() {
+    String itemProperties = "/properties/invariants/items/properties";
+    for (String field : List.of("expression", "rationale", "meta")) {
+      assertTrue(InvariantsJson.SCHEMA.at(itemProperties).has(field), field);
+      assertTrue(InvariantsJson.BATCH_SCHEMA.at(itemProperties).has(field), field);
+    }
+    String metaValue = itemProperties + "/meta/items/properties/value/type";
+    assertEquals("string", InvariantsJson.SCHEMA.at(metaValue).asText());
+
+    List<LlmInvariantGenerator.InvariantsOut.Item> items =
+        InvariantsJson.parse(
+            "{\"invariants\": [{\"expression\": \"x > 0\", \"rationale\": \"guarded\","
+                + " \"meta\": [{\"key\": \"source\", \"value\": \"javadoc\"}]}]}");
+    assertEquals("guarded", items.get(0).rationale);
+    assertEquals("javadoc", items.get(0).meta.get(0).value);
+  }
+}
@@ -0,0 +1,179 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.njit.jerse.daikonplusplus.App.FilterStats;
+import edu.njit.jerse.daikonplusplus.config.DpConfig;
+import edu.njit.jerse.daikonplusplus.llm.prompt.PromptContext;
+import edu.njit.jerse.daikonplusplus.model.InvariantSpec;
+import edu.njit.jerse.daikonplusplus.model.ProgramElementId;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointImpl;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that a batched request is sent once and that its invariants are fanned back out to the
+ * points they are tagged with, and that a streamed response is stopped once enough invariants are
+ * kept. Cancelling a proposal, as done at the phase deadline, cancels its request.
+ */
+public class LlmInvariantGeneratorTest {
+
+  /** Client stand-in that answers with fixed tagged items and records the prompts it receives. */
+  private static final class TaggedClient implements LlmClient {
+    final List<String> prompts = new ArrayList<>();
+
+    @Override
+    public synchronized List<LlmInvariantGenerator.InvariantsOut.Item> complete(
+        String system, String user) {
+      prompts.add(user);
+      return List.of(item("P1", "a >= 0"), item("p2", "result >= a"), item("P9", "b >= 0"));
+    }
+  }
+
+  private static LlmInvariantGenerator.InvariantsOut.Item item(String point, String expr) {
+    var it = new LlmInvariantGenerator.BatchInvariantsOut.Item();
+    it.point = point;
+    it.expression = expr;
+    return it;
+  }
+
+  /** Client stand-in that streams items one by one and records how many were pulled. */
+  private static final class StreamingClient implements LlmClient {
+    int streamed;
+
+    @Override
+    public List<LlmInvariantGenerator.InvariantsOut.Item> complete(String system, String user) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeStreaming(
+        String system, String user, Predicate<LlmInvariantGenerator.InvariantsOut.Item> onItem) {
+      List<LlmInvariantGenerator.InvariantsOut.Item> sent = new ArrayList<>();
+      for (String expr : List.of("a >= 0", "a >= 0", "b >= 0", "a <= b", "b <= 100")) {
+        var it = item("", expr);
+        sent.add(it);
+        streamed++;
+        if (!onItem.test(it)) break;
+      }
+      return CompletableFuture.completedFuture(sent);
+    }
+  }
+
+  private static final ProgramElementId ADD =
+      ProgramElementId.forMethod(
+          "com.example", "MathUtils", "", "MathUtils.java", "add(int,int):int");
+
+  @Test
+  void streamStopsOnceEnoughInvariantsAreKept() {
+    System.setProperty("dp.llmStream", "true");
+    try {
+      StreamingClient client = new StreamingClient();
+      LlmInvariantGenerator gen = new LlmInvariantGenerator(DpConfig.fromEnv(), client, 2);
+      FilterStats stats = new FilterStats();
+
+      List<InvariantSpec> specs =
+          gen.proposeInvariantsAsync(
+                  new ProgramPointImpl(ADD, ProgramPointKind.METHOD_ENTRY),
+                  Map.of("a", "int", "b", "int"),
+                  "return a + b;",
+                  null,
+                  null,
+                  null,
+                  null,
+                  null,
+                  null,
+                  stats)
+              .join();
+
+      assertEquals(
+          List.of("a >= 0", "b >= 0"), specs.stream().map(InvariantSpec::expression).toList());
+      assertEquals(3, client.streamed);
+      assertEquals(3, stats.rawFromLlm.get());
+      assertEquals(1, stats.dropPerPointDedup.get());
+    } finally {
+      System.clearProperty("dp.llmStream");
+    }
+  }
+
+  @Test
+  void cancellingAProposalCancelsItsRequest() {
+    CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> request =
+        new CompletableFuture<>();
+    LlmClient client =
+        new LlmClient() {
+          @Override
+          public List<LlmInvariantGenerator.InvariantsOut.Item> complete(
+              String system, String user) {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> completeAsync(
+              String system, String user) {
+            return request;
+          }
+        };
+    LlmInvariantGenerator gen = new LlmInvariantGenerator(DpConfig.fromEnv(), client, 2);
+
+    gen.proposeInvariantsAsync(
+            new ProgramPointImpl(ADD, ProgramPointKind.METHOD_ENTRY),
+            Map.of("a", "int", "b", "int"),
+            "return a + b;",
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            new FilterStats())
+        .cancel(true);
+
+    assertTrue(request.isCancelled());
+  }
+
+  @Test
+  void batchResponseIsFannedOutByPointLabel() {
+    TaggedClient client = new TaggedClient();
+    LlmInvariantGenerator gen = new LlmInvariantGenerator(DpConfig.fromEnv(), client, 5);
+    PromptContext entry =
+        gen.promptContext(
+            new ProgramPointImpl(ADD, ProgramPointKind.METHOD_ENTRY),
+            Map.of("a", "int", "b", "int"),
+            "return a + b;",
+            null,
+            null,
+            null,
+            null,
+            null,
+            null);
+    PromptContext exit =
+        gen.promptContext(
+            new ProgramPointImpl(ADD, ProgramPointKind.METHOD_EXIT),
+            Map.of("a", "int", "b", "int", "result", "int"),
+            "return a + b;",
+            null,
+            null,
+            null,
+            null,
+            null,
+            null);
+
+    FilterStats stats = new FilterStats();
+    List<List<InvariantSpec>> specs =
+        gen.proposeInvariantsBatchAsync(List.of(entry, exit), stats).join();
+
+    assertEquals(1, client.prompts.size());
+    assertTrue(client.prompts.get(0).contains("===== POINT P2 ====="));
+    assertEquals(List.of("a >= 0"), specs.get(0).stream().map(InvariantSpec::expression).toList());
+    assertEquals(
+        List.of("result >= a"), specs.get(1).stream().map(InvariantSpec::expression).toList());
+    assertEquals(1, stats.dropUnknownPoint.get());
+  }
+}
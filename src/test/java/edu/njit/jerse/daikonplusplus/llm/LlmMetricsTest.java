@@ -0,0 +1,128 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.njit.jerse.daikonplusplus.App.FilterStats;
+import edu.njit.jerse.daikonplusplus.config.DpConfig;
+import edu.njit.jerse.daikonplusplus.model.ProgramElementId;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointImpl;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
+import edu.njit.jerse.daikonplusplus.parse.context.ContextKind;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifies that {@link LlmMetrics} charges usage and retries to the request that caused them and
+ * records one line per request with its tokens, cost and yield.
+ */
+public class LlmMetricsTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final ProgramElementId ADD =
+      ProgramElementId.forMethod(
+          "com.example", "MathUtils", "", "MathUtils.java", "add(int,int):int");
+
+  @TempDir Path tmp;
+
+  private static List<JsonNode> lines(Path file) throws Exception {
+    List<JsonNode> out = new ArrayList<>();
+    for (String line : Files.readAllLines(file)) out.add(MAPPER.readTree(line));
+    return out;
+  }
+
+  @Test
+  void generatorRequestsAreRecordedWithTokensCostAndYield() throws Exception {
+    Path file = tmp.resolve("metrics.jsonl");
+    LlmClient client =
+        (system, user) -> {
+          LlmUsage.record(system, user, 1_000, 400, 200);
+          List<LlmInvariantGenerator.InvariantsOut.Item> items = new ArrayList<>();
+          for (String e : List.of("a >= 0", "b >= 0", "")) {
+            var item = new LlmInvariantGenerator.InvariantsOut.Item();
+            item.expression = e;
+            items.add(item);
+          }
+          return items;
+        };
+    LlmInvariantGenerator gen = new LlmInvariantGenerator(DpConfig.fromEnv(), client, 5);
+
+    LlmMetrics.start(file, 2.0, 0.5, 10.0);
+    try {
+      gen.proposeInvariants(
+          new ProgramPointImpl(ADD, ProgramPointKind.METHOD_ENTRY),
+          Map.of("a", "int", "b", "int"),
+          "return a + b;",
+          null,
+          null,
+          null,
+          null,
+          null,
+          null,
+          new FilterStats());
+    } finally {
+      LlmMetrics.finishRun();
+    }
+
+    List<JsonNode> lines = lines(file);
+    assertEquals(1, lines.size());
+    JsonNode line = lines.get(0);
+    assertEquals("METHOD_BODY+SCOPE", line.get("contexts").asText());
+    assertEquals("METHOD_ENTRY " + ADD, line.get("points").get(0).asText());
+    assertEquals(1_000, line.get("promptTokens").asLong());
+    assertEquals(400, line.get("cachedTokens").asLong());
+    assertEquals(200, line.get("completionTokens").asLong());
+    // 600 uncached at $2, 400 cached at $0.5 and 200 completion at $10 per million
+    assertEquals(0.0034, line.get("cost").asDouble(), 1e-9);
+    assertEquals(3, line.get("proposed").asInt());
+    assertEquals(2, line.get("kept").asInt());
+    assertFalse(line.get("failed").asBoolean());
+  }
+
+  @Test
+  void usageAndRetriesAreChargedToTheOldestOpenRequest() throws Exception {
+    Path file = tmp.resolve("metrics.jsonl");
+    LlmMetrics.start(file, 0, 0, 0);
+    try {
+      LlmMetrics.Request first =
+          LlmMetrics.begin(
+              "sys", List.of("user"), "S", Set.of(ContextKind.SCOPE), List.of("first"));
+      LlmMetrics.Request second =
+          LlmMetrics.begin("sys", List.of("user", "other"), "S", Set.of(), List.of("second"));
+
+      LlmMetrics.recordRetry("sys", "user");
+      LlmUsage.record("sys", "user", 10, 0, 5);
+      first.finish(1, 1, false);
+      LlmUsage.record("sys", "user", 20, 0, 7);
+      LlmUsage.record("sys", "other", 30, 0, 9);
+      assertEquals(2, LlmMetrics.openPrompts());
+      second.finish(4, 0, true);
+      assertEquals(0, LlmMetrics.openPrompts());
+      // nothing is open for this pair any more
+      LlmUsage.record("sys", "user", 100, 0, 100);
+    } finally {
+      LlmMetrics.finishRun();
+    }
+
+    List<JsonNode> lines = lines(file);
+    assertEquals(2, lines.size());
+    assertEquals("SCOPE", lines.get(0).get("contexts").asText());
+    assertEquals(1, lines.get(0).get("retries").asInt());
+    assertEquals(10, lines.get(0).get("promptTokens").asLong());
+    assertEquals("none", lines.get(1).get("contexts").asText());
+    assertEquals(2, lines.get(1).get("samples").asInt());
+    assertEquals(50, lines.get(1).get("promptTokens").asLong());
+    assertEquals(16, lines.get(1).get("completionTokens").asLong());
+    assertTrue(lines.get(1).get("failed").asBoolean());
+  }
+}
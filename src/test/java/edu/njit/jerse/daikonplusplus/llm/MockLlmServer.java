@@ -0,0 +1,386 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded HTTP server that stands in for an LLM endpoint, so that the real HTTP clients and the
+ * wrappers around them can be exercised and load-tested without network access.
+ *
+ * <p>Speaks the OpenAI chat completions protocol at {@code /v1/chat/completions} (full responses,
+ * {@code n} choices, and server-sent events) and the Ollama chat protocol at {@code /api/chat}
+ * (full and line-delimited streamed responses). Answers come from a source client, typically a
+ * {@link ReplayingLlmClient} over a cassette store; a prompt the source cannot answer gets a 404.
+ *
+ * <p>Every request is first delayed by a {@link Latency} draw and may then be answered with an
+ * injected fault: {@code 429} with {@code Retry-After: 0}, {@code 500}, or a malformed body (prose
+ * around the JSON and a truncated tail). Draws are seeded by the prompt and the number of earlier
+ * requests for it, so a run injects the same faults into the same requests however they
+ * interleave.
+ */
+final class MockLlmServer implements AutoCloseable {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /** Size of the content pieces of a streamed response. */
+  private static final int CHUNK = 16;
+
+  /** Distribution of the delay before a response. */
+  @FunctionalInterface
+  interface Latency {
+    /**
+     * Draws a delay.
+     *
+     * @param random source of randomness, seeded per request
+     * @return delay in milliseconds
+     */
+    long nextMs(Random random);
+
+    static Latency fixed(long ms) {
+      return random -> ms;
+    }
+
+    static Latency uniform(long minMs, long maxMs) {
+      return random -> minMs + (long) (random.nextDouble() * (maxMs - minMs));
+    }
+
+    /** Draws from {@code body}, except for a share {@code p} of stragglers from {@code tail}. */
+    static Latency withTail(Latency body, double p, Latency tail) {
+      return random -> random.nextDouble() < p ? tail.nextMs(random) : body.nextMs(random);
+    }
+  }
+
+  private final LlmClient source;
+  private final HttpServer server;
+  private final ExecutorService handlers = Executors.newCachedThreadPool();
+  private final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+
+  private volatile Latency latency = Latency.fixed(0);
+  private volatile double throttleRate;
+  private volatile double serverErrorRate;
+  private volatile double malformedRate;
+  private volatile long seed;
+  private volatile long chunkDelayMs;
+
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger peakInFlight = new AtomicInteger();
+  private final AtomicInteger throttled = new AtomicInteger();
+  private final AtomicInteger serverErrors = new AtomicInteger();
+  private final AtomicInteger malformed = new AtomicInteger();
+  private final AtomicInteger choices = new AtomicInteger();
+  private final AtomicInteger batchSchemas = new AtomicInteger();
+  private final AtomicInteger disconnects = new AtomicInteger();
+
+  /**
+   * Starts a server on a free loopback port.
+   *
+   * @param source client that answers the prompts
+   * @throws IOException if the server cannot be bound
+   */
+  MockLlmServer(LlmClient source) throws IOException {
+    this.source = source;
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/v1/chat/completions", exchange -> handle(exchange, true));
+    server.createContext("/api/chat", exchange -> handle(exchange, false));
+    server.setExecutor(handlers);
+    server.start();
+  }
+
+  /**
+   * Starts a server that answers from the cassettes in a directory.
+   *
+   * @param cassetteDir cassette store, with or without a {@link CassettePack}
+   * @return running server
+   * @throws IOException if the server cannot be bound
+   */
+  static MockLlmServer fromCassettes(Path cassetteDir) throws IOException {
+    return new MockLlmServer(new ReplayingLlmClient(cassetteDir));
+  }
+
+  /** Base URL of the server, e.g. for {@code dp.llmLocalUrl}; OpenAI clients append {@code /v1}. */
+  String url() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  MockLlmServer latency(Latency latency) {
+    this.latency = latency;
+    return this;
+  }
+
+  MockLlmServer throttleRate(double rate) {
+    this.throttleRate = rate;
+    return this;
+  }
+
+  MockLlmServer serverErrorRate(double rate) {
+    this.serverErrorRate = rate;
+    return this;
+  }
+
+  MockLlmServer malformedRate(double rate) {
+    this.malformedRate = rate;
+    return this;
+  }
+
+  MockLlmServer seed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  /** Pauses before each streamed chunk, like a model generating tokens. */
+  MockLlmServer chunkDelay(long ms) {
+    this.chunkDelayMs = ms;
+    return this;
+  }
+
+  int requests() {
+    return requests.get();
+  }
+
+  int peakInFlight() {
+    return peakInFlight.get();
+  }
+
+  int throttled() {
+    return throttled.get();
+  }
+
+  int serverErrors() {
+    return serverErrors.get();
+  }
+
+  int malformed() {
+    return malformed.get();
+  }
+
+  /** Responses cut short because the client closed the connection. */
+  int disconnects() {
+    return disconnects.get();
+  }
+
+  /** Requests whose response schema asks for the point label of each invariant. */
+  int batchSchemas() {
+    return batchSchemas.get();
+  }
+
+  /** Completions sampled by OpenAI requests, i.e. the sum of their {@code n}. */
+  int choices() {
+    return choices.get();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    handlers.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange, boolean openAi) throws IOException {
+    requests.incrementAndGet();
+    peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    try (exchange) {
+      JsonNode body = MAPPER.readTree(exchange.getRequestBody());
+      String system = "";
+      String user = "";
+      for (JsonNode message : body.path("messages")) {
+        switch (message.path("role").asText()) {
+          case "system" -> system = message.path("content").asText();
+          case "user" -> user = message.path("content").asText();
+          default -> {}
+        }
+      }
+      JsonNode schema =
+          openAi
+              ? body.path("response_format").path("json_schema").path("schema")
+              : body.path("format");
+      if (schema.at("/properties/invariants/items/properties").has("point")) {
+        batchSchemas.incrementAndGet();
+      }
+      String key = Cassette.key(system, user);
+      int attempt = attempts.computeIfAbsent(key, k -> new AtomicInteger()).getAndIncrement();
+      // mixed, since Random's first draws for nearby seeds are correlated
+      long mixed = new SplittableRandom(seed * 31 + key.hashCode()).split().nextLong() + attempt;
+      Random random = new Random(new SplittableRandom(mixed).nextLong());
+
+      Thread.sleep(latency.nextMs(random));
+
+      double fault = random.nextDouble();
+      if (fault < throttleRate) {
+        throttled.incrementAndGet();
+        exchange.getResponseHeaders().set("Retry-After", "0");
+        sendError(exchange, 429, "rate limited");
+        return;
+      }
+      fault -= throttleRate;
+      if (fault < serverErrorRate) {
+        serverErrors.incrementAndGet();
+        sendError(exchange, 500, "internal error");
+        return;
+      }
+      fault -= serverErrorRate;
+
+      List<LlmInvariantGenerator.InvariantsOut.Item> items;
+      try {
+        items = source.complete(system, user);
+      } catch (IOException e) {
+        sendError(exchange, 404, "no response recorded for key " + key);
+        return;
+      }
+      LlmInvariantGenerator.InvariantsOut out = new LlmInvariantGenerator.InvariantsOut();
+      out.invariants = items;
+      String content = MAPPER.writeValueAsString(out);
+      if (fault < malformedRate) {
+        malformed.incrementAndGet();
+        content = "Here are the invariants:\n" + content.substring(0, content.length() - 3);
+      }
+
+      long promptTokens = (system.length() + user.length()) / 4;
+      long completionTokens = content.length() / 4;
+      boolean stream = body.path("stream").asBoolean();
+      if (openAi) {
+        int n = Math.max(1, body.path("n").asInt(1));
+        choices.addAndGet(n);
+        if (stream) {
+          // like the API, usage is only streamed when the request asks for it
+          boolean usage = body.path("stream_options").path("include_usage").asBoolean();
+          streamOpenAi(exchange, content, n, usage, promptTokens, completionTokens);
+        } else {
+          sendOpenAi(exchange, content, n, promptTokens, completionTokens);
+        }
+      } else if (stream) {
+        streamOllama(exchange, content, promptTokens, completionTokens);
+      } else {
+        sendOllama(exchange, content, promptTokens, completionTokens);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      // the client went away, e.g. a cancelled hedge or a stopped stream
+      disconnects.incrementAndGet();
+    } finally {
+      inFlight.decrementAndGet();
+    }
+  }
+
+  private static void sendOpenAi(
+      HttpExchange exchange, String content, int n, long promptTokens, long completionTokens)
+      throws IOException {
+    ObjectNode root = MAPPER.createObjectNode().put("object", "chat.completion");
+    for (int i = 0; i < n; i++) {
+      ObjectNode choice = root.withArray("choices").addObject().put("index", i);
+      choice.putObject("message").put("role", "assistant").put("content", content);
+      choice.put("finish_reason", "stop");
+    }
+    root.set("usage", openAiUsage(promptTokens, completionTokens * n));
+    send(exchange, 200, MAPPER.writeValueAsString(root));
+  }
+
+  private void streamOpenAi(
+      HttpExchange exchange,
+      String content,
+      int n,
+      boolean usage,
+      long promptTokens,
+      long completionTokens)
+      throws IOException, InterruptedException {
+    exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+    exchange.sendResponseHeaders(200, 0);
+    OutputStream out = exchange.getResponseBody();
+    for (int start = 0; start < content.length(); start += CHUNK) {
+      String piece = content.substring(start, Math.min(content.length(), start + CHUNK));
+      Thread.sleep(chunkDelayMs);
+      for (int i = 0; i < n; i++) {
+        ObjectNode chunk = MAPPER.createObjectNode().put("object", "chat.completion.chunk");
+        ObjectNode choice = chunk.putArray("choices").addObject().put("index", i);
+        choice.putObject("delta").put("content", piece);
+        writeEvent(out, MAPPER.writeValueAsString(chunk));
+      }
+    }
+    if (usage) {
+      ObjectNode last = MAPPER.createObjectNode().put("object", "chat.completion.chunk");
+      last.putArray("choices");
+      last.set("usage", openAiUsage(promptTokens, completionTokens * n));
+      writeEvent(out, MAPPER.writeValueAsString(last));
+    }
+    writeEvent(out, "[DONE]");
+  }
+
+  private static ObjectNode openAiUsage(long promptTokens, long completionTokens) {
+    return MAPPER
+        .createObjectNode()
+        .put("prompt_tokens", promptTokens)
+        .put("completion_tokens", completionTokens)
+        .put("total_tokens", promptTokens + completionTokens);
+  }
+
+  private static void writeEvent(OutputStream out, String data) throws IOException {
+    out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+    out.flush();
+  }
+
+  private static void sendOllama(
+      HttpExchange exchange, String content, long promptTokens, long completionTokens)
+      throws IOException {
+    ObjectNode root = ollamaChunk(content, true);
+    root.put("prompt_eval_count", promptTokens).put("eval_count", completionTokens);
+    send(exchange, 200, MAPPER.writeValueAsString(root));
+  }
+
+  private void streamOllama(
+      HttpExchange exchange, String content, long promptTokens, long completionTokens)
+      throws IOException, InterruptedException {
+    exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+    exchange.sendResponseHeaders(200, 0);
+    OutputStream out = exchange.getResponseBody();
+    for (int start = 0; start < content.length(); start += CHUNK) {
+      String piece = content.substring(start, Math.min(content.length(), start + CHUNK));
+      Thread.sleep(chunkDelayMs);
+      writeLine(out, MAPPER.writeValueAsString(ollamaChunk(piece, false)));
+    }
+    ObjectNode done = ollamaChunk("", true);
+    done.put("prompt_eval_count", promptTokens).put("eval_count", completionTokens);
+    writeLine(out, MAPPER.writeValueAsString(done));
+  }
+
+  private static ObjectNode ollamaChunk(String content, boolean done) {
+    ObjectNode chunk = MAPPER.createObjectNode().put("model", "mock");
+    chunk.putObject("message").put("role", "assistant").put("content", content);
+    return chunk.put("done", done);
+  }
+
+  private static void writeLine(OutputStream out, String line) throws IOException {
+    out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+    out.flush();
+  }
+
+  private static void sendError(HttpExchange exchange, int status, String message)
+      throws IOException {
+    ObjectNode root = MAPPER.createObjectNode();
+    root.putObject("error").put("message", message);
+    send(exchange, status, MAPPER.writeValueAsString(root));
+  }
+
+  private static void send(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, bytes.length);
+    exchange.getResponseBody().write(bytes);
+  }
+}
@@ -0,0 +1,257 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.openai.client.okhttp.OpenAIOkHttpClient;
+import com.openai.models.ChatModel;
+import edu.njit.jerse.daikonplusplus.config.DpConfig;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Exercises the real HTTP clients, and the wrappers that guard them, against a {@link
+ * MockLlmServer} with injected latency and faults.
+ */
+public class MockLlmServerTest {
+
+  @TempDir Path tmp;
+
+  /** Source that echoes the user prompt as the only invariant. */
+  private static final LlmClient ECHO =
+      (system, user) -> {
+        var item = new LlmInvariantGenerator.InvariantsOut.Item();
+        item.expression = user;
+        return List.of(item);
+      };
+
+  private static DpConfig config(MockLlmServer server) {
+    System.setProperty("dp.llmLocalUrl", server.url());
+    System.setProperty("dp.llmCompatUrl", server.url() + "/v1");
+    System.setProperty("dp.llmCompatModel", "mock");
+    try {
+      return DpConfig.fromEnv();
+    } finally {
+      System.clearProperty("dp.llmLocalUrl");
+      System.clearProperty("dp.llmCompatUrl");
+      System.clearProperty("dp.llmCompatModel");
+    }
+  }
+
+  private static List<String> expressions(List<LlmInvariantGenerator.InvariantsOut.Item> items) {
+    return items.stream().map(i -> i.expression).toList();
+  }
+
+  @Test
+  void bothProtocolsServeCassettes() throws Exception {
+    var a = new LlmInvariantGenerator.InvariantsOut.Item();
+    a.expression = "x > 0";
+    var b = new LlmInvariantGenerator.InvariantsOut.Item();
+    b.expression = "y != null";
+    LlmInvariantGenerator.InvariantsOut out = new LlmInvariantGenerator.InvariantsOut();
+    out.invariants = List.of(a, b);
+    Cassette.write(tmp, Cassette.key("sys", "user"), out);
+
+    try (MockLlmServer server = MockLlmServer.fromCassettes(tmp)) {
+      DpConfig config = config(server);
+      List<LlmClient> clients =
+          List.of(new LocalLlmClient(config), new OpenAiCompatibleLlmClient(config));
+      for (LlmClient client : clients) {
+        assertEquals(List.of("x > 0", "y != null"), expressions(client.complete("sys", "user")));
+
+        List<String> streamed = new ArrayList<>();
+        client
+            .completeStreaming(
+                "sys",
+                "user",
+                item -> {
+                  streamed.add(item.expression);
+                  return true;
+                })
+            .join();
+        assertEquals(List.of("x > 0", "y != null"), streamed);
+      }
+      assertEquals(4, server.requests());
+    }
+  }
+
+  @Test
+  void ensembleSamplesAskForOneCompletionEach() throws Exception {
+    try (MockLlmServer server = new MockLlmServer(ECHO)) {
+      System.setProperty("dp.llmCompatN", "3");
+      LlmClient client;
+      try {
+        client = new OpenAiCompatibleLlmClient(config(server));
+      } finally {
+        System.clearProperty("dp.llmCompatN");
+      }
+
+      assertEquals(List.of("x > 0"), expressions(client.completeAsync("sys", "x > 0").join()));
+      assertEquals(3, server.choices());
+      assertEquals(List.of("x > 0"), expressions(client.completeSample("sys", "x > 0", 1).join()));
+      assertEquals(4, server.choices());
+    }
+  }
+
+  @Test
+  void batchSchemaIsChosenByTheCallNotThePrompt() throws Exception {
+    try (MockLlmServer server = new MockLlmServer(ECHO)) {
+      DpConfig config = config(server);
+      LlmClient compat =
+          new CoalescingLlmClient(
+              new HedgingLlmClient(
+                  new RateLimitedLlmClient(
+                      new OpenAiCompatibleLlmClient(config),
+                      0,
+                      0,
+                      8,
+                      8,
+                      20,
+                      Duration.ofMinutes(1),
+                      1),
+                  90));
+      for (LlmClient client : List.of(compat, new LocalLlmClient(config))) {
+        // the same prompt, sent once as a single point and once as a batch
+        client.completeAsync("sys", "x > 0").join();
+        client.completeBatch("sys", "x > 0").join();
+      }
+      assertEquals(4, server.requests());
+      assertEquals(2, server.batchSchemas());
+    }
+  }
+
+  @Test
+  void cancellingAStreamStopsReadingIt() throws Exception {
+    try (MockLlmServer server = new MockLlmServer(ECHO).chunkDelay(100)) {
+      DpConfig config = config(server);
+      // some thirty chunks, streamed over about three seconds
+      String user = "x".repeat(450);
+      for (LlmClient client :
+          List.of(new LocalLlmClient(config), new OpenAiCompatibleLlmClient(config))) {
+        CompletableFuture<?> streaming = client.completeStreaming("sys", user, item -> true);
+        Thread.sleep(300);
+        streaming.cancel(true);
+      }
+
+      // both responses are abandoned long before the server would have finished them
+      long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+      while (server.disconnects() < 2 && System.nanoTime() < deadline) Thread.sleep(20);
+      assertEquals(2, server.disconnects());
+    }
+  }
+
+  @Test
+  void sdkClientRecordsUsageWhileStreaming() throws Exception {
+    try (MockLlmServer server = new MockLlmServer(ECHO)) {
+      LlmClient client =
+          new RealOpenAILlmClient(
+              OpenAIOkHttpClient.builder()
+                  .baseUrl(server.url() + "/v1")
+                  .apiKey("test")
+                  .maxRetries(0)
+                  .build(),
+              ChatModel.of("mock"));
+      long responses = LlmUsage.responses();
+      long prompt = LlmUsage.promptTokens();
+
+      List<LlmInvariantGenerator.InvariantsOut.Item> items =
+          client.completeStreaming("sys", "x > 0", item -> true).join();
+      assertEquals(List.of("x > 0"), expressions(items));
+      // the mock streams usage only when the request asks for it
+      assertEquals(responses + 1, LlmUsage.responses());
+      assertTrue(LlmUsage.promptTokens() > prompt);
+    }
+  }
+
+  @Test
+  void rateLimiterAbsorbsInjectedThrottlesAndErrors() throws Exception {
+    try (MockLlmServer server =
+        new MockLlmServer(ECHO)
+            .seed(7)
+            .latency(MockLlmServer.Latency.uniform(1, 10))
+            .throttleRate(0.3)
+            .serverErrorRate(0.1)) {
+      LlmClient client =
+          new RateLimitedLlmClient(
+              new OpenAiCompatibleLlmClient(config(server)),
+              0,
+              0,
+              8,
+              8,
+              20,
+              Duration.ofMinutes(1),
+              1);
+
+      List<CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>>> futures =
+          new ArrayList<>();
+      for (int i = 0; i < 40; i++) futures.add(client.completeAsync("sys", "x > " + i));
+      for (int i = 0; i < 40; i++) {
+        assertEquals(List.of("x > " + i), expressions(futures.get(i).join()));
+      }
+
+      assertTrue(server.throttled() > 0);
+      assertTrue(server.serverErrors() > 0);
+      assertEquals(40 + server.throttled() + server.serverErrors(), server.requests());
+      assertTrue(server.peakInFlight() <= 8);
+    }
+  }
+
+  @Test
+  void malformedResponsesAreSalvaged() throws Exception {
+    try (MockLlmServer server = new MockLlmServer(ECHO).malformedRate(1)) {
+      long before = InvariantsJson.salvaged();
+      LlmClient client = new LocalLlmClient(config(server));
+
+      // the truncated tail loses the only invariant, but the response still parses
+      assertEquals(List.of(), client.complete("sys", "x > 0"));
+      assertEquals(before + 1, InvariantsJson.salvaged());
+      assertEquals(1, server.malformed());
+    }
+  }
+
+  @Test
+  void slowResponseFailsAtThePhaseDeadline() throws Exception {
+    MockLlmServer.Latency slow = MockLlmServer.Latency.fixed(5000);
+    try (MockLlmServer server = new MockLlmServer(ECHO).latency(slow)) {
+      LlmClient client = new OpenAiCompatibleLlmClient(config(server));
+      long start = System.nanoTime();
+      LlmDeadline.set(start + Duration.ofMillis(200).toNanos());
+      try {
+        CompletionException e =
+            assertThrows(
+                CompletionException.class, () -> client.completeAsync("sys", "x > 0").join());
+        assertInstanceOf(HttpTimeoutException.class, LlmIo.unwrap(e).getCause());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(4).toNanos());
+      } finally {
+        LlmDeadline.clear();
+      }
+    }
+  }
+
+  @Test
+  void hedgingCutsInjectedStragglers() throws Exception {
+    MockLlmServer.Latency stragglers =
+        MockLlmServer.Latency.withTail(
+            MockLlmServer.Latency.uniform(2, 6), 0.1, MockLlmServer.Latency.fixed(1000));
+    try (MockLlmServer server = new MockLlmServer(ECHO).seed(3).latency(stragglers)) {
+      long wins = HedgingLlmClient.hedgeWins();
+      LlmClient client = new HedgingLlmClient(new LocalLlmClient(config(server)), 90);
+
+      for (int i = 0; i < 60; i++) {
+        assertEquals(List.of("x > " + i), expressions(client.complete("sys", "x > " + i)));
+      }
+
+      // once warmed up, stragglers are answered by their hedge
+      assertTrue(HedgingLlmClient.hedgeWins() > wins);
+    }
+  }
+}
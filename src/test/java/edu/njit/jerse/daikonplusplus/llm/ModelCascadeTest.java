@@ -0,0 +1,172 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.njit.jerse.daikonplusplus.App.FilterStats;
+import edu.njit.jerse.daikonplusplus.config.DpConfig;
+import edu.njit.jerse.daikonplusplus.llm.prompt.PromptBatch;
+import edu.njit.jerse.daikonplusplus.llm.prompt.PromptContext;
+import edu.njit.jerse.daikonplusplus.model.InvariantSpec;
+import edu.njit.jerse.daikonplusplus.model.ProgramElementId;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointImpl;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifies that a cascade keeps the small model's invariants for points it handles well and
+ * escalates the others to the large model, merging the invariants of both.
+ */
+public class ModelCascadeTest {
+
+  private static final ProgramElementId ADD =
+      ProgramElementId.forMethod(
+          "com.example", "MathUtils", "", "MathUtils.java", "add(int,int):int");
+
+  private static final ProgramElementId SUB =
+      ProgramElementId.forMethod(
+          "com.example", "MathUtils", "", "MathUtils.java", "sub(int,int):int");
+
+  private static LlmInvariantGenerator.InvariantsOut.Item item(String point, String expression) {
+    var item = new LlmInvariantGenerator.BatchInvariantsOut.Item();
+    item.point = point;
+    item.expression = expression;
+    return item;
+  }
+
+  /** Small model that answers well for {@code sub} only, and poorly for {@code add}. */
+  private static final LlmClient SMALL =
+      (system, user) -> {
+        List<LlmInvariantGenerator.InvariantsOut.Item> items = new ArrayList<>();
+        if (user.contains("a - b")) {
+          items.add(item(PromptBatch.label(1), "a >= 0"));
+          items.add(item(PromptBatch.label(1), "b >= 0"));
+        }
+        if (user.contains("a + b")) {
+          items.add(item(PromptBatch.label(0), "a >= 0"));
+          items.add(item(PromptBatch.label(0), "not java"));
+        }
+        return items;
+      };
+
+  /** Large model stand-in that counts its calls. */
+  private static final class Large implements LlmClient {
+    final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public List<LlmInvariantGenerator.InvariantsOut.Item> complete(String system, String user) {
+      calls.incrementAndGet();
+      return List.of(item("", "a >= 0"), item("", "b >= 0"), item("", "a < 1000"));
+    }
+  }
+
+  private static List<String> expressions(List<InvariantSpec> specs) {
+    return specs.stream().map(InvariantSpec::expression).toList();
+  }
+
+  @Test
+  void weakPointsAreEscalatedAndMerged() {
+    Large large = new Large();
+    LlmInvariantGenerator gen = new LlmInvariantGenerator(DpConfig.fromEnv(), SMALL, large, 3);
+    FilterStats stats = new FilterStats();
+    long escalated = ModelCascade.escalated();
+
+    List<InvariantSpec> sub =
+        gen.proposeInvariantsAsync(
+                new ProgramPointImpl(SUB, ProgramPointKind.METHOD_ENTRY),
+                Map.of("a", "int", "b", "int"),
+                "return a - b;",
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                stats)
+            .join();
+    assertEquals(List.of("a >= 0", "b >= 0"), expressions(sub));
+    assertEquals(0, large.calls.get());
+
+    List<InvariantSpec> add =
+        gen.proposeInvariantsAsync(
+                new ProgramPointImpl(ADD, ProgramPointKind.METHOD_ENTRY),
+                Map.of("a", "int", "b", "int"),
+                "return a + b;",
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                stats)
+            .join();
+    // the small model's one kept invariant comes first; its repeat is dropped
+    assertEquals(List.of("a >= 0", "b >= 0", "a < 1000"), expressions(add));
+    assertEquals(1, large.calls.get());
+    assertEquals(escalated + 1, ModelCascade.escalated());
+    assertEquals(1, stats.dropPerPointDedup.get());
+  }
+
+  @Test
+  void batchedPointsAreEscalatedOneByOne() {
+    Large large = new Large();
+    LlmInvariantGenerator gen = new LlmInvariantGenerator(DpConfig.fromEnv(), SMALL, large, 2);
+    Map<String, String> scope = Map.of("a", "int", "b", "int");
+    List<PromptContext> points =
+        List.of(
+            gen.promptContext(
+                new ProgramPointImpl(ADD, ProgramPointKind.METHOD_ENTRY),
+                scope,
+                "return a + b;",
+                null,
+                null,
+                null,
+                null,
+                null,
+                null),
+            gen.promptContext(
+                new ProgramPointImpl(SUB, ProgramPointKind.METHOD_ENTRY),
+                scope,
+                "return a - b;",
+                null,
+                null,
+                null,
+                null,
+                null,
+                null));
+    FilterStats stats = new FilterStats();
+
+    List<List<InvariantSpec>> out = gen.proposeInvariantsBatchAsync(points, stats).join();
+
+    assertEquals(List.of("a >= 0", "b >= 0"), expressions(out.get(0)));
+    assertEquals(List.of("a >= 0", "b >= 0"), expressions(out.get(1)));
+    assertEquals(1, large.calls.get());
+    assertEquals(1, stats.dropMaxK.get());
+  }
+
+  @Test
+  void unknownCascadeModelIsRejected(@TempDir Path cassettes) {
+    Map<String, String> properties =
+        Map.of(
+            "dp.disableRealLlm", "true",
+            "dp.llmCassettes", cassettes.toString(),
+            "dp.llmCascadeProvider", "openai",
+            "dp.llmCascadeModel", "gpt-4.1-nano");
+    properties.forEach(System::setProperty);
+    try {
+      DpConfig config = DpConfig.fromEnv();
+      IllegalArgumentException e =
+          assertThrows(IllegalArgumentException.class, () -> new LlmInvariantGenerator(config, 3));
+      assertTrue(e.getMessage().contains("'gpt-4.1-nano'"), e.getMessage());
+    } finally {
+      properties.keySet().forEach(System::clearProperty);
+    }
+  }
+}
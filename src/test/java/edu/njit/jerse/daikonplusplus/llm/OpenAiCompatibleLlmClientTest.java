@@ -0,0 +1,112 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that {@link OpenAiCompatibleLlmClient} merges the invariants of all choices of a chat
+ * completion, in full and streamed responses, and records the reported token usage.
+ */
+public class OpenAiCompatibleLlmClientTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static List<String> expressions(List<LlmInvariantGenerator.InvariantsOut.Item> items) {
+    return items.stream().map(i -> i.expression).toList();
+  }
+
+  private static String content(String... expressions) {
+    StringBuilder sb = new StringBuilder("{\\\"invariants\\\": [");
+    for (int i = 0; i < expressions.length; i++) {
+      if (i > 0) sb.append(", ");
+      sb.append("{\\\"expression\\\": \\\"").append(expressions[i]).append("\\\"}");
+    }
+    return sb.append("]}").toString();
+  }
+
+  /** Returns the event of one streamed chunk carrying {@code text} for choice {@code index}. */
+  private static String delta(int index, String text) throws IOException {
+    ObjectNode chunk = MAPPER.createObjectNode();
+    ObjectNode choice = chunk.putArray("choices").addObject().put("index", index);
+    choice.putObject("delta").put("content", text);
+    return "data: " + MAPPER.writeValueAsString(chunk);
+  }
+
+  @Test
+  void choicesAreMergedWithoutDuplicates() throws IOException {
+    long prompt = LlmUsage.promptTokens();
+    long cached = LlmUsage.cachedPromptTokens();
+
+    String body =
+        "{\"choices\": ["
+            + "{\"index\": 0, \"message\": {\"content\": \""
+            + content("x > 0", "y != null")
+            + "\"}},"
+            + "{\"index\": 1, \"message\": {\"content\": \""
+            + content("x > 0", "x < 10")
+            + "\"}}],"
+            + " \"usage\": {\"prompt_tokens\": 120, \"completion_tokens\": 30,"
+            + " \"prompt_tokens_details\": {\"cached_tokens\": 96}}}";
+
+    assertEquals(
+        List.of("x > 0", "y != null", "x < 10"),
+        expressions(OpenAiCompatibleLlmClient.parse("sys", "user", body)));
+    assertEquals(prompt + 120, LlmUsage.promptTokens());
+    assertEquals(cached + 96, LlmUsage.cachedPromptTokens());
+  }
+
+  @Test
+  void errorBodyFails() {
+    assertThrows(
+        IOException.class,
+        () ->
+            OpenAiCompatibleLlmClient.parse(
+                "sys", "user", "{\"error\": {\"message\": \"model not found\"}}"));
+  }
+
+  @Test
+  void streamedChoicesAreParsedPerIndex() throws IOException {
+    long completion = LlmUsage.completionTokens();
+
+    // the deltas of two choices interleave and split objects mid-token
+    List<String> lines =
+        List.of(
+            delta(0, "{\"invariants\": [{\"expr"),
+            "",
+            delta(1, "{\"invariants\": [{\"expression\": \"b > 1\"}"),
+            "",
+            delta(0, "ession\": \"a > 0\"}, {\"expression\": \"b > 1\"}]}"),
+            "",
+            "data: {\"choices\": [],"
+                + " \"usage\": {\"prompt_tokens\": 50, \"completion_tokens\": 40}}",
+            "",
+            "data: [DONE]");
+
+    List<String> received = new ArrayList<>();
+    List<LlmInvariantGenerator.InvariantsOut.Item> items =
+        OpenAiCompatibleLlmClient.consume(
+            "sys",
+            "user",
+            lines.iterator(),
+            item -> {
+              received.add(item.expression);
+              return true;
+            });
+
+    assertEquals(List.of("b > 1", "a > 0"), expressions(items));
+    assertEquals(received, expressions(items));
+    assertEquals(completion + 40, LlmUsage.completionTokens());
+
+    // stopping after the first item ignores the rest of the stream
+    List<LlmInvariantGenerator.InvariantsOut.Item> first =
+        OpenAiCompatibleLlmClient.consume("sys", "user", lines.iterator(), item -> false);
+    assertEquals(List.of("b > 1"), expressions(first));
+  }
+}
@@ -0,0 +1,158 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.njit.jerse.daikonplusplus.model.InvariantRecord;
+import edu.njit.jerse.daikonplusplus.model.InvariantSpec;
+import edu.njit.jerse.daikonplusplus.model.ProgramPoint;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
+import edu.njit.jerse.daikonplusplus.parse.JavaProjectScanner;
+import edu.njit.jerse.daikonplusplus.results.InvariantRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifies that {@link PointPriority} orders scanned points by its scorers, most significant
+ * first, and keeps scan order among equally scored points.
+ */
+public class PointPriorityTest {
+
+  @TempDir Path tmp;
+
+  private List<ProgramPoint> scan(JavaProjectScanner scanner) throws IOException {
+    Path src = Files.createDirectories(tmp.resolve("src/com/example"));
+    Files.writeString(
+        src.resolve("Shop.java"),
+        """
+        package com.example;
+
+        public class Shop {
+          public int small(int x) {
+            return x;
+          }
+
+          private int hidden(int x) {
+            int y = x + 1;
+            int z = y * 2;
+            return z;
+          }
+
+          public int large(int x) {
+            int y = x + 1;
+            int z = y * 2;
+            return z - x;
+          }
+        }
+        """);
+    Files.writeString(
+        src.resolve("Util.java"),
+        """
+        package com.example;
+
+        class Util {
+          public int helper(int x) {
+            return x;
+          }
+        }
+        """);
+    return scanner.scanMethodEntryExit(tmp.resolve("src"));
+  }
+
+  private static List<String> methods(List<ProgramPoint> points) {
+    return points.stream()
+        .filter(pt -> pt.kind() == ProgramPointKind.METHOD_ENTRY)
+        .map(pt -> pt.elementId().jvmDescriptor().replaceAll("\\(.*", ""))
+        .toList();
+  }
+
+  @Test
+  void publicApiThenSizeWithScanOrderForTies() throws IOException {
+    JavaProjectScanner scanner = new JavaProjectScanner();
+    List<ProgramPoint> points = scan(scanner);
+
+    List<ProgramPoint> ordered =
+        PointPriority.sort(
+            points,
+            PointPriority.scorers(
+                List.of("public", "size"), Set.of(), scanner.methodFacts(), Map.of()));
+
+    assertEquals(List.of("large", "small", "hidden", "helper"), methods(ordered));
+    // entry and exit of a method stay adjacent, entry first
+    assertEquals(ProgramPointKind.METHOD_ENTRY, ordered.get(0).kind());
+    assertEquals(ordered.get(0).elementId(), ordered.get(1).elementId());
+  }
+
+  @Test
+  void includeListSelectsMethodsAndFiles() throws IOException {
+    JavaProjectScanner scanner = new JavaProjectScanner();
+    List<ProgramPoint> points = scan(scanner);
+
+    List<ProgramPoint> ordered =
+        PointPriority.sort(
+            points,
+            PointPriority.scorers(
+                List.of("include"),
+                Set.of("com/example/Util", "com/example/Shop#hidden"),
+                scanner.methodFacts(),
+                Map.of()));
+
+    assertEquals(List.of("hidden", "helper", "small", "large"), methods(ordered));
+  }
+
+  @Test
+  void frequencyRanksByPreviousRunExecutions() throws IOException {
+    JavaProjectScanner scanner = new JavaProjectScanner();
+    List<ProgramPoint> points = scan(scanner);
+
+    // previous run: two executed invariants on helper, one on small, one unexecuted on large
+    Path registryFile = tmp.resolve("registry.jsonl");
+    InvariantRegistry registry = new InvariantRegistry(registryFile);
+    Map<UUID, InvariantRegistry.Outcome> outcomes = new java.util.HashMap<>();
+    String[][] previous = {
+      {"helper", "x > 0", "true"},
+      {"helper", "x < 9", "true"},
+      {"small", "x > 0", "true"},
+      {"large", "x > 0", "false"}
+    };
+    for (String[] inv : previous) {
+      ProgramPoint pt =
+          points.stream()
+              .filter(p -> p.elementId().jvmDescriptor().startsWith(inv[0] + "("))
+              .findFirst()
+              .orElseThrow();
+      UUID id = UUID.randomUUID();
+      registry.append(
+          new InvariantRecord(
+              id, new InvariantSpec(inv[1], "", Map.of()), pt, "Shop.java", Instant.now()));
+      boolean executed = Boolean.parseBoolean(inv[2]);
+      outcomes.put(
+          id,
+          new InvariantRegistry.Outcome(
+              true,
+              executed,
+              executed
+                  ? InvariantRegistry.Verdict.HELD
+                  : InvariantRegistry.Verdict.NEVER_EXECUTED));
+    }
+    Path outcomesFile = tmp.resolve("outcomes.jsonl");
+    InvariantRegistry.writeOutcomes(outcomesFile, outcomes);
+
+    Map<String, Long> executions =
+        InvariantRegistry.executedCountsByElement(registryFile, outcomesFile);
+    List<ProgramPoint> ordered =
+        PointPriority.sort(
+            points,
+            PointPriority.scorers(
+                List.of("frequency"), Set.of(), scanner.methodFacts(), executions));
+
+    assertEquals(List.of("helper", "small", "hidden", "large"), methods(ordered));
+  }
+}
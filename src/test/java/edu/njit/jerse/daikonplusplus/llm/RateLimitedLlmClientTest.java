@@ -0,0 +1,110 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that {@link RateLimitedLlmClient} retries throttled requests, fails permanent errors
+ * immediately, stops retrying at its budget or the phase deadline, and backs off its concurrency
+ * limit when the endpoint throttles.
+ */
+public class RateLimitedLlmClientTest {
+
+  /** Live client stand-in that fails with scripted statuses before answering. */
+  private static final class ScriptedClient implements LlmClient {
+    final Deque<Integer> failures = new ArrayDeque<>();
+    final AtomicInteger calls = new AtomicInteger();
+
+    ScriptedClient(Integer... statuses) {
+      failures.addAll(List.of(statuses));
+    }
+
+    @Override
+    public synchronized List<LlmInvariantGenerator.InvariantsOut.Item> complete(
+        String system, String user) throws IOException {
+      calls.incrementAndGet();
+      Integer status = failures.poll();
+      if (status != null) throw new LlmHttpException("HTTP " + status, status, 1, null);
+      var item = new LlmInvariantGenerator.InvariantsOut.Item();
+      item.expression = user;
+      return List.of(item);
+    }
+  }
+
+  private static RateLimitedLlmClient client(LlmClient live, int concurrency, int retries) {
+    return new RateLimitedLlmClient(
+        live, 0, 0, concurrency, concurrency, retries, Duration.ofMinutes(1), 1);
+  }
+
+  @Test
+  void throttledRequestIsRetried() throws Exception {
+    ScriptedClient live = new ScriptedClient(429, 503);
+    RateLimitedLlmClient client = client(live, 4, 3);
+
+    assertEquals("x > 0", client.complete("sys", "x > 0").get(0).expression);
+    assertEquals(3, live.calls.get());
+  }
+
+  @Test
+  void permanentErrorIsNotRetried() {
+    ScriptedClient live = new ScriptedClient(400);
+    RateLimitedLlmClient client = client(live, 4, 3);
+
+    LlmHttpException e =
+        assertThrows(LlmHttpException.class, () -> client.complete("sys", "x > 0"));
+    assertEquals(400, e.statusCode());
+    assertEquals(1, live.calls.get());
+  }
+
+  @Test
+  void retriesStopAtTheAttemptLimit() {
+    ScriptedClient live = new ScriptedClient(429, 429, 429);
+    RateLimitedLlmClient client = client(live, 4, 1);
+
+    assertThrows(LlmHttpException.class, () -> client.complete("sys", "x > 0"));
+    assertEquals(2, live.calls.get());
+  }
+
+  @Test
+  void retryBudgetStartsAtTheFirstRequest() throws Exception {
+    ScriptedClient live = new ScriptedClient(429);
+    RateLimitedLlmClient client =
+        new RateLimitedLlmClient(live, 0, 0, 4, 4, 3, Duration.ofMillis(50), 1);
+
+    // time spent before the first request, e.g. scanning, does not use up the budget
+    Thread.sleep(100);
+    assertEquals("x > 0", client.complete("sys", "x > 0").get(0).expression);
+    assertEquals(2, live.calls.get());
+  }
+
+  @Test
+  void retriesStopAtThePhaseDeadline() {
+    ScriptedClient live = new ScriptedClient(429);
+    RateLimitedLlmClient client = client(live, 4, 3);
+
+    LlmDeadline.set(System.nanoTime());
+    try {
+      assertThrows(LlmHttpException.class, () -> client.complete("sys", "x > 0"));
+      assertEquals(1, live.calls.get());
+    } finally {
+      LlmDeadline.clear();
+    }
+  }
+
+  @Test
+  void throttlingHalvesConcurrency() throws Exception {
+    ScriptedClient live = new ScriptedClient(429);
+    RateLimitedLlmClient client = client(live, 8, 1);
+
+    client.complete("sys", "x > 0");
+    assertEquals(4, RateLimitedLlmClient.concurrencyLimit());
+  }
+}
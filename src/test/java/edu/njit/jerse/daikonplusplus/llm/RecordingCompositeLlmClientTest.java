@@ -0,0 +1,61 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifies that {@link RecordingCompositeLlmClient} records replay misses as cassettes, writes them
+ * when closed, and reports cassettes it cannot write.
+ */
+public class RecordingCompositeLlmClientTest {
+
+  /** Replay stand-in without any cassettes. */
+  private static final LlmClient EMPTY =
+      (system, user) -> {
+        throw new IOException("No cassette");
+      };
+
+  /** Live stand-in that echoes the user prompt. */
+  private static final LlmClient ECHO =
+      (system, user) -> {
+        var item = new LlmInvariantGenerator.InvariantsOut.Item();
+        item.expression = user;
+        return List.of(item);
+      };
+
+  @Test
+  void closeWritesRecordedCassettes(@TempDir Path dir) throws Exception {
+    RecordingCompositeLlmClient client = new RecordingCompositeLlmClient(EMPTY, ECHO, dir);
+    assertEquals("x > 0", client.complete("sys", "x > 0").get(0).expression);
+    client.close();
+
+    assertTrue(Files.isRegularFile(dir.resolve(Cassette.key("sys", "x > 0") + ".json")));
+  }
+
+  @Test
+  void failedWritesAreReported(@TempDir Path tmp) throws Exception {
+    // a file where the cassette directory should be
+    Path dir = Files.writeString(tmp.resolve("cassettes"), "");
+    RecordingCompositeLlmClient client = new RecordingCompositeLlmClient(EMPTY, ECHO, dir);
+
+    PrintStream err = System.err;
+    ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    System.setErr(new PrintStream(captured, true));
+    try {
+      client.complete("sys", "x > 0");
+      client.close();
+    } finally {
+      System.setErr(err);
+    }
+    assertTrue(captured.toString().contains("Could not write cassette"), captured.toString());
+  }
+}
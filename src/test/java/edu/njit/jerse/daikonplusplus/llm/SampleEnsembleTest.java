@@ -0,0 +1,154 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.javaparser.StaticJavaParser;
+import edu.njit.jerse.daikonplusplus.App.FilterStats;
+import edu.njit.jerse.daikonplusplus.config.DpConfig;
+import edu.njit.jerse.daikonplusplus.model.InvariantSpec;
+import edu.njit.jerse.daikonplusplus.model.ProgramElementId;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointImpl;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that a {@link SampleEnsemble} keeps the expressions enough samples agree on, and that
+ * the generator cancels the samples still pending once consensus is reached.
+ */
+public class SampleEnsembleTest {
+
+  private static final ProgramElementId ADD =
+      ProgramElementId.forMethod(
+          "com.example", "MathUtils", "", "MathUtils.java", "add(int,int):int");
+
+  private static List<LlmInvariantGenerator.InvariantsOut.Item> items(String... expressions) {
+    return Arrays.stream(expressions)
+        .map(
+            e -> {
+              var item = new LlmInvariantGenerator.InvariantsOut.Item();
+              item.expression = e;
+              return item;
+            })
+        .toList();
+  }
+
+  private static List<String> expressions(List<LlmInvariantGenerator.InvariantsOut.Item> items) {
+    return items.stream().map(i -> i.expression).toList();
+  }
+
+  @Test
+  void agreedExpressionsAreKeptByVotes() {
+    SampleEnsemble ensemble =
+        new SampleEnsemble(
+            3, 2, 5, e -> StaticJavaParser.parseExpression(e).toString(), e -> true);
+
+    assertFalse(ensemble.add(items("a >= 0", "b>0", "b > 0")));
+    assertFalse(ensemble.add(items("b >= 0", "a>=0")));
+    assertTrue(ensemble.add(items("b > 0", "a >= 0", "a < 100")));
+
+    // a >= 0 has three votes; b > 0 two (once per sample, whatever its spelling)
+    assertEquals(List.of("a >= 0", "b>0"), expressions(ensemble.agreed()));
+    assertEquals(8, ensemble.items());
+  }
+
+  @Test
+  void qualityFilterJudgesTheKeptText() {
+    // both spellings share a key; the first proposal's text is kept, so it is the one judged
+    SampleEnsemble rejected =
+        new SampleEnsemble(
+            3, 2, 1, e -> StaticJavaParser.parseExpression(e).toString(), e -> !e.contains("  "));
+    assertFalse(rejected.add(items("a  >= 0")));
+    assertFalse(rejected.add(items("a >= 0")));
+
+    SampleEnsemble accepted =
+        new SampleEnsemble(
+            3, 2, 1, e -> StaticJavaParser.parseExpression(e).toString(), e -> !e.contains("  "));
+    assertFalse(accepted.add(items("a >= 0")));
+    assertTrue(accepted.add(items("a  >= 0")));
+  }
+
+  /** Client stand-in whose first and third samples agree and whose second never answers. */
+  private static final class SampledClient implements LlmClient {
+    final List<CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>>> pending =
+        new ArrayList<>();
+    final Set<String> users = new HashSet<>();
+
+    @Override
+    public List<LlmInvariantGenerator.InvariantsOut.Item> complete(String system, String user) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public synchronized CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>>
+        completeSample(String system, String user, int sample) {
+      users.add(user);
+      if (sample == 1) {
+        CompletableFuture<List<LlmInvariantGenerator.InvariantsOut.Item>> never =
+            new CompletableFuture<>();
+        pending.add(never);
+        return never;
+      }
+      return CompletableFuture.completedFuture(
+          sample == 2
+              ? items("b >= 0", "a >= 0", "a + b >= a")
+              : items("a >= 0", "a < 1000", "b >= 0"));
+    }
+  }
+
+  @Test
+  void pendingSamplesAreCancelledOnConsensus() {
+    System.setProperty("dp.llmEnsembleSamples", "3");
+    System.setProperty("dp.llmEnsembleAgreement", "2");
+    try {
+      SampledClient client = new SampledClient();
+      LlmInvariantGenerator gen = new LlmInvariantGenerator(DpConfig.fromEnv(), client, 2);
+      FilterStats stats = new FilterStats();
+      long cancelled = SampleEnsemble.cancelled();
+
+      List<InvariantSpec> specs =
+          gen.proposeInvariantsAsync(
+                  new ProgramPointImpl(ADD, ProgramPointKind.METHOD_ENTRY),
+                  Map.of("a", "int", "b", "int"),
+                  "return a + b;",
+                  null,
+                  null,
+                  null,
+                  null,
+                  null,
+                  null,
+                  stats)
+              .join();
+
+      assertEquals(
+          List.of("a >= 0", "b >= 0"), specs.stream().map(InvariantSpec::expression).toList());
+      assertEquals(6, stats.rawFromLlm.get());
+      assertEquals(4, stats.dropNoAgreement.get());
+      assertTrue(client.pending.get(0).isCancelled());
+      // the samples send the same prompt and are told apart by their index only
+      assertEquals(1, client.users.size());
+      assertEquals(cancelled + 1, SampleEnsemble.cancelled());
+    } finally {
+      System.clearProperty("dp.llmEnsembleSamples");
+      System.clearProperty("dp.llmEnsembleAgreement");
+    }
+  }
+
+  @Test
+  void samplesAreKeyedApartWithoutChangingThePrompt() {
+    assertEquals(Cassette.key("sys", "user"), Cassette.sampleKey("sys", "user", Map.of(), 0));
+    assertNotEquals(
+        Cassette.sampleKey("sys", "user", Map.of(), 1),
+        Cassette.sampleKey("sys", "user", Map.of(), 2));
+    assertNotEquals(Cassette.key("sys", "user"), Cassette.sampleKey("sys", "user", Map.of(), 1));
+  }
+}
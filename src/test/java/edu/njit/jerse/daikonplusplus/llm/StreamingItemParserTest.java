@@ -0,0 +1,60 @@
+package edu.njit.jerse.daikonplusplus.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that {@link StreamingItemParser} emits each invariant as soon as its object is complete,
+ * regardless of how the response is fragmented.
+ */
+public class StreamingItemParserTest {
+
+  private static final String RESPONSE =
+      """
+      {"note": "ignore {this} and [that]", "invariants": [
+        {"expression": "s != null && s.indexOf(\\"}\\") < 0", "meta": [{"key": "k", "value": "v"}]},
+        {"expression": "n >= 0", "rationale": "a \\"count\\""}
+      ], "trailer": [{"expression": "not an item"}]}
+      """;
+
+  private static List<String> expressions(List<LlmInvariantGenerator.InvariantsOut.Item> items) {
+    return items.stream().map(it -> it.expression).toList();
+  }
+
+  @Test
+  void wholeResponseYieldsEveryItem() {
+    List<LlmInvariantGenerator.InvariantsOut.Item> items =
+        new StreamingItemParser().feed(RESPONSE);
+
+    assertEquals(List.of("s != null && s.indexOf(\"}\") < 0", "n >= 0"), expressions(items));
+    assertEquals("v", items.get(0).meta.get(0).value);
+    assertEquals("a \"count\"", items.get(1).rationale);
+  }
+
+  @Test
+  void itemsAreEmittedAsSoonAsTheyClose() {
+    StreamingItemParser parser = new StreamingItemParser();
+    List<LlmInvariantGenerator.InvariantsOut.Item> items = new ArrayList<>();
+    int firstAt = -1;
+    for (int i = 0; i < RESPONSE.length(); i++) {
+      items.addAll(parser.feed(RESPONSE.substring(i, i + 1)));
+      if (firstAt < 0 && !items.isEmpty()) firstAt = i;
+    }
+
+    assertEquals(2, items.size());
+    assertTrue(firstAt < RESPONSE.indexOf("n >= 0"));
+  }
+
+  @Test
+  void malformedItemsAreSkipped() {
+    List<LlmInvariantGenerator.InvariantsOut.Item> items =
+        new StreamingItemParser()
+            .feed("{\"invariants\": [{\"expression\": 42, \"meta\": 7}, {\"expression\": \"x\"}");
+
+    assertEquals(List.of("x"), expressions(items));
+  }
+}
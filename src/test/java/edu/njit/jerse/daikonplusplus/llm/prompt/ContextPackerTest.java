@@ -0,0 +1,124 @@
+package edu.njit.jerse.daikonplusplus.llm.prompt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.njit.jerse.daikonplusplus.model.ProgramElementId;
+import edu.njit.jerse.daikonplusplus.model.ProgramPoint;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointImpl;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that {@link ContextPacker} leaves contexts within budget untouched, and otherwise keeps
+ * the most important sections and the callers most relevant to the program point.
+ */
+public class ContextPackerTest {
+
+  private static final String BODY = "return a + b;";
+
+  private static final String CALLERS =
+      """
+      Caller: com.example.Report#render():void
+      Implementation:
+      %s
+
+      Caller: com.example.Main#main(java.lang.String[]):void
+      Implementation:
+      int r = MathUtils.add(total, 3);
+      """
+          .formatted("log(\"rendering\");\n".repeat(40));
+
+  private static ProgramPoint addPoint() {
+    var id =
+        ProgramElementId.forMethod(
+            "com.example", "MathUtils", "", "MathUtils.java", "add(int,int):int");
+    return new ProgramPointImpl(id, ProgramPointKind.METHOD_ENTRY);
+  }
+
+  private static PromptContext context(String classDoc, int budget) {
+    return new PromptContext(
+        addPoint(),
+        Map.of("a", "int", "b", "int"),
+        BODY,
+        null,
+        classDoc,
+        null,
+        CALLERS,
+        null,
+        null,
+        5,
+        budget);
+  }
+
+  @Test
+  void contextWithinBudgetIsRenderedUnchanged() {
+    PromptContext unbudgeted = context("Utility arithmetic.", 0);
+    PromptContext budgeted = context("Utility arithmetic.", 10_000);
+
+    assertEquals(
+        PromptRenderingUtil.renderContextBlock(unbudgeted),
+        PromptRenderingUtil.renderContextBlock(budgeted));
+  }
+
+  @Test
+  void overBudgetKeepsBodyAndMostRelevantCaller() {
+    long savedBefore = ContextPacker.tokensSaved();
+    String classDoc = "Utility arithmetic. ".repeat(200);
+
+    String packed = PromptRenderingUtil.renderContextBlock(context(classDoc, 60));
+
+    assertTrue(packed.startsWith("[Method Implementation]\n" + BODY), packed);
+    assertTrue(packed.contains("Caller: com.example.Main#main"), packed);
+    assertFalse(packed.contains("Caller: com.example.Report#render"), packed);
+    assertFalse(packed.contains("[Enclosing Class Documentation]"), packed);
+    assertTrue(ContextPacker.estimateTokens(packed) <= 60, packed);
+    assertTrue(ContextPacker.tokensSaved() > savedBefore);
+  }
+
+  @Test
+  void oversizedSectionIsTruncated() {
+    String classDoc = "Utility arithmetic.\n".repeat(200);
+
+    String packed = PromptRenderingUtil.renderContextBlock(context(classDoc, 400));
+
+    assertTrue(packed.contains("[Enclosing Class Documentation]"), packed);
+    assertTrue(packed.contains("... (truncated)\n\n[Call-Site Context]"), packed);
+    assertTrue(ContextPacker.estimateTokens(packed) <= 400, packed);
+  }
+
+  @Test
+  void eachPackDecisionIsCountedOnce() {
+    String classDoc = "Arithmetic helpers, counted once. ".repeat(200);
+    PromptContext entry = context(classDoc, 60);
+    // the exit prompt of the same method shares the context, with the result in scope
+    var exitPoint = new ProgramPointImpl(addPoint().elementId(), ProgramPointKind.METHOD_EXIT);
+    PromptContext exit =
+        new PromptContext(
+            exitPoint,
+            Map.of("a", "int", "b", "int", "result", "int"),
+            BODY,
+            null,
+            classDoc,
+            null,
+            CALLERS,
+            null,
+            null,
+            5,
+            60);
+
+    long packed = ContextPacker.promptsPacked();
+    long trimmed = ContextPacker.promptsTrimmed();
+    long saved = ContextPacker.tokensSaved();
+    PromptRenderingUtil.renderContextBlock(entry);
+    long savedOnce = ContextPacker.tokensSaved() - saved;
+    PromptRenderingUtil.renderContextBlock(entry);
+    PromptRenderingUtil.renderContextBlock(exit);
+
+    assertEquals(packed + 1, ContextPacker.promptsPacked());
+    assertEquals(trimmed + 1, ContextPacker.promptsTrimmed());
+    assertEquals(saved + savedOnce, ContextPacker.tokensSaved());
+  }
+}
@@ -0,0 +1,82 @@
+package edu.njit.jerse.daikonplusplus.llm.prompt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.njit.jerse.daikonplusplus.model.ProgramElementId;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointImpl;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that {@link PromptBatch} splits groups within the token budget and that batch prompts
+ * label every point and render shared class documentation once.
+ */
+public class PromptBatchTest {
+
+  private static final String CLASS_DOC = "Utility arithmetic on non-negative integers.";
+
+  private static PromptContext context(String method, ProgramPointKind kind, String body) {
+    var id =
+        ProgramElementId.forMethod(
+            "com.example", "MathUtils", "", "MathUtils.java", method + "(int,int):int");
+    return new PromptContext(
+        new ProgramPointImpl(id, kind),
+        Map.of("a", "int", "b", "int"),
+        body,
+        null,
+        CLASS_DOC,
+        null,
+        null,
+        null,
+        null,
+        5,
+        0);
+  }
+
+  @Test
+  void partitionKeepsOrderAndRespectsBudget() {
+    String body = "return a + b;\n".repeat(100); // ~350 tokens
+    List<PromptContext> points =
+        List.of(
+            context("add", ProgramPointKind.METHOD_ENTRY, body),
+            context("add", ProgramPointKind.METHOD_EXIT, body),
+            context("sub", ProgramPointKind.METHOD_ENTRY, body));
+
+    List<List<PromptContext>> batches = PromptBatch.partition(points, 1200);
+    assertEquals(2, batches.size());
+    assertEquals(points.subList(0, 2), batches.get(0));
+    assertEquals(points.subList(2, 3), batches.get(1));
+
+    // a point larger than the budget still gets a batch of its own
+    assertEquals(3, PromptBatch.partition(points, 1).size());
+  }
+
+  @Test
+  void batchPromptLabelsPointsAndSharesClassDoc() {
+    List<PromptContext> points =
+        List.of(
+            context("add", ProgramPointKind.METHOD_ENTRY, "return a + b;"),
+            context("add", ProgramPointKind.METHOD_EXIT, "return a + b;"));
+
+    Prompt prompt = new BaselineDirectPromptStrategy().buildBatchPrompt(points);
+    String user = prompt.userMessage();
+
+    assertTrue(prompt.systemMessage().contains("\"point\""));
+    assertTrue(user.contains("===== POINT P1 =====\nPROGRAM POINT: "));
+    assertTrue(user.contains("===== POINT P2 ====="));
+    assertTrue(user.indexOf("[METHOD_ENTRY]") < user.indexOf("[METHOD_EXIT]"));
+    assertEquals(user.indexOf(CLASS_DOC), user.lastIndexOf(CLASS_DOC));
+    assertTrue(user.indexOf("===== SHARED CONTEXT =====") < user.indexOf(CLASS_DOC));
+  }
+
+  @Test
+  void singlePointBatchIsThePlainPrompt() {
+    PromptContext ctx = context("add", ProgramPointKind.METHOD_ENTRY, "return a + b;");
+    PromptStrategy strategy = new BaselineDirectPromptStrategy();
+
+    assertEquals(strategy.buildPrompt(ctx), strategy.buildBatchPrompt(List.of(ctx)));
+  }
+}
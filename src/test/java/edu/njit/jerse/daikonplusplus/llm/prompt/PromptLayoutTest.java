@@ -0,0 +1,84 @@
+package edu.njit.jerse.daikonplusplus.llm.prompt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.njit.jerse.daikonplusplus.model.ProgramElementId;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointImpl;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that the prefix {@link PromptLayout} yields one system message for every program point
+ * and starts the user message with the class-level context, while the standard layout is unchanged.
+ */
+public class PromptLayoutTest {
+
+  private static final String CLASS_DOC = "Utility arithmetic on non-negative integers.";
+
+  private static PromptContext context(String method, ProgramPointKind kind) {
+    var id =
+        ProgramElementId.forMethod(
+            "com.example", "MathUtils", "", "MathUtils.java", method + "(int,int):int");
+    return new PromptContext(
+        new ProgramPointImpl(id, kind),
+        kind == ProgramPointKind.METHOD_EXIT
+            ? Map.of("a", "int", "b", "int", "result", "int")
+            : Map.of("a", "int", "b", "int"),
+        "return a " + (method.equals("add") ? "+" : "-") + " b;",
+        null,
+        CLASS_DOC,
+        null,
+        null,
+        null,
+        null,
+        5,
+        0);
+  }
+
+  @Test
+  void prefixLayoutSharesSystemMessageAcrossPoints() {
+    PromptStrategy fewShot = PromptStrategyFactory.create("fewshot", PromptLayout.PREFIX);
+
+    Prompt entry = fewShot.buildPrompt(context("add", ProgramPointKind.METHOD_ENTRY));
+    Prompt exit = fewShot.buildPrompt(context("sub", ProgramPointKind.METHOD_EXIT));
+
+    assertEquals(entry.systemMessage(), exit.systemMessage());
+    // examples of both kinds, and the static notes, live in the shared system message
+    assertTrue(entry.systemMessage().contains("[METHOD_ENTRY]"));
+    assertTrue(entry.systemMessage().contains("[METHOD_EXIT]"));
+    assertTrue(entry.systemMessage().contains("Note about 'result'"));
+    assertFalse(entry.userMessage().contains("Note about 'result'"));
+  }
+
+  @Test
+  void prefixLayoutStartsUserMessageWithClassContext() {
+    PromptStrategy baseline = PromptStrategyFactory.create("baseline", PromptLayout.PREFIX);
+
+    String add = baseline.buildPrompt(context("add", ProgramPointKind.METHOD_ENTRY)).userMessage();
+    String sub = baseline.buildPrompt(context("sub", ProgramPointKind.METHOD_ENTRY)).userMessage();
+
+    String classBlock = add.substring(0, add.indexOf("PROGRAM POINT:"));
+    assertTrue(classBlock.startsWith("===== CLASS CONTEXT ====="));
+    assertTrue(classBlock.contains(CLASS_DOC));
+    assertTrue(sub.startsWith(classBlock));
+    // class documentation is not repeated in the point's own context
+    assertEquals(add.indexOf(CLASS_DOC), add.lastIndexOf(CLASS_DOC));
+  }
+
+  @Test
+  void standardLayoutIsUnchanged() {
+    PromptContext ctx = context("add", ProgramPointKind.METHOD_EXIT);
+    Prompt standard = PromptStrategyFactory.create("fewshot").buildPrompt(ctx);
+    Prompt explicit =
+        PromptStrategyFactory.create("fewshot", PromptLayout.STANDARD).buildPrompt(ctx);
+    Prompt prefix = PromptStrategyFactory.create("fewshot", PromptLayout.PREFIX).buildPrompt(ctx);
+
+    assertEquals(standard, explicit);
+    assertNotEquals(standard.systemMessage(), prefix.systemMessage());
+    assertTrue(standard.userMessage().contains("Note about 'result'"));
+  }
+}
@@ -0,0 +1,115 @@
+package edu.njit.jerse.daikonplusplus.parse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import edu.njit.jerse.daikonplusplus.parse.context.ContextUtils;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifies that {@link ProjectTypeIndex} locates nested types and types outside the conventional
+ * {@code pkg/Cls.java} layout, and that class lookups reuse cached declarations.
+ */
+public class ProjectTypeIndexTest {
+
+  private static void writeSources(Path srcRoot) throws IOException {
+    // declared in package com.example but stored at the root, as in flat external projects
+    Files.writeString(
+        srcRoot.resolve("Calc.java"),
+        """
+        package com.example;
+
+        /** A calculator. */
+        public class Calc {
+          /** Holds a running total. */
+          public static class Accumulator {
+            int total;
+
+            public int add(int x) {
+              total += x;
+              return total;
+            }
+          }
+
+          public int twice(int x) {
+            return x * 2;
+          }
+        }
+        """);
+  }
+
+  @Test
+  void scannerRegistersIndexForNonStandardLayout(@TempDir Path srcRoot) throws Exception {
+    writeSources(srcRoot);
+    new JavaProjectScanner().scanMethodEntryExit(srcRoot);
+
+    ProjectTypeIndex index = ProjectTypeIndex.forSourceRoot(srcRoot);
+
+    assertTrue(index.locate("com.example.Calc").isPresent());
+    assertEquals(
+        srcRoot.resolve("Calc.java").toAbsolutePath().normalize(),
+        index.locate("com.example.Calc").get().file());
+    assertTrue(index.findClass("com.example.Calc").isPresent());
+    assertTrue(ContextUtils.extractFullClassInfo("com.example.Calc", srcRoot).isPresent());
+  }
+
+  @Test
+  void nestedTypesResolveByCanonicalAndBinaryName(@TempDir Path srcRoot) throws Exception {
+    writeSources(srcRoot);
+    ProjectTypeIndex index = ProjectTypeIndex.forSourceRoot(srcRoot);
+
+    ClassOrInterfaceDeclaration canonical = index.findClass("com.example.Calc.Accumulator").get();
+    ClassOrInterfaceDeclaration binary = index.findClass("com.example.Calc$Accumulator").get();
+
+    assertEquals("Accumulator", canonical.getNameAsString());
+    assertSame(canonical.findCompilationUnit().get(), binary.findCompilationUnit().get());
+    assertFalse(index.findClass("com.example.Accumulator").isPresent());
+  }
+
+  @Test
+  void repeatedLookupsReuseCachedDeclaration(@TempDir Path srcRoot) throws Exception {
+    writeSources(srcRoot);
+    ProjectTypeIndex index = ProjectTypeIndex.forSourceRoot(srcRoot);
+
+    ClassOrInterfaceDeclaration first = index.findClass("com.example.Calc").get();
+    ClassOrInterfaceDeclaration second = index.findClass("com.example.Calc").get();
+
+    assertSame(first, second);
+  }
+
+  @Test
+  void modifiedFileIsReparsed(@TempDir Path srcRoot) throws Exception {
+    writeSources(srcRoot);
+    ProjectTypeIndex index = ProjectTypeIndex.forSourceRoot(srcRoot);
+    ClassOrInterfaceDeclaration before = index.findClass("com.example.Calc").get();
+
+    Path file = srcRoot.resolve("Calc.java");
+    Files.writeString(file, Files.readString(file).replace("twice", "thrice"));
+    Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+
+    ClassOrInterfaceDeclaration after = index.findClass("com.example.Calc").get();
+    assertNotSame(before, after);
+    assertEquals(1, after.getMethodsByName("thrice").size());
+  }
+
+  @Test
+  void conventionalLayoutFallbackFindsFilesAddedLater(@TempDir Path srcRoot) throws Exception {
+    ProjectTypeIndex index = new ProjectTypeIndex(srcRoot);
+
+    Path pkgDir = srcRoot.resolve("com/example");
+    Files.createDirectories(pkgDir);
+    Files.writeString(pkgDir.resolve("Late.java"), "package com.example; public class Late {}");
+
+    assertTrue(index.findClass("com.example.Late").isPresent());
+  }
+}
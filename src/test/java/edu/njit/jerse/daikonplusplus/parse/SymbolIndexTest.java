@@ -0,0 +1,99 @@
+package edu.njit.jerse.daikonplusplus.parse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifies that {@link SymbolIndex} is built once per source-tree hash, reloaded on later runs,
+ * and records method descriptors with accurate Javadoc offsets.
+ */
+public class SymbolIndexTest {
+
+  private static void writeSources(Path srcRoot) throws IOException {
+    Files.writeString(
+        srcRoot.resolve("Calc.java"),
+        """
+        package com.example;
+
+        /** A calculator. */
+        public class Calc {
+          /** Holds a running total. */
+          public static class Accumulator {
+            int total;
+
+            /** Adds {@code x} to the total. */
+            public int add(int x) {
+              total += x;
+              return total;
+            }
+          }
+
+          public int twice(int x) {
+            return x * 2;
+          }
+        }
+        """);
+  }
+
+  @Test
+  void indexIsReusedUntilSourcesChange(@TempDir Path tmp) throws Exception {
+    Path srcRoot = Files.createDirectories(tmp.resolve("src"));
+    Path indexDir = tmp.resolve("index");
+    writeSources(srcRoot);
+
+    Path first;
+    try (SymbolIndex index = SymbolIndex.loadOrBuild(srcRoot, indexDir)) {
+      assertTrue(index.builtThisRun());
+      first = index.file();
+    }
+    try (SymbolIndex index = SymbolIndex.loadOrBuild(srcRoot, indexDir)) {
+      assertFalse(index.builtThisRun());
+      assertEquals(first, index.file());
+    }
+
+    Path file = srcRoot.resolve("Calc.java");
+    Files.writeString(file, Files.readString(file).replace("twice", "thrice"));
+    try (SymbolIndex index = SymbolIndex.loadOrBuild(srcRoot, indexDir)) {
+      assertTrue(index.builtThisRun());
+      assertNotEquals(first, index.file());
+      assertEquals(
+          "thrice(int):int", index.lookup("com.example.Calc").get().methods().get(0).descriptor());
+    }
+  }
+
+  @Test
+  void entriesRecordLocationsMethodsAndJavadocOffsets(@TempDir Path tmp) throws Exception {
+    Path srcRoot = Files.createDirectories(tmp.resolve("src"));
+    writeSources(srcRoot);
+
+    try (SymbolIndex index = SymbolIndex.loadOrBuild(srcRoot, tmp.resolve("index"))) {
+      // Calc, Calc.Accumulator and Calc$Accumulator
+      assertEquals(3, index.size());
+
+      SymbolIndex.TypeEntry inner = index.lookup("com.example.Calc$Accumulator").get();
+      assertEquals("com.example.Calc.Accumulator", inner.qualifiedName());
+      assertEquals("Calc.java", inner.relativePath());
+      assertEquals("ClassOrInterfaceDeclaration", inner.kind());
+      assertEquals(6, inner.range().begin.line);
+      assertEquals(srcRoot.toAbsolutePath().resolve("Calc.java"), index.fileOf(inner));
+
+      SymbolIndex.MethodEntry add = inner.methods().get(0);
+      assertEquals("add(int):int", add.descriptor());
+      assertEquals(
+          "/** Adds {@code x} to the total. */", index.javadocOf(inner, add).orElseThrow());
+
+      SymbolIndex.TypeEntry outer = index.lookup("com.example.Calc").get();
+      assertEquals(1, outer.methods().size());
+      assertFalse(index.javadocOf(outer, outer.methods().get(0)).isPresent());
+      assertFalse(index.lookup("com.example.Accumulator").isPresent());
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package edu.njit.jerse.daikonplusplus.parse.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import edu.njit.jerse.daikonplusplus.model.ProgramElementId;
+import edu.njit.jerse.daikonplusplus.model.ProgramPoint;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointImpl;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifies that {@link CallSiteIndex} builds the reverse call graph from sources, is reused while
+ * the sources are unchanged, and yields the same call-site context as an equivalent JSON index.
+ */
+public class CallSiteIndexTest {
+
+  private static final String ADD_KEY = "com.example.MathUtils#add(int,int):int";
+
+  private static void writeSources(Path srcRoot) throws IOException {
+    Path pkgDir = srcRoot.resolve("com/example");
+    Files.createDirectories(pkgDir);
+
+    Files.writeString(
+        pkgDir.resolve("MathUtils.java"),
+        """
+        package com.example;
+
+        public class MathUtils {
+          public static int add(int a, int b) {
+            return a + b;
+          }
+
+          public static int add(int a, int b, int c) {
+            return add(add(a, b), c);
+          }
+        }
+        """);
+
+    Files.writeString(
+        pkgDir.resolve("Main.java"),
+        """
+        package com.example;
+
+        public class Main {
+          /** Entry point that exercises MathUtils. */
+          public static void main(String[] args) {
+            int r = MathUtils.add(2, 3);
+            System.out.println(MathUtils.add(r, 1));
+          }
+        }
+        """);
+  }
+
+  private static ProgramPoint addPoint() {
+    var id =
+        ProgramElementId.forMethod(
+            "com.example", "MathUtils", "", "com/example/MathUtils.java", "add(int,int):int");
+    return new ProgramPointImpl(id, ProgramPointKind.METHOD_ENTRY);
+  }
+
+  /** Parser configuration without a symbol resolver, so every call takes the name/arity path. */
+  private static ParserConfiguration unresolvedConfig() {
+    return new ParserConfiguration()
+        .setLanguageLevel(ParserConfiguration.LanguageLevel.BLEEDING_EDGE);
+  }
+
+  @Test
+  void recordsEachCallerOnceInSourceOrder(@TempDir Path tmp) throws Exception {
+    Path srcRoot = tmp.resolve("src");
+    writeSources(srcRoot);
+
+    try (CallSiteIndex index =
+        CallSiteIndex.loadOrBuild(srcRoot, tmp.resolve("index"), unresolvedConfig(), 2)) {
+      List<CallSiteIndex.Caller> callers = index.callersOf(ADD_KEY);
+
+      assertEquals(2, callers.size());
+      assertEquals("com.example.Main#main(String[]):void", callers.get(0).callerKey());
+      assertEquals("Entry point that exercises MathUtils.", callers.get(0).callerJavadoc());
+      assertTrue(callers.get(0).callSite().contains("MathUtils.add(2, 3)"));
+      assertEquals("com.example.MathUtils#add(int,int,int):int", callers.get(1).callerKey());
+
+      assertEquals(4, index.matchedCalls());
+      assertTrue(index.callersOf("com.example.Main#main(String[]):void").isEmpty());
+    }
+  }
+
+  @Test
+  void resolvedCallsShareTheMemoAcrossCallSites(@TempDir Path tmp) throws Exception {
+    Path srcRoot = tmp.resolve("src");
+    writeSources(srcRoot);
+    CombinedTypeSolver solver = new CombinedTypeSolver();
+    solver.add(new ReflectionTypeSolver());
+    solver.add(new JavaParserTypeSolver(srcRoot.toFile()));
+    ParserConfiguration config = unresolvedConfig().setSymbolResolver(new JavaSymbolSolver(solver));
+
+    long hits = ResolverPool.shared().hits();
+    try (CallSiteIndex index =
+        CallSiteIndex.loadOrBuild(srcRoot, tmp.resolve("index"), config, 1)) {
+      assertEquals(2, index.callersOf(ADD_KEY).size());
+      assertEquals(4, index.resolvedCalls() + index.matchedCalls());
+    }
+    // each add(int, int) is called twice from the same type, and resolved once for both
+    assertTrue(ResolverPool.shared().hits() > hits);
+  }
+
+  @Test
+  void indexIsReusedUntilSourcesChange(@TempDir Path tmp) throws Exception {
+    Path srcRoot = tmp.resolve("src");
+    Path indexDir = tmp.resolve("index");
+    writeSources(srcRoot);
+
+    Path first;
+    try (CallSiteIndex index =
+        CallSiteIndex.loadOrBuild(srcRoot, indexDir, unresolvedConfig(), 2)) {
+      assertTrue(index.builtThisRun());
+      first = index.file();
+    }
+    try (CallSiteIndex index =
+        CallSiteIndex.loadOrBuild(srcRoot, indexDir, unresolvedConfig(), 2)) {
+      assertFalse(index.builtThisRun());
+      assertEquals(first, index.file());
+    }
+
+    Path main = srcRoot.resolve("com/example/Main.java");
+    Files.writeString(main, Files.readString(main).replace("MathUtils.add(r, 1)", "r"));
+    try (CallSiteIndex index =
+        CallSiteIndex.loadOrBuild(srcRoot, indexDir, unresolvedConfig(), 2)) {
+      assertTrue(index.builtThisRun());
+      assertEquals(2, index.callersOf(ADD_KEY).size());
+    }
+  }
+
+  @Test
+  void binaryIndexRendersLikeJsonIndex(@TempDir Path tmp) throws Exception {
+    Path srcRoot = tmp.resolve("src");
+    writeSources(srcRoot);
+
+    Path binary;
+    try (CallSiteIndex index =
+        CallSiteIndex.loadOrBuild(srcRoot, tmp.resolve("index"), unresolvedConfig(), 1)) {
+      binary = index.file();
+    }
+
+    Path json = tmp.resolve("callsites.json");
+    Files.writeString(
+        json,
+        """
+        {
+          "com.example.MathUtils#add(int,int):int" : [
+            {
+              "callerKey" : "com.example.Main#main(String[]):void",
+              "callerJavadoc" : "Entry point that exercises MathUtils.",
+              "callSite" : "x"
+            },
+            {
+              "callerKey" : "com.example.MathUtils#add(int,int,int):int",
+              "callerJavadoc" : "",
+              "callSite" : "y"
+            }
+          ]
+        }
+        """);
+
+    assertEquals(
+        ContextUtils.extractCallSiteContext(addPoint(), srcRoot, json.toString()),
+        ContextUtils.extractCallSiteContext(addPoint(), srcRoot, binary.toString()));
+  }
+}
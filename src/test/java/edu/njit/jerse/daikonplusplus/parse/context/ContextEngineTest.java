@@ -0,0 +1,173 @@
+package edu.njit.jerse.daikonplusplus.parse.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.njit.jerse.daikonplusplus.model.ProgramElementId;
+import edu.njit.jerse.daikonplusplus.model.ProgramPoint;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointImpl;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifies that {@link ContextEngine} shares one bundle between the ENTRY and EXIT points of a
+ * method and renders exactly what the individual {@link ContextUtils} extractors produce.
+ */
+public class ContextEngineTest {
+
+  private static ProgramPoint point(String desc, ProgramPointKind kind) {
+    var id =
+        ProgramElementId.forMethod("com.example", "Counter", "", "com/example/Counter.java", desc);
+    return new ProgramPointImpl(id, kind);
+  }
+
+  private static void writeSources(Path srcRoot) throws IOException {
+    Path pkgDir = srcRoot.resolve("com/example");
+    Files.createDirectories(pkgDir);
+
+    Files.writeString(
+        pkgDir.resolve("Counter.java"),
+        """
+        package com.example;
+
+        /** A simple counter. */
+        public class Counter {
+          private int count;
+
+          /**
+           * Adds a delta to the counter.
+           *
+           * @param delta amount to add
+           * @return the new count
+           */
+          public int add(int delta) {
+            count += delta;
+            return count;
+          }
+
+          public void reset() {
+            count = 0;
+          }
+        }
+        """);
+  }
+
+  @Test
+  void entryAndExitShareOneBundle(@TempDir Path srcRoot) throws Exception {
+    writeSources(srcRoot);
+    ContextEngine engine = new ContextEngine(EnumSet.allOf(ContextKind.class), null, null);
+
+    ProgramPoint entry = point("add(int):int", ProgramPointKind.METHOD_ENTRY);
+    ProgramPoint exit = point("add(int):int", ProgramPointKind.METHOD_EXIT);
+
+    MethodContextBundle first = engine.bundleFor(entry, srcRoot);
+    MethodContextBundle second = engine.bundleFor(exit, srcRoot);
+
+    assertSame(first, second);
+    assertEquals(1, engine.bundlesBuilt());
+    assertEquals(1, engine.bundlesReused());
+    assertEquals(1, engine.filesParsed());
+  }
+
+  @Test
+  void contextMatchesIndividualExtractors(@TempDir Path srcRoot) throws Exception {
+    writeSources(srcRoot);
+    ContextEngine engine = new ContextEngine(EnumSet.allOf(ContextKind.class), null, null);
+
+    for (ProgramPointKind kind : ProgramPointKind.values()) {
+      ProgramPoint pt = point("add(int):int", kind);
+      ExtractedContext ctx = engine.extract(pt, srcRoot);
+
+      assertEquals(ContextUtils.extractScope(pt, srcRoot), ctx.inScope);
+      assertEquals(ContextUtils.extractMethodBodyRaw(pt, srcRoot).orElse(""), ctx.methodBody);
+      assertEquals(ContextUtils.extractMethodJavadoc(pt, srcRoot).orElse(""), ctx.methodJavadoc);
+      assertEquals(ContextUtils.extractClassDocumentation(pt, srcRoot).orElse(""), ctx.classDoc);
+      assertEquals(ContextUtils.extractTypeDocumentation(pt, srcRoot).orElse(""), ctx.typeDoc);
+      assertEquals(
+          ContextUtils.extractCalleeDocumentation(pt, srcRoot).orElse(""), ctx.calleeDoc);
+    }
+  }
+
+  @Test
+  void exitScopeAddsResultUnlessVoid(@TempDir Path srcRoot) throws Exception {
+    writeSources(srcRoot);
+    ContextEngine engine = new ContextEngine(EnumSet.allOf(ContextKind.class), null, null);
+
+    assertEquals(
+        Map.of("delta", "int"),
+        engine.extract(point("add(int):int", ProgramPointKind.METHOD_ENTRY), srcRoot).inScope);
+    assertEquals(
+        Map.of("delta", "int", "result", "int"),
+        engine.extract(point("add(int):int", ProgramPointKind.METHOD_EXIT), srcRoot).inScope);
+    assertEquals(
+        Map.of(),
+        engine.extract(point("reset():void", ProgramPointKind.METHOD_EXIT), srcRoot).inScope);
+
+    // both methods of the file were served from a single parse
+    assertEquals(1, engine.filesParsed());
+  }
+
+  @Test
+  void fileIsReleasedOnceExpectedMethodsHaveBundles(@TempDir Path srcRoot) throws Exception {
+    writeSources(srcRoot);
+    ProgramPoint entry = point("add(int):int", ProgramPointKind.METHOD_ENTRY);
+    ProgramPoint exit = point("add(int):int", ProgramPointKind.METHOD_EXIT);
+
+    // reset() has no points, so the file is not held for it
+    ContextEngine engine = new ContextEngine(EnumSet.allOf(ContextKind.class), null, null);
+    engine.expect(List.of(entry, exit), srcRoot);
+    engine.extract(entry, srcRoot);
+    assertEquals(0, engine.filesHeld());
+    engine.extract(exit, srcRoot);
+    assertEquals(1, engine.filesParsed());
+
+    // without expected points the file waits for every method
+    ContextEngine unannounced = new ContextEngine(EnumSet.allOf(ContextKind.class), null, null);
+    unannounced.extract(entry, srcRoot);
+    assertEquals(1, unannounced.filesHeld());
+    unannounced.releaseFiles();
+    assertEquals(0, unannounced.filesHeld());
+  }
+
+  @Test
+  void disabledKindsAreLeftEmpty(@TempDir Path srcRoot) throws Exception {
+    writeSources(srcRoot);
+    ContextEngine engine = new ContextEngine(EnumSet.of(ContextKind.METHOD_JAVADOC), null, null);
+
+    ExtractedContext ctx =
+        engine.extract(point("add(int):int", ProgramPointKind.METHOD_ENTRY), srcRoot);
+
+    assertEquals("", ctx.methodBody);
+    assertEquals("", ctx.classDoc);
+    assertEquals(
+        ContextUtils.extractMethodJavadoc(
+                point("add(int):int", ProgramPointKind.METHOD_ENTRY), srcRoot)
+            .orElse(""),
+        ctx.methodJavadoc);
+  }
+
+  @Test
+  void parseFailureIsReportedToEveryPoint(@TempDir Path srcRoot) throws Exception {
+    Path pkgDir = srcRoot.resolve("com/example");
+    Files.createDirectories(pkgDir);
+    Files.writeString(pkgDir.resolve("Counter.java"), "package com.example; class Counter {");
+
+    ContextEngine engine = new ContextEngine(EnumSet.allOf(ContextKind.class), null, null);
+
+    assertThrows(
+        RuntimeException.class,
+        () -> engine.extract(point("add(int):int", ProgramPointKind.METHOD_ENTRY), srcRoot));
+    assertThrows(
+        RuntimeException.class,
+        () -> engine.extract(point("add(int):int", ProgramPointKind.METHOD_EXIT), srcRoot));
+    assertEquals(0, engine.filesParsed());
+  }
+}
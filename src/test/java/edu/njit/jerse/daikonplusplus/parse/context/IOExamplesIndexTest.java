@@ -0,0 +1,104 @@
+package edu.njit.jerse.daikonplusplus.parse.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.njit.jerse.daikonplusplus.model.ProgramElementId;
+import edu.njit.jerse.daikonplusplus.model.ProgramPoint;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointImpl;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
+import edu.njit.jerse.daikonplusplus.util.SortedKeyFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifies that {@link IOExamplesIndex} converts a JSON examples index into a binary sidecar,
+ * decodes records lazily, and renders exactly the same context as the JSON it was built from.
+ */
+public class IOExamplesIndexTest {
+
+  private static final String ADD_KEY = "com.example.MathUtils#add(int,int):int";
+
+  private static final String JSON =
+      """
+      {
+        "com.example.MathUtils#add(int,int):int" : [
+          { "args": { "b": "5", "a": "3" }, "return": 8 },
+          { "args": "not-a-map", "return": "skipped" },
+          { "args": { "a": "-1", "b": "2" }, "return": 1.5 },
+          { "args": { "a": "0", "b": "0" }, "return": null }
+        ],
+        "com.example.Other#none():void" : [],
+        "com.example.Other#nothing():void" : null
+      }
+      """;
+
+  private static ProgramPoint addPoint() {
+    var id =
+        ProgramElementId.forMethod(
+            "com.example", "MathUtils", "", "com/example/MathUtils.java", "add(int,int):int");
+    return new ProgramPointImpl(id, ProgramPointKind.METHOD_ENTRY);
+  }
+
+  @Test
+  void convertedIndexDecodesRecordsInOrder(@TempDir Path dir) throws Exception {
+    Path json = dir.resolve("io.json");
+    Files.writeString(json, JSON);
+    Path bin = dir.resolve("io.dpidx");
+    IOExamplesIndex.convert(json, bin);
+
+    try (IOExamplesIndex index = IOExamplesIndex.open(bin)) {
+      Iterator<Map<String, Object>> it = index.examplesOf(ADD_KEY).iterator();
+      assertEquals(Map.of("b", "5", "a", "3"), it.next().get("args"));
+      assertEquals("not-a-map", it.next().get("args"));
+      assertEquals(1.5, it.next().get("return"));
+      assertTrue(it.hasNext());
+
+      assertNull(index.examplesOf("com.example.Other#none():void"));
+      assertNull(index.examplesOf("com.example.Other#nothing():void"));
+      assertNull(index.examplesOf("com.example.Missing#m():void"));
+    }
+  }
+
+  @Test
+  void sidecarRendersLikeJsonAndIsRefreshedWhenJsonChanges(@TempDir Path dir) throws Exception {
+    Path json = dir.resolve("io.json");
+    Files.writeString(json, JSON);
+
+    String expected =
+        "Example 1: b=5, a=3 -> return=8\n"
+            + "Example 2: a=-1, b=2 -> return=1.5\n"
+            + "Example 3: a=0, b=0 -> return=null";
+    assertEquals(
+        expected, ContextUtils.extractIOExamples(addPoint(), dir, json.toString()).orElseThrow());
+
+    Path sidecar = dir.resolve("io.json" + IOExamplesIndex.SIDECAR_SUFFIX);
+    assertTrue(SortedKeyFile.isSortedKeyFile(sidecar));
+    // a binary index can also be configured directly
+    assertEquals(
+        expected,
+        ContextUtils.extractIOExamples(addPoint(), dir, sidecar.toString()).orElseThrow());
+
+    Files.writeString(json, JSON.replace("\"return\": 8", "\"return\": 9"));
+    Files.setLastModifiedTime(json, FileTime.from(Instant.now().plusSeconds(5)));
+    try (IOExamplesIndex index = IOExamplesIndex.openConverted(json)) {
+      assertEquals(9, index.examplesOf(ADD_KEY).iterator().next().get("return"));
+    }
+  }
+
+  @Test
+  void malformedJsonFallsBackToTheInMemoryReader(@TempDir Path dir) throws Exception {
+    Path json = dir.resolve("io.json");
+    // an example that is not an object makes the whole file unusable, as before
+    Files.writeString(json, "{ \"" + ADD_KEY + "\" : [ 42 ] }");
+
+    assertTrue(ContextUtils.extractIOExamples(addPoint(), dir, json.toString()).isEmpty());
+  }
+}
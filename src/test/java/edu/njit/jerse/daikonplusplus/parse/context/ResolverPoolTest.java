@@ -0,0 +1,119 @@
+package edu.njit.jerse.daikonplusplus.parse.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies the memoization, timeout and rejection behavior of {@link ResolverPool}.
+ */
+public class ResolverPoolTest {
+
+  @Test
+  void keyedResolutionsAreMemoized() {
+    ResolverPool pool = new ResolverPool(2, 16);
+    AtomicInteger calls = new AtomicInteger();
+
+    Optional<String> first = pool.resolve("k", () -> "v" + calls.incrementAndGet(), 1000);
+    Optional<String> second = pool.resolve("k", () -> "v" + calls.incrementAndGet(), 1000);
+
+    assertEquals(Optional.of("v1"), first);
+    assertEquals(Optional.of("v1"), second);
+    assertEquals(1, calls.get());
+    assertEquals(1, pool.hits());
+    assertEquals(1, pool.misses());
+  }
+
+  @Test
+  void failuresAreMemoizedButTimeoutsAreNot() {
+    ResolverPool pool = new ResolverPool(2, 16);
+    AtomicInteger calls = new AtomicInteger();
+
+    pool.resolve(
+        "fail",
+        () -> {
+          calls.incrementAndGet();
+          throw new IllegalStateException("unsolved");
+        },
+        1000);
+    assertEquals(Optional.empty(), pool.resolve("fail", () -> "late", 1000));
+    assertEquals(1, calls.get());
+    assertEquals(1, pool.failures());
+
+    Optional<String> slow =
+        pool.resolve(
+            "slow",
+            () -> {
+              Thread.sleep(500);
+              return "slow";
+            },
+            20);
+    assertEquals(Optional.empty(), slow);
+    assertEquals(1, pool.timeouts());
+    assertEquals(Optional.of("fast"), pool.resolve("slow", () -> "fast", 1000));
+  }
+
+  @Test
+  void expiredTasksAreNotMemoized() {
+    // room for every abandoned task, so that no submission is rejected
+    ResolverPool pool = new ResolverPool(1, 64);
+
+    // the deadline has passed before the task is dequeued, so it either times out or expires
+    for (int i = 0; i < 20; i++) {
+      assertEquals(Optional.empty(), pool.resolve("k", () -> "early", 0));
+    }
+    assertEquals(0, pool.failures());
+    assertEquals(Optional.of("v"), pool.resolve("k", () -> "v", 1000));
+  }
+
+  @Test
+  void cacheIsClearable() {
+    ResolverPool pool = new ResolverPool(2, 16);
+    pool.resolve("k", () -> "v", 1000);
+    assertEquals(1, pool.cached());
+
+    pool.clearCache();
+    assertEquals(0, pool.cached());
+    assertEquals(Optional.of("w"), pool.resolve("k", () -> "w", 1000));
+  }
+
+  @Test
+  void fullQueueRejectsAndTimedOutTasksNeverRun() throws Exception {
+    ResolverPool pool = new ResolverPool(1, 1);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger ran = new AtomicInteger();
+
+    // occupy the only worker
+    Thread blocker =
+        new Thread(
+            () ->
+                pool.run(
+                    () -> {
+                      started.countDown();
+                      release.await(5, TimeUnit.SECONDS);
+                      return null;
+                    },
+                    2000));
+    blocker.start();
+    started.await(5, TimeUnit.SECONDS);
+
+    // queued behind the busy worker; the caller gives up after 10ms but the task stays queued
+    assertEquals(Optional.empty(), pool.run(ran::incrementAndGet, 10));
+    // the queue is now full, so new work is rejected immediately
+    assertEquals(Optional.empty(), pool.run(ran::incrementAndGet, 10));
+
+    release.countDown();
+    blocker.join();
+    Thread.sleep(100);
+
+    // the timed-out task was withdrawn and never ran once the worker freed up
+    assertEquals(1, pool.timeouts());
+    assertEquals(1, pool.rejected());
+    assertEquals(0, ran.get());
+  }
+}
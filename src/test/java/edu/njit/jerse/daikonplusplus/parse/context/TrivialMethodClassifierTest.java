@@ -0,0 +1,140 @@
+package edu.njit.jerse.daikonplusplus.parse.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import edu.njit.jerse.daikonplusplus.model.ProgramElementId;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointImpl;
+import edu.njit.jerse.daikonplusplus.model.ProgramPointKind;
+import edu.njit.jerse.daikonplusplus.parse.context.TrivialMethodClassifier.Shape;
+import edu.njit.jerse.daikonplusplus.parse.context.TrivialMethodClassifier.TrivialMethod;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifies that {@link TrivialMethodClassifier} recognizes the shapes of trivial methods with
+ * their templates, and leaves every other method to the LLM.
+ */
+public class TrivialMethodClassifierTest {
+
+  private static final String SOURCE =
+      """
+      package com.example;
+
+      public class Account {
+        private String owner;
+        private double balance;
+        private Double limit;
+        private static int count;
+        private final Ledger ledger = new Ledger();
+
+        public String getOwner() { return owner; }
+        public double getBalance() { return this.balance; }
+        public Double getLimit() { return limit; }
+        public static int getCount() { return count; }
+        public void setOwner(String owner) { this.owner = owner; }
+        public static void setCount(int count) { Account.count = count; }
+        public void close() {}
+        public boolean isOpen() { return true; }
+        public int version() { return 3; }
+        public void post(double amount) { ledger.add(amount, 1); }
+        public String describe(Object o) { return o.toString(); }
+        public int twice() { return count * 2; }
+        public void deposit(double amount) { balance += amount; }
+        public void log(String s) { ledger.add(s.length(), 1); }
+        public Runnable task() {
+          return new Runnable() {
+            public void run() {}
+          };
+        }
+      }
+      """;
+
+  private static MethodDeclaration method(CompilationUnit cu, String name) {
+    return cu.findFirst(MethodDeclaration.class, m -> m.getNameAsString().equals(name))
+        .orElseThrow();
+  }
+
+  private static void assertTrivial(
+      CompilationUnit cu, String name, Shape shape, List<String> entry, List<String> exit) {
+    TrivialMethod trivial = TrivialMethodClassifier.classify(method(cu, name));
+    assertEquals(new TrivialMethod(shape, entry, exit), trivial, name);
+  }
+
+  @Test
+  void shapesAreRecognizedWithTheirTemplates() {
+    CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+
+    assertTrivial(cu, "getOwner", Shape.GETTER, List.of(), List.of("result == this.owner"));
+    assertTrivial(
+        cu,
+        "getBalance",
+        Shape.GETTER,
+        List.of(),
+        List.of("Double.compare(result, this.balance) == 0"));
+    assertTrivial(
+        cu,
+        "getLimit",
+        Shape.GETTER,
+        List.of(),
+        List.of("java.util.Objects.equals(result, this.limit)"));
+    assertTrivial(cu, "getCount", Shape.GETTER, List.of(), List.of("result == Account.count"));
+    assertTrivial(cu, "setOwner", Shape.SETTER, List.of(), List.of("this.owner == owner"));
+    assertTrivial(cu, "setCount", Shape.SETTER, List.of(), List.of("Account.count == count"));
+    assertTrivial(cu, "close", Shape.EMPTY, List.of(), List.of());
+    assertTrivial(cu, "isOpen", Shape.CONSTANT, List.of(), List.of("result"));
+    assertTrivial(cu, "version", Shape.CONSTANT, List.of(), List.of("result == 3"));
+    assertTrivial(cu, "post", Shape.DELEGATE, List.of(), List.of());
+    assertTrivial(cu, "describe", Shape.DELEGATE, List.of(), List.of());
+
+    // computed results and arguments, compound assignments and anonymous members are not trivial
+    for (String name : List.of("twice", "deposit", "log", "run")) {
+      assertNull(TrivialMethodClassifier.classify(method(cu, name)), name);
+    }
+  }
+
+  @Test
+  void pointsWithoutTemplatesAreSkippedOnlyOnRequest() {
+    CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+    TrivialMethod getter = TrivialMethodClassifier.classify(method(cu, "getOwner"));
+    TrivialMethod empty = TrivialMethodClassifier.classify(method(cu, "close"));
+
+    assertTrue(getter.answers(ProgramPointKind.METHOD_EXIT, false));
+    assertFalse(getter.answers(ProgramPointKind.METHOD_ENTRY, false));
+    assertTrue(getter.answers(ProgramPointKind.METHOD_ENTRY, true));
+    assertFalse(empty.answers(ProgramPointKind.METHOD_EXIT, false));
+    assertTrue(empty.answers(ProgramPointKind.METHOD_EXIT, true));
+  }
+
+  @TempDir Path tmp;
+
+  @Test
+  void engineRecordsTrivialMethodsOnlyWhenEnabled() throws Exception {
+    Path pkg = tmp.resolve("com/example");
+    Files.createDirectories(pkg);
+    Files.writeString(pkg.resolve("Account.java"), SOURCE);
+    var point =
+        new ProgramPointImpl(
+            ProgramElementId.forMethod(
+                "com.example", "Account", "", "com/example/Account.java", "getOwner():String"),
+            ProgramPointKind.METHOD_EXIT);
+
+    var enabled = new ContextEngine(EnumSet.noneOf(ContextKind.class), null, null, true);
+    ExtractedContext ctx = enabled.extract(point, tmp);
+    assertEquals(Shape.GETTER, ctx.trivial.shape());
+    assertEquals(List.of("result == this.owner"), ctx.trivial.at(ProgramPointKind.METHOD_EXIT));
+    assertEquals(List.of(), ctx.trivial.at(ProgramPointKind.METHOD_ENTRY));
+
+    var disabled = new ContextEngine(EnumSet.noneOf(ContextKind.class), null, null);
+    assertNull(disabled.extract(point, tmp).trivial);
+  }
+}
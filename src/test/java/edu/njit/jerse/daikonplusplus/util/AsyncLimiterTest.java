@@ -0,0 +1,124 @@
+package edu.njit.jerse.daikonplusplus.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that {@link AsyncLimiter} never exceeds its limit, starts queued operations as slots
+ * free up, and reacts to limit changes.
+ */
+public class AsyncLimiterTest {
+
+  @Test
+  void queuedOperationsStartWhenSlotsFree() {
+    AsyncLimiter limiter = new AsyncLimiter(2);
+    List<CompletableFuture<Integer>> calls = new ArrayList<>();
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      results.add(
+          limiter.submit(
+              () -> {
+                CompletableFuture<Integer> call = new CompletableFuture<>();
+                calls.add(call);
+                return call;
+              }));
+    }
+
+    assertEquals(2, calls.size());
+    assertEquals(2, limiter.inFlight());
+
+    calls.get(0).complete(0);
+    assertEquals(3, calls.size());
+    assertEquals(0, results.get(0).join().intValue());
+
+    for (int i = 1; i < 5; i++) calls.get(i).complete(i);
+    assertEquals(5, calls.size());
+    assertEquals(0, limiter.inFlight());
+    assertEquals(2, limiter.maxObserved());
+    assertEquals(4, results.get(4).join().intValue());
+  }
+
+  @Test
+  void raisingTheLimitStartsQueuedOperations() {
+    AsyncLimiter limiter = new AsyncLimiter(1);
+    List<CompletableFuture<String>> calls = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      limiter.submit(
+          () -> {
+            CompletableFuture<String> call = new CompletableFuture<>();
+            calls.add(call);
+            return call;
+          });
+    }
+    assertEquals(1, calls.size());
+
+    limiter.setLimit(3);
+    assertEquals(3, calls.size());
+    assertEquals(3, limiter.inFlight());
+  }
+
+  @Test
+  void failuresReleaseTheirSlot() {
+    AsyncLimiter limiter = new AsyncLimiter(1);
+    CompletableFuture<String> failed =
+        limiter.submit(() -> CompletableFuture.failedFuture(new IllegalStateException("boom")));
+    CompletableFuture<String> thrown =
+        limiter.submit(
+            () -> {
+              throw new IllegalStateException("boom");
+            });
+
+    assertTrue(failed.isCompletedExceptionally());
+    assertTrue(thrown.isCompletedExceptionally());
+    assertEquals("ok", limiter.submit(() -> CompletableFuture.completedFuture("ok")).join());
+    assertEquals(0, limiter.inFlight());
+  }
+
+  @Test
+  void longQueueOfSynchronousOperationsDrainsIteratively() {
+    AsyncLimiter limiter = new AsyncLimiter(1);
+    CompletableFuture<Integer> gate = new CompletableFuture<>();
+    limiter.submit(() -> gate);
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 100_000; i++) {
+      int n = i;
+      results.add(limiter.submit(() -> CompletableFuture.completedFuture(n)));
+    }
+
+    gate.complete(-1);
+    assertEquals(99_999, results.get(99_999).join().intValue());
+    assertEquals(0, limiter.inFlight());
+  }
+
+  @Test
+  void cancellationReachesRunningAndQueuedOperations() {
+    AsyncLimiter limiter = new AsyncLimiter(1);
+    List<CompletableFuture<Integer>> calls = new ArrayList<>();
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      results.add(
+          limiter.submit(
+              () -> {
+                CompletableFuture<Integer> call = new CompletableFuture<>();
+                calls.add(call);
+                return call;
+              }));
+    }
+
+    // the queued operation is dropped, the running one is cancelled and frees its slot
+    results.get(1).cancel(true);
+    results.get(0).cancel(true);
+    assertTrue(calls.get(0).isCancelled());
+    assertEquals(2, calls.size());
+    assertEquals(1, limiter.inFlight());
+
+    calls.get(1).complete(2);
+    assertEquals(2, results.get(2).join().intValue());
+    assertEquals(0, limiter.inFlight());
+  }
+}
@@ -0,0 +1,68 @@
+package edu.njit.jerse.daikonplusplus.util;
+
+import static edu.njit.jerse.daikonplusplus.util.ExpressionCanonicalizer.canonical;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that {@link ExpressionCanonicalizer} gives spellings of one condition the same key,
+ * and keeps the structure of expressions that differ.
+ */
+public class ExpressionCanonicalizerTest {
+
+  private static void assertSameKey(String expected, List<String> spellings) {
+    for (String s : spellings) assertEquals(expected, canonical(s), s);
+  }
+
+  @Test
+  void spellingsOfOneConditionShareAKey() {
+    assertSameKey("a >= 0", List.of("a >= 0", "0 <= a", "(a >= 0)", "!!(a >= 0)"));
+    assertSameKey("x > -1", List.of("-1 < x", "(x) > -1"));
+    assertSameKey("a == b", List.of("b == a", "!(a != b)"));
+    assertSameKey(
+        "a != null && b > 0",
+        List.of("b > 0 && a != null", "(a != null) && (0 < b)", "a != null && b > 0 && a != null"));
+    assertSameKey(
+        "!(a >= 0) || !c || b == null",
+        List.of("!(a >= 0 && b != null && c)", "b == null || !c || !(0 <= a)"));
+    assertSameKey("this.items.size() >= 0", List.of("0 <= (this.items).size()"));
+  }
+
+  @Test
+  void structureIsKept() {
+    assertEquals("(a + b) * c", canonical("((a + b)) * c"));
+    assertNotEquals(canonical("(a + b) * c"), canonical("a + b * c"));
+    assertEquals("a - (b - c)", canonical("a - (b - c)"));
+    assertEquals("a - b - c", canonical("(a - b) - c"));
+    assertEquals("(a || b) && c", canonical("c && (b || a)"));
+    assertEquals("!s.isEmpty()", canonical("!(s.isEmpty())"));
+    assertEquals("((Object) o).hashCode() == h", canonical("h == ((Object) o).hashCode()"));
+  }
+
+  @Test
+  void guardsStayBeforeWhatTheyGuard() {
+    assertNotEquals(canonical("o != null && o.f() > 0"), canonical("o.f() > 0 && o != null"));
+    assertNotEquals(canonical("i < a.length || a[i] == 0"), canonical("a[i] == 0 || i < a.length"));
+    // operands that cannot throw are still sorted around the one that can
+    assertEquals(
+        "a > 0 && o != null && o.f() > 0 && b > 0",
+        canonical("o != null && 0 < a && o.f() > 0 && b > 0"));
+  }
+
+  @Test
+  void orderingIsNotComplementedForPossibleNaN() {
+    // with a == NaN, !(a < 0) holds while a >= 0 does not
+    assertNotEquals(canonical("a >= 0"), canonical("!(a < 0)"));
+    assertEquals("!(a < 0)", canonical("!(0 > a)"));
+    // equality keeps its complement, which NaN does not break
+    assertEquals("a != 0.0", canonical("!(a == 0.0)"));
+  }
+
+  @Test
+  void unparseableTextKeepsCollapsedWhitespace() {
+    assertEquals("not a java ) expression", canonical("  not a   java )\texpression "));
+  }
+}
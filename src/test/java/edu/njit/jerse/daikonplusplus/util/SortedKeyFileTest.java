@@ -0,0 +1,86 @@
+package edu.njit.jerse.daikonplusplus.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Verifies the on-disk layout, lookups and atomic publishing of {@link SortedKeyFile}. */
+public class SortedKeyFileTest {
+
+  private static byte[] utf8(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void lookupsFindEveryKeyInSortedOrder(@TempDir Path dir) throws Exception {
+    Path file = dir.resolve("data.dpsk");
+    try (SortedKeyFile.Writer w = SortedKeyFile.writer(file, "meta-1")) {
+      w.put("b.Beta", utf8("beta"));
+      w.put("a.Alpha", utf8("alpha"));
+      w.put("a.Alpha$Inner", utf8(""));
+      w.put("été", utf8("summer"));
+      w.commit();
+    }
+
+    try (SortedKeyFile f = SortedKeyFile.open(file)) {
+      assertEquals(4, f.size());
+      assertEquals("meta-1", f.meta());
+      assertEquals("a.Alpha", f.keyAt(0));
+      assertEquals("a.Alpha$Inner", f.keyAt(1));
+      assertEquals("b.Beta", f.keyAt(2));
+      assertEquals("été", f.keyAt(3));
+
+      assertArrayEquals(utf8("alpha"), f.getBytes("a.Alpha"));
+      assertArrayEquals(utf8("beta"), f.getBytes("b.Beta"));
+      assertArrayEquals(new byte[0], f.getBytes("a.Alpha$Inner"));
+      assertArrayEquals(utf8("summer"), f.getBytes("été"));
+      assertNull(f.getBytes("a.Alph"));
+      assertFalse(f.get("c.Gamma").isPresent());
+    }
+    assertTrue(SortedKeyFile.isSortedKeyFile(file));
+  }
+
+  @Test
+  void duplicateKeysAreRejectedAndNothingIsPublished(@TempDir Path dir) throws Exception {
+    Path file = dir.resolve("dup.dpsk");
+    try (SortedKeyFile.Writer w = SortedKeyFile.writer(file, "")) {
+      w.put("k", utf8("1"));
+      w.put("k", utf8("2"));
+      assertThrows(IllegalArgumentException.class, w::commit);
+    }
+
+    assertFalse(Files.exists(file));
+    try (var left = Files.list(dir)) {
+      assertEquals(0, left.count());
+    }
+  }
+
+  @Test
+  void uncommittedWriterLeavesPreviousFileInPlace(@TempDir Path dir) throws Exception {
+    Path file = dir.resolve("data.dpsk");
+    try (SortedKeyFile.Writer w = SortedKeyFile.writer(file, "v1")) {
+      w.put("k", utf8("old"));
+      w.commit();
+    }
+    try (SortedKeyFile.Writer w = SortedKeyFile.writer(file, "v2")) {
+      w.put("k", utf8("new"));
+    }
+
+    try (SortedKeyFile f = SortedKeyFile.open(file)) {
+      assertEquals("v1", f.meta());
+      assertArrayEquals(utf8("old"), f.getBytes("k"));
+    }
+    Path other = dir.resolve("plain.txt");
+    Files.writeString(other, "not an index");
+    assertFalse(SortedKeyFile.isSortedKeyFile(other));
+  }
+}